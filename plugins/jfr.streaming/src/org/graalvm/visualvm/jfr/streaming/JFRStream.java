@@ -45,18 +45,25 @@ import org.graalvm.visualvm.tools.jmx.JmxModelFactory;
  */
 public class JFRStream {
 
+    // first release with FlightRecorderMXBean support for RemoteRecordingStream
+    private static final int MIN_STREAMING_VERSION = 16;
+
     private final RemoteRecordingStream rs;
 
     public static JFRStream getFor(Application app) throws IOException {
+        if (isSupported(app)) {
+            return new JFRStream(JmxModelFactory.getJmxModelFor(app));
+        }
+        return null;
+    }
+
+    public static boolean isSupported(Application app) {
         Jvm jvm = JvmFactory.getJVMFor(app);
-        String ver = jvm.getJavaVersion();
-        if (isJavaVersion(ver, "17") || isJavaVersion(ver, "18") || isJavaVersion(ver, "19")) {
+        if (getFeatureVersion(jvm.getJavaVersion()) >= MIN_STREAMING_VERSION) {
             JmxModel jmxModel = JmxModelFactory.getJmxModelFor(app);
-            if (jmxModel != null && jmxModel.getConnectionState() == JmxModel.ConnectionState.CONNECTED) {
-                return new JFRStream(jmxModel);
-            }
+            return jmxModel != null && jmxModel.getConnectionState() == JmxModel.ConnectionState.CONNECTED;
         }
-        return null;
+        return false;
     }
 
     private JFRStream(JmxModel jmx) throws IOException {
@@ -127,19 +134,25 @@ public class JFRStream {
         }
     }
 
-    private static final boolean isJavaVersion(String javaVersionProperty, String releaseVersion) {
-        if (javaVersionProperty.equals(releaseVersion)) {
-            return true;
+    private static int getFeatureVersion(String javaVersionProperty) {
+        if (javaVersionProperty == null) {
+            return -1;
         }
-        if (javaVersionProperty.equals(releaseVersion + "-ea")) {
-            return true;
+        String version = javaVersionProperty;
+        if (version.startsWith("1.")) {   // NOI18N
+            version = version.substring(2);
         }
-        if (javaVersionProperty.equals(releaseVersion + "-internal")) {
-            return true;
+        int end = 0;
+        while (end < version.length() && Character.isDigit(version.charAt(end))) {
+            end++;
         }
-        if (javaVersionProperty.startsWith(releaseVersion + ".")) {
-            return true;
+        if (end == 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(version.substring(0, end));
+        } catch (NumberFormatException ex) {
+            return -1;
         }
-        return false;
     }
 }
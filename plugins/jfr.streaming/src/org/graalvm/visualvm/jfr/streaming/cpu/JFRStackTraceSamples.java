@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.jfr.streaming.cpu;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import org.graalvm.visualvm.application.Application;
+import org.graalvm.visualvm.jfr.streaming.JFRStream;
+import org.graalvm.visualvm.sampler.spi.StackTraceSamplesProvider;
+
+/**
+ * Stack trace samples from jdk.ExecutionSample and jdk.NativeMethodSample
+ * events. JFR samples just a few threads in each period, the other threads
+ * are reported with their last sampled stack, same as for JFR snapshots.
+ *
+ * @author agent
+ */
+class JFRStackTraceSamples implements StackTraceSamplesProvider.StackTraceSamples {
+
+    private static final Logger LOGGER = Logger.getLogger(JFRStackTraceSamples.class.getName());
+
+    private static final String JFR_EXECUTION_SAMPLE = "jdk.ExecutionSample"; // NOI18N
+    private static final String JFR_NATIVE_METHOD_SAMPLE = "jdk.NativeMethodSample"; // NOI18N
+    private static final String JFR_THREAD_END = "jdk.ThreadEnd"; // NOI18N
+
+    private static final String THREAD_ID = "tid"; // NOI18N
+    private static final String THREAD_STACK = "stack"; // NOI18N
+
+    private final Application application;
+    private JFRStream recordingStream;
+
+    // accessed in the stream thread only
+    private final List<JFRSample> pendingSamples = new ArrayList<>();
+    private final Map<Long, Map<String, Object>> threads = new HashMap<>();
+    private StackTraceSamplesProvider.SamplesListener listener;
+    private long samplingPeriod;
+    private long lastTimestamp;
+
+    JFRStackTraceSamples(Application app) {
+        application = app;
+    }
+
+    @Override
+    public synchronized boolean start(int samplingRate, StackTraceSamplesProvider.SamplesListener l) {
+        stop();
+        JFRStream rs = null;
+        try {
+            rs = JFRStream.getFor(application);
+            if (rs == null) {
+                LOGGER.log(Level.INFO, "JFR streaming not available for {0}", application); // NOI18N
+                return false;
+            }
+            Duration period = Duration.ofMillis(samplingRate);
+            reset(period.toNanos(), l);
+            rs.enable(JFR_EXECUTION_SAMPLE).withPeriod(period).withStackTrace();
+            rs.enable(JFR_NATIVE_METHOD_SAMPLE).withPeriod(period).withStackTrace();
+            rs.enable(JFR_THREAD_END);
+            rs.onEvent(JFR_EXECUTION_SAMPLE, sample());
+            rs.onEvent(JFR_NATIVE_METHOD_SAMPLE, sample());
+            rs.onEvent(JFR_THREAD_END, threadEnd());
+            rs.onFlush(this::flush);
+            rs.startAsync();
+            recordingStream = rs;
+            return true;
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to start JFR CPU sampling of " + application, ex); // NOI18N
+            if (rs != null) {
+                rs.close();
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+
+    private Consumer<RecordedEvent> sample() {
+        return (RecordedEvent e) -> {
+            RecordedThread thread = e.getThread("sampledThread"); // NOI18N
+            RecordedStackTrace stack = e.getStackTrace();
+            if (thread != null && stack != null) {
+                addSample(toNanos(e.getStartTime()), getThreadInfo(thread, stack, e.getString("state"))); // NOI18N
+            }
+        };
+    }
+
+    private Consumer<RecordedEvent> threadEnd() {
+        return (RecordedEvent e) -> {
+            RecordedThread thread = e.getThread();
+            if (thread != null) {
+                addThreadEnd(toNanos(e.getStartTime()), thread.getJavaThreadId());
+            }
+        };
+    }
+
+    void reset(long samplingPeriodNanos, StackTraceSamplesProvider.SamplesListener l) {
+        pendingSamples.clear();
+        threads.clear();
+        listener = l;
+        samplingPeriod = samplingPeriodNanos;
+        lastTimestamp = 0;
+    }
+
+    void addSample(long timestamp, Map<String, Object> threadInfo) {
+        pendingSamples.add(new JFRSample(timestamp, threadInfo));
+    }
+
+    void addThreadEnd(long timestamp, long threadId) {
+        Map<String, Object> threadInfo = new HashMap<>();
+        threadInfo.put(THREAD_ID, Long.valueOf(threadId));
+        pendingSamples.add(new JFRSample(timestamp, threadInfo));
+    }
+
+    void flush() {
+        if (pendingSamples.isEmpty()) {
+            return;
+        }
+        Collections.sort(pendingSamples);
+        long groupTimestamp = -1;
+        for (JFRSample sample : pendingSamples) {
+            // samples taken in the same sampling period are reported together
+            if (groupTimestamp != -1 && sample.timestamp - groupTimestamp >= samplingPeriod / 2) {
+                fireSample(groupTimestamp);
+                groupTimestamp = -1;
+            }
+            if (sample.isThreadEnd()) {
+                threads.remove(sample.getThreadId());
+            } else {
+                threads.put(sample.getThreadId(), sample.threadInfo);
+            }
+            if (groupTimestamp == -1) {
+                groupTimestamp = sample.timestamp;
+            }
+        }
+        fireSample(groupTimestamp);
+        pendingSamples.clear();
+    }
+
+    private void fireSample(long timestamp) {
+        if (threads.isEmpty()) {
+            return;
+        }
+        // events may come out of order across flushes, keep the timestamps increasing
+        lastTimestamp = Math.max(timestamp, lastTimestamp + 1);
+        listener.samplesAdded(threads.values().toArray(new Map[0]), lastTimestamp);
+    }
+
+    private static Map<String, Object> getThreadInfo(RecordedThread thread, RecordedStackTrace stack, String state) {
+        Map<String, Object> threadInfo = new HashMap<>();
+
+        threadInfo.put(THREAD_ID, Long.valueOf(thread.getJavaThreadId()));
+        threadInfo.put(THREAD_STACK, stackTrace(stack));
+        threadInfo.put("name", thread.getJavaName()); // NOI18N
+        threadInfo.put("state", "STATE_RUNNABLE".equals(state) ? Thread.State.RUNNABLE : Thread.State.WAITING); // NOI18N
+        return threadInfo;
+    }
+
+    private static StackTraceElement[] stackTrace(RecordedStackTrace stack) {
+        List<RecordedFrame> frames = stack.getFrames();
+        StackTraceElement[] elements = new StackTraceElement[frames.size()];
+
+        for (int i = 0; i < frames.size(); i++) {
+            elements[i] = stackTraceElement(frames.get(i));
+        }
+        return elements;
+    }
+
+    private static StackTraceElement stackTraceElement(RecordedFrame frame) {
+        RecordedMethod method = frame.getMethod();
+
+        String className = method == null ? null : method.getType().getName();
+        String methodName = method == null ? null : method.getName();
+
+        if (className == null) className = "<unknown class>"; // NOI18N
+        if (methodName == null) methodName = "<unknown method>"; // NOI18N
+
+        int lineNumber = "Native".equals(frame.getType()) ? -2 : frame.getLineNumber(); // NOI18N
+
+        return new StackTraceElement(className, methodName, null, lineNumber);
+    }
+
+    private static long toNanos(Instant time) {
+        return time.getEpochSecond() * 1000000000L + time.getNano();
+    }
+
+    private static class JFRSample implements Comparable<JFRSample> {
+
+        private final long timestamp;
+        private final Map<String, Object> threadInfo;
+
+        private JFRSample(long time, Map<String, Object> info) {
+            timestamp = time;
+            threadInfo = info;
+        }
+
+        private Long getThreadId() {
+            return (Long) threadInfo.get(THREAD_ID);
+        }
+
+        private boolean isThreadEnd() {
+            return threadInfo.get(THREAD_STACK) == null;
+        }
+
+        @Override
+        public int compareTo(JFRSample o) {
+            return Long.compare(timestamp, o.timestamp);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.jfr.streaming.cpu;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.graalvm.visualvm.sampler.spi.StackTraceSamplesProvider;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests grouping the JFR samples into thread dumps.
+ *
+ * @author agent
+ */
+public class JFRStackTraceSamplesTest {
+
+    private static final long PERIOD = 10000000L; // 10 ms
+    private static final long START = 1000 * PERIOD;
+
+    private JFRStackTraceSamples samples;
+    private List<Map<String, Object>[]> dumps;
+    private List<Long> timestamps;
+
+    public JFRStackTraceSamplesTest() {
+    }
+
+    @Before
+    public void setUp() {
+        dumps = new ArrayList<>();
+        timestamps = new ArrayList<>();
+        samples = new JFRStackTraceSamples(null);
+        samples.reset(PERIOD, new StackTraceSamplesProvider.SamplesListener() {
+            @Override
+            public void samplesAdded(Map<String, Object>[] threads, long timestamp) {
+                dumps.add(threads);
+                timestamps.add(timestamp);
+            }
+        });
+    }
+
+    @Test
+    public void testGroupSamplingPeriods() {
+        // out of order, as the events of different threads arrive
+        samples.addSample(START + PERIOD + 500000, threadInfo(2, "b2")); // NOI18N
+        samples.addSample(START, threadInfo(1, "a1")); // NOI18N
+        samples.addSample(START + PERIOD, threadInfo(1, "a2")); // NOI18N
+        samples.addSample(START + 1000000, threadInfo(2, "b1")); // NOI18N
+        samples.flush();
+
+        assertEquals(2, dumps.size());
+        assertEquals(START, timestamps.get(0).longValue());
+        assertStacks(dumps.get(0), "a1", "b1"); // NOI18N
+        assertEquals(START + PERIOD, timestamps.get(1).longValue());
+        assertStacks(dumps.get(1), "a2", "b2"); // NOI18N
+    }
+
+    @Test
+    public void testKeepLastStack() {
+        samples.addSample(START, threadInfo(1, "a1")); // NOI18N
+        samples.addSample(START, threadInfo(2, "b1")); // NOI18N
+        samples.flush();
+        samples.addSample(START + PERIOD, threadInfo(1, "a2")); // NOI18N
+        samples.flush();
+
+        // the thread which was not sampled keeps its last stack
+        assertEquals(2, dumps.size());
+        assertStacks(dumps.get(1), "a2", "b1"); // NOI18N
+    }
+
+    @Test
+    public void testThreadEnd() {
+        samples.addSample(START, threadInfo(1, "a1")); // NOI18N
+        samples.addSample(START, threadInfo(2, "b1")); // NOI18N
+        samples.addThreadEnd(START + PERIOD, 2);
+        samples.flush();
+        samples.addSample(START + 2 * PERIOD, threadInfo(1, "a2")); // NOI18N
+        samples.flush();
+
+        assertEquals(3, dumps.size());
+        assertStacks(dumps.get(0), "a1", "b1"); // NOI18N
+        assertStacks(dumps.get(1), "a1"); // NOI18N
+        assertStacks(dumps.get(2), "a2"); // NOI18N
+    }
+
+    @Test
+    public void testNoThreads() {
+        samples.addSample(START, threadInfo(1, "a1")); // NOI18N
+        samples.flush();
+        samples.addThreadEnd(START + PERIOD, 1);
+        samples.flush();
+        samples.flush();
+
+        // no dump without threads
+        assertEquals(1, dumps.size());
+    }
+
+    @Test
+    public void testIncreasingTimestamps() {
+        samples.addSample(START + 2 * PERIOD, threadInfo(1, "a1")); // NOI18N
+        samples.flush();
+        // late event from an earlier period
+        samples.addSample(START + PERIOD, threadInfo(2, "b1")); // NOI18N
+        samples.flush();
+
+        assertEquals(2, dumps.size());
+        assertEquals(START + 2 * PERIOD, timestamps.get(0).longValue());
+        assertEquals(START + 2 * PERIOD + 1, timestamps.get(1).longValue());
+    }
+
+    private static Map<String, Object> threadInfo(long tid, String method) {
+        Map<String, Object> threadInfo = new HashMap<>();
+        threadInfo.put("tid", Long.valueOf(tid)); // NOI18N
+        threadInfo.put("name", "Thread " + tid); // NOI18N
+        threadInfo.put("state", Thread.State.RUNNABLE); // NOI18N
+        threadInfo.put("stack", new StackTraceElement[] { new StackTraceElement("Test", method, null, 1) }); // NOI18N
+        return threadInfo;
+    }
+
+    private static void assertStacks(Map<String, Object>[] threads, String... methods) {
+        assertEquals(methods.length, threads.length);
+        List<String> dumped = new ArrayList<>();
+        for (Map<String, Object> thread : threads) {
+            dumped.add(((StackTraceElement[])thread.get("stack"))[0].getMethodName()); // NOI18N
+        }
+        for (String method : methods) {
+            assertTrue(method, dumped.contains(method));
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.modules.tracer.impl.timeline;
+
+import java.lang.reflect.Field;
+import org.graalvm.visualvm.modules.tracer.ItemValueFormatter;
+import org.graalvm.visualvm.modules.tracer.ProbeItemDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests storing the Tracer values in chunks moved to a memory-mapped file.
+ *
+ * @author agent
+ */
+public class TimelineModelTest {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private TimelineModel model;
+    private TimelineXYItem[] items;
+
+    public TimelineModelTest() {
+    }
+
+    @Before
+    public void setUp() {
+        model = new TimelineModel();
+        items = model.createItems(new ProbeItemDescriptor[] {
+            ProbeItemDescriptor.continuousLineItem("Item 0", null, ItemValueFormatter.DEFAULT_DECIMAL), // NOI18N
+            ProbeItemDescriptor.continuousLineItem("Item 1", null, ItemValueFormatter.DEFAULT_DECIMAL)  // NOI18N
+        });
+    }
+
+    @Test
+    public void testRoundTripSpilledChunks() throws Exception {
+        int count = 4 * CHUNK_SIZE + 100;
+        for (int i = 0; i < count; i++)
+            model.addValues(10L * i, new long[] { i, -i });
+
+        // only the two most recent chunks are kept on heap
+        assertEquals(3, getHeapChunk());
+        assertEquals(count, model.getTimestampsCount());
+        for (int i = 0; i < count; i++) {
+            assertEquals(10L * i, model.getTimestamp(i));
+            assertEquals(i, items[0].getYValue(i));
+            assertEquals(-i, items[1].getYValue(i));
+        }
+    }
+
+    @Test
+    public void testChunkBoundary() throws Exception {
+        int count = 3 * CHUNK_SIZE + 1;
+        for (int i = 0; i < count; i++)
+            model.addValues(i, new long[] { i, i });
+
+        assertEquals(2, getHeapChunk());
+        for (int i = CHUNK_SIZE - 2; i < CHUNK_SIZE + 2; i++) {
+            assertEquals(i, model.getTimestamp(i));
+            assertEquals(i, items[1].getYValue(i));
+        }
+        assertEquals(count - 1, model.getTimestamp(count - 1));
+    }
+
+    @Test
+    public void testTimestampOutOfSync() {
+        model.addValues(100, new long[] { 1, 2 });
+        model.addValues(100, new long[] { 3, 4 });
+        model.addValues(50, new long[] { 5, 6 });
+
+        assertEquals(3, model.getTimestampsCount());
+        assertEquals(101, model.getTimestamp(1));
+        assertEquals(102, model.getTimestamp(2));
+        assertEquals(6, items[1].getYValue(2));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        for (int i = 0; i < 3 * CHUNK_SIZE + 1; i++)
+            model.addValues(i, new long[] { i, i });
+        model.reset();
+
+        assertEquals(0, model.getTimestampsCount());
+        assertEquals(0, getHeapChunk());
+        model.addValues(5, new long[] { 7, 8 });
+        assertEquals(5, model.getTimestamp(0));
+        assertEquals(7, items[0].getYValue(0));
+    }
+
+    private int getHeapChunk() throws Exception {
+        Field field = TimelineModel.class.getDeclaredField("heapChunk"); // NOI18N
+        field.setAccessible(true);
+        return field.getInt(model);
+    }
+
+}
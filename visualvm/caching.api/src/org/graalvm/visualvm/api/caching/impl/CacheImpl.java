@@ -31,52 +31,94 @@ import org.graalvm.visualvm.api.caching.Entry;
 import org.graalvm.visualvm.api.caching.EntryFactory;
 import org.graalvm.visualvm.api.caching.Persistor;
 import java.lang.ref.Reference;
-import java.util.HashMap;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default class implementation - should be used as a base for caching functionality
+ * <p>
+ * Lookups do not block each other, an object missing in the cache is resolved
+ * only once even if it is requested by more threads at the same time. Entries
+ * with collected keys are expunged and the number of entries is limited,
+ * least recently used entries are evicted first.
+ * </p>
  * @author Jaroslav Bachorik
  */
 final class CacheImpl<K, V> extends Cache<K,V> {
-    final private Map<Reference<K>, Entry<V>> objectCache = new HashMap<>();
+    private static final int MAX_ENTRIES = Integer.getInteger("org.graalvm.visualvm.api.caching.maxEntries", 4096); // NOI18N
 
-    private long update_interval = 60480000; // 7 days in milliseconds
+    final private ConcurrentMap<Reference<K>, CachedEntry<V>> objectCache = new ConcurrentHashMap<>();
+    final private ConcurrentMap<Reference<K>, FutureTask<Entry<V>>> pendingLoads = new ConcurrentHashMap<>();
+    final private ReferenceQueue<K> staleKeys = new ReferenceQueue<>();
+    final private Object evictionLock = new Object();
+
+    private volatile long update_interval = 60480000; // 7 days in milliseconds
+    private final int maxEntries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadTime = new AtomicLong();
 
     private Persistor<K, V> persistor = Persistor.DEFAULT;
     private KeyFactory<K> keyFactory = KeyFactory.DEFAULT;
     private EntryFactory<K,V> resolver = EntryFactory.DEFAULT;
 
-    CacheImpl() {};
+    CacheImpl() {
+        maxEntries = MAX_ENTRIES;
+    }
+
+    CacheImpl(EntryFactory<K,V> resolver, KeyFactory<K> keyFactory, int maxEntries) {
+        this.resolver = resolver;
+        this.keyFactory = keyFactory;
+        this.maxEntries = maxEntries;
+    }
 
     CacheImpl(EntryFactory<K,V> resolver) {
+        this();
         this.resolver = resolver;
     }
 
     CacheImpl(Persistor<K,V> persistor) {
+        this();
         this.persistor = persistor;
     }
 
     CacheImpl(KeyFactory<K> keyFactory) {
+        this();
         this.keyFactory = keyFactory;
     }
 
     CacheImpl(EntryFactory<K,V> resolver, Persistor<K,V> persistor) {
+        this();
         this.resolver = resolver;
         this.persistor = persistor;
     }
 
     CacheImpl(EntryFactory<K,V> resolver, KeyFactory<K> keyFactory) {
+        this();
         this.resolver = resolver;
         this.keyFactory = keyFactory;
     }
 
     CacheImpl(KeyFactory<K> keyFactory, Persistor<K,V> persistor) {
+        this();
         this.persistor = persistor;
         this.keyFactory = keyFactory;
     }
 
     CacheImpl(EntryFactory<K,V> resolver, KeyFactory<K> keyFactory, Persistor<K,V> persistor) {
+        this();
         this.resolver = resolver;
         this.persistor = persistor;
         this.keyFactory = keyFactory;
@@ -95,40 +137,65 @@ final class CacheImpl<K, V> extends Cache<K,V> {
      */
     @Override
     final public V retrieveObject(K key) {
-        Reference<K> softKey = keyFactory.createKey(key);
-        synchronized(objectCache) {
-            Entry<V> entry = objectCache.get(softKey);
-            if (entry == null) {
-                entry = persistor.retrieve(key);
-            }
-            if (entry == null) {
-                entry = cacheMiss(key);
-                if (entry != null && entry.getContent() != null) {
-                    persistor.store(key, entry);
-                    objectCache.put(softKey, entry);
-                }
-            } else {
-                long timestamp = System.currentTimeMillis();
-                if ((timestamp - entry.getUpdateTimeStamp()) > update_interval) {
-                    Entry<V> newEntry = cacheMiss(key);
-                    if (newEntry != null && newEntry.getContent() != null) {
-                        persistor.store(key, entry);
-                        objectCache.put(softKey, newEntry);
-                        entry = newEntry;
-                    }
-                }
-            }
-            return entry != null ? entry.getContent() : null;
+        expungeStaleEntries();
+        Reference<K> lookupKey = keyFactory.createKey(key);
+        CachedEntry<V> cached = objectCache.get(lookupKey);
+        if (cached != null && !isExpired(cached.entry)) {
+            hitCount.incrementAndGet();
+            cached.accessed();
+            return cached.entry.getContent();
         }
+        missCount.incrementAndGet();
+        Entry<V> entry = load(key, lookupKey, cached != null ? cached.entry : null);
+        return entry != null ? entry.getContent() : null;
     }
     
     @Override
     final public V invalidateObject(K key) {
         Reference<K> softKey = keyFactory.createKey(key);
-        synchronized(objectCache) {
-            Entry<V> entry = objectCache.remove(softKey);
-            return entry != null ? entry.getContent() : null;
-        }
+        // a load still in progress must not publish the old value
+        pendingLoads.remove(softKey);
+        CachedEntry<V> cached = objectCache.remove(softKey);
+        return cached != null ? cached.entry.getContent() : null;
+    }
+
+    /**
+     * Returns the number of lookups satisfied from the cache
+     */
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups not satisfied from the cache
+     */
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of entries resolved by the persistor or the resolver
+     */
+    long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * Returns the total time spent resolving entries in nanoseconds
+     */
+    long getTotalLoadTime() {
+        return loadTime.get();
+    }
+
+    int size() {
+        expungeStaleEntries();
+        return objectCache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Cache [entries=" + objectCache.size() + ", hits=" + hitCount + ", misses=" + missCount + // NOI18N
+               ", loads=" + loadCount + ", loadTime=" + loadTime.get() / 1000000 + "ms]"; // NOI18N
     }
 
     /**
@@ -149,6 +216,87 @@ final class CacheImpl<K, V> extends Cache<K,V> {
         this.update_interval = ttl;
     }
 
+    /**
+     * Resolves the entry for the key, concurrent requests for the same key
+     * wait for the first one to finish
+     */
+    private Entry<V> load(final K key, Reference<K> lookupKey, final Entry<V> expired) {
+        Load load = new Load(key, lookupKey, expired);
+        FutureTask<Entry<V>> task = new FutureTask<>(load);
+        FutureTask<Entry<V>> running = pendingLoads.putIfAbsent(lookupKey, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                if (!pendingLoads.remove(lookupKey, task) && load.published != null) {
+                    // invalidated while loading
+                    objectCache.remove(lookupKey, load.published);
+                }
+            }
+        }
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return expired;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private Entry<V> doLoad(K key, Entry<V> expired) {
+        long start = System.nanoTime();
+        try {
+            Entry<V> entry = expired == null ? persistor.retrieve(key) : null;
+            if (entry == null || isExpired(entry)) {
+                Entry<V> newEntry = cacheMiss(key);
+                if (newEntry != null && newEntry.getContent() != null) {
+                    persistor.store(key, newEntry);
+                    entry = newEntry;
+                } else if (entry == null) {
+                    // keep the expired entry if the object cannot be resolved
+                    entry = expired;
+                }
+            }
+            return entry;
+        } finally {
+            loadCount.incrementAndGet();
+            loadTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return (System.currentTimeMillis() - entry.getUpdateTimeStamp()) > update_interval;
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends K> staleKey;
+        while ((staleKey = staleKeys.poll()) != null) {
+            objectCache.remove(staleKey);
+        }
+    }
+
+    private void evictEntries() {
+        if (objectCache.size() <= maxEntries) return;
+        synchronized (evictionLock) {
+            expungeStaleEntries();
+            int toEvict = objectCache.size() - maxEntries;
+            if (toEvict <= 0) return;
+            // evict some more to not sort the entries on each put
+            toEvict += maxEntries / 10;
+            List<Map.Entry<Reference<K>, CachedEntry<V>>> entries = new ArrayList<>(objectCache.entrySet());
+            Collections.sort(entries, Comparator.comparingLong(e -> e.getValue().lastAccess));
+            for (int i = 0; i < toEvict && i < entries.size(); i++) {
+                Map.Entry<Reference<K>, CachedEntry<V>> e = entries.get(i);
+                objectCache.remove(e.getKey(), e.getValue());
+            }
+        }
+    }
+
     /**
      * This method is called in case of cache-miss
      * It can return NULL if it's not possible to resolve the missing instance
@@ -158,4 +306,50 @@ final class CacheImpl<K, V> extends Cache<K,V> {
     private Entry<V> cacheMiss(K key) {
         return resolver.createEntry(key);
     }
+
+    /**
+     * Resolves the entry and publishes it in the cache before the pending
+     * load is removed, a lookup missing both is resolved again only if the
+     * entry was not published in the meantime
+     */
+    private final class Load implements Callable<Entry<V>> {
+        private final K key;
+        private final Reference<K> lookupKey;
+        private final Entry<V> expired;
+        private CachedEntry<V> published;
+
+        Load(K key, Reference<K> lookupKey, Entry<V> expired) {
+            this.key = key;
+            this.lookupKey = lookupKey;
+            this.expired = expired;
+        }
+
+        @Override
+        public Entry<V> call() {
+            CachedEntry<V> cached = objectCache.get(lookupKey);
+            if (cached != null && !isExpired(cached.entry)) return cached.entry;
+
+            Entry<V> entry = doLoad(key, expired);
+            if (entry != null && entry.getContent() != null) {
+                published = new CachedEntry<>(entry);
+                objectCache.put(keyFactory.createKey(key, staleKeys), published);
+                evictEntries();
+            }
+            return entry;
+        }
+    }
+
+    private static final class CachedEntry<V> {
+        final Entry<V> entry;
+        volatile long lastAccess;
+
+        CachedEntry(Entry<V> entry) {
+            this.entry = entry;
+            lastAccess = System.nanoTime();
+        }
+
+        void accessed() {
+            lastAccess = System.nanoTime();
+        }
+    }
 }
@@ -26,15 +26,22 @@
 package org.graalvm.visualvm.api.caching.impl;
 
 import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 
 interface KeyFactory<K> {
 
     Reference<K> createKey(K obj);
+    Reference<K> createKey(K obj, ReferenceQueue<? super K> queue);
     static final KeyFactory DEFAULT = new KeyFactory() {
 
         @Override
         public Reference createKey(Object obj) {
             return new SoftReferenceEx(obj);
         }
+
+        @Override
+        public Reference createKey(Object obj, ReferenceQueue queue) {
+            return new SoftReferenceEx(obj, queue);
+        }
     };
 }
@@ -50,9 +50,12 @@ class SoftReferenceEx<T> extends SoftReference<T> {
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) return true;
         if (!(obj instanceof SoftReferenceEx)) return false;
         SoftReferenceEx other = (SoftReferenceEx)obj;
-        return Objects.equals(get(), other.get());
+        T referent = get();
+        // cleared references are only equal to themselves
+        return referent != null && Objects.equals(referent, other.get());
     }
 
     @Override
@@ -50,9 +50,12 @@ class WeakReferenceEx<T> extends WeakReference<T> {
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) return true;
         if (!(obj instanceof WeakReferenceEx)) return false;
         WeakReferenceEx other = (WeakReferenceEx)obj;
-        return Objects.equals(get(), other.get());
+        T referent = get();
+        // cleared references are only equal to themselves
+        return referent != null && Objects.equals(referent, other.get());
     }
 
     @Override
@@ -25,6 +25,8 @@
 
 package org.graalvm.visualvm.api.caching;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -155,4 +157,49 @@ public class CacheImplTest {
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of retrieveObject method, of class AbstractCache.
+     * Concurrent lookups of the same key resolve the object only once
+     */
+    @Test
+    public void testRetrieveObjectConcurrentLoad() throws Exception {
+        System.out.println("retrieveObject - concurrent load");
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch finishLoad = new CountDownLatch(1);
+        final Cache<String, String> slowCache = CacheFactory.getInstance().softMapCache(new EntryFactory<String, String>() {
+            @Override
+            public Entry<String> createEntry(String key) {
+                loads.incrementAndGet();
+                if ("slow".equals(key)) {
+                    loading.countDown();
+                    try {
+                        finishLoad.await();
+                    } catch (InterruptedException ex) {}
+                }
+                return new Entry<>(key + "-value");
+            }
+        });
+        final String[] results = new String[4];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() { results[index] = slowCache.retrieveObject("slow"); }
+            };
+            threads[i].start();
+        }
+        loading.await();
+        // other keys are not blocked by the pending load
+        assertEquals("fast-value", slowCache.retrieveObject("fast"));
+        finishLoad.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        for (String result : results) {
+            assertEquals("slow-value", result);
+        }
+        assertEquals(2, loads.get());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.api.caching.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.graalvm.visualvm.api.caching.Entry;
+import org.graalvm.visualvm.api.caching.EntryFactory;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author agent
+ */
+public class CacheImplEvictionTest {
+    private AtomicInteger loads;
+    private EntryFactory<String, String> resolver;
+
+    @Before
+    public void setUp() {
+        loads = new AtomicInteger();
+        resolver = new EntryFactory<String, String>() {
+            @Override
+            public Entry<String> createEntry(String key) {
+                loads.incrementAndGet();
+                return new Entry<>("value");
+            }
+        };
+    }
+
+    /**
+     * Test of the entries limit, least recently used entries are evicted first
+     */
+    @Test
+    public void testEvictionAtMaxEntries() throws Exception {
+        System.out.println("eviction at maxEntries");
+        CacheImpl<String, String> cache = new CacheImpl<>(resolver, new SoftKeyFactory<>(), 10);
+        for (int i = 0; i < 10; i++) {
+            cache.retrieveObject("key" + i);
+            Thread.sleep(1);
+        }
+        assertEquals(10, cache.size());
+        // make key0 the most recently used entry
+        cache.retrieveObject("key0");
+        Thread.sleep(1);
+        cache.retrieveObject("key10");
+        // the overflowing entry and 10% of the limit are evicted
+        assertEquals(9, cache.size());
+        assertEquals(11, loads.get());
+        cache.retrieveObject("key0");
+        cache.retrieveObject("key10");
+        assertEquals(11, loads.get());
+        cache.retrieveObject("key1");
+        assertEquals(12, loads.get());
+    }
+
+    /**
+     * Test of expunging the entries with collected keys
+     */
+    @Test
+    public void testExpungeCollectedKeys() throws Exception {
+        System.out.println("expunge collected keys");
+        CacheImpl<String, String> cache = new CacheImpl<>(resolver, new WeakKeyFactory<>(), 100);
+        for (int i = 0; i < 10; i++) {
+            cache.retrieveObject(new String("key" + i));
+        }
+        for (int i = 0; i < 100 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test of the hit, miss and load statistics
+     */
+    @Test
+    public void testStatistics() {
+        System.out.println("statistics");
+        CacheImpl<String, String> cache = new CacheImpl<>(resolver, new SoftKeyFactory<>(), 100);
+        cache.retrieveObject("a");
+        cache.retrieveObject("a");
+        cache.retrieveObject("b");
+        cache.invalidateObject("a");
+        cache.retrieveObject("a");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(3, cache.getLoadCount());
+        assertTrue(cache.getTotalLoadTime() >= 0);
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Test of invalidating an object while it is being resolved
+     */
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        System.out.println("invalidate during load");
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch finishLoad = new CountDownLatch(1);
+        final CacheImpl<String, String> cache = new CacheImpl<>(new EntryFactory<String, String>() {
+            @Override
+            public Entry<String> createEntry(String key) {
+                if (loads.incrementAndGet() == 1) {
+                    loading.countDown();
+                    try {
+                        finishLoad.await();
+                    } catch (InterruptedException ex) {}
+                    return new Entry<>("old");
+                }
+                return new Entry<>("new");
+            }
+        }, new SoftKeyFactory<>(), 100);
+        final String[] result = new String[1];
+        Thread loader = new Thread() {
+            public void run() { result[0] = cache.retrieveObject("key"); }
+        };
+        loader.start();
+        loading.await();
+        cache.invalidateObject("key");
+        finishLoad.countDown();
+        loader.join();
+        assertEquals("old", result[0]);
+        // the old value is not published after the invalidation
+        assertEquals("new", cache.retrieveObject("key"));
+        assertEquals(2, loads.get());
+    }
+}
@@ -97,6 +97,10 @@ public class SimpleXYChartUtils {
 
     private static final int DEFAULT_BUFFER_STEP;
 
+    // Values dropped from the values buffer are kept in 10s/1m/10m rollups covering 1h/6h/7d
+    private static final long[] ROLLUP_RESOLUTIONS;
+    private static final int[] ROLLUP_BUCKETS;
+
     private static final Color AXIS_FONT_COLOR;
     private static final Color BACKGROUND_COLOR;
 
@@ -121,6 +125,9 @@ public class SimpleXYChartUtils {
 
         DEFAULT_BUFFER_STEP = 50;
 
+        ROLLUP_RESOLUTIONS = new long[] { 10 * 1000, 60 * 1000, 10 * 60 * 1000 };
+        ROLLUP_BUCKETS = new int[] { 360, 360, 1008 };
+
         AXIS_FONT_COLOR = !UISupport.isDarkResultsBackground() ? new Color(90, 90, 90) : new Color(165, 165, 165);
         BACKGROUND_COLOR = UISupport.getDefaultBackground();
 
@@ -137,7 +144,7 @@ public class SimpleXYChartUtils {
     // --- Public utils --------------------------------------------------------
 
     public static XYStorage createStorage(int valuesBuffer) {
-        return new XYStorage(valuesBuffer, DEFAULT_BUFFER_STEP);
+        return new XYStorage(valuesBuffer, DEFAULT_BUFFER_STEP, ROLLUP_RESOLUTIONS, ROLLUP_BUCKETS);
     }
 
     public static SynchronousXYItemsModel createItemsModel(XYStorage storage,
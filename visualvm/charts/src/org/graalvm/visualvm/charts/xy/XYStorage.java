@@ -54,10 +54,38 @@ public class XYStorage implements Timeline {
 
     private int cycleIndex;
 
+    // Rollups of the values dropped from the values buffer, from the finest to the coarsest
+    private final Rollup[] rollups;
+    private int rollupsCount;
+
     
     public XYStorage(int valuesLimit, int bufferStep) {
+        this(valuesLimit, bufferStep, new long[0], new int[0]);
+    }
+
+    /**
+     * Creates a storage which keeps the values dropped from the values buffer
+     * in rollups of the given resolutions. Each rollup bucket, including the one
+     * still collecting values, is represented by two values at the times of its
+     * first and last value - the minimum and the maximum in the order in which
+     * they occurred. The average of a bucket is available from
+     * {@link #getAverageValue(int, int)}. Buckets dropped from a rollup are merged
+     * into the next, coarser one, buckets dropped from the last rollup are discarded.
+     * Each time range is kept by a single rollup, so a chart displays the
+     * coarsest resolution for the oldest values regardless of its zoom.
+     *
+     * @param valuesLimit number of the most recent values kept in full resolution
+     * @param bufferStep allocation step of the values buffer
+     * @param resolutions resolutions of the rollups in milliseconds, from the finest to the coarsest
+     * @param bucketsLimits maximum number of buckets kept in each rollup
+     */
+    public XYStorage(int valuesLimit, int bufferStep, long[] resolutions, int[] bucketsLimits) {
         this.valuesLimit = valuesLimit;
         this.bufferStep = bufferStep;
+        rollups = new Rollup[resolutions.length];
+        for (int i = rollups.length - 1; i >= 0; i--)
+            rollups[i] = new Rollup(resolutions[i], bucketsLimits[i],
+                                    i + 1 < rollups.length ? rollups[i + 1] : null);
         initialize();
     }
 
@@ -73,6 +101,7 @@ public class XYStorage implements Timeline {
 
 
     public synchronized void addValues(long timestamp, long[] values) {
+        if (isFull() && rollups.length > 0) rollUpOldest();
         updateStorage();
 
         setTimestamp(Math.min(valuesCount, valuesLimit - 1), timestamp);
@@ -136,6 +165,9 @@ public class XYStorage implements Timeline {
         valuesCount = 0;
         cycleIndex = 0;
 
+        rollupsCount = 0;
+        for (Rollup rollup : rollups) rollup.reset();
+
         timestamps = null;
         if (values != null) {
             if (values.length == 0) values = null;
@@ -162,6 +194,43 @@ public class XYStorage implements Timeline {
     }
 
 
+    private void rollUpOldest() {
+        long timestamp = getTimestamp(rollupsCount);
+        long[] vals = new long[values.length];
+        long[] sums = new long[values.length];
+        int[] counts = new int[values.length];
+        for (int i = 0; i < vals.length; i++) {
+            vals[i] = getValue(i, rollupsCount);
+            if (vals[i] != NO_VALUE) {
+                sums[i] = vals[i];
+                counts[i] = 1;
+            }
+        }
+
+        rollups[0].add(timestamp, timestamp, vals, vals, new boolean[vals.length], sums, counts);
+
+        rollupsCount = 0;
+        for (Rollup rollup : rollups) rollupsCount += rollup.getValuesCount();
+    }
+
+    // rollups are ordered from the coarsest (oldest values) to the finest
+    private int getRollupIndex(int index) {
+        for (int i = rollups.length - 1; i >= 0; i--) {
+            int count = rollups[i].getValuesCount();
+            if (index < count) return i;
+            index -= count;
+        }
+        return -1;
+    }
+
+    private int getRollupOffset(int rollupIndex) {
+        int offset = 0;
+        for (int i = rollups.length - 1; i > rollupIndex; i--)
+            offset += rollups[i].getValuesCount();
+        return offset;
+    }
+
+
     private int getIndex(int index) {
         if (cycleIndex != 0) {
             index += cycleIndex;
@@ -171,7 +240,7 @@ public class XYStorage implements Timeline {
     }
 
     public int getTimestampsCount() {
-        return valuesCount;
+        return rollupsCount + valuesCount;
     }
 
     private void setTimestamp(int index, long value) {
@@ -179,7 +248,11 @@ public class XYStorage implements Timeline {
     }
 
     public long getTimestamp(int index) {
-        return timestamps[getIndex(index)];
+        if (index < rollupsCount) {
+            int rollupIndex = getRollupIndex(index);
+            return rollups[rollupIndex].getTimestamp(index - getRollupOffset(rollupIndex));
+        }
+        return timestamps[getIndex(index - rollupsCount)];
     }
 
     private void setValue(int itemIndex, int valueIndex, long value) {
@@ -187,7 +260,28 @@ public class XYStorage implements Timeline {
     }
 
     private long getValue(int itemIndex, int valueIndex) {
-        return values[itemIndex][getIndex(valueIndex)];
+        if (valueIndex < rollupsCount) {
+            int rollupIndex = getRollupIndex(valueIndex);
+            return rollups[rollupIndex].getValue(itemIndex, valueIndex - getRollupOffset(rollupIndex));
+        }
+        return values[itemIndex][getIndex(valueIndex - rollupsCount)];
+    }
+
+    /**
+     * Returns the average of the values represented by the value at the index.
+     * For a rolled up value it's the average of all values of its bucket,
+     * otherwise the value itself.
+     *
+     * @param itemIndex index of the item
+     * @param valueIndex index of the value
+     * @return average value or NO_VALUE
+     */
+    public synchronized long getAverageValue(int itemIndex, int valueIndex) {
+        if (valueIndex < rollupsCount) {
+            int rollupIndex = getRollupIndex(valueIndex);
+            return rollups[rollupIndex].getAverageValue(itemIndex, valueIndex - getRollupOffset(rollupIndex));
+        }
+        return values[itemIndex][getIndex(valueIndex - rollupsCount)];
     }
 
     
@@ -223,4 +317,196 @@ public class XYStorage implements Timeline {
         return newArray;
     }
 
+
+
+    private static final class Rollup {
+
+        private final long resolution;
+        private final int bucketsLimit;
+        private final Rollup next;
+
+        // closed buckets, cyclic buffer
+        private long[] firstTimestamps;
+        private long[] lastTimestamps;
+        private long[][] minValues;
+        private long[][] maxValues;
+        private boolean[][] maxFirst; // per item, true if the maximum occurred before the minimum
+        private long[][] sumValues;
+        private int[][] valuesCounts;
+        private int bucketsCount;
+        private int firstBucket;
+
+        // bucket collecting the values
+        private long openStart;
+        private long openFirstTimestamp;
+        private long openLastTimestamp;
+        private long[] openMinValues;
+        private long[] openMaxValues;
+        private boolean[] openMaxFirst;
+        private long[] openSumValues;
+        private int[] openValuesCounts;
+
+
+        Rollup(long resolution, int bucketsLimit, Rollup next) {
+            this.resolution = resolution;
+            this.bucketsLimit = bucketsLimit;
+            this.next = next;
+            reset();
+        }
+
+
+        void reset() {
+            firstTimestamps = new long[bucketsLimit];
+            lastTimestamps = new long[bucketsLimit];
+            minValues = new long[bucketsLimit][];
+            maxValues = new long[bucketsLimit][];
+            maxFirst = new boolean[bucketsLimit][];
+            sumValues = new long[bucketsLimit][];
+            valuesCounts = new int[bucketsLimit][];
+            bucketsCount = 0;
+            firstBucket = 0;
+            openMinValues = null;
+            openMaxValues = null;
+            openMaxFirst = null;
+            openSumValues = null;
+            openValuesCounts = null;
+        }
+
+        // the open bucket follows the closed ones
+        int getValuesCount() {
+            return (openMinValues == null ? bucketsCount : bucketsCount + 1) * 2;
+        }
+
+        long getTimestamp(int index) {
+            boolean first = index % 2 == 0;
+            int bucket = index / 2;
+            if (bucket == bucketsCount) return first ? openFirstTimestamp : openLastTimestamp;
+
+            bucket = getBucket(bucket);
+            return first ? firstTimestamps[bucket] : lastTimestamps[bucket];
+        }
+
+        long getValue(int itemIndex, int index) {
+            boolean first = index % 2 == 0;
+            int bucket = index / 2;
+            long[] mins, maxs;
+            boolean[] order;
+            if (bucket == bucketsCount) {
+                mins = openMinValues;
+                maxs = openMaxValues;
+                order = openMaxFirst;
+            } else {
+                bucket = getBucket(bucket);
+                mins = minValues[bucket];
+                maxs = maxValues[bucket];
+                order = maxFirst[bucket];
+            }
+            if (itemIndex >= mins.length) return NO_VALUE;
+            return first == order[itemIndex] ? maxs[itemIndex] : mins[itemIndex];
+        }
+
+        long getAverageValue(int itemIndex, int index) {
+            int bucket = index / 2;
+            long[] sums;
+            int[] counts;
+            if (bucket == bucketsCount) {
+                sums = openSumValues;
+                counts = openValuesCounts;
+            } else {
+                bucket = getBucket(bucket);
+                sums = sumValues[bucket];
+                counts = valuesCounts[bucket];
+            }
+            if (itemIndex >= sums.length || counts[itemIndex] == 0) return NO_VALUE;
+            return Math.round((double)sums[itemIndex] / counts[itemIndex]);
+        }
+
+        private int getBucket(int bucket) {
+            return (firstBucket + bucket) % bucketsLimit;
+        }
+
+        void add(long firstTimestamp, long lastTimestamp, long[] mins, long[] maxs, boolean[] order, long[] sums, int[] counts) {
+            long start = firstTimestamp - firstTimestamp % resolution;
+
+            if (openMinValues != null && start != openStart) closeBucket();
+
+            if (openMinValues == null) {
+                openStart = start;
+                openFirstTimestamp = firstTimestamp;
+                openMinValues = mins.clone();
+                openMaxValues = maxs.clone();
+                openMaxFirst = order.clone();
+                openSumValues = sums.clone();
+                openValuesCounts = counts.clone();
+            } else {
+                if (openMinValues.length < mins.length) {
+                    openMinValues = extendValues(openMinValues, mins.length);
+                    openMaxValues = extendValues(openMaxValues, maxs.length);
+                    openMaxFirst = Arrays.copyOf(openMaxFirst, order.length);
+                    openSumValues = Arrays.copyOf(openSumValues, sums.length);
+                    openValuesCounts = Arrays.copyOf(openValuesCounts, counts.length);
+                }
+                for (int i = 0; i < mins.length; i++) {
+                    openSumValues[i] += sums[i];
+                    openValuesCounts[i] += counts[i];
+
+                    // the added values are newer, on ties keep the older occurrence
+                    boolean newMin = isNewMin(mins[i], openMinValues[i]);
+                    boolean newMax = isNewMax(maxs[i], openMaxValues[i]);
+                    if (newMin && newMax) openMaxFirst[i] = order[i];
+                    else if (newMin) openMaxFirst[i] = true;
+                    else if (newMax) openMaxFirst[i] = false;
+
+                    if (newMin) openMinValues[i] = mins[i];
+                    if (newMax) openMaxValues[i] = maxs[i];
+                }
+            }
+            openLastTimestamp = lastTimestamp;
+        }
+
+        private void closeBucket() {
+            if (bucketsCount == bucketsLimit) {
+                if (next != null)
+                    next.add(firstTimestamps[firstBucket], lastTimestamps[firstBucket],
+                             minValues[firstBucket], maxValues[firstBucket], maxFirst[firstBucket],
+                             sumValues[firstBucket], valuesCounts[firstBucket]);
+                firstBucket = (firstBucket + 1) % bucketsLimit;
+                bucketsCount--;
+            }
+
+            int bucket = getBucket(bucketsCount);
+            firstTimestamps[bucket] = openFirstTimestamp;
+            lastTimestamps[bucket] = openLastTimestamp;
+            minValues[bucket] = openMinValues;
+            maxValues[bucket] = openMaxValues;
+            maxFirst[bucket] = openMaxFirst;
+            sumValues[bucket] = openSumValues;
+            valuesCounts[bucket] = openValuesCounts;
+            bucketsCount++;
+
+            openMinValues = null;
+            openMaxValues = null;
+            openMaxFirst = null;
+            openSumValues = null;
+            openValuesCounts = null;
+        }
+
+        private static long[] extendValues(long[] vals, int length) {
+            long[] newVals = Arrays.copyOf(vals, length);
+            Arrays.fill(newVals, vals.length, length, NO_VALUE);
+            return newVals;
+        }
+
+        private static boolean isNewMin(long value, long min) {
+            if (value == NO_VALUE) return false;
+            return min == NO_VALUE || value < min;
+        }
+
+        private static boolean isNewMax(long value, long max) {
+            if (value == NO_VALUE) return false;
+            return max == NO_VALUE || value > max;
+        }
+
+    }
+
 }
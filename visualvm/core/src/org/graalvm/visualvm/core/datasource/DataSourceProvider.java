@@ -28,14 +28,19 @@ package org.graalvm.visualvm.core.datasource;
 import org.graalvm.visualvm.core.datasupport.DataChangeEvent;
 import org.graalvm.visualvm.core.datasupport.DataChangeListener;
 import org.graalvm.visualvm.core.datasupport.Utils;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.graalvm.visualvm.core.datasource.impl.EventQueueTasks;
 
 /**
  * Default implementation of DataSourceProvider.
@@ -53,6 +58,10 @@ public class DataSourceProvider {
     private final Set<DataSource> dataSources = Collections.synchronizedSet(new HashSet<>());
     private final Map<DataChangeListener<? extends DataSource>, Class<? extends DataSource>> listeners = new HashMap<>();
 
+    private final Deque<PendingChange> pendingChanges = new ArrayDeque<>();
+    private int pendingRequests;
+    private long pendingSince;
+
 
     /**
      * Creates new instance of DataSourceProvider.
@@ -69,7 +78,7 @@ public class DataSourceProvider {
      * @param scope scope of DataSource types for which to get notifications.
      */
     public final <Y extends DataSource> void addDataChangeListener(final DataChangeListener<Y> listener, final Class<Y> scope) {
-        DataSource.EVENT_QUEUE.post(new Runnable() {
+        EventQueueTasks.post(new Runnable() {
             public void run() {
                 if (listeners.containsKey(listener)) {
                     String msg = "Listener " + listener + " already registered"; // NOI18N
@@ -89,7 +98,7 @@ public class DataSourceProvider {
      * @param listener listener to be removed.
      */
     public final <Y extends DataSource> void removeDataChangeListener(final DataChangeListener<Y> listener) {
-        DataSource.EVENT_QUEUE.post(new Runnable() {
+        EventQueueTasks.post(new Runnable() {
             public void run() {
                 if (!listeners.containsKey(listener)) {
                     String msg = "Listener " + listener + " not registered"; // NOI18N
@@ -132,16 +141,16 @@ public class DataSourceProvider {
 
     /**
      * Registers added DataSources into this provider.
+     * The change is applied asynchronously in DataSource.EVENT_QUEUE together
+     * with the other changes of this provider requested before it is applied.
+     * It may thus be applied before a task posted into the EVENT_QUEUE after
+     * the first of those changes was requested, even if the task was posted
+     * before this change was requested.
      *
      * @param added added DataSources to register.
      */
     protected final void registerDataSources(final Set<? extends DataSource> added) {
-        DataSource.EVENT_QUEUE.post(new Runnable() {
-            public void run() {
-                if (!added.isEmpty())
-                    registerDataSourcesImpl(checkAdded(added));
-            }
-        });
+        changeDataSourcesImpl(added, Collections.emptySet());
     }
 
     /**
@@ -155,33 +164,71 @@ public class DataSourceProvider {
 
     /**
      * Unregisters removed DataSources from this provider.
+     * The change is applied asynchronously, see registerDataSources(Set).
      *
      * @param removed removed DataSources to unregister.
      */
     protected final void unregisterDataSources(final Set<? extends DataSource> removed) {
-        DataSource.EVENT_QUEUE.post(new Runnable() {
-            public void run() {
-                if (!removed.isEmpty())
-                    unregisterDataSourcesImpl(checkRemoved(removed));
-            }
-        });
+        changeDataSourcesImpl(Collections.emptySet(), removed);
     }
 
     /**
      * Registers added DataSources into this provider and unregisters removed DataSources from this provider.
+     * The change is applied asynchronously, see registerDataSources(Set).
      *
      * @param added added DataSources to register.
      * @param removed removed DataSources to unregister.
      */
     protected final void changeDataSources(final Set<? extends DataSource> added, final Set<? extends DataSource> removed) {
-        DataSource.EVENT_QUEUE.post(new Runnable() {
-            public void run() {
-                if (!removed.isEmpty())
-                    unregisterDataSourcesImpl(checkRemoved(removed));
-                if (!added.isEmpty())
-                    registerDataSourcesImpl(checkAdded(added));
+        changeDataSourcesImpl(added, removed);
+    }
+
+    // Requests are merged into pending batches applied by a single task in the
+    // EVENT_QUEUE, a burst of changes results in one event per listener instead
+    // of one per request. Within a batch removals are applied before additions,
+    // removing a DataSource which is waiting to be added starts a new batch.
+    private void changeDataSourcesImpl(Set<? extends DataSource> added, Set<? extends DataSource> removed) {
+        if (added.isEmpty() && removed.isEmpty()) return;
+
+        synchronized (pendingChanges) {
+            PendingChange last = pendingChanges.peekLast();
+            if (last == null || !last.merge(added, removed))
+                pendingChanges.add(new PendingChange(added, removed));
+
+            if (pendingRequests++ == 0) {
+                pendingSince = System.nanoTime();
+                EventQueueTasks.post(new Runnable() {
+                    public void run() { dispatchPendingChanges(); }
+                });
             }
-        });
+        }
+    }
+
+    private void dispatchPendingChanges() {
+        List<PendingChange> changes;
+        int requests;
+        long since;
+
+        synchronized (pendingChanges) {
+            changes = new ArrayList<>(pendingChanges);
+            requests = pendingRequests;
+            since = pendingSince;
+            pendingChanges.clear();
+            pendingRequests = 0;
+        }
+        int queuedTasks = EventQueueTasks.getQueuedCount();
+
+        long start = System.nanoTime();
+        for (PendingChange change : changes) {
+            if (!change.removed.isEmpty()) unregisterDataSourcesImpl(checkRemoved(change.removed));
+            if (!change.added.isEmpty()) registerDataSourcesImpl(checkAdded(change.added));
+        }
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            long end = System.nanoTime();
+            LOGGER.log(Level.FINE, "{0}: {1} change request(s) dispatched in {2} batch(es), queued {3} ms, dispatch {4} ms, {5} provider/support task(s) queued", // NOI18N
+                       new Object[] { this, requests, changes.size(), (start - since) / 1000000, (end - start) / 1000000, queuedTasks });
+        }
     }
 
     void registerDataSourcesImpl(Set<? extends DataSource> added) {
@@ -194,9 +241,8 @@ public class DataSourceProvider {
         fireDataRemoved(removed);
     }
 
-    private Set<? extends DataSource> checkAdded(Set<? extends DataSource> added) {
-        Set<? extends DataSource> uniqueAdded = new HashSet<>(added);
-        Iterator<? extends DataSource> it = uniqueAdded.iterator();
+    private Set<DataSource> checkAdded(Set<DataSource> uniqueAdded) {
+        Iterator<DataSource> it = uniqueAdded.iterator();
 
         while(it.hasNext()) {
             DataSource ds = it.next();
@@ -209,9 +255,8 @@ public class DataSourceProvider {
         return uniqueAdded;
     }
 
-    private Set<? extends DataSource> checkRemoved(Set<? extends DataSource> removed) {
-        Set<? extends DataSource> uniqueRemoved = new HashSet<>(removed);
-        Iterator<? extends DataSource> it = uniqueRemoved.iterator();
+    private Set<DataSource> checkRemoved(Set<DataSource> uniqueRemoved) {
+        Iterator<DataSource> it = uniqueRemoved.iterator();
 
         while(it.hasNext()) {
             DataSource ds = it.next();
@@ -264,4 +309,26 @@ public class DataSourceProvider {
         }
     }
 
+
+    static final class PendingChange {
+
+        final Set<DataSource> added;
+        final Set<DataSource> removed;
+
+        PendingChange(Set<? extends DataSource> added, Set<? extends DataSource> removed) {
+            this.added = new HashSet<>(added);
+            this.removed = new HashSet<>(removed);
+        }
+
+        boolean merge(Set<? extends DataSource> newAdded, Set<? extends DataSource> newRemoved) {
+            for (DataSource ds : newRemoved)
+                if (added.contains(ds)) return false;
+
+            removed.addAll(newRemoved);
+            added.addAll(newAdded);
+            return true;
+        }
+
+    }
+
 }
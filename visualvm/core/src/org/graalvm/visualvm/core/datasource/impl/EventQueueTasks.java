@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.core.datasource.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.graalvm.visualvm.core.datasource.DataSource;
+
+/**
+ * Posts the tasks of DataSourceProviders and DataChangeSupports into
+ * DataSource.EVENT_QUEUE and counts those still waiting to be run.
+ * Tasks posted directly into the EVENT_QUEUE are not counted, the count
+ * is thus a lower bound of the queue depth.
+ *
+ * @author agent
+ */
+public final class EventQueueTasks {
+
+    private static final AtomicInteger QUEUED = new AtomicInteger();
+
+
+    /**
+     * Posts a task into DataSource.EVENT_QUEUE.
+     *
+     * @param task task to be posted.
+     */
+    public static void post(final Runnable task) {
+        QUEUED.incrementAndGet();
+        DataSource.EVENT_QUEUE.post(new Runnable() {
+            public void run() {
+                QUEUED.decrementAndGet();
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Returns number of the tasks posted by post(Runnable) waiting to be run.
+     *
+     * @return number of the tasks waiting to be run.
+     */
+    public static int getQueuedCount() {
+        return QUEUED.get();
+    }
+
+
+    private EventQueueTasks() {}
+
+}
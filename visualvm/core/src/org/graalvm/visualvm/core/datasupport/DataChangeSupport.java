@@ -25,10 +25,16 @@
 
 package org.graalvm.visualvm.core.datasupport;
 
-import org.graalvm.visualvm.core.datasource.DataSource;
+import org.graalvm.visualvm.core.datasource.impl.EventQueueTasks;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
@@ -41,7 +47,12 @@ import java.util.Set;
  */
 public final class DataChangeSupport<X> {
 
+    private static final Logger LOGGER = Logger.getLogger(DataChangeSupport.class.getName());
+
     private ChangeSupport<X> changeSupport;
+    private final Deque<PendingChange<X>> pendingChanges = new ArrayDeque<>();
+    private int pendingRequests;
+    private long pendingSince;
 
     /**
      * Constructs a <code>DataChangeSupport</code> object.
@@ -57,7 +68,7 @@ public final class DataChangeSupport<X> {
      * @param listener  The DataChangeListener to be added
      */
     public void addChangeListener(final DataChangeListener<X> listener) {
-        DataSource.EVENT_QUEUE.post(new Runnable() {
+        EventQueueTasks.post(new Runnable() {
             public void run() {
                 changeSupport.addChangeListener(listener);
             }
@@ -70,7 +81,7 @@ public final class DataChangeSupport<X> {
      * @param listener  The DataChangeListener to be removed
      */
     public void removeChangeListener(final DataChangeListener<X> listener) {
-        DataSource.EVENT_QUEUE.post(new Runnable() {
+        EventQueueTasks.post(new Runnable() {
             public void run() {
                 changeSupport.removeChangeListener(listener);
             }
@@ -79,23 +90,94 @@ public final class DataChangeSupport<X> {
     
     /**
      * Report a update to any registered listeners.
+     * Updates reported before the listeners are notified are merged
+     * into a single event. The event may thus be delivered before a task
+     * posted into DataSource.EVENT_QUEUE after the first of the merged
+     * updates was reported, even if the task was posted before this update.
      *
      * @param current  the set of currently available objects.
      * @param added  the set of added objects since last event.
      * @param removed  the set of removed objects since last event.
      */
     public void fireChange(Set<X> current, Set<X> added, Set<X> removed) {
-        final Set<X> currentLocal = current != null ? new HashSet<>(current) : null;
-        final Set<X> addedLocal = added != null ? new HashSet<>(added) : null;
-        final Set<X> removedLocal = removed != null ? new HashSet<>(removed) : null;
+        synchronized (pendingChanges) {
+            PendingChange<X> last = pendingChanges.peekLast();
+            if (last == null || !last.merge(current, added, removed))
+                pendingChanges.add(new PendingChange<>(current, added, removed));
 
-        DataSource.EVENT_QUEUE.post(new Runnable() {
-            public void run() {
-                changeSupport.fireChange(currentLocal, addedLocal, removedLocal);
+            if (pendingRequests++ == 0) {
+                pendingSince = System.nanoTime();
+                EventQueueTasks.post(new Runnable() {
+                    public void run() {
+                        dispatchPendingChanges();
+                    }
+                });
             }
-        });
+        }
     }
-    
+
+    // Changes reported before the dispatcher runs are merged and delivered as a
+    // single event, only an object removed after being added (or vice versa)
+    // within the burst keeps the events separate.
+    private void dispatchPendingChanges() {
+        List<PendingChange<X>> changes;
+        int requests;
+        long since;
+        synchronized (pendingChanges) {
+            changes = new ArrayList<>(pendingChanges);
+            requests = pendingRequests;
+            since = pendingSince;
+            pendingChanges.clear();
+            pendingRequests = 0;
+        }
+        int queuedTasks = EventQueueTasks.getQueuedCount();
+
+        long start = System.nanoTime();
+        for (PendingChange<X> change : changes)
+            changeSupport.fireChange(change.current, change.added, change.removed);
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            long end = System.nanoTime();
+            LOGGER.log(Level.FINE, "{0}: {1} change(s) fired in {2} event(s), queued {3} ms, dispatch {4} ms, {5} provider/support task(s) queued", // NOI18N
+                       new Object[] { this, requests, changes.size(), (start - since) / 1000000, (end - start) / 1000000, queuedTasks });
+        }
+    }
+
+    static class PendingChange<X> {
+
+        Set<X> current;
+        Set<X> added;
+        Set<X> removed;
+
+        PendingChange(Set<X> current, Set<X> added, Set<X> removed) {
+            this.current = current != null ? new HashSet<>(current) : null;
+            this.added = added != null ? new HashSet<>(added) : null;
+            this.removed = removed != null ? new HashSet<>(removed) : null;
+        }
+
+        boolean merge(Set<X> newCurrent, Set<X> newAdded, Set<X> newRemoved) {
+            if (conflicts(added, newRemoved) || conflicts(removed, newAdded)) return false;
+
+            current = newCurrent != null ? new HashSet<>(newCurrent) : null;
+            added = union(added, newAdded);
+            removed = union(removed, newRemoved);
+            return true;
+        }
+
+        private static <X> boolean conflicts(Set<X> pending, Set<X> set) {
+            if (pending == null || set == null) return false;
+            for (X x : set) if (pending.contains(x)) return true;
+            return false;
+        }
+
+        private static <X> Set<X> union(Set<X> pending, Set<X> set) {
+            if (set == null) return pending;
+            if (pending == null) return new HashSet<>(set);
+            pending.addAll(set);
+            return pending;
+        }
+    }
+
     private static class ChangeSupport<X> {
         
         private Set<DataChangeListener<X>> listeners = new HashSet<>();
@@ -29,6 +29,7 @@ import java.beans.PropertyChangeSupport;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -39,6 +40,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
     static private final Map<Quantum, WeakReference<SchedulingPipe>> pipeMap = new HashMap<>();
+    // a task failing or running longer than its interval skips up to 2^MAX_BACKOFF-1 intervals
+    static private final int MAX_BACKOFF = 5;
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
@@ -52,6 +55,13 @@ class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
 
     private SchedulingPipe pipe = null;
 
+    // offset of the task within the interval, as a fraction of the maximal jitter
+    private final double jitter = ThreadLocalRandom.current().nextDouble();
+    // @GuardedBy this
+    private boolean running;
+    private int backoff;
+    private int skipRuns;
+
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
     DefaultScheduledTask(Quantum interval, SchedulerTask task) {
@@ -174,6 +184,41 @@ class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
         delegateTask.onSchedule(timeStamp);
     }
 
+    /**
+     * Called by the scheduling pipe at every interval.
+     * @return Returns true if the task should be run now, false if its previous run
+     * is still in progress or it has been backed off
+     */
+    synchronized boolean startRun() {
+        if (running) {
+            return false;
+        }
+        if (skipRuns > 0) {
+            skipRuns--;
+            return false;
+        }
+        running = true;
+        return true;
+    }
+
+    /**
+     * Called by the scheduling pipe after the task has run.
+     * @param ok false if the task failed or took longer than its interval
+     */
+    synchronized void runFinished(boolean ok) {
+        running = false;
+        if (ok) {
+            backoff = 0;
+        } else if (backoff < MAX_BACKOFF) {
+            backoff++;
+        }
+        skipRuns = (1 << backoff) - 1;
+    }
+
+    long getJitter(Quantum interval) {
+        return (long) (jitter * SchedulingPipe.getMaxJitter(interval));
+    }
+
     void setPipe(SchedulingPipe pipe) {
         this.pipe = pipe;
     }
@@ -90,6 +90,22 @@ public class Scheduler {
         return scheduled;
     }
 
+    /**
+     * Returns the number of scheduled task runs waiting for a free dispatcher thread
+     * @return Returns the number of task runs waiting for execution
+     */
+    public final int getQueuedTasksCount() {
+        return SchedulingPipe.getQueuedTasksCount();
+    }
+
+    /**
+     * Returns the average time spent in one run of a scheduled task
+     * @return Returns the average run time of scheduled tasks in milliseconds
+     */
+    public final long getAverageTaskTime() {
+        return SchedulingPipe.getAverageExecutionTime();
+    }
+
     /**
      * Unschedules an instance of <code>Scheduled</code> class
      * @param task The task to be unscheduled
@@ -25,14 +25,21 @@
 
 package org.graalvm.visualvm.core.scheduler;
 
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
@@ -43,6 +50,14 @@ import java.util.logging.Logger;
  * for a certain scheduling interval
  * <p>It allows addition and removal of the tasks and takes care of creating
  * and releasing appropriate scheduled executors</p>
+ * <p>The tasks of all pipes are executed by a bounded pool of dispatcher threads.
+ * Each task is started with its own fixed offset within the interval, so that tasks
+ * sharing the same interval do not run all at once. A task is not started again while its
+ * previous run is still in progress, and tasks running longer than the interval or failing
+ * are backed off.</p>
+ * <p>A task run that does not finish within the task timeout, typically blocked in a remote
+ * call to an unresponsive application, is isolated: the pool gets an extra dispatcher thread
+ * until the run finishes, so hung runs cannot exhaust the pool and stall all the other tasks.</p>
  * 
  * @author Jaroslav Bachorik <jaroslav.bachorik@sun.com>
  */
@@ -55,8 +70,34 @@ final class SchedulingPipe {
     // @GuardedBy pipeLock
     private ScheduledFuture<?> pipeFuture = null;
 
-    final private static ScheduledExecutorService schedulerService = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
-    final private static ExecutorService dispatcher = Executors.newCachedThreadPool();
+    // maximal offset of a task within its interval, in milliseconds
+    private static final long MAX_JITTER = 1000;
+    private static final int DISPATCHER_THREADS = Integer.getInteger("org.graalvm.visualvm.core.scheduler.dispatcherThreads", // NOI18N
+                                                                     Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    // minimal time in milliseconds after which a running task is considered hung; at least the task interval is used
+    private static final long TASK_TIMEOUT = Long.getLong("org.graalvm.visualvm.core.scheduler.taskTimeout", 10000); // NOI18N
+    private static final long HUNG_TASKS_CHECK_PERIOD = 1000;
+
+    final private static ScheduledExecutorService schedulerService = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(),
+                                                                                                      new SchedulerThreadFactory("VisualVM Scheduler")); // NOI18N
+    final private static ThreadPoolExecutor dispatcher = createDispatcher();
+
+    final private static AtomicLong executedTasks = new AtomicLong();
+    final private static AtomicLong executionTime = new AtomicLong();
+
+    final private static Set<TaskRun> runningTasks = ConcurrentHashMap.newKeySet();
+    final private static Object hungTasksLock = new Object();
+    // @GuardedBy hungTasksLock
+    private static int hungTasks;
+
+    static {
+        schedulerService.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                isolateHungTasks();
+            }
+        }, HUNG_TASKS_CHECK_PERIOD, HUNG_TASKS_CHECK_PERIOD, TimeUnit.MILLISECONDS);
+    }
     
     // @GuardedBy tasksLock
     final private Set<WeakReference<DefaultScheduledTask>> tasks = new HashSet<>();
@@ -91,16 +132,9 @@ final class SchedulingPipe {
                             WeakReference<DefaultScheduledTask> ref = iter.next();
                             final DefaultScheduledTask t = ref.get();
                             if (t != null) {
-                                dispatcher.submit(new Runnable() {
-
-                                    public void run() {
-                                        try {
-                                            t.onSchedule(timeStamp);
-                                        } catch (Throwable e) {
-                                            LOGGER.log(Level.SEVERE, null, e);
-                                        }
-                                    }
-                                });
+                                if (t.startRun()) {
+                                    dispatch(t, timeStamp);
+                                }
                             } else {
                                 iter.remove();
                             }
@@ -119,6 +153,21 @@ final class SchedulingPipe {
         }
     }
 
+    private void dispatch(final DefaultScheduledTask t, final long timeStamp) {
+        final Runnable run = new TaskRun(t, timeStamp, interval);
+        long offset = t.getJitter(interval);
+        if (offset > 0) {
+            schedulerService.schedule(new Runnable() {
+
+                public void run() {
+                    dispatcher.execute(run);
+                }
+            }, offset, TimeUnit.MILLISECONDS);
+        } else {
+            dispatcher.execute(run);
+        }
+    }
+
     void removeTask(DefaultScheduledTask task) {
         tasksLock.writeLock().lock();
         try {
@@ -139,4 +188,125 @@ final class SchedulingPipe {
             }
         }
     }
+
+    static int getQueuedTasksCount() {
+        return dispatcher.getQueue().size();
+    }
+
+    static long getAverageExecutionTime() {
+        long count = executedTasks.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(executionTime.get() / count);
+    }
+
+    /**
+     * Gives the pool an extra dispatcher thread for each task run that exceeded its timeout,
+     * the thread is taken back when the run finishes
+     */
+    private static void isolateHungTasks() {
+        long now = System.nanoTime();
+        for (TaskRun run : runningTasks) {
+            if (run.isHung(now)) {
+                synchronized (hungTasksLock) {
+                    if (!run.isolated) {
+                        run.isolated = true;
+                        hungTasks++;
+                        dispatcher.setMaximumPoolSize(DISPATCHER_THREADS + hungTasks);
+                        dispatcher.setCorePoolSize(DISPATCHER_THREADS + hungTasks);
+                        LOGGER.log(Level.INFO, "Task {0} is running for {1} ms, isolating it from other tasks", // NOI18N
+                                   new Object[] { run.task, TimeUnit.NANOSECONDS.toMillis(now - run.start) });
+                    }
+                }
+            }
+        }
+    }
+
+    private static void hungTaskFinished(TaskRun run) {
+        synchronized (hungTasksLock) {
+            if (run.isolated) {
+                hungTasks--;
+                dispatcher.setCorePoolSize(DISPATCHER_THREADS + hungTasks);
+                dispatcher.setMaximumPoolSize(DISPATCHER_THREADS + hungTasks);
+            }
+        }
+    }
+
+    static long getMaxJitter(Quantum interval) {
+        return Math.min(MAX_JITTER, interval.unit.toMillis(interval.interval) / 4);
+    }
+
+    private static ThreadPoolExecutor createDispatcher() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DISPATCHER_THREADS, DISPATCHER_THREADS, 60, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             new SchedulerThreadFactory("VisualVM Scheduler Dispatcher")); // NOI18N
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class TaskRun implements Runnable {
+        private final DefaultScheduledTask task;
+        private final long timeStamp;
+        private final Quantum interval;
+        private final long timeout;
+        private volatile long start;
+        // @GuardedBy hungTasksLock
+        private boolean isolated;
+
+        TaskRun(DefaultScheduledTask task, long timeStamp, Quantum interval) {
+            this.task = task;
+            this.timeStamp = timeStamp;
+            this.interval = interval;
+            timeout = TimeUnit.MILLISECONDS.toNanos(Math.max(TASK_TIMEOUT, interval.unit.toMillis(interval.interval)));
+        }
+
+        boolean isHung(long now) {
+            return now - start > timeout;
+        }
+
+        public void run() {
+            start = System.nanoTime();
+            runningTasks.add(this);
+            boolean ok = false;
+            try {
+                task.onSchedule(timeStamp);
+                ok = true;
+            } catch (Throwable e) {
+                // failed remote calls are expected for unreachable targets, the task is backed off
+                LOGGER.log(isIOFailure(e) ? Level.FINE : Level.SEVERE, null, e);
+            } finally {
+                runningTasks.remove(this);
+                hungTaskFinished(this);
+                long time = System.nanoTime() - start;
+                executedTasks.incrementAndGet();
+                executionTime.addAndGet(time);
+                boolean slow = time > interval.unit.toNanos(interval.interval);
+                if (slow && LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Task {0} took {1} ms, interval {2}", // NOI18N
+                               new Object[] { task, TimeUnit.NANOSECONDS.toMillis(time), interval });
+                }
+                task.runFinished(ok && !slow);
+            }
+        }
+    }
+
+    private static boolean isIOFailure(Throwable e) {
+        for (int depth = 0; e != null && depth < 8; depth++, e = e.getCause()) {
+            if (e instanceof IOException) return true;
+        }
+        return false;
+    }
+
+    private static final class SchedulerThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        SchedulerThreadFactory(String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, name + " " + count.incrementAndGet()); // NOI18N
+            t.setDaemon(true);
+            return t;
+        }
+    }
 }
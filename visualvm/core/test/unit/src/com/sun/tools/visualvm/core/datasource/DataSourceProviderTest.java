@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.core.datasource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.graalvm.visualvm.core.datasupport.DataChangeEvent;
+import org.graalvm.visualvm.core.datasupport.DataChangeListener;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests merging and dispatching of the change requests of DataSourceProvider.
+ *
+ * @author agent
+ */
+public class DataSourceProviderTest {
+
+    private final DataSource ds1 = new DataSource() {};
+    private final DataSource ds2 = new DataSource() {};
+    private final DataSource ds3 = new DataSource() {};
+
+    public DataSourceProviderTest() {
+    }
+
+    @Test
+    public void mergeAdditions() {
+        DataSourceProvider.PendingChange change = new DataSourceProvider.PendingChange(set(ds1), set());
+        assertTrue(change.merge(set(ds2), set()));
+        assertTrue(change.merge(set(ds2, ds3), set()));
+        assertEquals(set(ds1, ds2, ds3), change.added);
+        assertEquals(set(), change.removed);
+    }
+
+    @Test
+    public void mergeRemovals() {
+        DataSourceProvider.PendingChange change = new DataSourceProvider.PendingChange(set(), set(ds1));
+        assertTrue(change.merge(set(ds2), set(ds3)));
+        assertEquals(set(ds2), change.added);
+        assertEquals(set(ds1, ds3), change.removed);
+    }
+
+    @Test
+    public void mergeReaddition() {
+        // removals are applied before additions, a removed DataSource can be added again in the same batch
+        DataSourceProvider.PendingChange change = new DataSourceProvider.PendingChange(set(), set(ds1));
+        assertTrue(change.merge(set(ds1), set()));
+        assertEquals(set(ds1), change.added);
+        assertEquals(set(ds1), change.removed);
+    }
+
+    @Test
+    public void conflictingRemoval() {
+        DataSourceProvider.PendingChange change = new DataSourceProvider.PendingChange(set(ds1, ds2), set());
+        assertFalse(change.merge(set(ds3), set(ds2)));
+        // rejected request leaves the batch unchanged
+        assertEquals(set(ds1, ds2), change.added);
+        assertEquals(set(), change.removed);
+    }
+
+    @Test
+    public void copiesRequestSets() {
+        Set<DataSource> added = set(ds1);
+        DataSourceProvider.PendingChange change = new DataSourceProvider.PendingChange(added, set());
+        change.merge(set(ds2), set());
+        assertEquals(set(ds1), added);
+    }
+
+    @Test
+    public void burstDispatchedAsOneEvent() throws InterruptedException {
+        DataSourceProvider provider = new DataSourceProvider();
+        List<DataChangeEvent<DataSource>> events = addListener(provider);
+
+        CountDownLatch blocked = blockEventQueue();
+        provider.registerDataSource(ds1);
+        provider.registerDataSources(set(ds2));
+        provider.changeDataSources(set(ds3), set());
+        blocked.countDown();
+        waitForEventQueue();
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), set(ds1, ds2, ds3), set(ds1, ds2, ds3), set());
+        assertEquals(set(ds1, ds2, ds3), provider.getDataSources());
+    }
+
+    @Test
+    public void removalAfterAdditionDispatchedInOrder() throws InterruptedException {
+        DataSourceProvider provider = new DataSourceProvider();
+        List<DataChangeEvent<DataSource>> events = addListener(provider);
+
+        CountDownLatch blocked = blockEventQueue();
+        provider.registerDataSources(set(ds1, ds2));
+        provider.unregisterDataSource(ds1);
+        provider.registerDataSource(ds3);
+        blocked.countDown();
+        waitForEventQueue();
+
+        // the removal starts a new batch, its removals are fired before its additions
+        assertEquals(3, events.size());
+        assertEvent(events.get(0), set(ds1, ds2), set(ds1, ds2), set());
+        assertEvent(events.get(1), set(ds2), set(), set(ds1));
+        assertEvent(events.get(2), set(ds2, ds3), set(ds3), set());
+        assertEquals(set(ds2, ds3), provider.getDataSources());
+    }
+
+    private static List<DataChangeEvent<DataSource>> addListener(DataSourceProvider provider) throws InterruptedException {
+        final List<DataChangeEvent<DataSource>> events = new ArrayList<>();
+        provider.addDataChangeListener(new DataChangeListener<DataSource>() {
+            public void dataChanged(DataChangeEvent<DataSource> event) {
+                events.add(event);
+            }
+        }, DataSource.class);
+        waitForEventQueue();
+        // skip the initial state
+        events.clear();
+        return events;
+    }
+
+    private static void assertEvent(DataChangeEvent<DataSource> event, Set<DataSource> current,
+                                    Set<DataSource> added, Set<DataSource> removed) {
+        assertEquals(current, event.getCurrent());
+        assertEquals(added, event.getAdded());
+        assertEquals(removed, event.getRemoved());
+    }
+
+    private static CountDownLatch blockEventQueue() {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        DataSource.EVENT_QUEUE.post(new Runnable() {
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        return blocked;
+    }
+
+    private static void waitForEventQueue() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        DataSource.EVENT_QUEUE.post(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static Set<DataSource> set(DataSource... dataSources) {
+        return dataSources.length == 0 ? Collections.<DataSource>emptySet() :
+                                         new HashSet<>(Arrays.asList(dataSources));
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.core.datasupport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.graalvm.visualvm.core.datasource.DataSource;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests merging and dispatching of the changes reported to DataChangeSupport.
+ *
+ * @author agent
+ */
+public class DataChangeSupportTest {
+
+    public DataChangeSupportTest() {
+    }
+
+    @Test
+    public void mergeChanges() {
+        DataChangeSupport.PendingChange<String> change =
+                new DataChangeSupport.PendingChange<>(set("a", "b"), set("b"), null);
+        assertTrue(change.merge(set("a", "b", "c"), set("c"), set()));
+        assertTrue(change.merge(set("b", "c"), null, set("a")));
+        // the latest current set is kept, added and removed are unioned
+        assertEquals(set("b", "c"), change.current);
+        assertEquals(set("b", "c"), change.added);
+        assertEquals(set("a"), change.removed);
+    }
+
+    @Test
+    public void mergeNullCurrent() {
+        DataChangeSupport.PendingChange<String> change =
+                new DataChangeSupport.PendingChange<>(set("a"), null, null);
+        assertTrue(change.merge(null, null, null));
+        assertNull(change.current);
+        assertNull(change.added);
+        assertNull(change.removed);
+    }
+
+    @Test
+    public void conflictingRemoval() {
+        DataChangeSupport.PendingChange<String> change =
+                new DataChangeSupport.PendingChange<>(set("a", "b"), set("b"), null);
+        assertFalse(change.merge(set("a"), null, set("b")));
+        // rejected change leaves the pending one unchanged
+        assertEquals(set("a", "b"), change.current);
+        assertEquals(set("b"), change.added);
+        assertNull(change.removed);
+    }
+
+    @Test
+    public void conflictingAddition() {
+        DataChangeSupport.PendingChange<String> change =
+                new DataChangeSupport.PendingChange<>(set("a"), null, set("b"));
+        assertFalse(change.merge(set("a", "b"), set("b"), null));
+        assertEquals(set("a"), change.current);
+        assertNull(change.added);
+        assertEquals(set("b"), change.removed);
+    }
+
+    @Test
+    public void copiesReportedSets() {
+        Set<String> current = set("a");
+        Set<String> added = set("a");
+        DataChangeSupport.PendingChange<String> change =
+                new DataChangeSupport.PendingChange<>(current, added, null);
+        change.merge(set("a", "b"), set("b"), null);
+        assertEquals(set("a"), current);
+        assertEquals(set("a"), added);
+    }
+
+    @Test
+    public void burstDispatchedAsOneEvent() throws InterruptedException {
+        DataChangeSupport<String> support = new DataChangeSupport<>();
+        List<DataChangeEvent<String>> events = addListener(support);
+
+        CountDownLatch blocked = blockEventQueue();
+        support.fireChange(set("a"), set("a"), null);
+        support.fireChange(set("a", "b"), set("b"), null);
+        support.fireChange(set("a", "b", "c"), set("c"), null);
+        blocked.countDown();
+        waitForEventQueue();
+
+        assertEquals(1, events.size());
+        assertEquals(set("a", "b", "c"), events.get(0).getCurrent());
+        assertEquals(set("a", "b", "c"), events.get(0).getAdded());
+        assertEquals(set(), events.get(0).getRemoved());
+    }
+
+    @Test
+    public void removalAfterAdditionDispatchedInOrder() throws InterruptedException {
+        DataChangeSupport<String> support = new DataChangeSupport<>();
+        List<DataChangeEvent<String>> events = addListener(support);
+
+        CountDownLatch blocked = blockEventQueue();
+        support.fireChange(set("a", "b"), set("a", "b"), null);
+        support.fireChange(set("b"), null, set("a"));
+        support.fireChange(set("b", "c"), set("c"), null);
+        blocked.countDown();
+        waitForEventQueue();
+
+        assertEquals(2, events.size());
+        assertEquals(set("a", "b"), events.get(0).getCurrent());
+        assertEquals(set("a", "b"), events.get(0).getAdded());
+        assertEquals(set(), events.get(0).getRemoved());
+        assertEquals(set("b", "c"), events.get(1).getCurrent());
+        assertEquals(set("c"), events.get(1).getAdded());
+        assertEquals(set("a"), events.get(1).getRemoved());
+    }
+
+    private static List<DataChangeEvent<String>> addListener(DataChangeSupport<String> support) throws InterruptedException {
+        final List<DataChangeEvent<String>> events = new ArrayList<>();
+        support.addChangeListener(new DataChangeListener<String>() {
+            public void dataChanged(DataChangeEvent<String> event) {
+                events.add(event);
+            }
+        });
+        waitForEventQueue();
+        return events;
+    }
+
+    private static CountDownLatch blockEventQueue() {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        DataSource.EVENT_QUEUE.post(new Runnable() {
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        return blocked;
+    }
+
+    private static void waitForEventQueue() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        DataSource.EVENT_QUEUE.post(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static Set<String> set(String... strings) {
+        return new HashSet<>(Arrays.asList(strings));
+    }
+
+}
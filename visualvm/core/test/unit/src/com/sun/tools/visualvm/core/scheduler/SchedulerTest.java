@@ -25,12 +25,15 @@
 package org.graalvm.visualvm.core.scheduler;
 
 import java.beans.PropertyChangeEvent;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -50,6 +53,8 @@ public class SchedulerTest {
 
     @BeforeClass
     public static void setUpClass() throws Exception {
+        // Only effective if the scheduler was not used in this VM yet, see scheduleWithHungTasks()
+        System.setProperty("org.graalvm.visualvm.core.scheduler.taskTimeout", "2000"); // NOI18N
     }
 
     @AfterClass
@@ -160,6 +165,76 @@ public class SchedulerTest {
         }
     }
 
+    /**
+     * Test that task runs hanging longer than the task timeout do not stall other tasks, of class Scheduler.
+     */
+    @Test
+    public void scheduleWithHungTasks() {
+        System.out.println("schedule, hung tasks");
+        int dispatcherThreads = Integer.getInteger("org.graalvm.visualvm.core.scheduler.dispatcherThreads", // NOI18N
+                                                   Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+        final CountDownLatch hung = new CountDownLatch(dispatcherThreads);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch barrier = new CountDownLatch(1);
+        SchedulerTask hangingTask = new SchedulerTask() {
+
+            public void onSchedule(long timeStamp) {
+                hung.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        SchedulerTask task = new SchedulerTask() {
+
+            public void onSchedule(long timeStamp) {
+                barrier.countDown();
+            }
+        };
+        Scheduler instance = Scheduler.sharedInstance();
+        try {
+            for (int i = 0; i < dispatcherThreads; i++) {
+                stasks.add(instance.schedule(hangingTask, Quantum.seconds(1), false));
+            }
+            assertTrue(hung.await(10, TimeUnit.SECONDS)); // all dispatcher threads are blocked now
+            stasks.add(instance.schedule(task, Quantum.seconds(1), false));
+            // the default task timeout is 10 s, if the scheduler was initialized before setUpClass()
+            assertTrue(barrier.await(20, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            fail(e.getMessage());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Test that a task failing with a remote call is backed off, of class Scheduler.
+     */
+    @Test
+    public void scheduleFailingTask() {
+        System.out.println("schedule, failing task");
+        final AtomicInteger runs = new AtomicInteger();
+        SchedulerTask task = new SchedulerTask() {
+
+            public void onSchedule(long timeStamp) {
+                runs.incrementAndGet();
+                throw new UndeclaredThrowableException(new ConnectException("Connection refused")); // NOI18N
+            }
+        };
+        Scheduler instance = Scheduler.sharedInstance();
+        stasks.add(instance.schedule(task, Quantum.seconds(1), false));
+        try {
+            Thread.sleep(7500);
+        } catch (InterruptedException e) {
+            fail(e.getMessage());
+        }
+        // runs after skipping 1 and 3 intervals instead of every interval
+        assertTrue(runs.get() > 0);
+        assertTrue("Runs: " + runs.get(), runs.get() <= 4); // NOI18N
+    }
+
     /**
      * Test of unschedule method, of class Scheduler.
      */
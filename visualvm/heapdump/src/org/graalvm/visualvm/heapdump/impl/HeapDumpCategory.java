@@ -28,9 +28,12 @@ package org.graalvm.visualvm.heapdump.impl;
 import org.graalvm.visualvm.core.snapshot.SnapshotCategory;
 import org.graalvm.visualvm.core.ui.DataSourceWindowManager;
 import org.graalvm.visualvm.heapdump.HeapDump;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.zip.GZIPInputStream;
 import javax.swing.filechooser.FileFilter;
 import org.openide.util.NbBundle;
 
@@ -74,6 +77,9 @@ public class HeapDumpCategory extends SnapshotCategory<HeapDump> {
                 if (new String(prefix).startsWith(HPROF_HEADER)) {
                     return true;
                 }
+                if ((prefix[0] & 0xFF) == 0x1f && (prefix[1] & 0xFF) == 0x8b) {
+                    return checkGZipHprofFile(file);
+                }
             } catch (IOException ex) {
                 return false;
             }
@@ -81,6 +87,16 @@ public class HeapDumpCategory extends SnapshotCategory<HeapDump> {
         return false;
     }
 
+    private boolean checkGZipHprofFile(File file) {
+        try (DataInputStream dis = new DataInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            byte[] prefix = new byte[HPROF_HEADER.length()+4];
+            dis.readFully(prefix);
+            return new String(prefix).startsWith(HPROF_HEADER);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
     public FileFilter getFileFilter() {
         return new FileFilter() {
             public boolean accept(File f) {
@@ -308,6 +308,10 @@ public class OQLConsoleView extends HeapViewerFeature {
                             OQLConsoleView.this.queryStarted(model);
                         }
                         @Override
+                        protected void queryProgress(boolean hasHTMLResults) {
+                            OQLConsoleView.this.queryProgress(hasHTMLResults);
+                        }
+                        @Override
                         protected void queryFinished(boolean hasObjectsResults, boolean hasHTMLResults, String errorMessage) {
                             OQLConsoleView.this.queryFinished(hasObjectsResults, hasHTMLResults, errorMessage);
                         }
@@ -782,6 +786,16 @@ public class OQLConsoleView extends HeapViewerFeature {
         });
     }
 
+    private void queryProgress(final boolean hasHTMLResults) {
+        if (!hasHTMLResults) return;
+        
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                if (oqlExecutor.isQueryRunning()) htmlView.setText(oqlExecutor.getQueryHTML());
+            }
+        });
+    }
+
     private void queryFinished(final boolean hasObjectsResults, final boolean hasHTMLResults, final String errorMessage) {
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
@@ -98,8 +98,11 @@ class OQLQueryExecutor {
     private int htmlResultsLimit;
     private volatile boolean hasHTMLResults;
     private String queryHTML;
+    private volatile StringBuilder runningHTML;
+    private final AtomicInteger resultsCount;
     
     private final AtomicBoolean queryRunning;
+    private volatile OQLEngine.ObjectVisitor queryVisitor; // identifies the query in the engine
     private final ExecutorService progressUpdater;
     
     
@@ -109,6 +112,7 @@ class OQLQueryExecutor {
         queryHTML = htmlize(Bundle.OQLQueryExecutor_NothingExecuted()); // NOI18N
         
         queryRunning = new AtomicBoolean(false);
+        resultsCount = new AtomicInteger();
         progressUpdater = Executors.newSingleThreadExecutor();
     }
     
@@ -126,7 +130,8 @@ class OQLQueryExecutor {
         String errorMessage = null;
         
         try {
-            engine.cancelQuery();
+            OQLEngine.ObjectVisitor visitor = queryVisitor;
+            if (visitor != null) engine.cancelQuery(visitor);
         } catch (OQLException e) {
             errorMessage = e.getLocalizedMessage().replace("\n", "<br>").replace("\r", "<br>"); // NOI18N
         }
@@ -143,6 +148,8 @@ class OQLQueryExecutor {
     
     protected void queryStarted(BoundedRangeModel model) {}
     
+    protected void queryProgress(boolean hasHTMLResults) {}
+    
     protected void queryFinished(boolean hasObjectsResults, boolean hasHTMLResults, String errorMessage) {}
     
     
@@ -154,6 +161,13 @@ class OQLQueryExecutor {
     }
     
     String getQueryHTML() {
+        StringBuilder sb = runningHTML;
+        if (sb != null && hasHTMLResults) {
+            // partial results of the running query
+            synchronized (sb) {
+                return sb.toString() + "</table>"; // NOI18N
+            }
+        }
         return queryHTML;
     }
     
@@ -284,6 +298,7 @@ class OQLQueryExecutor {
                 progressModel.setMaximum(100);
 
                 final StringBuilder sb = new StringBuilder();
+                resultsCount.set(0);
                 final boolean[] oddRow = new boolean[1];
                 Color oddRowBackground = UIUtils.getDarker(
                                 UIUtils.getProfilerResultsBackground());
@@ -293,26 +308,31 @@ class OQLQueryExecutor {
                                  oddRowBackground.getBlue() + ")"; //NOI18N
 
                 sb.append("<table border='0' width='100%'>"); // NOI18N
+                if (collectHTML) runningHTML = sb;
 
                 try {
                     queryRunning.compareAndSet(false, true);
                     queryStarted(progressModel);
                     progressUpdater.submit(new ProgressUpdater(progressModel));
-                    engine.executeQuery(queryString, new OQLEngine.ObjectVisitor() {
+                    queryVisitor = new OQLEngine.ObjectVisitor() {
                         public boolean visit(Object o) {
 //                                    System.err.println(">>> Visiting object " + o);
                             boolean collectingHtml = collectHTML && counter.decrementAndGet() >= 0;
 
-                            if (collectingHtml) {
-                                sb.append(oddRow[0] ?
-                                    "<tr><td style='background-color: " + // NOI18N
-                                    oddRowBackgroundString + ";'>" : "<tr><td>"); // NOI18N
-                                oddRow[0] = !oddRow[0];
+                            // results are published by ProgressUpdater while the query is running
+                            synchronized (sb) {
+                                if (collectingHtml) {
+                                    sb.append(oddRow[0] ?
+                                        "<tr><td style='background-color: " + // NOI18N
+                                        oddRowBackgroundString + ";'>" : "<tr><td>"); // NOI18N
+                                    oddRow[0] = !oddRow[0];
+                                }
+
+                                dump(o, collectingHtml ? sb : null);
+
+                                if (collectingHtml) sb.append("</td></tr>"); // NOI18N
                             }
-                            
-                            dump(o, collectingHtml ? sb : null);
-                            
-                            if (collectingHtml) sb.append("</td></tr>"); // NOI18N
+                            resultsCount.incrementAndGet();
                             
 //                            boolean htmlFull = counter.decrementAndGet() == 0;
 //                            if (htmlFull) htmlCollecting.compareAndSet(true, false);
@@ -321,7 +341,8 @@ class OQLQueryExecutor {
 //                            return counter.decrementAndGet() == 0 || (!queryRunning.get() && !engine.isCancelled()); // process all hits while the analysis is running
                             
                         }
-                    });
+                    };
+                    engine.executeQuery(queryString, queryVisitor);
                     
                     int count = counter.get();
 
@@ -335,6 +356,7 @@ class OQLQueryExecutor {
 
                     queryHTML = count != htmlResultsLimit ? sb.toString() :
                                 htmlize(Bundle.OQLQueryExecutor_NoResults()); // Query returned no results
+                    runningHTML = null;
                     
                     queryRunning.compareAndSet(true, false);
 //                    htmlCollecting.compareAndSet(true, false);
@@ -347,6 +369,7 @@ class OQLQueryExecutor {
                     errorMessage.append("<hr>"); // NOI18N
                     errorMessage.append(oQLException.getLocalizedMessage().replace("\n", "<br>").replace("\r", "<br>")); // NOI18N
 
+                    runningHTML = null;
                     queryRunning.compareAndSet(true, false);
 //                    htmlCollecting.compareAndSet(true, false);
                     queryFinished(hasObjectsResults, hasHTMLResults, errorMessage.toString());
@@ -497,6 +520,8 @@ class OQLQueryExecutor {
     
     private class ProgressUpdater implements Runnable {
 
+        private static final int PUBLISH_TICKS = 5;
+
         private final BoundedRangeModel progressModel;
 
         ProgressUpdater(BoundedRangeModel model) {
@@ -504,7 +529,18 @@ class OQLQueryExecutor {
         }
 
         public void run() {
+            int ticks = 0;
+            int publishedResults = 0;
             while (queryRunning.get()) {
+                // stream partial results every second
+                if (++ticks % PUBLISH_TICKS == 0) {
+                    int results = resultsCount.get();
+                    if (results != publishedResults) {
+                        publishedResults = results;
+                        queryProgress(hasHTMLResults);
+                    }
+                }
+
                 final int newVal;
                 int val = progressModel.getValue() + 10;
                 
@@ -48,6 +48,7 @@ import jdk.jfr.consumer.RecordedClass;
 import jdk.jfr.consumer.RecordedClassLoader;
 import jdk.jfr.consumer.RecordedThread;
 import org.graalvm.visualvm.jfr.model.JFRDataDescriptor;
+import org.graalvm.visualvm.jfr.model.JFREvent;
 import org.graalvm.visualvm.jfr.model.JFRPropertyNotAvailableException;
 import org.graalvm.visualvm.jfr.utils.DurationFormatter;
 import org.graalvm.visualvm.jfr.utils.InstantFormatter;
@@ -164,7 +165,7 @@ final class DisplayableSupport {
     }
     
     
-    static Comparable getDisplayValue(JFRJDK9Event event, ValueDescriptor descriptor) {
+    static Comparable getDisplayValue(JFREvent event, ValueDescriptor descriptor) {
 //        List<AnnotationElement> annotations = descriptor.getAnnotationElements();
 //        for (AnnotationElement annotation : annotations) System.err.println(">>> ANNOTATION " + annotation.getTypeName() + " - " + annotation.getValues());
 //        System.err.println(">>> ContentType " + descriptor.getContentType());
@@ -232,7 +233,7 @@ final class DisplayableSupport {
             return null;
         }
         
-        Comparable createValue(JFRJDK9Event event, ValueDescriptor descriptor, A annotation) throws JFRPropertyNotAvailableException {
+        Comparable createValue(JFREvent event, ValueDescriptor descriptor, A annotation) throws JFRPropertyNotAvailableException {
             Object value = event.getValue(descriptor.getName());
             return value instanceof Comparable ? (Comparable)value :
                    value != null ? value.toString() : null;
@@ -258,7 +259,7 @@ final class DisplayableSupport {
         }
         
         @Override
-        Comparable createValue(JFRJDK9Event event, ValueDescriptor descriptor, Timestamp annotation) throws JFRPropertyNotAvailableException {
+        Comparable createValue(JFREvent event, ValueDescriptor descriptor, Timestamp annotation) throws JFRPropertyNotAvailableException {
             return event.getInstant(descriptor.getName());
         }
         
@@ -290,7 +291,7 @@ final class DisplayableSupport {
         }
         
         @Override
-        Comparable createValue(JFRJDK9Event event, ValueDescriptor descriptor, Timespan annotation) throws JFRPropertyNotAvailableException {
+        Comparable createValue(JFREvent event, ValueDescriptor descriptor, Timespan annotation) throws JFRPropertyNotAvailableException {
             return event.getDuration(descriptor.getName());
         }
         
@@ -470,7 +471,7 @@ final class DisplayableSupport {
             return null;
         }
         
-        Comparable createValue(JFRJDK9Event event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
+        Comparable createValue(JFREvent event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
             Object value = event.getValue(descriptor.getName());
             return value instanceof Comparable ? (Comparable)value :
                    value == null ? "" : value.toString();
@@ -491,7 +492,7 @@ final class DisplayableSupport {
         }
         
         @Override
-        String createValue(JFRJDK9Event event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
+        String createValue(JFREvent event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
             Object value = event.getValue(descriptor.getName());
             RecordedThread thread = value instanceof RecordedThread ? (RecordedThread)value : null;
             if (thread == null) return "";
@@ -509,7 +510,7 @@ final class DisplayableSupport {
         }
         
         @Override
-        String createValue(JFRJDK9Event event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
+        String createValue(JFREvent event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
             Object value = event.getValue(descriptor.getName());
             return value instanceof RecordedClass ? ((RecordedClass)value).getName(): "";
         }
@@ -525,7 +526,7 @@ final class DisplayableSupport {
         }
         
         @Override
-        String createValue(JFRJDK9Event event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
+        String createValue(JFREvent event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
             Object value = event.getValue(descriptor.getName());
             return value instanceof RecordedClassLoader ? ((RecordedClassLoader)value).getType().getName(): ""; // NOTE: should actually be "bootstrap"
         }
@@ -535,7 +536,7 @@ final class DisplayableSupport {
     
     private static class DefaultProcessor {
         
-        Comparable createValue(JFRJDK9Event event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
+        Comparable createValue(JFREvent event, ValueDescriptor descriptor) throws JFRPropertyNotAvailableException {
             Object value = event.getValue(descriptor.getName());
             
             if (value == null) return null;
@@ -0,0 +1,947 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.jfr.jdk9.model.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.EventType;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+import jdk.jfr.ValueDescriptor;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedObject;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import org.graalvm.visualvm.jfr.model.JFRClass;
+import org.graalvm.visualvm.jfr.model.JFREvent;
+import org.graalvm.visualvm.jfr.model.JFRPropertyNotAvailableException;
+import org.graalvm.visualvm.jfr.model.JFRStackTrace;
+import org.graalvm.visualvm.jfr.model.JFRThread;
+
+/**
+ * Columnar store of all events of a snapshot, filled by a single pass over
+ * the recording. Events of each type are kept in a table with a column per
+ * field. Primitive values are kept in long columns, other values are indexes
+ * to a table of interned strings and constant pool objects (threads, stack
+ * traces, classes...). Fields of nested structures have their own columns,
+ * so that the objects table doesn't grow with the number of events. Timestamp
+ * and timespan fields have another column with the value converted to
+ * nanoseconds.
+ * 
+ * Once the columns exceed their memory budget, filled blocks are spilled to
+ * a temporary file while the recording is being read. The file is memory-mapped
+ * when the store is finished.
+ *
+ * @author agent
+ */
+final class JFRJDK9EventStore {
+    
+    private static final Logger LOGGER = Logger.getLogger(JFRJDK9EventStore.class.getName());
+    
+    // columns larger than maxMemory / SPILL_RATIO are spilled to disk
+    private static final int SPILL_RATIO = Integer.getInteger("org.graalvm.visualvm.jfr.storeSpillRatio", 8); // NOI18N
+    
+    private static final int BLOCK_BITS = 16;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int INITIAL_BLOCK_SIZE = 256;
+    
+    // spilled blocks are aligned to their size, so that each fits into a single mapped window
+    private static final int WINDOW_BITS = 30;
+    private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+    
+    // time range of each 2^TIME_BLOCK_BITS consecutive events, an event
+    // may start before the preceding events of the recording
+    private static final int TIME_BLOCK_BITS = 12;
+    
+    private static final int BOOLEAN = 0;
+    private static final int BYTE = 1;
+    private static final int CHAR = 2;
+    private static final int SHORT = 3;
+    private static final int INT = 4;
+    private static final int LONG = 5;
+    private static final int FLOAT = 6;
+    private static final int DOUBLE = 7;
+    private static final int REFERENCE = 8;
+    private static final int STRUCT = 9;
+    
+    // nested structures deeper than this are kept in the objects table
+    private static final int MAX_STRUCT_DEPTH = 3;
+    
+    // constant pool types provided as objects by the events, not stored in columns
+    private static final Set<String> OBJECT_TYPES = new HashSet<>(Arrays.asList(
+        "java.lang.Thread", "java.lang.ThreadGroup", "java.lang.Class", // NOI18N
+        "jdk.types.ClassLoader", "jdk.types.Method", "jdk.types.StackTrace", "jdk.types.StackFrame", // NOI18N
+        "jdk.types.Module", "jdk.types.Package", // NOI18N
+        "com.oracle.jfr.types.ClassLoader", "com.oracle.jfr.types.Method", "com.oracle.jfr.types.StackTrace", // NOI18N
+        "com.oracle.jfr.types.StackFrame", "com.oracle.jfr.types.Module", "com.oracle.jfr.types.Package" // NOI18N
+    ));
+    
+    private static final int NO_CONVERSION = 0;
+    private static final int TIMESTAMP = 1;
+    private static final int TIMESPAN = 2;
+    
+    // converted values which are not a number of nanoseconds, values out of
+    // the nanoseconds range are kept in the objects table
+    private static final long NULL_NANOS = Long.MIN_VALUE;
+    private static final long NA_NANOS = Long.MIN_VALUE + 1;
+    private static final long OBJECT_NANOS = Long.MIN_VALUE + 2;
+    private static final long MAX_OBJECT_NANOS = OBJECT_NANOS + Integer.MAX_VALUE;
+    
+    
+    private final List<TypeTable> tables = new ArrayList<>();
+    private Map<String, List<TypeTable>> tablesMap = new HashMap<>();
+    private Map<EventType, TypeTable> tablesCache = new IdentityHashMap<>();
+    
+    private final List<Object> objects = new ArrayList<>();
+    private Map<String, Integer> stringsMap = new HashMap<>();
+    private Map<Object, Integer> objectsMap = new IdentityHashMap<>();
+    private Map<Object, Integer> convertedMap = new HashMap<>();
+    
+    private final List<Column> columns = new ArrayList<>();
+    private final IntColumn typeColumn = new IntColumn();
+    private final IntColumn rowColumn = new IntColumn();
+    private final LongColumn startColumn = new LongColumn();
+    private final LongColumn durationColumn = new LongColumn();
+    
+    private long[] blockStarts = new long[16];
+    private long[] blockEnds = new long[16];
+    
+    private long eventsCount;
+    
+    private final long memoryLimit = Runtime.getRuntime().maxMemory() / SPILL_RATIO;
+    private long memoryUsed;
+    
+    private File spillFile;
+    private FileChannel spillChannel;
+    private long spillPosition;
+    private boolean spillFailed;
+    private ByteBuffer spillBuffer;
+    private ByteBuffer[] spillWindows;
+    
+    
+    long addEvent(String typeId, RecordedEvent revent, JFREvent event, long startNanos, long durationNanos) {
+        TypeTable table = getTable(typeId, revent.getEventType());
+        
+        long id = eventsCount++;
+        typeColumn.add(table.index);
+        rowColumn.add(table.rows);
+        startColumn.add(startNanos);
+        durationColumn.add(durationNanos);
+        table.add(revent, event);
+        
+        int block = (int)(id >>> TIME_BLOCK_BITS);
+        if (block == blockStarts.length) {
+            blockStarts = Arrays.copyOf(blockStarts, block * 2);
+            blockEnds = Arrays.copyOf(blockEnds, block * 2);
+        }
+        long endNanos = startNanos + durationNanos;
+        if ((id & ((1 << TIME_BLOCK_BITS) - 1)) == 0) {
+            blockStarts[block] = startNanos;
+            blockEnds[block] = endNanos;
+        } else {
+            blockStarts[block] = Math.min(blockStarts[block], startNanos);
+            blockEnds[block] = Math.max(blockEnds[block], endNanos);
+        }
+        
+        return id;
+    }
+    
+    void finish() throws IOException {
+        int blocksCount = getTimeBlocksCount();
+        blockStarts = Arrays.copyOf(blockStarts, blocksCount);
+        blockEnds = Arrays.copyOf(blockEnds, blocksCount);
+        
+        // only needed while adding events
+        tablesMap = null;
+        tablesCache = null;
+        stringsMap = null;
+        objectsMap = null;
+        convertedMap = null;
+        spillBuffer = null;
+        
+        if (spillChannel != null) {
+            try {
+                long size = spillChannel.size();
+                ByteBuffer[] windows = new ByteBuffer[(int)((size + WINDOW_MASK) >>> WINDOW_BITS)];
+                for (int window = 0; window < windows.length; window++) {
+                    long position = (long)window << WINDOW_BITS;
+                    windows[window] = spillChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_MASK + 1, size - position));
+                }
+                spillWindows = windows;
+            } finally {
+                spillChannel.close();
+                // mapped buffers remain valid after the file has been deleted
+                if (!spillFile.delete()) spillFile.deleteOnExit();
+            }
+        }
+    }
+    
+    
+    long getEventsCount() {
+        return eventsCount;
+    }
+    
+    String getTypeId(long id) {
+        return tables.get(typeColumn.get(id)).typeId;
+    }
+    
+    JFREvent getEvent(long id) {
+        if (id < 0 || id >= eventsCount) return null;
+        return new StoredEvent(id, tables.get(typeColumn.get(id)), rowColumn.get(id));
+    }
+    
+    
+    int getTimeBlocksCount() {
+        return (int)((eventsCount + (1 << TIME_BLOCK_BITS) - 1) >>> TIME_BLOCK_BITS);
+    }
+    
+    long getTimeBlockFirstId(int block) {
+        return (long)block << TIME_BLOCK_BITS;
+    }
+    
+    boolean isTimeBlockInTimeWindow(int block, long startNanos, long endNanos) {
+        return blockStarts[block] <= endNanos && blockEnds[block] >= startNanos;
+    }
+    
+    boolean isInTimeWindow(long id, long startNanos, long endNanos) {
+        long start = startColumn.get(id);
+        return start <= endNanos && start + durationColumn.get(id) >= startNanos;
+    }
+    
+    
+    private TypeTable getTable(String typeId, EventType type) {
+        TypeTable table = tablesCache.get(type);
+        if (table != null) return table;
+        
+        // the same type may be described by each chunk of the recording
+        List<TypeTable> typeTables = tablesMap.get(typeId);
+        if (typeTables == null) {
+            typeTables = new ArrayList<>(1);
+            tablesMap.put(typeId, typeTables);
+        }
+        for (TypeTable typeTable : typeTables)
+            if (typeTable.hasFields(type)) table = typeTable;
+        
+        if (table == null) {
+            table = new TypeTable(tables.size(), typeId, type);
+            tables.add(table);
+            typeTables.add(table);
+        }
+        
+        tablesCache.put(type, table);
+        return table;
+    }
+    
+    private int intern(Object value) {
+        if (value == null) return -1;
+        
+        Integer index;
+        if (value instanceof String) {
+            index = stringsMap.get(value);
+            if (index == null) {
+                index = objects.size();
+                objects.add(value);
+                stringsMap.put((String)value, index);
+            }
+        } else {
+            // constant pool objects are shared by all events referencing them
+            index = objectsMap.get(value);
+            if (index == null) {
+                index = objects.size();
+                objects.add(value);
+                objectsMap.put(value, index);
+            }
+        }
+        return index;
+    }
+    
+    
+    private long toNanos(int conversion, String name, JFREvent event) {
+        Object value;
+        try {
+            if (conversion == TIMESTAMP) value = event.getInstant(name);
+            else value = event.getDuration(name);
+        } catch (JFRPropertyNotAvailableException e) {
+            return NA_NANOS;
+        }
+        
+        if (value == null) return NULL_NANOS;
+        try {
+            long nanos = value instanceof Instant ? Math.addExact(Math.multiplyExact(((Instant)value).getEpochSecond(), 1000000000L), ((Instant)value).getNano()) :
+                                                    ((Duration)value).toNanos();
+            if (nanos > MAX_OBJECT_NANOS) return nanos;
+        } catch (ArithmeticException e) {}
+        
+        Integer index = convertedMap.get(value);
+        if (index == null) {
+            index = objects.size();
+            objects.add(value);
+            convertedMap.put(value, index);
+        }
+        return OBJECT_NANOS + index;
+    }
+    
+    private void allocated(long bytes) {
+        memoryUsed += bytes;
+        if (spillChannel == null && !spillFailed && memoryUsed > memoryLimit) startSpilling();
+    }
+    
+    private boolean isSpilling() {
+        return spillChannel != null && !spillFailed;
+    }
+    
+    private void startSpilling() {
+        try {
+            spillFile = File.createTempFile("visualvm_jfr", ".store"); // NOI18N
+            spillChannel = new RandomAccessFile(spillFile, "rw").getChannel(); // NOI18N
+        } catch (IOException e) {
+            // keep the columns in memory
+            LOGGER.log(Level.INFO, "Failed to spill JFR event store to disk", e); // NOI18N
+            if (spillFile != null && !spillFile.delete()) spillFile.deleteOnExit();
+            spillFile = null;
+            spillFailed = true;
+            return;
+        }
+        
+        for (Column column : columns) column.spillFullBlocks();
+    }
+    
+    // returns position of the written block or -1
+    private long spill(Column column, int block, int bytes) {
+        if (spillBuffer == null) spillBuffer = ByteBuffer.allocate(BLOCK_SIZE * Long.BYTES);
+        spillBuffer.clear();
+        column.writeBlock(block, spillBuffer);
+        spillBuffer.flip();
+        
+        long position = (spillPosition + bytes - 1) / bytes * bytes;
+        try {
+            long filePosition = position;
+            while (spillBuffer.hasRemaining()) filePosition += spillChannel.write(spillBuffer, filePosition);
+            spillPosition = filePosition;
+            return position;
+        } catch (IOException e) {
+            // keep the remaining blocks in memory
+            LOGGER.log(Level.INFO, "Failed to spill JFR event store to disk", e); // NOI18N
+            spillFailed = true;
+            return -1;
+        }
+    }
+    
+    private ByteBuffer getSpillWindow(long position) {
+        return spillWindows[(int)(position >>> WINDOW_BITS)];
+    }
+    
+    private static int getSpillOffset(long position) {
+        return (int)(position & WINDOW_MASK);
+    }
+    
+    
+    private static List<Field> getFields(EventType type) {
+        List<Field> fields = new ArrayList<>();
+        addFields(type.getFields(), -1, "", fields); // NOI18N
+        return fields;
+    }
+    
+    private static void addFields(List<ValueDescriptor> descriptors, int parent, String prefix, List<Field> fields) {
+        int depth = parent == -1 ? 0 : fields.get(parent).depth + 1;
+        for (ValueDescriptor descriptor : descriptors) {
+            ValueDescriptor resolved = resolveSimpleType(descriptor);
+            Field field = new Field();
+            field.name = prefix + descriptor.getName();
+            field.simpleName = descriptor.getName();
+            field.parent = parent;
+            field.depth = depth;
+            field.kind = getKind(resolved, depth);
+            field.conversion = getConversion(descriptor, parent == -1);
+            if (field.conversion == NO_CONVERSION && resolved != descriptor) field.conversion = getConversion(resolved, false);
+            
+            int index = fields.size();
+            fields.add(field);
+            if (field.kind == STRUCT) addFields(resolved.getFields(), index, field.name + ".", fields); // NOI18N
+            field.end = fields.size();
+        }
+    }
+    
+    // values of types with a single field are provided by the value of the field
+    private static ValueDescriptor resolveSimpleType(ValueDescriptor descriptor) {
+        while (!descriptor.isArray() && !OBJECT_TYPES.contains(descriptor.getTypeName()) && descriptor.getFields().size() == 1)
+            descriptor = descriptor.getFields().get(0);
+        return descriptor;
+    }
+    
+    private static int getKind(ValueDescriptor descriptor, int depth) {
+        if (descriptor.isArray()) return REFERENCE;
+        
+        switch (descriptor.getTypeName()) {
+            case "boolean": return BOOLEAN; // NOI18N
+            case "byte": return BYTE; // NOI18N
+            case "char": return CHAR; // NOI18N
+            case "short": return SHORT; // NOI18N
+            case "int": return INT; // NOI18N
+            case "long": return LONG; // NOI18N
+            case "float": return FLOAT; // NOI18N
+            case "double": return DOUBLE; // NOI18N
+        }
+        
+        if (depth >= MAX_STRUCT_DEPTH || descriptor.getFields().isEmpty()
+            || OBJECT_TYPES.contains(descriptor.getTypeName())) return REFERENCE;
+        else return STRUCT;
+    }
+    
+    private static int getConversion(ValueDescriptor descriptor, boolean eventField) {
+        // start time and duration of the event are kept by the store itself
+        String name = descriptor.getName();
+        if (eventField && ("startTime".equals(name) || "duration".equals(name))) return NO_CONVERSION; // NOI18N
+        
+        if (descriptor.getAnnotation(Timestamp.class) != null) return TIMESTAMP;
+        else if (descriptor.getAnnotation(Timespan.class) != null) return TIMESPAN;
+        else return NO_CONVERSION;
+    }
+    
+    private static long toLong(int kind, Object value) {
+        if (value == null) return 0;
+        
+        switch (kind) {
+            case BOOLEAN: return ((Boolean)value).booleanValue() ? 1 : 0;
+            case CHAR: return ((Character)value).charValue();
+            case FLOAT: return Float.floatToRawIntBits(((Number)value).floatValue());
+            case DOUBLE: return Double.doubleToRawLongBits(((Number)value).doubleValue());
+            default: return ((Number)value).longValue();
+        }
+    }
+    
+    private static Object fromLong(int kind, long value) {
+        switch (kind) {
+            case BOOLEAN: return value != 0;
+            case BYTE: return (byte)value;
+            case CHAR: return (char)value;
+            case SHORT: return (short)value;
+            case INT: return (int)value;
+            case FLOAT: return Float.intBitsToFloat((int)value);
+            case DOUBLE: return Double.longBitsToDouble(value);
+            default: return value;
+        }
+    }
+    
+    
+    // field of an event type, fields of nested structures follow the field of the structure
+    private static final class Field {
+        
+        String name;
+        String simpleName;
+        int parent;
+        int depth;
+        int kind;
+        int conversion;
+        
+        // index after the last nested field
+        int end;
+        
+    }
+    
+    private final class TypeTable {
+        
+        final int index;
+        final String typeId;
+        final EventType type;
+        
+        private final Field[] fields;
+        private final LongColumn[] primitives;
+        private final IntColumn[] references;
+        private final LongColumn[] nanos;
+        private final Map<String, Integer> fieldIndexes;
+        
+        // values of the row being added
+        private final Object[] values;
+        
+        int rows;
+        
+        
+        TypeTable(int index, String typeId, EventType type) {
+            this.index = index;
+            this.typeId = typeId;
+            this.type = type;
+            
+            fields = getFields(type).toArray(new Field[0]);
+            int count = fields.length;
+            primitives = new LongColumn[count];
+            references = new IntColumn[count];
+            nanos = new LongColumn[count];
+            fieldIndexes = new HashMap<>();
+            values = new Object[count];
+            
+            for (int field = 0; field < count; field++) {
+                // structures have a column marking null values
+                if (fields[field].kind == REFERENCE) references[field] = new IntColumn();
+                else primitives[field] = new LongColumn();
+                if (fields[field].conversion != NO_CONVERSION) nanos[field] = new LongColumn();
+                fieldIndexes.put(fields[field].name, field);
+            }
+        }
+        
+        
+        boolean hasFields(EventType other) {
+            List<Field> otherFields = getFields(other);
+            if (otherFields.size() != fields.length) return false;
+            
+            for (int field = 0; field < fields.length; field++) {
+                Field otherField = otherFields.get(field);
+                if (!fields[field].name.equals(otherField.name) || fields[field].kind != otherField.kind
+                    || fields[field].conversion != otherField.conversion) return false;
+            }
+            return true;
+        }
+        
+        void add(RecordedEvent revent, JFREvent event) {
+            // converted values use the accessors of the created event, which differ for snapshot versions
+            for (int field = 0; field < fields.length; field++) {
+                Field f = fields[field];
+                Object value = f.parent == -1 ? revent.getValue(f.simpleName) :
+                               values[f.parent] == null ? null : ((RecordedObject)values[f.parent]).getValue(f.simpleName);
+                
+                if (f.kind == STRUCT) {
+                    if (!(value instanceof RecordedObject)) value = null;
+                    primitives[field].add(value == null ? 0 : 1);
+                } else if (f.kind == REFERENCE) {
+                    references[field].add(intern(value));
+                } else {
+                    primitives[field].add(toLong(f.kind, value));
+                }
+                if (f.conversion != NO_CONVERSION) nanos[field].add(toNanos(f.conversion, f.name, event));
+                
+                values[field] = value;
+            }
+            Arrays.fill(values, null);
+            rows++;
+        }
+        
+        
+        int getField(String name) {
+            Integer field = fieldIndexes.get(name);
+            return field == null ? -1 : field;
+        }
+        
+        Object getValue(int row, int field) {
+            switch (fields[field].kind) {
+                case STRUCT:
+                    return primitives[field].get(row) == 0 ? null : new StoredObject(this, row, field);
+                case REFERENCE:
+                    int objectIndex = references[field].get(row);
+                    return objectIndex == -1 ? null : objects.get(objectIndex);
+                default:
+                    return fromLong(fields[field].kind, primitives[field].get(row));
+            }
+        }
+        
+        boolean hasNanos(int field, int conversion) {
+            return fields[field].conversion == conversion;
+        }
+        
+        long getNanos(int row, int field) {
+            return nanos[field].get(row);
+        }
+        
+        Object getNanosObject(long nanos) {
+            return objects.get((int)(nanos - OBJECT_NANOS));
+        }
+        
+    }
+    
+    
+    /**
+     * Nested structure of a stored event, its fields are stored in the columns
+     * of the event type. Displayed like {@link RecordedObject}.
+     */
+    private static final class StoredObject {
+        
+        private final TypeTable table;
+        private final int row;
+        private final int field;
+        
+        
+        StoredObject(TypeTable table, int row, int field) {
+            this.table = table;
+            this.row = row;
+            this.field = field;
+        }
+        
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            append(sb, ""); // NOI18N
+            return sb.toString();
+        }
+        
+        private void append(StringBuilder sb, String indent) {
+            sb.append("{\n"); // NOI18N
+            String fieldIndent = indent + "  "; // NOI18N
+            Field[] fields = table.fields;
+            for (int nested = field + 1; nested < fields[field].end; nested = fields[nested].end) {
+                sb.append(fieldIndent).append(fields[nested].simpleName).append(" = "); // NOI18N
+                Object value = table.getValue(row, nested);
+                if (value instanceof StoredObject) ((StoredObject)value).append(sb, fieldIndent);
+                else sb.append(value);
+                sb.append("\n"); // NOI18N
+            }
+            sb.append(indent).append("}"); // NOI18N
+        }
+        
+    }
+    
+    
+    /**
+     * Event read from the store, provides the same values as {@link JFRJDK9Event}
+     * created for the recorded event.
+     */
+    private final class StoredEvent extends JFREvent {
+        
+        private final TypeTable table;
+        private final int row;
+        
+        
+        StoredEvent(long id, TypeTable table, int row) {
+            super(id);
+            this.table = table;
+            this.row = row;
+        }
+        
+        
+        @Override
+        public Instant getInstant(String key) throws JFRPropertyNotAvailableException {
+            switch (key) {
+                case "eventTime": // NOI18N
+                case "startTime": // NOI18N
+                    return toInstant(startColumn.get(getID()));
+                    
+                case "endTime": // NOI18N
+                    return toInstant(startColumn.get(getID()) + durationColumn.get(getID()));
+            }
+            
+            int field = table.getField(key);
+            if (field != -1 && table.hasNanos(field, TIMESTAMP)) {
+                long nanos = getNanos(key, field);
+                if (nanos == NULL_NANOS) return null;
+                else if (nanos <= MAX_OBJECT_NANOS) return (Instant)table.getNanosObject(nanos);
+                else return toInstant(nanos);
+            }
+            
+            Object instant = getValue(key);
+            if (instant instanceof Instant) return (Instant)instant;
+            else if (instant == null) return null;
+            else if (instant instanceof Number) return Instant.ofEpochMilli(((Number)instant).longValue());
+            else throw new JFRPropertyNotAvailableException("No instant value available: " + key);
+        }
+        
+        @Override
+        public Duration getDuration(String key) throws JFRPropertyNotAvailableException {
+            switch (key) {
+                case "eventDuration": // NOI18N
+                case "duration": // NOI18N
+                    return Duration.ofNanos(durationColumn.get(getID()));
+            }
+            
+            int field = table.getField(key);
+            if (field != -1 && table.hasNanos(field, TIMESPAN)) {
+                long nanos = getNanos(key, field);
+                if (nanos == NULL_NANOS) return null;
+                else if (nanos <= MAX_OBJECT_NANOS) return (Duration)table.getNanosObject(nanos);
+                else return Duration.ofNanos(nanos);
+            }
+            
+            Object duration = getValue(key);
+            if (duration instanceof Duration) return (Duration)duration;
+            else if (duration == null) return null;
+            else if (duration instanceof Number) return Duration.ofMillis(((Number)duration).longValue());
+            else throw new JFRPropertyNotAvailableException("No duration value available: " + key);
+        }
+        
+        private long getNanos(String key, int field) throws JFRPropertyNotAvailableException {
+            long nanos = table.getNanos(row, field);
+            if (nanos == NA_NANOS) throw new JFRPropertyNotAvailableException("No value available: " + key);
+            return nanos;
+        }
+        
+        
+        @Override
+        public JFRClass getClass(String key) throws JFRPropertyNotAvailableException {
+            Object rclass = getValue(key);
+            
+            if (rclass == null) return null;
+            else if (rclass instanceof RecordedClass) return new JFRJDK9Class((RecordedClass)rclass);
+            else throw new JFRPropertyNotAvailableException("No class value available: " + key);
+        }
+        
+        @Override
+        public JFRThread getThread(String key) throws JFRPropertyNotAvailableException {
+            // like RecordedEvent.getThread(), null for events without thread
+            if ("eventThread".equals(key) && table.getField(key) == -1) return null; // NOI18N
+            
+            Object thread = getValue(key);
+            if (thread instanceof RecordedThread) return new JFRJDK9Thread((RecordedThread)thread);
+            else if (thread == null) return null;
+            else throw new JFRPropertyNotAvailableException("No thread value available: " + key);
+        }
+        
+        @Override
+        public JFRStackTrace getStackTrace(String key) throws JFRPropertyNotAvailableException {
+            // like RecordedEvent.getStackTrace(), null for events without stack trace
+            if ("eventStackTrace".equals(key)) { // NOI18N
+                if (table.getField("stackTrace") == -1) return null; // NOI18N
+                key = "stackTrace"; // NOI18N
+            }
+            
+            Object stackTrace = getValue(key);
+            if (stackTrace instanceof RecordedStackTrace) return new JFRJDK9StackTrace((RecordedStackTrace)stackTrace);
+            else if (stackTrace == null) return null;
+            else throw new JFRPropertyNotAvailableException("No stacktrace value available: " + key);
+        }
+        
+        
+        @Override
+        public Object getValue(String key) throws JFRPropertyNotAvailableException {
+            int field = table.getField(key);
+            if (field != -1) return table.getValue(row, field);
+            
+            int dot = key.lastIndexOf('.');
+            while (dot != -1 && (field = table.getField(key.substring(0, dot))) == -1)
+                dot = key.lastIndexOf('.', dot - 1);
+            if (field == -1) throw new JFRPropertyNotAvailableException("No value available: " + key);
+            
+            // nested value of a constant pool object
+            Object value = table.getValue(row, field);
+            if (!(value instanceof RecordedObject)) throw new JFRPropertyNotAvailableException("No value available: " + key);
+            try {
+                return ((RecordedObject)value).getValue(key.substring(dot + 1));
+            } catch (IllegalArgumentException e) {
+                throw new JFRPropertyNotAvailableException(e);
+            }
+        }
+        
+        
+        @Override
+        public List<Comparable> getDisplayableValues(boolean includeExperimental) {
+            List<Comparable> values = new ArrayList<>();
+            Iterator<ValueDescriptor> descriptors = DisplayableSupport.displayableValueDescriptors(table.type, includeExperimental);
+            while (descriptors.hasNext()) values.add(DisplayableSupport.getDisplayValue(this, descriptors.next()));
+            return values;
+        }
+        
+        
+        @Override
+        public int hashCode() {
+            return Long.hashCode(getID());
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StoredEvent ? getID() == ((StoredEvent)o).getID() && table == ((StoredEvent)o).table : false;
+        }
+        
+        @Override
+        public String toString() {
+            return table.typeId + " #" + getID(); // NOI18N
+        }
+        
+    }
+    
+    private static Instant toInstant(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1000000000L), Math.floorMod(nanos, 1000000000L));
+    }
+    
+    
+    private abstract class Column {
+        
+        long size;
+        
+        // position + 1 of each spilled block, 0 for blocks kept in memory
+        long[] spilled = new long[16];
+        
+        
+        Column() {
+            columns.add(this);
+        }
+        
+        
+        abstract int getValueBytes();
+        
+        abstract int getBlockLength(int block);
+        
+        abstract void resizeBlock(int block, int length);
+        
+        abstract void writeBlock(int block, ByteBuffer buffer);
+        
+        abstract void releaseBlock(int block);
+        
+        
+        // makes room for the next value
+        final void prepareNext() {
+            int block = (int)(size >>> BLOCK_BITS);
+            int index = (int)size & (BLOCK_SIZE - 1);
+            if (block == spilled.length) spilled = Arrays.copyOf(spilled, block * 2);
+            
+            int length = getBlockLength(block);
+            if (index == length) {
+                // first block grows, columns of rare event types stay small
+                int newLength = block == 0 ? Math.min(Math.max(length * 2, INITIAL_BLOCK_SIZE), BLOCK_SIZE) : BLOCK_SIZE;
+                resizeBlock(block, newLength);
+                allocated((long)(newLength - length) * getValueBytes());
+            }
+        }
+        
+        final void valueAdded() {
+            size++;
+            if ((size & (BLOCK_SIZE - 1)) == 0 && isSpilling()) spillBlock((int)((size - 1) >>> BLOCK_BITS));
+        }
+        
+        final void spillFullBlocks() {
+            int fullBlocks = (int)(size >>> BLOCK_BITS);
+            for (int block = 0; block < fullBlocks && isSpilling(); block++)
+                if (spilled[block] == 0) spillBlock(block);
+        }
+        
+        private void spillBlock(int block) {
+            int bytes = BLOCK_SIZE * getValueBytes();
+            long position = spill(this, block, bytes);
+            if (position != -1) {
+                spilled[block] = position + 1;
+                releaseBlock(block);
+                allocated(-bytes);
+            }
+        }
+        
+    }
+    
+    private final class LongColumn extends Column {
+        
+        private long[][] blocks = new long[16][];
+        
+        
+        void add(long value) {
+            prepareNext();
+            blocks[(int)(size >>> BLOCK_BITS)][(int)size & (BLOCK_SIZE - 1)] = value;
+            valueAdded();
+        }
+        
+        long get(long index) {
+            int block = (int)(index >>> BLOCK_BITS);
+            int offset = (int)index & (BLOCK_SIZE - 1);
+            long[] values = blocks[block];
+            if (values != null) return values[offset];
+            
+            long position = spilled[block] - 1;
+            return getSpillWindow(position).getLong(getSpillOffset(position) + offset * Long.BYTES);
+        }
+        
+        
+        int getValueBytes() {
+            return Long.BYTES;
+        }
+        
+        int getBlockLength(int block) {
+            if (block == blocks.length) blocks = Arrays.copyOf(blocks, block * 2);
+            return blocks[block] == null ? 0 : blocks[block].length;
+        }
+        
+        void resizeBlock(int block, int length) {
+            blocks[block] = blocks[block] == null ? new long[length] : Arrays.copyOf(blocks[block], length);
+        }
+        
+        void writeBlock(int block, ByteBuffer buffer) {
+            buffer.asLongBuffer().put(blocks[block]);
+            buffer.position(BLOCK_SIZE * Long.BYTES);
+        }
+        
+        void releaseBlock(int block) {
+            blocks[block] = null;
+        }
+        
+    }
+    
+    private final class IntColumn extends Column {
+        
+        private int[][] blocks = new int[16][];
+        
+        
+        void add(int value) {
+            prepareNext();
+            blocks[(int)(size >>> BLOCK_BITS)][(int)size & (BLOCK_SIZE - 1)] = value;
+            valueAdded();
+        }
+        
+        int get(long index) {
+            int block = (int)(index >>> BLOCK_BITS);
+            int offset = (int)index & (BLOCK_SIZE - 1);
+            int[] values = blocks[block];
+            if (values != null) return values[offset];
+            
+            long position = spilled[block] - 1;
+            return getSpillWindow(position).getInt(getSpillOffset(position) + offset * Integer.BYTES);
+        }
+        
+        
+        int getValueBytes() {
+            return Integer.BYTES;
+        }
+        
+        int getBlockLength(int block) {
+            if (block == blocks.length) blocks = Arrays.copyOf(blocks, block * 2);
+            return blocks[block] == null ? 0 : blocks[block].length;
+        }
+        
+        void resizeBlock(int block, int length) {
+            blocks[block] = blocks[block] == null ? new int[length] : Arrays.copyOf(blocks[block], length);
+        }
+        
+        void writeBlock(int block, ByteBuffer buffer) {
+            buffer.asIntBuffer().put(blocks[block]);
+            buffer.position(BLOCK_SIZE * Integer.BYTES);
+        }
+        
+        void releaseBlock(int block) {
+            blocks[block] = null;
+        }
+        
+    }
+    
+}
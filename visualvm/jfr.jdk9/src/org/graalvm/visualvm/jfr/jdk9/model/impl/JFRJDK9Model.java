@@ -26,6 +26,7 @@ package org.graalvm.visualvm.jfr.jdk9.model.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -55,6 +56,9 @@ public class JFRJDK9Model extends JFRModel {
     
     private final File snapshotFile;
     
+    // created by the first visitEvents() call during initialize()
+    private volatile JFRJDK9EventStore store;
+    
     
     protected JFRJDK9Model(String id, File file) throws IOException {
         super(id);
@@ -74,17 +78,15 @@ public class JFRJDK9Model extends JFRModel {
         for (JFREventVisitor visitor : visitors) visitor.init();
         
         // Notify visitors that are not done 'visit'
-        try (RecordingFile events = new RecordingFile(snapshotFile.toPath())) {
+        try {
             List<JFREventVisitor> _visitors = new ArrayList(Arrays.asList(visitors));
-            long id = 0;
-            while (!_visitors.isEmpty() && events.hasMoreEvents()) {
-                RecordedEvent revent = events.readEvent();
-                String typeId = getTypeId(revent.getEventType());
-                JFREvent event = createEvent(revent, id++);
-                Iterator<JFREventVisitor> _visitorsI = _visitors.iterator();
-                while (_visitorsI.hasNext())
-                    if (_visitorsI.next().visit(typeId, event))
-                        _visitorsI.remove();
+            JFRJDK9EventStore _store = store;
+            if (_store == null) {
+                ingestEvents(_visitors);
+            } else {
+                long count = _store.getEventsCount();
+                for (long id = 0; !_visitors.isEmpty() && id < count; id++)
+                    visitEvent(_store, id, _visitors);
             }
         } catch (Exception e) {
             LOGGER.log(Level.INFO, "Error visiting JFR events (" + getID()+ ")", e);   // NOI18N
@@ -94,6 +96,86 @@ public class JFRJDK9Model extends JFRModel {
         }
     }
     
+    @Override
+    public void visitEvents(Instant start, Instant end, JFREventVisitor... visitors) {
+        JFRJDK9EventStore _store = store;
+        if (_store == null) {
+            super.visitEvents(start, end, visitors);
+            return;
+        }
+        
+        // Notify all visitors 'init'
+        for (JFREventVisitor visitor : visitors) visitor.init();
+        
+        // Notify visitors that are not done 'visit', only events of blocks overlapping the window are checked
+        try {
+            List<JFREventVisitor> _visitors = new ArrayList(Arrays.asList(visitors));
+            long startNanos = toNanos(start);
+            long endNanos = toNanos(end);
+            long count = _store.getEventsCount();
+            for (int block = 0; !_visitors.isEmpty() && block < _store.getTimeBlocksCount(); block++) {
+                if (!_store.isTimeBlockInTimeWindow(block, startNanos, endNanos)) continue;
+                
+                long lastId = Math.min(_store.getTimeBlockFirstId(block + 1), count);
+                for (long id = _store.getTimeBlockFirstId(block); !_visitors.isEmpty() && id < lastId; id++)
+                    if (_store.isInTimeWindow(id, startNanos, endNanos))
+                        visitEvent(_store, id, _visitors);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.INFO, "Error visiting JFR events (" + getID()+ ")", e);   // NOI18N
+        } finally {
+            // Notify all visitors 'done'
+            for (JFREventVisitor visitor : visitors) visitor.done();
+        }
+    }
+    
+    @Override
+    public JFREvent getEvent(long eventID) {
+        JFRJDK9EventStore _store = store;
+        return _store == null ? super.getEvent(eventID) : _store.getEvent(eventID);
+    }
+    
+    
+    private static void visitEvent(JFRJDK9EventStore store, long id, List<JFREventVisitor> visitors) {
+        String typeId = store.getTypeId(id);
+        JFREvent event = store.getEvent(id);
+        Iterator<JFREventVisitor> visitorsI = visitors.iterator();
+        while (visitorsI.hasNext())
+            if (visitorsI.next().visit(typeId, event))
+                visitorsI.remove();
+    }
+    
+    // Single pass over the recording, notifies the visitors and fills the events store.
+    private void ingestEvents(List<JFREventVisitor> visitors) throws IOException {
+        JFRJDK9EventStore _store = new JFRJDK9EventStore();
+        
+        try (RecordingFile events = new RecordingFile(snapshotFile.toPath())) {
+            long id = 0;
+            while (events.hasMoreEvents()) {
+                RecordedEvent revent = events.readEvent();
+                String typeId = getTypeId(revent.getEventType());
+                JFREvent event = createEvent(revent, id);
+                _store.addEvent(typeId, revent, event, toNanos(revent.getStartTime()), revent.getDuration().toNanos());
+                id++;
+                if (!visitors.isEmpty()) {
+                    Iterator<JFREventVisitor> visitorsI = visitors.iterator();
+                    while (visitorsI.hasNext())
+                        if (visitorsI.next().visit(typeId, event))
+                            visitorsI.remove();
+                }
+            }
+        }
+        
+        _store.finish();
+        store = _store;
+    }
+    
+    
+    private static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * 1000000000L + instant.getNano();
+    }
+    
+    
     @Override
     public void visitEventTypes(JFREventTypeVisitor... visitors) {
         // Notify all visitors 'init'
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.jfr.jdk9.model.impl;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.Timespan;
+import jdk.jfr.ValueDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedObject;
+import jdk.jfr.consumer.RecordingFile;
+import org.graalvm.visualvm.jfr.model.JFREvent;
+import org.graalvm.visualvm.jfr.model.JFREventVisitor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests reading the events of a recording from the columnar event store.
+ *
+ * @author agent
+ */
+public class JFRJDK9EventStoreTest {
+
+    // more events than a block of a column, so that the blocks are spilled
+    private static final int TEST_EVENTS = 70000;
+
+    private static File recordingFile;
+
+    private static JFRJDK9EventStore store;
+    private static final List<RecordedEvent> recordedEvents = new ArrayList<>();
+
+    public JFRJDK9EventStoreTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        // spill the columns right away
+        System.setProperty("org.graalvm.visualvm.jfr.storeSpillRatio", Integer.toString(Integer.MAX_VALUE)); // NOI18N
+
+        recordingFile = File.createTempFile("visualvm_jfr_test", ".jfr"); // NOI18N
+        try (Recording recording = new Recording()) {
+            recording.enable(TestEvent.class);
+            recording.enable("jdk.GCHeapSummary"); // NOI18N
+            recording.start();
+            for (int i = 0; i < TEST_EVENTS; i++) {
+                TestEvent event = new TestEvent();
+                event.index = i;
+                event.value = i * 1000L;
+                event.text = "text " + (i % 10); // NOI18N
+                event.type = i % 2 == 0 ? String.class : Integer.class;
+                event.span = i;
+                event.commit();
+            }
+            System.gc();
+            recording.stop();
+            recording.dump(recordingFile.toPath());
+        }
+
+        store = new JFRJDK9EventStore();
+        try (RecordingFile events = new RecordingFile(recordingFile.toPath())) {
+            long id = 0;
+            while (events.hasMoreEvents()) {
+                RecordedEvent revent = events.readEvent();
+                JFREvent event = new JFRJDK9Event(revent, id++);
+                store.addEvent(revent.getEventType().getName(), revent, event, toNanos(revent), revent.getDuration().toNanos());
+                recordedEvents.add(revent);
+            }
+        }
+        store.finish();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        recordingFile.delete();
+    }
+
+    @Test
+    public void testEventsCount() {
+        assertEquals(recordedEvents.size(), store.getEventsCount());
+        assertTrue(store.getEventsCount() >= TEST_EVENTS + 2);
+        assertNull(store.getEvent(-1));
+        assertNull(store.getEvent(store.getEventsCount()));
+    }
+
+    @Test
+    public void testGetEvent() throws Exception {
+        for (int id = 0; id < recordedEvents.size(); id++) {
+            RecordedEvent revent = recordedEvents.get(id);
+            JFREvent event = store.getEvent(id);
+            assertEquals(id, event.getID());
+            assertEquals(revent.getEventType().getName(), store.getTypeId(id));
+            assertEquals(revent.getStartTime(), event.getInstant("eventTime")); // NOI18N
+            assertEquals(revent.getDuration(), event.getDuration("eventDuration")); // NOI18N
+            assertValues(revent, "", event); // NOI18N
+        }
+    }
+
+    @Test
+    public void testTestEvent() throws Exception {
+        // events of the recording are ordered by the flushed buffers, not by commit
+        boolean[] indexes = new boolean[TEST_EVENTS];
+        for (int id = 0; id < recordedEvents.size(); id++) {
+            if (!TestEvent.class.getName().equals(store.getTypeId(id))) continue;
+
+            JFREvent event = store.getEvent(id);
+            JFREvent recorded = new JFRJDK9Event(recordedEvents.get(id), id);
+            int index = event.getInt("index"); // NOI18N
+            assertEquals(recorded.getInt("index"), index); // NOI18N
+            assertFalse(indexes[index]);
+            indexes[index] = true;
+            assertEquals(index * 1000L, event.getLong("value")); // NOI18N
+            assertEquals("text " + (index % 10), event.getString("text")); // NOI18N
+            assertEquals((index % 2 == 0 ? String.class : Integer.class).getName(), event.getClass("type").getName()); // NOI18N
+            assertEquals(recorded.getDuration("span"), event.getDuration("span")); // NOI18N
+            assertNotNull(event.getThread("eventThread")); // NOI18N
+            assertNotNull(event.getStackTrace("eventStackTrace")); // NOI18N
+            assertEquals(recorded.getDisplayableValues(true), event.getDisplayableValues(true));
+        }
+        for (boolean index : indexes) assertTrue(index);
+    }
+
+    @Test
+    public void testNestedStructure() throws Exception {
+        int summaries = 0;
+        for (int id = 0; id < recordedEvents.size(); id++) {
+            if (!"jdk.GCHeapSummary".equals(store.getTypeId(id))) continue; // NOI18N
+
+            JFREvent event = store.getEvent(id);
+            RecordedObject heapSpace = recordedEvents.get(id).getValue("heapSpace"); // NOI18N
+            assertEquals(heapSpace.getLong("committedSize"), event.getLong("heapSpace.committedSize")); // NOI18N
+            assertEquals(heapSpace.getLong("reservedSize"), event.getLong("heapSpace.reservedSize")); // NOI18N
+            assertTrue(event.getValue("heapSpace").toString().contains("committedSize = " + heapSpace.getLong("committedSize"))); // NOI18N
+            summaries++;
+        }
+        assertTrue(summaries >= 2);
+    }
+
+    @Test
+    public void testVisitModel() throws Exception {
+        JFRJDK9Model model = new JFRJDK9Model("test", recordingFile) { // NOI18N
+            @Override
+            protected String getTypeId(EventType eventType) {
+                // not a v1 snapshot
+                return eventType.getName();
+            }
+        };
+
+        // served from the store filled by the first pass
+        final List<Long> ids = new ArrayList<>();
+        final List<String> typeNames = new ArrayList<>();
+        model.visitEvents(new JFREventVisitor() {
+            @Override
+            public boolean visit(String typeName, JFREvent event) {
+                ids.add(event.getID());
+                typeNames.add(typeName);
+                return false;
+            }
+        });
+        assertEquals(recordedEvents.size(), ids.size());
+        for (int id = 0; id < ids.size(); id++) {
+            assertEquals(id, ids.get(id).longValue());
+            assertEquals(store.getTypeId(id), typeNames.get(id));
+            assertValues(recordedEvents.get(id), "", model.getEvent(id)); // NOI18N
+        }
+
+        // a visitor which is done isn't notified anymore
+        final int[] visited = new int[1];
+        model.visitEvents(new JFREventVisitor() {
+            @Override
+            public boolean visit(String typeName, JFREvent event) {
+                return ++visited[0] == 10;
+            }
+        });
+        assertEquals(10, visited[0]);
+    }
+
+    @Test
+    public void testObjectsTable() throws Exception {
+        Field objectsField = JFRJDK9EventStore.class.getDeclaredField("objects"); // NOI18N
+        objectsField.setAccessible(true);
+        List<?> objects = (List<?>)objectsField.get(store);
+
+        // only interned strings and constant pool objects, not a value per event
+        assertTrue(objects.size() < 1000);
+        for (Object object : objects)
+            assertNotSame(RecordedObject.class, object.getClass());
+    }
+
+
+    private static void assertValues(RecordedObject robject, String prefix, JFREvent event) throws Exception {
+        for (ValueDescriptor descriptor : robject.getFields()) {
+            String key = prefix + descriptor.getName();
+            Object value = robject.getValue(descriptor.getName());
+            Object stored = event.getValue(key);
+            if (value != null && value.getClass() == RecordedObject.class) {
+                assertNotNull(key, stored);
+                assertValues((RecordedObject)value, key + ".", event); // NOI18N
+            } else if (value instanceof RecordedObject) {
+                // constant pool objects of another pass over the recording
+                assertEquals(key, value.toString(), String.valueOf(stored));
+            } else {
+                assertEquals(key, value, stored);
+            }
+        }
+    }
+
+    private static long toNanos(RecordedEvent revent) {
+        return revent.getStartTime().getEpochSecond() * 1000000000L + revent.getStartTime().getNano();
+    }
+
+
+    private static class TestEvent extends Event {
+
+        int index;
+        long value;
+        String text;
+        Class<?> type;
+        @Timespan(Timespan.NANOSECONDS)
+        long span;
+
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.jfr.jdk9.model.impl;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import org.graalvm.visualvm.jfr.model.JFREvent;
+import org.graalvm.visualvm.jfr.model.JFREventVisitor;
+import org.graalvm.visualvm.jfr.model.JFRPropertyNotAvailableException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests visiting the events of a time window.
+ *
+ * @author agent
+ */
+public class JFRJDK9ModelTest {
+
+    private static final int SHORT_EVENTS = 10;
+    private static final long PAUSE = 100;
+
+    private static File recordingFile;
+    private static JFRJDK9Model model;
+
+    private static Instant firstStart;
+    private static Instant firstEnd;
+    private static Instant windowStart;
+    private static Instant windowEnd;
+
+    public JFRJDK9ModelTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        recordingFile = File.createTempFile("visualvm_jfr_test", ".jfr"); // NOI18N
+        try (Recording recording = new Recording()) {
+            recording.enable(WindowEvent.class);
+            recording.start();
+
+            firstStart = Instant.now();
+            commitShortEvents("first"); // NOI18N
+            firstEnd = Instant.now();
+            Thread.sleep(PAUSE);
+
+            WindowEvent longEvent = new WindowEvent();
+            longEvent.name = "long"; // NOI18N
+            longEvent.begin();
+            Thread.sleep(PAUSE);
+            windowStart = Instant.now();
+            Thread.sleep(PAUSE);
+            windowEnd = Instant.now();
+            Thread.sleep(PAUSE);
+
+            // starting another recording begins a new chunk, the long event
+            // is written to it but starts in the previous one
+            try (Recording rotation = new Recording()) {
+                rotation.start();
+                rotation.stop();
+            }
+            Thread.sleep(PAUSE);
+
+            commitShortEvents("second"); // NOI18N
+            longEvent.commit();
+
+            recording.stop();
+            recording.dump(recordingFile.toPath());
+        }
+
+        model = new JFRJDK9Model("test", recordingFile) { // NOI18N
+            @Override
+            protected String getTypeId(EventType eventType) {
+                // not a v1 snapshot
+                return eventType.getName();
+            }
+        };
+        // the first visit fills the events store
+        model.visitEvents(new JFREventVisitor() {
+            @Override
+            public boolean visit(String typeName, JFREvent event) {
+                return false;
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        recordingFile.delete();
+    }
+
+    @Test
+    public void testEventBeforeChunk() throws Exception {
+        // only the long event overlaps the window
+        List<String> names = visitWindow(windowStart, windowEnd);
+        assertEquals(1, names.size());
+        assertEquals("long", names.get(0)); // NOI18N
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        List<String> names = visitWindow(firstStart, firstEnd);
+        assertEquals(SHORT_EVENTS, names.size());
+        for (String name : names) assertEquals("first", name); // NOI18N
+    }
+
+    @Test
+    public void testSameAsFiltered() throws Exception {
+        // the same events as found by checking all of them
+        final List<String> names = new ArrayList<>();
+        model.visitEvents(new JFREventVisitor() {
+            @Override
+            public boolean visit(String typeName, JFREvent event) {
+                try {
+                    if (!event.getInstant("eventTime").isAfter(windowEnd) && !event.getInstant("endTime").isBefore(firstStart)) // NOI18N
+                        names.add(event.getString("name")); // NOI18N
+                } catch (JFRPropertyNotAvailableException e) {
+                    fail(e.getMessage());
+                }
+                return false;
+            }
+        });
+        assertEquals(names, visitWindow(firstStart, windowEnd));
+        assertEquals(SHORT_EVENTS + 1, names.size());
+    }
+
+    private static List<String> visitWindow(Instant start, Instant end) {
+        final List<String> names = new ArrayList<>();
+        model.visitEvents(start, end, new JFREventVisitor() {
+            @Override
+            public boolean visit(String typeName, JFREvent event) {
+                if (WindowEvent.class.getName().equals(typeName)) try {
+                    names.add(event.getString("name")); // NOI18N
+                } catch (JFRPropertyNotAvailableException e) {
+                    fail(e.getMessage());
+                }
+                return false;
+            }
+        });
+        return names;
+    }
+
+    private static void commitShortEvents(String name) {
+        for (int i = 0; i < SHORT_EVENTS; i++) {
+            WindowEvent event = new WindowEvent();
+            event.name = name;
+            event.commit();
+        }
+    }
+
+
+    private static class WindowEvent extends Event {
+
+        String name;
+
+    }
+
+}
@@ -65,6 +65,14 @@ public abstract class JFRModel extends Model {
     
     public abstract void visitEventTypes(JFREventTypeVisitor... visitors);
     
+    // Visits only events overlapping the [start, end] time window,
+    // models supporting indexed access skip the rest of the recording
+    public void visitEvents(Instant start, Instant end, JFREventVisitor... visitors) {
+        JFREventVisitor[] windowVisitors = new JFREventVisitor[visitors.length];
+        for (int i = 0; i < visitors.length; i++) windowVisitors[i] = new TimeWindowVisitor(start, end, visitors[i]);
+        visitEvents(windowVisitors);
+    }
+    
     
     private Instant jvmStartTime;
     private Instant jvmShutdownTime;
@@ -272,6 +280,50 @@ public abstract class JFRModel extends Model {
         firstEventTimeMs = ValuesConverter.instantToMillis(firstEventTime);
     }
     
+    private static final class TimeWindowVisitor implements JFREventVisitor {
+        
+        private final Instant start;
+        private final Instant end;
+        private final JFREventVisitor visitor;
+        
+        TimeWindowVisitor(Instant start, Instant end, JFREventVisitor visitor) {
+            this.start = start;
+            this.end = end;
+            this.visitor = visitor;
+        }
+        
+        @Override
+        public void init() {
+            visitor.init();
+        }
+        
+        @Override
+        public boolean visit(String typeName, JFREvent event) {
+            try {
+                Instant eventStart = event.getInstant("eventTime"); // NOI18N
+                if (eventStart == null || eventStart.isAfter(end)) return false;
+                
+                Instant eventEnd = eventStart;
+                try {
+                    Duration duration = event.getDuration("eventDuration"); // NOI18N
+                    if (duration != null) eventEnd = eventStart.plus(duration);
+                } catch (JFRPropertyNotAvailableException e) {}
+                if (eventEnd.isBefore(start)) return false;
+            } catch (JFRPropertyNotAvailableException e) {
+                return false;
+            }
+            
+            return visitor.visit(typeName, event);
+        }
+        
+        @Override
+        public void done() {
+            visitor.done();
+        }
+        
+    }
+    
+    
     private static final String TYPE_JVM_INFORMATION = "jdk.JVMInformation"; // NOI18N
     private static final String TYPE_SYSTEM_PROPERTY = "jdk.InitialSystemProperty"; // NOI18N
     private static final String TYPE_SHUTDOWN = "jdk.Shutdown"; // NOI18N
@@ -535,7 +535,7 @@ class JVMImpl extends Jvm implements JvmstatListener {
             if (monitoredVm != null) {
                 return new MonitoredDataImpl(this, jvmstatModel,jmxSupport);
             } else {
-                JvmMXBeans jmx = jmxSupport.getJvmMXBeans();
+                JvmMXBeans jmx = jmxSupport.getSamplingMXBeans();
                 if (jmx != null) {
                     return new MonitoredDataImpl(this, jmxSupport,jmx);
                 }
@@ -31,11 +31,15 @@ import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryType;
 import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Collection;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanInfo;
@@ -47,6 +51,12 @@ import org.graalvm.visualvm.application.jvm.MonitoredData;
 import org.graalvm.visualvm.core.datasupport.DataRemovedListener;
 import org.graalvm.visualvm.core.datasupport.Stateful;
 import org.graalvm.visualvm.core.options.GlobalPreferences;
+import org.graalvm.visualvm.core.scheduler.Quantum;
+import org.graalvm.visualvm.core.scheduler.ScheduledTask;
+import org.graalvm.visualvm.core.scheduler.Scheduler;
+import org.graalvm.visualvm.core.scheduler.SchedulerTask;
+import org.graalvm.visualvm.tools.jmx.CachedMBeanServerConnection;
+import org.graalvm.visualvm.tools.jmx.CachedMBeanServerConnectionFactory;
 import org.graalvm.visualvm.tools.jmx.JmxModel;
 import org.graalvm.visualvm.tools.jmx.JmxModel.ConnectionState;
 import org.graalvm.visualvm.tools.jmx.JmxModelFactory;
@@ -80,15 +90,20 @@ class JmxSupport implements DataRemovedListener<Application> {
     private static final String METASPACE = "Metaspace";       // NOI18N
     private static final String IBM_PERM_GEN = "class storage";    // NOI18N
     private static final ObjectName osName = getOSName();
-    private static long INITIAL_DELAY = 100;
 
     private Application application;
     private JvmMXBeans mxbeans;
+    // MXBeans used for MonitoredData sampling, backed by a cached connection which is flushed
+    // for every sample, so that all attributes of one MBean are fetched by a single getAttributes call
+    private MBeanServerConnection samplingConnection;
+    private CachedMBeanServerConnection cachedSamplingConnection;
+    private JvmMXBeans samplingMXBeans;
+    private final AtomicInteger samplingRoundTrips = new AtomicInteger();
     private JVMImpl jvm;
     private final Object processCPUTimeAttributeLock = new Object();
     private Boolean processCPUTimeAttribute;
     private double processingCapacity;
-    private Timer timer;
+    private ScheduledTask timer;
     private MemoryPoolMXBean permGenPool;
     private Collection<GarbageCollectorMXBean> gcList;
     private String[] genName;
@@ -153,10 +168,8 @@ class JmxSupport implements DataRemovedListener<Application> {
         if (!hasProcessCPUTimeAttribute()) {
             throw new UnsupportedOperationException();
         }
-        JmxModel jmx = JmxModelFactory.getJmxModelFor(application);
-        
-        if (jmx != null && jmx.getConnectionState().equals(ConnectionState.CONNECTED)) {
-           MBeanServerConnection conn = jmx.getMBeanServerConnection();
+        if (getSamplingMXBeans() != null) {
+           MBeanServerConnection conn = getSamplingConnection();
             
            if (conn != null) {
                 try {
@@ -193,9 +206,63 @@ class JmxSupport implements DataRemovedListener<Application> {
         return mxbeans;
     }
     
+    synchronized JvmMXBeans getSamplingMXBeans() {
+        if (samplingMXBeans == null) {
+            JmxModel jmxModel = JmxModelFactory.getJmxModelFor(application);
+            if (jmxModel != null && jmxModel.getConnectionState() == ConnectionState.CONNECTED) {
+                MBeanServerConnection conn = jmxModel.getMBeanServerConnection();
+                if (conn != null) {
+                    samplingConnection = createCountingConnection(conn);
+                    cachedSamplingConnection = CachedMBeanServerConnectionFactory.getCachedMBeanServerConnection(samplingConnection);
+                    samplingMXBeans = JvmMXBeansFactory.getJvmMXBeans(cachedSamplingConnection);
+                }
+            }
+        }
+        return samplingMXBeans;
+    }
+
+    private synchronized MBeanServerConnection getSamplingConnection() {
+        return samplingConnection;
+    }
+
+    /**
+     * Starts a new MonitoredData sample - attribute values cached for the previous sample are discarded.
+     */
+    void startSample() {
+        CachedMBeanServerConnection conn;
+        synchronized (this) {
+            conn = cachedSamplingConnection;
+        }
+        if (conn != null) {
+            conn.flush();
+        }
+        samplingRoundTrips.set(0);
+    }
+
+    /**
+     * Returns the number of remote calls done since the last {@link #startSample()}.
+     */
+    int getSamplingRoundTrips() {
+        return samplingRoundTrips.get();
+    }
+
+    private MBeanServerConnection createCountingConnection(final MBeanServerConnection conn) {
+        return (MBeanServerConnection) Proxy.newProxyInstance(JmxSupport.class.getClassLoader(),
+                new Class<?>[] { MBeanServerConnection.class }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                samplingRoundTrips.incrementAndGet();
+                try {
+                    return method.invoke(conn, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
     synchronized Collection<GarbageCollectorMXBean> getGarbageCollectorMXBeans() {
         if (gcList == null) {
-            JvmMXBeans jmx = getJvmMXBeans();
+            JvmMXBeans jmx = getSamplingMXBeans();
             if (jmx != null) {
                 gcList = jmx.getGarbageCollectorMXBeans();
             }           
@@ -224,7 +291,7 @@ class JmxSupport implements DataRemovedListener<Application> {
     MemoryPoolMXBean getPermGenPool() {
         try {
             if (permGenPool == null) {
-                JvmMXBeans jmx = getJvmMXBeans();
+                JvmMXBeans jmx = getSamplingMXBeans();
                 if (jmx != null) {
                     Collection<MemoryPoolMXBean> pools = jmx.getMemoryPoolMXBeans();
                     for (MemoryPoolMXBean pool : pools) {
@@ -275,29 +342,32 @@ class JmxSupport implements DataRemovedListener<Application> {
     }
     
     void initTimer() {
-        int interval = GlobalPreferences.sharedInstance().getMonitoredDataPoll() * 1000;
-        final JvmMXBeans jmx = getJvmMXBeans();
+        int interval = GlobalPreferences.sharedInstance().getMonitoredDataPoll();
+        final JvmMXBeans jmx = getSamplingMXBeans();
         if (jmx != null) {
-            TimerTask task = new TimerTask() {
-                public void run() {
+            SchedulerTask task = new SchedulerTask() {
+                public void onSchedule(long timeStamp) {
                     if (application.getState() == Stateful.STATE_AVAILABLE) try {
                         MonitoredData data = new MonitoredDataImpl(jvm, JmxSupport.this, jmx);
+                        if (LOGGER.isLoggable(Level.FINE)) {
+                            LOGGER.log(Level.FINE, "MonitoredData for {0}: {1} JMX round trips", // NOI18N
+                                       new Object[] { application.getId(), getSamplingRoundTrips() });
+                        }
                         jvm.notifyListeners(data);
                     } catch (UndeclaredThrowableException e) {
                         LOGGER.throwing(JmxSupport.class.getName(), "MonitoredDataImpl<init>", e); // NOI18N
+                        // the scheduler backs off polling of an unreachable target
+                        throw e;
                     }
                 }
             };
             disableTimer();
-            timer = new Timer("JMX MonitoredData timer for "+application.getId());       // NOI18N
-            timer.schedule(task,INITIAL_DELAY,interval);
+            timer = Scheduler.sharedInstance().schedule(task, Quantum.seconds(interval));
         }
     }
 
     void disableTimer() {
-        if (timer != null) {
-            timer.cancel();
-        }
+        Scheduler.sharedInstance().unschedule(timer);
     }
 
     private static ObjectName getOSName() {
@@ -48,6 +48,7 @@ class MonitoredDataImpl extends MonitoredData {
 
   private MonitoredDataImpl(Jvm jvm, JmxSupport jmxSupport) {
     monitoredVm = jvm;
+    jmxSupport.startSample();
     try {
         Collection<GarbageCollectorMXBean> gcList = jmxSupport.getGarbageCollectorMXBeans();
 
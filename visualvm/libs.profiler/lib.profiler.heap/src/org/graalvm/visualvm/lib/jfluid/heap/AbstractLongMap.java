@@ -34,6 +34,8 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Tomas Hurka
@@ -45,6 +47,10 @@ abstract class AbstractLongMap {
     abstract class Entry {
     }
 
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int LOCK_STRIPES = 1024;
+
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     private final int VALUE_SIZE;
@@ -56,6 +62,7 @@ abstract class AbstractLongMap {
     final int FOFFSET_SIZE;
     Data dumpBuffer;
     CacheDirectory cacheDirectory;
+    private final Object[] locks = createLocks();
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
@@ -116,6 +123,41 @@ abstract class AbstractLongMap {
         }
     }
 
+    /**
+     * Same as {@link #put(long, long)}, but can be called from several threads at once.
+     * Keys are never removed, so it is enough to guard the empty slot check
+     * and the key write with the lock of that slot.
+     */
+    Entry putConcurrently(long key, long value) {
+        long index = getIndex(key);
+
+        while (true) {
+            synchronized (getLock(index)) {
+                long mapKey = getID(index);
+                if (mapKey == 0L) {
+                    putID(index, key);
+                    return createEntry(index,value);
+                } else if (mapKey == key) {
+                    return createEntry(index);
+                }
+            }
+            index = getNextIndex(index);
+        }
+    }
+
+    private Object getLock(long index) {
+        return locks[(int)((index / ENTRY_SIZE) % LOCK_STRIPES)];
+    }
+
+    private static Object[] createLocks() {
+        Object[] stripes = new Object[LOCK_STRIPES];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+        return stripes;
+    }
+
     static Data getDumpBuffer(File f, RandomAccessFile file, int entrySize) throws IOException {
         long length = file.length();
 
@@ -173,6 +215,12 @@ abstract class AbstractLongMap {
         dumpBuffer.writeToStream(out);
     }
 
+    List<File> getDataFiles() {
+        List<File> files = new ArrayList<>();
+        files.add(dumpBuffer.getFile());
+        return files;
+    }
+
     AbstractLongMap(DataInputStream dis, CacheDirectory cacheDir) throws IOException {
         keys = dis.readLong();
         ID_SIZE = dis.readInt();
@@ -234,6 +282,8 @@ abstract class AbstractLongMap {
 
         void writeToStream(DataOutputStream out) throws IOException;
 
+        File getFile();
+
         void deleteFile();
     }
 
@@ -251,6 +301,10 @@ abstract class AbstractLongMap {
             force();
         }
 
+        public File getFile() {
+            return bufferFile;
+        }
+
         public void deleteFile() {
             bufferFile.delete();
         }
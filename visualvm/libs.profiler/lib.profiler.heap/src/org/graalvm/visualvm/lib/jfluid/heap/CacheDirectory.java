@@ -38,6 +38,8 @@ class CacheDirectory {
     private static final String DIR_EXT = ".hwcache";   // NOI18N
     private static final String DUMP_AUX_FILE = "NBProfiler.nphd";   // NOI18N
     private static final String DIRTY_FILENAME = "dirty.lck";   // NOI18N
+    private static final String GZIP_INDEX_FILE = "NBProfiler.gzi";   // NOI18N
+    private static final String INFLATED_DUMP_FILE = "NBProfiler.hprof";   // NOI18N
 
     private File cacheDirectory;
 
@@ -80,6 +82,22 @@ class CacheDirectory {
         return new File(cacheDirectory, DUMP_AUX_FILE);
     }
 
+    File getGZipIndexFile() throws IOException {
+        if (isTemporary()) {
+            return createTempFile("NBProfiler", ".gzi"); // NOI18N
+        }
+        return new File(cacheDirectory, GZIP_INDEX_FILE);
+    }
+
+    File getInflatedDumpFile() throws IOException {
+        if (isTemporary()) {
+            File newFile = createTempFile("NBProfiler", ".hprof"); // NOI18N
+            newFile.delete();
+            return newFile;
+        }
+        return new File(cacheDirectory, INFLATED_DUMP_FILE);
+    }
+
     boolean isTemporary() {
         return cacheDirectory == null;
     }
@@ -141,6 +159,9 @@ class CacheDirectory {
     }
 
     HprofByteBuffer createHprofByteBuffer(File dumpFile)  throws IOException{
+        if (HprofGZipBuffer.isGZipFile(dumpFile)) {
+            return HprofGZipBuffer.createHprofByteBuffer(dumpFile, this);
+        }
         return HprofByteBuffer.createHprofByteBuffer(dumpFile);
     }
 
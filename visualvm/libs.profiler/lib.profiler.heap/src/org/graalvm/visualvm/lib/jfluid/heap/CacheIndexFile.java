@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.heap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Index file of the heap dump cache. Data are stored in independent sections,
+ * every section has its own offset, length and CRC32 checksum, so that
+ * a damaged section can be detected and recomputed without discarding
+ * the whole cache. A section can refer to data files in the cache directory,
+ * their names, lengths and CRC32 checksums are stored with the section and
+ * a damaged data file makes the section damaged too. The section table is
+ * at the end of the file, which allows sections to be written sequentially.
+ * <pre>
+ * UTF  id
+ * int  version
+ * section data
+ * int  number of sections
+ * [int id, long offset, long length, long crc32, int number of files,
+ *  [UTF name, long length, long crc32] * number of files] * number of sections
+ * long offset of the section table
+ * </pre>
+ *
+ * @author agent
+ */
+class CacheIndexFile {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private final File indexFile;
+    private final Map<Integer,Section> sections;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    private CacheIndexFile(File file, Map<Integer,Section> s) {
+        indexFile = file;
+        sections = s;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Opens index file and verifies checksums of all sections and their data files.
+     * Throws IOException if the header or the section table is invalid.
+     */
+    static CacheIndexFile open(File file, String id, int version) throws IOException {
+        Map<Integer,Section> sections = new HashMap<>();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { // NOI18N
+            String fileId = raf.readUTF();
+            if (!id.equals(fileId)) {
+                throw new IOException("Invalid HPROF dump id "+fileId);
+            }
+            int fileVersion = raf.readInt();
+            if (fileVersion != version) {
+                throw new IOException("Invalid HPROF version "+version+" loaded "+fileVersion);
+            }
+            long dataStart = raf.getFilePointer();
+            long length = raf.length();
+            if (length < dataStart + 8) {
+                throw new IOException("Truncated index file "+file);
+            }
+            raf.seek(length - 8);
+            long tableOffset = raf.readLong();
+            if (tableOffset < dataStart || tableOffset > length - 8 - 4) {
+                throw new IOException("Invalid section table offset "+tableOffset);
+            }
+            raf.seek(tableOffset);
+            int count = raf.readInt();
+            if (count < 0) {
+                throw new IOException("Invalid section table "+count);
+            }
+            for (int i = 0; i < count; i++) {
+                Section section = new Section(raf.readInt(), raf.readLong(), raf.readLong(), raf.readLong(), readDataFiles(raf));
+
+                section.valid = section.offset >= dataStart && section.length >= 0
+                                && section.offset + section.length <= tableOffset;
+                sections.put(section.id, section);
+            }
+            if (raf.getFilePointer() != length - 8) {
+                throw new IOException("Invalid section table "+count);
+            }
+        }
+        CacheIndexFile index = new CacheIndexFile(file, sections);
+        for (Section section : sections.values()) {
+            if (section.valid) {
+                section.valid = index.computeChecksum(section) == section.crc;
+            }
+            for (DataFile dataFile : section.files) {
+                if (section.valid) {
+                    section.valid = index.isValid(dataFile);
+                }
+            }
+        }
+        return index;
+    }
+
+    private static List<DataFile> readDataFiles(RandomAccessFile raf) throws IOException {
+        int count = raf.readInt();
+
+        if (count < 0) {
+            throw new IOException("Invalid number of data files "+count);
+        }
+        List<DataFile> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(new DataFile(raf.readUTF(), raf.readLong(), raf.readLong()));
+        }
+        return files;
+    }
+
+    /**
+     * Returns stream with the section data or <code>null</code>, if the section
+     * is missing or its checksum does not match. Caller is responsible for
+     * closing the stream.
+     */
+    DataInputStream getSection(int id) throws IOException {
+        Section section = sections.get(id);
+
+        if (section == null || !section.valid) {
+            return null;
+        }
+        return new DataInputStream(new BufferedInputStream(openSection(section), BUFFER_SIZE));
+    }
+
+    /**
+     * Returns <code>true</code> if the section was written, but its data
+     * are damaged.
+     */
+    boolean isCorrupted(int id) {
+        Section section = sections.get(id);
+
+        return section != null && !section.valid;
+    }
+
+    /**
+     * Returns <code>true</code> if the section was written and both its data
+     * and its data files are intact.
+     */
+    boolean isValid(int id) {
+        Section section = sections.get(id);
+
+        return section != null && section.valid;
+    }
+
+    /**
+     * Deletes data files of the section. Used when the data of the section
+     * are discarded and computed again.
+     */
+    void deleteDataFiles(int id) {
+        Section section = sections.get(id);
+
+        if (section != null) {
+            for (DataFile dataFile : section.files) {
+                getFile(dataFile).delete();
+            }
+        }
+    }
+
+    private boolean isValid(DataFile dataFile) throws IOException {
+        File file = getFile(dataFile);
+
+        return file.isFile() && file.length() == dataFile.length
+               && computeChecksum(new FileInputStream(file)) == dataFile.crc;
+    }
+
+    private File getFile(DataFile dataFile) {
+        // data files are stored next to the index file
+        return new File(indexFile.getParentFile(), dataFile.name);
+    }
+
+    private long computeChecksum(Section section) throws IOException {
+        return computeChecksum(openSection(section));
+    }
+
+    private static long computeChecksum(InputStream stream) throws IOException {
+        CRC32 crc32 = new CRC32();
+        byte[] buf = new byte[BUFFER_SIZE];
+
+        try (InputStream is = stream) {
+            for (int read = is.read(buf); read != -1; read = is.read(buf)) {
+                crc32.update(buf, 0, read);
+            }
+        }
+        return crc32.getValue();
+    }
+
+    private InputStream openSection(Section section) throws IOException {
+        FileInputStream fis = new FileInputStream(indexFile);
+
+        fis.getChannel().position(section.offset);
+        return new BoundedInputStream(fis, section.length);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    private static class Section {
+        final int id;
+        final long offset;
+        final long length;
+        final long crc;
+        final List<DataFile> files;
+        boolean valid;
+
+        Section(int i, long o, long l, long c, List<DataFile> f) {
+            id = i;
+            offset = o;
+            length = l;
+            crc = c;
+            files = f;
+        }
+    }
+
+    private static class DataFile {
+        final String name;
+        final long length;
+        final long crc;
+
+        DataFile(String n, long l, long c) {
+            name = n;
+            length = l;
+            crc = c;
+        }
+    }
+
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            remaining = length;
+        }
+
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Writes sections sequentially. Every section has to be finished by
+     * {@link #endSection()} before the next one is started.
+     */
+    static class Writer implements Closeable {
+
+        private final CountingOutputStream counter;
+        private final DataOutputStream out;
+        private final List<Section> table = new ArrayList<>();
+        private int sectionId;
+        private long sectionStart = -1;
+
+        Writer(File file, String id, int version) throws IOException {
+            counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+            out = new DataOutputStream(counter);
+            out.writeUTF(id);
+            out.writeInt(version);
+        }
+
+        DataOutputStream beginSection(int id) {
+            assert sectionStart == -1;
+            sectionId = id;
+            sectionStart = counter.position;
+            counter.crc32.reset();
+            return out;
+        }
+
+        void endSection() throws IOException {
+            endSection(Collections.<File>emptyList());
+        }
+
+        /**
+         * Finishes the section, which refers to the data files. Data files
+         * have to be in the same directory as the index file and all their
+         * data have to be written already.
+         */
+        void endSection(List<File> dataFiles) throws IOException {
+            assert sectionStart != -1;
+            List<DataFile> files = new ArrayList<>(dataFiles.size());
+
+            for (File file : dataFiles) {
+                files.add(new DataFile(file.getName(), file.length(), computeChecksum(new FileInputStream(file))));
+            }
+            table.add(new Section(sectionId, sectionStart, counter.position - sectionStart, counter.crc32.getValue(), files));
+            sectionStart = -1;
+        }
+
+        public void close() throws IOException {
+            try {
+                long tableOffset = counter.position;
+
+                out.writeInt(table.size());
+                for (Section section : table) {
+                    out.writeInt(section.id);
+                    out.writeLong(section.offset);
+                    out.writeLong(section.length);
+                    out.writeLong(section.crc);
+                    out.writeInt(section.files.size());
+                    for (DataFile dataFile : section.files) {
+                        out.writeUTF(dataFile.name);
+                        out.writeLong(dataFile.length);
+                        out.writeLong(dataFile.crc);
+                    }
+                }
+                out.writeLong(tableOffset);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        final CRC32 crc32 = new CRC32();
+        long position;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc32.update(b);
+            position++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc32.update(b, off, len);
+            position += len;
+        }
+    }
+}
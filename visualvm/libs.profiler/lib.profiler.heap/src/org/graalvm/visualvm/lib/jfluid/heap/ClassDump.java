@@ -468,13 +468,23 @@ class ClassDump extends HprofObject implements JavaClass {
     }
 
     void registerInstance(long offset) {
-        instances++;
+        registerInstances(offset, 1);
+    }
+
+    /**
+     * @return number of instances registered before this call
+     */
+    int registerInstances(long offset, int count) {
+        int registered = instances;
+
+        instances += count;
         if (firstInstanceOffset == 0) {
             firstInstanceOffset = offset;
             if (DEBUG) {
                 System.out.println("First instance :"+getName()+" "+offset/1024/1024); // NOI18N
             }
         }
+        return registered;
     }
 
     void addSizeForInstance(Instance i) {
@@ -551,20 +561,42 @@ class ClassDump extends HprofObject implements JavaClass {
     }
 
     //---- Serialization support
-    void writeToStream(DataOutputStream out) throws IOException {
-        out.writeLong(fileOffset);
-        out.writeInt(instances);
-        out.writeLong(firstInstanceOffset);
-        out.writeLong(loadClassOffset);
-        out.writeLong(retainedSizeByClass);        
+    static void writeToStream(List<JavaClass> classes, DataOutputStream out) throws IOException {
+        for (JavaClass cls : classes) {
+            out.writeLong(((ClassDump) cls).fileOffset);
+        }
+        for (JavaClass cls : classes) {
+            out.writeInt(((ClassDump) cls).instances);
+        }
+        for (JavaClass cls : classes) {
+            out.writeLong(((ClassDump) cls).firstInstanceOffset);
+        }
+        for (JavaClass cls : classes) {
+            out.writeLong(((ClassDump) cls).loadClassOffset);
+        }
+        for (JavaClass cls : classes) {
+            out.writeLong(((ClassDump) cls).retainedSizeByClass);
+        }
     }
 
-    ClassDump(ClassDumpSegment segment, long offset, DataInputStream dis) throws IOException {
-        this(segment, offset);
-        instances = dis.readInt();
-        firstInstanceOffset = dis.readLong();
-        loadClassOffset = dis.readLong();
-        retainedSizeByClass = dis.readLong();        
-    }
+    static List<JavaClass> readFromStream(ClassDumpSegment segment, DataInputStream dis, int classesSize) throws IOException {
+        ClassDump[] cls = new ClassDump[classesSize];
 
+        for (int i = 0; i < classesSize; i++) {
+            cls[i] = new ClassDump(segment, dis.readLong());
+        }
+        for (int i = 0; i < classesSize; i++) {
+            cls[i].instances = dis.readInt();
+        }
+        for (int i = 0; i < classesSize; i++) {
+            cls[i].firstInstanceOffset = dis.readLong();
+        }
+        for (int i = 0; i < classesSize; i++) {
+            cls[i].loadClassOffset = dis.readLong();
+        }
+        for (int i = 0; i < classesSize; i++) {
+            cls[i].retainedSizeByClass = dis.readLong();
+        }
+        return new ArrayList<>(Arrays.asList(cls));
+    }
 }
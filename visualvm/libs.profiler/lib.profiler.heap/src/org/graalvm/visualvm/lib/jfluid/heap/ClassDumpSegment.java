@@ -177,19 +177,34 @@ class ClassDumpSegment extends TagBounds {
     void addInstanceSize(ClassDump cls, int tag, long instanceOffset) {
         if ((tag == HprofHeap.OBJECT_ARRAY_DUMP) || (tag == HprofHeap.PRIMITIVE_ARRAY_DUMP)) {
             long sizeLong[] = arrayMap.get(cls);
-            long size = 0;
-            HprofByteBuffer dumpBuffer = hprofHeap.dumpBuffer;
-            int idSize = dumpBuffer.getIDSize();
-            long elementsOffset = instanceOffset + 1 + idSize + 4;
 
             if (sizeLong == null) {
                 sizeLong = new long[OBJECT_ALIGNMENT+1];
                 arrayMap.put(cls, sizeLong);
             }
+            addArraySize(sizeLong, instanceOffset);
+        }
+    }
 
-            int elements = dumpBuffer.getInt(elementsOffset);
-            sizeLong[OBJECT_ALIGNMENT] += elements/OBJECT_ALIGNMENT;
-            sizeLong[elements%OBJECT_ALIGNMENT]++;
+    void addArraySize(long[] sizeLong, long instanceOffset) {
+        HprofByteBuffer dumpBuffer = hprofHeap.dumpBuffer;
+        int idSize = dumpBuffer.getIDSize();
+        long elementsOffset = instanceOffset + 1 + idSize + 4;
+        int elements = dumpBuffer.getInt(elementsOffset);
+
+        sizeLong[OBJECT_ALIGNMENT] += elements/OBJECT_ALIGNMENT;
+        sizeLong[elements%OBJECT_ALIGNMENT]++;
+    }
+
+    void addArraySizes(ClassDump cls, long[] sizes) {
+        long sizeLong[] = arrayMap.get(cls);
+
+        if (sizeLong == null) {
+            arrayMap.put(cls, sizes.clone());
+        } else {
+            for (int i = 0; i < sizeLong.length; i++) {
+                sizeLong[i] += sizes[i];
+            }
         }
     }
 
@@ -229,6 +244,10 @@ class ClassDumpSegment extends TagBounds {
     }
 
     void extractSpecialClasses() {
+        if (classes == null) {
+            // not created yet, see createClassCollection()
+            return;
+        }
         ClassDump java_lang_Object = null;
         primitiveArrayMap = new HashMap<>();
         primitiveTypeMap = new HashMap<>();
@@ -297,19 +316,18 @@ class ClassDumpSegment extends TagBounds {
     }
 
     //---- Serialization support
-    void writeToStream(DataOutputStream out) throws IOException {
-        super.writeToStream(out);
+    void writeClassesToStream(DataOutputStream out) throws IOException {
         if (classes == null) {
             out.writeInt(0);
         } else {
             out.writeInt(classes.size());
+            ClassDump.writeToStream(classes, out);
+            out.writeInt(arrayMap.size());
             for (int i=0; i<classes.size(); i++) {
-                ClassDump classDump = (ClassDump) classes.get(i);
+                long[] size = arrayMap.get((ClassDump) classes.get(i));
 
-                classDump.writeToStream(out);
-                long[] size = arrayMap.get(classDump);
-                out.writeBoolean(size != null);
                 if (size != null) {
+                    out.writeInt(i);
                     for (int si=0; si<size.length; si++) {
                         out.writeLong(size[si]);
                     }
@@ -318,28 +336,25 @@ class ClassDumpSegment extends TagBounds {
         }
     }
 
-    ClassDumpSegment(HprofHeap heap, long start, long end, DataInputStream dis) throws IOException {
-        this(heap, start, end);
+    void readClassesFromStream(DataInputStream dis) throws IOException {
         int classesSize = dis.readInt();
         if (classesSize != 0) {
-            List<JavaClass> cls = new ArrayList<>(classesSize);
+            List<JavaClass> cls = ClassDump.readFromStream(this, dis, classesSize);
+            int arrays = dis.readInt();
+
             arrayMap = new HashMap<>(classesSize / 15);
-            
-            for (int i=0; i<classesSize; i++) {
-                ClassDump c = new ClassDump(this, dis.readLong(), dis);
-                cls.add(c);
-                if (dis.readBoolean()) {
-                    long[] size = new long[OBJECT_ALIGNMENT+1];
-                    for (int si = 0; si < size.length; si++) {
-                        size[si] = dis.readLong();
-                    }
-                    arrayMap.put(c, size);
+            for (int i=0; i<arrays; i++) {
+                ClassDump c = (ClassDump) cls.get(dis.readInt());
+                long[] size = new long[OBJECT_ALIGNMENT+1];
+                for (int si = 0; si < size.length; si++) {
+                    size[si] = dis.readLong();
                 }
+                arrayMap.put(c, size);
             }
             classes = Collections.unmodifiableList(cls);
         }
     }
-    
+
     int getArrayElSize(ClassDump cls) {
         Integer typeObj = primitiveTypeMap.get(cls);
         byte type = typeObj != null ? typeObj.byteValue() : HprofHeap.OBJECT;
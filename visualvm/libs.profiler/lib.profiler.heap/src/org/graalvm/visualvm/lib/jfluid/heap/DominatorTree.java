@@ -27,47 +27,75 @@ package org.graalvm.visualvm.lib.jfluid.heap;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Instances are addressed by their {@link LongMap} ordinals, idoms are kept
+ * in an int array indexed by ordinal:
+ *  - 0 - not resolved yet, the idom is the nearest GC root pointer
+ *  - -1 - no idom
+ *  - otherwise ordinal of the idom + 1
  *
  * @author Tomas Hurka
  */
 class DominatorTree {
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
-    private static final int BUFFER_SIZE = (64 * 1024) / 8;
     private static final int ADDITIONAL_IDS_THRESHOLD = 30;
     private static final int ADDITIONAL_IDS_THRESHOLD_DIRTYSET_SAME_SIZE = 5;
+    private static final int BATCH_SIZE = 4096;
+    private static final long PROGRESS_INTERVAL = 100;
+    private static final int NONE = -1;
+    private static final int UNRESOLVED = 0;
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     private HprofHeap heap;
-    private LongBuffer multipleParents;
-    private LongBuffer revertedMultipleParents;
-    private LongBuffer currentMultipleParents;
-    private LongHashMap map;
-    private LongSet dirtySet;
+    private LongMap idToOffsetMap;
+    private LongBuffer multipleParentsIds;
+    private AbstractLongMap.Data multipleParents;
+    private int multipleParentsCount;
+    private AbstractLongMap.Data idoms;
+    private OrdinalBitSet dirtySet;
+    private OrdinalBitSet newDirtySet;
     private int dirtySetSameSize;
     private Map<ClassDump,Boolean> canContainItself;
-    private Map<Long,Long> nearestGCRootCache = new NearestGCRootCache<>(400000);
+    private final AtomicLong processed = new AtomicLong();
+    private final Object readLock = new Object();
+    private int readPosition;
+    private boolean reverted;
+    private int threads;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
     DominatorTree(HprofHeap h, LongBuffer multiParents) {
         heap = h;
-        multipleParents = multiParents;
-        currentMultipleParents = multipleParents;
-        map = new LongHashMap(multiParents.getSize());
-        dirtySet = new LongSet();
+        idToOffsetMap = h.idToOffsetMap;
+        multipleParentsIds = multiParents;
+        threads = DumpChunks.THREADS;
         try {
-            revertedMultipleParents = multiParents.revertBuffer();
+            if (!idToOffsetMap.hasOrdinals()) {
+                idToOffsetMap.assignOrdinals();
+            }
+            int count = idToOffsetMap.getOrdinalsCount();
+            idoms = h.cacheDirectory.createDumpBuffer(Math.max(count,1)*4L, 4);
+            multipleParents = h.cacheDirectory.createDumpBuffer(Math.max(multiParents.getSize(),1)*4L, 4);
+            dirtySet = new OrdinalBitSet(count);
+            newDirtySet = new OrdinalBitSet(count);
         } catch (IOException ex) {
             throw new IllegalArgumentException(ex.getLocalizedMessage(),ex);
         }
@@ -76,87 +104,72 @@ class DominatorTree {
     //~ Methods ------------------------------------------------------------------------------------------------------------------    
     
     synchronized void computeDominators() {
-        boolean changed = true;
-        boolean igonoreDirty;
+        ExecutorService executor = DumpChunks.createExecutor(isParallel() ? threads : 1);
+        boolean firstLevel = true;
+        boolean ignoreDirty = true;
+
+        HeapProgress.progressStart();
         try {
-            do {
-                currentMultipleParents.rewind();
-                igonoreDirty = !changed;
-                changed = computeOneLevel(igonoreDirty);
-                switchParents();
-            } while (changed || !igonoreDirty);
+            initDominators();
+            for (;;) {
+                readPosition = 0;
+                boolean changed = computeOneLevel(executor, firstLevel, ignoreDirty);
+                reverted = !reverted;
+                if (!changed && ignoreDirty) {
+                    break;
+                }
+                firstLevel = false;
+                ignoreDirty = !changed;
+            }
         } catch (IOException ex) {
             ex.printStackTrace();
+        } finally {
+            executor.shutdownNow();
         }
+        HeapProgress.progressFinish();
         deleteBuffers();
-        dirtySet = new LongSet();
+        dirtySet = null;
+        newDirtySet = null;
     }
-    
-    private boolean computeOneLevel(boolean ignoreDirty) throws IOException {
+
+    private boolean isParallel() {
+        // idoms are updated without locking, int writes are atomic
+        return threads > 1 && heap.dumpBuffer.supportsConcurrentAccess();
+    }
+
+    /**
+     * Converts instances with multiple parents to ordinals and sets their
+     * initial idom to the nearest GC root pointer. Idoms of other instances
+     * are resolved lazily, so that only idoms of instances with multiple
+     * parents are updated when idoms are computed concurrently.
+     */
+    private void initDominators() throws IOException {
+        multipleParentsIds.rewind();
+        for (long instanceId = multipleParentsIds.readLong(); instanceId != 0; instanceId = multipleParentsIds.readLong()) {
+            int ordinal = idToOffsetMap.get(instanceId).getOrdinal();
+
+            multipleParents.putInt(multipleParentsCount*4L, ordinal);
+            multipleParentsCount++;
+            getIdom(ordinal);
+        }
+    }
+
+    private boolean computeOneLevel(ExecutorService executor, boolean firstLevel, boolean ignoreDirty) throws IOException {
+        int workers = isParallel() ? threads : 1;
+        List<Future<LevelWorker>> futures = new ArrayList<>(workers);
         boolean changed = false;
-        LongSet newDirtySet = new LongSet(map.size()/10);
-        List<Long> additionalIds = new ArrayList<>();
-        int additionalIndex = 0;
-        // debug 
-//        long processedId = 0;
-//        long changedId = 0;
-//        long index = 0;
-//        List<Long> changedIds = new ArrayList();
-//        List<Long> changedIdx = new ArrayList();
-//        List<Boolean> addedBynewDirtySet = new ArrayList();
-//        List<Long> oldDomIds = new ArrayList();
-//        List<Long> newDomIds = new ArrayList();
-
-//System.out.println("New level, dirtyset size: "+dirtySet.size());
-        for (;;) {
-            long instanceId = readLong();
-            if (instanceId == 0) {  // end of level
-                if (additionalIndex >= additionalIds.size()) {
-                    if (additionalIndex>0) {
-//System.out.println("Additional instances "+additionalIndex);
-                    }
-                    break;
-                }
-                instanceId = additionalIds.get(additionalIndex++).longValue();
-            }
-            long oldIdom = map.get(instanceId);
-//index++;
-            if (oldIdom == -1 || (oldIdom > 0 && (ignoreDirty || dirtySet.contains(oldIdom) || dirtySet.contains(instanceId)))) {            
-//processedId++;
-                LongMap.Entry entry = heap.idToOffsetMap.get(instanceId);
-                LongIterator refIt = entry.getReferences();
-                long newIdomId = refIt.next();
-                boolean dirty = false;
-                
-                while(refIt.hasNext() && newIdomId != 0) {
-                    long refIdObj = refIt.next();
-                    newIdomId = intersect(newIdomId, refIdObj);
-                }
-                if (oldIdom == -1) {
-//addedBynewDirtySet.add(newDirtySet.contains(instanceId) && !dirtySet.contains(instanceId));
-                    map.put(instanceId, newIdomId);
-                    if (newIdomId != 0) newDirtySet.add(newIdomId);
-                    changed = true;
-//changedId++;
-//changedIds.add(instanceIdObj);
-//changedIdx.add(index);
-//oldDomIds.add(null);
-//newDomIds.add(newIdomIdObj);
-                } else if (oldIdom != newIdomId) {
-//addedBynewDirtySet.add((newDirtySet.contains(oldIdom) || newDirtySet.contains(instanceId)) && !(dirtySet.contains(oldIdom) || dirtySet.contains(instanceId)));
-                    newDirtySet.add(oldIdom);
-                    if (newIdomId != 0) newDirtySet.add(newIdomId);
-                    map.put(instanceId,newIdomId);
-                    if (dirtySet.size() < ADDITIONAL_IDS_THRESHOLD || dirtySetSameSize >= ADDITIONAL_IDS_THRESHOLD_DIRTYSET_SAME_SIZE) {
-                        updateAdditionalIds(instanceId, additionalIds);
-                    }
-                    changed = true;
-//changedId++;
-//changedIds.add(instanceIdObj);
-//changedIdx.add(index);
-//oldDomIds.add(oldIdomObj);
-//newDomIds.add(newIdomIdObj);
-                }
+
+        processed.set(0);
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(new LevelWorker(firstLevel, ignoreDirty)));
+        }
+        newDirtySet.clear();
+        for (Future<LevelWorker> future : futures) {
+            LevelWorker worker = waitFor(future, multipleParentsCount);
+
+            changed |= worker.changed;
+            for (int i = 0; i < worker.dirtyCount; i++) {
+                newDirtySet.add(worker.dirtyOrdinals[i]);
             }
         }
         if (dirtySet.size() != newDirtySet.size()) {
@@ -164,29 +177,83 @@ class DominatorTree {
         } else {
             dirtySetSameSize++;
         }
+        OrdinalBitSet oldDirtySet = dirtySet;
         dirtySet = newDirtySet;
-//System.out.println("Processed: "+processedId);
-//System.out.println("Changed:   "+changedId);
-//System.out.println("-------------------");
-//printObjs(changedIds,oldDomIds,newDomIds, addedBynewDirtySet, changedIdx);
-//System.out.println("-------------------");
+        newDirtySet = oldDirtySet;
         return changed;
     }
+
+    private LevelWorker waitFor(Future<LevelWorker> future, long total) {
+        boolean interrupted = false;
+
+        try {
+            while (!future.isDone()) {
+                try {
+                    future.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException ex) {
+                    HeapProgress.progress(processed.get(), total);
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (Exception ex) {
+                    // reported by DumpChunks.getResult()
+                    break;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return DumpChunks.getResult(future);
+    }
+
+    /**
+     * Reads next batch of the current level, levels alternately go forward
+     * and backward through instances with multiple parents.
+     */
+    private int readBatch(int[] batch) {
+        synchronized (readLock) {
+            int size = 0;
+
+            while (size < batch.length && readPosition < multipleParentsCount) {
+                int index = reverted ? multipleParentsCount - 1 - readPosition : readPosition;
+
+                batch[size++] = multipleParents.getInt(index*4L);
+                readPosition++;
+            }
+            return size;
+        }
+    }
+
+    private int computeIdom(int ordinal, OrdinalSet leftIdoms, OrdinalSet rightIdoms) {
+        LongMap.Entry entry = idToOffsetMap.getByOrdinal(ordinal);
+        LongIterator refIt = entry.getReferences();
+        int newIdom = getOrdinal(refIt.next());
+
+        while(refIt.hasNext() && newIdom != NONE) {
+            int ref = getOrdinal(refIt.next());
+            newIdom = intersect(newIdom, ref, leftIdoms, rightIdoms);
+        }
+        return newIdom;
+    }
         
-    private void updateAdditionalIds(final long instanceId, final List<Long> additionalIds) {
-        Instance i = heap.getInstanceByID(instanceId);
+    private void updateAdditionalIds(final int ordinal, final IntList additionalIds) {
+        Instance i = heap.getInstanceByID(idToOffsetMap.getByOrdinal(ordinal).getInstanceId());
 //System.out.println("Inspecting "+printInstance(instanceIdObj));
         if (i != null) {
             for (FieldValue v : i.getFieldValues()) {
                 if (v instanceof ObjectFieldValue) {
                     Instance val = ((ObjectFieldValue)v).getInstance();
                     if (val != null) {
-                        long idp = val.getInstanceId();
-                        Long idO = new Long(idp);
-                        long idomO = map.get(idp);
-                        if (idomO > 0) {
-                            additionalIds.add(idO);
+                        LongMap.Entry entry = idToOffsetMap.get(val.getInstanceId());
+
+                        if (entry != null && !entry.hasOnlyOneReference()) {
+                            int valOrdinal = entry.getOrdinal();
+
+                            if (getStoredIdom(valOrdinal) > 0) {
+                                additionalIds.add(valOrdinal);
 //System.out.println("  Adding "+printInstance(idO));
+                            }
                         }
                     }
                 }
@@ -195,29 +262,29 @@ class DominatorTree {
     }
     
     private void deleteBuffers() {
-        multipleParents.delete();
-        revertedMultipleParents.delete();
+        multipleParentsIds.delete();
+        multipleParents.deleteFile();
     }
-        
-    private long readLong() throws IOException {
-        return currentMultipleParents.readLong();
+
+    void delete() {
+        idoms.deleteFile();
     }
-    
+
     long getIdomId(long instanceId, LongMap.Entry entry) {
-        long idomEntry = map.get(instanceId);
-        if (idomEntry != -1) {
-            return idomEntry;
-        }
         if (entry == null) {
-            entry = heap.idToOffsetMap.get(instanceId);
+            entry = idToOffsetMap.get(instanceId);
         }
-        return entry.getNearestGCRootPointer();
+        LongMap.Entry idomEntry = getIdomEntry(entry);
+        return idomEntry == null ? 0 : idomEntry.getInstanceId();
+    }
+
+    LongMap.Entry getIdomEntry(LongMap.Entry entry) {
+        int idom = getIdom(entry.getOrdinal());
+        return idom == NONE ? null : idToOffsetMap.getByOrdinal(idom);
     }
     
     boolean hasInstanceInChain(int tag, Instance i) {
         ClassDump javaClass;
-        long idom;
-        long instanceId;
         
         if (tag == HprofHeap.PRIMITIVE_ARRAY_DUMP) {
             return false;
@@ -237,10 +304,9 @@ class DominatorTree {
                 return false;
             }
         }
-        instanceId = i.getInstanceId();
-        idom = getIdomId(instanceId);
-        for (;idom!=0;idom=getIdomId(idom)) {
-            Instance ip = heap.getInstanceByID(idom);
+        int idom = getIdom(idToOffsetMap.get(i.getInstanceId()).getOrdinal());
+        for (;idom!=NONE;idom=getIdom(idom)) {
+            Instance ip = heap.getInstanceByID(idToOffsetMap.getByOrdinal(idom).getInstanceId());
             JavaClass cls = ip.getJavaClass();
             
             if (javaClass.equals(cls)) {
@@ -250,57 +316,62 @@ class DominatorTree {
         return false;
     }
 
-    private Long getNearestGCRootPointer(Long instanceIdLong) {
-        LongMap.Entry entry;
-        Long nearestGCLong = nearestGCRootCache.get(instanceIdLong);
-        Long nearestGC;
-        if (nearestGCLong != null) {
-            return nearestGCLong;
-        }
-        entry = heap.idToOffsetMap.get(instanceIdLong.longValue());
-        nearestGC = Long.valueOf(entry.getNearestGCRootPointer());
-        nearestGCRootCache.put(instanceIdLong,nearestGC);
-        return nearestGC;
+    private int getOrdinal(long instanceId) {
+        if (instanceId == 0) {
+            return NONE;
+        }
+        LongMap.Entry entry = idToOffsetMap.get(instanceId);
+        return entry == null ? NONE : entry.getOrdinal();
     }
-    
-    private long getIdomId(long instanceIdLong) {
-        long idom = map.get(instanceIdLong);
-        
-        if (idom != -1) {
-            return idom;
+
+    private int getStoredIdom(int ordinal) {
+        return idoms.getInt(ordinal*4L);
+    }
+
+    private void setIdom(int ordinal, int idom) {
+        idoms.putInt(ordinal*4L, idom == NONE ? -1 : idom + 1);
+    }
+
+    private int getIdom(int ordinal) {
+        int idom = getStoredIdom(ordinal);
+
+        if (idom == UNRESOLVED) {
+            // only instances with single parent are resolved here, their idom never changes
+            int nearestGC = getOrdinal(idToOffsetMap.getByOrdinal(ordinal).getNearestGCRootPointer());
+            setIdom(ordinal, nearestGC);
+            return nearestGC;
         }
-        return getNearestGCRootPointer(instanceIdLong);
+        return idom == -1 ? NONE : idom - 1;
     }
     
-    private long intersect(long idomId, long refId) {
-        if (idomId == refId) {
-            return idomId;
+    private int intersect(int idom, int ref, OrdinalSet leftIdoms, OrdinalSet rightIdoms) {
+        if (idom == ref) {
+            return idom;
         }
-        if (idomId == 0 || refId == 0) {
-            return 0;
+        if (idom == NONE || ref == NONE) {
+            return NONE;
         }
-        LongSet leftIdoms = new LongSet(200);
-        LongSet rightIdoms = new LongSet(200);        
-        long leftIdom = idomId;
-        long rightIdom = refId;
+        int leftIdom = idom;
+        int rightIdom = ref;
 
-        
+        leftIdoms.clear();
+        rightIdoms.clear();
         leftIdoms.add(leftIdom);
         rightIdoms.add(rightIdom);
         while(true) {
-            if (rightIdom == 0 && leftIdom == 0) return 0;
-            if (leftIdom != 0) {
-                leftIdom = getIdomId(leftIdom);
-                if (leftIdom != 0) {
+            if (rightIdom == NONE && leftIdom == NONE) return NONE;
+            if (leftIdom != NONE) {
+                leftIdom = getIdom(leftIdom);
+                if (leftIdom != NONE) {
                     if (rightIdoms.contains(leftIdom)) {
                         return leftIdom;
                     }
                     leftIdoms.add(leftIdom);
                 }
             }
-            if (rightIdom != 0) {
-                rightIdom = getIdomId(rightIdom);
-                if (rightIdom != 0) {
+            if (rightIdom != NONE) {
+                rightIdom = getIdom(rightIdom);
+                if (rightIdom != NONE) {
                     if (leftIdoms.contains(rightIdom)) {
                         return rightIdom;
                     }
@@ -310,14 +381,6 @@ class DominatorTree {
         }
     }
 
-    private void switchParents() {
-        if (currentMultipleParents == revertedMultipleParents) {
-            currentMultipleParents = multipleParents;
-        } else {
-            currentMultipleParents = revertedMultipleParents;
-        }
-    }
-
     // debugging 
     private void printObjs(List<Long> changedIds, List<Long> oldDomIds, List<Long> newDomIds, List<Boolean> addedByDirtySet, List<Long> changedIdx) {
         if (changedIds.size()>20) return;
@@ -354,25 +417,199 @@ class DominatorTree {
 
     //---- Serialization support
     void writeToStream(DataOutputStream out) throws IOException {
-        map.writeToStream(out);
+        idoms.writeToStream(out);
+    }
+
+    List<File> getDataFiles() {
+        return Collections.singletonList(idoms.getFile());
     }
 
     DominatorTree(HprofHeap h, DataInputStream dis) throws IOException {
         heap = h;
-        map = new LongHashMap(dis);
+        idToOffsetMap = h.idToOffsetMap;
+        idoms = AbstractLongMap.Data.readFromStream(dis, h.cacheDirectory, 4);
     }
     
-    private static final class NearestGCRootCache<K,V> extends LinkedHashMap<K,V> {
-        private final int maxSize;
-        
-        private NearestGCRootCache(int size) {
-            super(size,0.75F,true);
-            maxSize = size;
+    /**
+     * Computes idoms of a part of one level. Instances are taken in batches
+     * from the current level, dirty set of the previous level is only read.
+     */
+    private final class LevelWorker implements Callable<LevelWorker> {
+        private final boolean firstLevel;
+        private final boolean ignoreDirty;
+        private final OrdinalSet leftIdoms = new OrdinalSet();
+        private final OrdinalSet rightIdoms = new OrdinalSet();
+        private final IntList additionalIds = new IntList();
+        private int[] dirtyOrdinals = new int[BATCH_SIZE];
+        private int dirtyCount;
+        private boolean changed;
+
+        private LevelWorker(boolean first, boolean ignore) {
+            firstLevel = first;
+            ignoreDirty = ignore;
+        }
+
+        public LevelWorker call() throws IOException {
+            int[] batch = new int[BATCH_SIZE];
+
+            for (int size = readBatch(batch); size > 0; size = readBatch(batch)) {
+                for (int i = 0; i < size; i++) {
+                    computeIdom(batch[i]);
+                }
+                processed.addAndGet(size);
+            }
+            for (int i = 0; i < additionalIds.size; i++) {
+                computeIdom(additionalIds.values[i]);
+            }
+            return this;
+        }
+
+        private void computeIdom(int ordinal) {
+            int oldIdom = getIdom(ordinal);
+
+            if (firstLevel || (oldIdom != NONE && (ignoreDirty || dirtySet.contains(oldIdom) || dirtySet.contains(ordinal)))) {
+                int newIdom = DominatorTree.this.computeIdom(ordinal, leftIdoms, rightIdoms);
+
+                if (firstLevel) {
+                    setIdom(ordinal, newIdom);
+                    if (newIdom != NONE) addDirty(newIdom);
+                    changed = true;
+                } else if (oldIdom != newIdom) {
+                    addDirty(oldIdom);
+                    if (newIdom != NONE) addDirty(newIdom);
+                    setIdom(ordinal, newIdom);
+                    if (dirtySet.size() < ADDITIONAL_IDS_THRESHOLD || dirtySetSameSize >= ADDITIONAL_IDS_THRESHOLD_DIRTYSET_SAME_SIZE) {
+                        updateAdditionalIds(ordinal, additionalIds);
+                    }
+                    changed = true;
+                }
+            }
         }
 
-        protected boolean removeEldestEntry(Map.Entry<K,V> eldest) {
-            return size() > maxSize;
+        private void addDirty(int ordinal) {
+            if (dirtyCount == dirtyOrdinals.length) {
+                dirtyOrdinals = Arrays.copyOf(dirtyOrdinals, dirtyCount * 2);
+            }
+            dirtyOrdinals[dirtyCount++] = ordinal;
         }
+    }
 
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Set of ordinals, cleared in time proportional to its size.
+     */
+    private static final class OrdinalBitSet {
+        private final long[] bits;
+        private int[] members = new int[BATCH_SIZE];
+        private int size;
+
+        private OrdinalBitSet(int count) {
+            bits = new long[(count + 63) >>> 6];
+        }
+
+        private void add(int ordinal) {
+            long mask = 1L << ordinal;
+            int word = ordinal >>> 6;
+
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                if (size == members.length) {
+                    members = Arrays.copyOf(members, size * 2);
+                }
+                members[size++] = ordinal;
+            }
+        }
+
+        private boolean contains(int ordinal) {
+            return (bits[ordinal >>> 6] & (1L << ordinal)) != 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                bits[members[i] >>> 6] = 0;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Open addressing set of ordinals reused by {@link #intersect}, cleared
+     * in time proportional to its size.
+     */
+    private static final class OrdinalSet {
+        private int[] slots = new int[256];
+        private int[] used = new int[128];
+        private int size;
+
+        private void add(int ordinal) {
+            if (size * 2 >= slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int index = hash(ordinal) & mask;
+
+            while (slots[index] != 0) {
+                if (slots[index] == ordinal + 1) {
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            slots[index] = ordinal + 1;
+            used[size++] = index;
+        }
+
+        private boolean contains(int ordinal) {
+            int mask = slots.length - 1;
+            int index = hash(ordinal) & mask;
+
+            while (slots[index] != 0) {
+                if (slots[index] == ordinal + 1) {
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                slots[used[i]] = 0;
+            }
+            size = 0;
+        }
+
+        private void grow() {
+            int[] oldSlots = slots;
+            int oldSize = size;
+
+            slots = new int[oldSlots.length * 2];
+            used = new int[slots.length / 2];
+            size = 0;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != 0) {
+                    add(oldSlots[i] - 1);
+                }
+            }
+            assert size == oldSize;
+        }
+
+        private static int hash(int ordinal) {
+            return ordinal * 0x9E3779B9;
+        }
     }
 }
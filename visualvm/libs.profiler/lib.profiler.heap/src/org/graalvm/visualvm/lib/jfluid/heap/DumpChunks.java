@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.heap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits part of the heap dump into chunks, which start at record boundaries,
+ * so that they can be scanned concurrently. Results of the chunks are always
+ * returned in the file order.
+ *
+ * @author agent
+ */
+class DumpChunks {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    static int THREADS = Integer.getInteger("org.graalvm.visualvm.lib.jfluid.heap.threads", Runtime.getRuntime().availableProcessors()); // NOI18N
+    static long CHUNK_SIZE = 64L * 1024 * 1024;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private final long[] boundaries;
+    private final int threads;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    private DumpChunks(long[] bounds) {
+        boundaries = bounds;
+        threads = THREADS;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates chunks from record offsets collected during sequential walk.
+     * Offsets outside of <code>bounds</code> are ignored.
+     */
+    static DumpChunks create(TagBounds bounds, Collector collector) {
+        long[] offsets = collector.getOffsets();
+        long[] starts = new long[offsets.length + 2];
+        int size = 0;
+
+        starts[size++] = bounds.startOffset;
+        for (long offset : offsets) {
+            if (offset > starts[size - 1] && offset < bounds.endOffset) {
+                starts[size++] = offset;
+            }
+        }
+        starts[size++] = bounds.endOffset;
+        return new DumpChunks(Arrays.copyOf(starts, size));
+    }
+
+    /**
+     * Computes chunks by walking records of <code>bounds</code>.
+     */
+    static DumpChunks compute(HprofHeap heap, TagBounds bounds) {
+        Collector collector = new Collector(bounds.startOffset);
+        long[] offset = new long[] { bounds.startOffset };
+
+        while (offset[0] < bounds.endOffset) {
+            collector.add(offset[0]);
+            heap.readDumpTag(offset);
+        }
+        return create(bounds, collector);
+    }
+
+    int getChunksCount() {
+        return boundaries.length - 1;
+    }
+
+    long getStart(int chunk) {
+        return boundaries[chunk];
+    }
+
+    long getEnd(int chunk) {
+        return boundaries[chunk + 1];
+    }
+
+    boolean isParallel() {
+        return threads > 1 && getChunksCount() > 1;
+    }
+
+    /**
+     * Runs <code>task</code> for every chunk. Progress is reported from the calling
+     * thread, since {@link HeapProgress} is bound to it.
+     */
+    <T> List<T> process(final ChunkTask<T> task) {
+        int chunks = getChunksCount();
+        List<T> results = new ArrayList<>(chunks);
+        long start = getStart(0);
+        long end = getEnd(chunks - 1);
+
+        if (!isParallel()) {
+            for (int i = 0; i < chunks; i++) {
+                results.add(task.process(i, getStart(i), getEnd(i)));
+                HeapProgress.progress(0, start, getEnd(i), end);
+            }
+            return results;
+        }
+        ExecutorService executor = createExecutor(Math.min(threads, chunks));
+        try {
+            List<Future<T>> futures = new ArrayList<>(chunks);
+
+            for (int i = 0; i < chunks; i++) {
+                final int chunk = i;
+                futures.add(executor.submit(() -> task.process(chunk, getStart(chunk), getEnd(chunk))));
+            }
+            for (int i = 0; i < chunks; i++) {
+                results.add(getResult(futures.get(i)));
+                HeapProgress.progress(0, start, getEnd(i), end);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    static ExecutorService createExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, new ScannerThreadFactory());
+    }
+
+    static <T> T getResult(Future<T> future) {
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------------------------------------
+
+    interface ChunkTask<T> {
+
+        T process(int chunk, long start, long end);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Remembers record offsets roughly {@link #CHUNK_SIZE} bytes apart.
+     */
+    static class Collector {
+
+        private long[] offsets = new long[16];
+        private int size;
+        private long nextOffset;
+
+        Collector(long start) {
+            nextOffset = start + CHUNK_SIZE;
+        }
+
+        void add(long recordOffset) {
+            if (recordOffset >= nextOffset) {
+                if (size == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                offsets[size++] = recordOffset;
+                nextOffset = recordOffset + CHUNK_SIZE;
+            }
+        }
+
+        long[] getOffsets() {
+            return Arrays.copyOf(offsets, size);
+        }
+    }
+
+    private static class ScannerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Heap dump scanner " + THREAD_ID.incrementAndGet()); // NOI18N
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
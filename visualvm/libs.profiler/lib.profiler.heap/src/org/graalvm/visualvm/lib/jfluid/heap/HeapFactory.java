@@ -25,13 +25,9 @@
 
 package org.graalvm.visualvm.lib.jfluid.heap;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 
 
 /**
@@ -108,10 +104,8 @@ public class HeapFactory {
     static Heap loadHeap(CacheDirectory cacheDir)
                            throws FileNotFoundException, IOException {
         File savedDump = cacheDir.getHeapDumpAuxFile();
-        InputStream is = new BufferedInputStream(new FileInputStream(savedDump), 64*1024);
-        try (DataInputStream dis = new DataInputStream(is)) {
-            return new HprofHeap(dis, cacheDir);
-        }
+        CacheIndexFile index = CacheIndexFile.open(savedDump, HprofHeap.SNAPSHOT_ID, HprofHeap.SNAPSHOT_VERSION);
+        return new HprofHeap(index, cacheDir);
     }
     
 }
@@ -84,6 +84,14 @@ abstract class HprofByteBuffer {
         }
     }
 
+    /**
+     * @return <code>false</code> if reading from several threads at once is slower
+     * than reading from one thread
+     */
+    boolean supportsConcurrentAccess() {
+        return true;
+    }
+
     abstract char getChar(long index);
 
     abstract double getDouble(long index);
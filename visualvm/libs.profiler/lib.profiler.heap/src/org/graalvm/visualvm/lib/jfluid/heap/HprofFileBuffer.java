@@ -63,6 +63,10 @@ class HprofFileBuffer extends HprofByteBuffer {
 
     //~ Methods ------------------------------------------------------------------------------------------------------------------
 
+    boolean supportsConcurrentAccess() {
+        return false;
+    }
+
     synchronized char getChar(long index) {
         int i = loadBufferIfNeeded(index);
         int ch1 = ((int) dumpBuffer[i++]) & 0xFF;
@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.heap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Random access to gzip compressed heap dump. The index of gzip members is
+ * built on the first open and kept in the cache directory. Only the member
+ * containing requested data is inflated, recently used members are cached
+ * up to 64MB.
+ * <br>
+ * Heap dumps compressed by the JVM itself (-gz option of jcmd GC.heap_dump or
+ * jmap) are written as a sequence of independent 1MB gzip members. Deflate stream
+ * cannot be restarted in the middle of a member with {@link Inflater}, so
+ * dumps with big members (e.g. compressed by the gzip tool) are inflated
+ * once to the cache directory instead.
+ *
+ * @author agent
+ */
+class HprofGZipBuffer extends HprofByteBuffer {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final Logger LOG = Logger.getLogger(HprofGZipBuffer.class.getName());
+
+    private static final String INDEX_ID = "NBPGZI";  // NOI18N
+    private static final int INDEX_VERSION = 1;
+    private static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+    // inflated members kept in memory, at least the last used one
+    private static final long MAX_CACHED_BYTES = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // gzip header flags
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private final RandomAccessFile file;
+    // compressed offset of every gzip member + file length
+    private final long[] memberOffsets;
+    // uncompressed offset of every gzip member + uncompressed length
+    private final long[] blockOffsets;
+    private final Map<Integer,byte[]> blockCache;
+    private byte[] block;
+    private long blockStart;
+    private long blockEnd;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    private HprofGZipBuffer(File dumpFile, long[][] index) throws IOException {
+        file = new RandomAccessFile(dumpFile, "r"); // NOI18N
+        memberOffsets = index[0];
+        blockOffsets = index[1];
+        blockCache = new BlockLRUCache();
+        length = blockOffsets[blockOffsets.length - 1];
+        blockStart = Long.MAX_VALUE;
+        readHeader();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    static boolean isGZipFile(File dumpFile) throws IOException {
+        try (InputStream is = new FileInputStream(dumpFile)) {
+            return is.read() == 0x1f && is.read() == 0x8b;
+        }
+    }
+
+    static HprofByteBuffer createHprofByteBuffer(File dumpFile, CacheDirectory cacheDir) throws IOException {
+        File indexFile = cacheDir.getGZipIndexFile();
+        long[][] index = null;
+
+        if (indexFile.isFile()) {
+            index = readIndex(dumpFile, indexFile);
+        }
+        if (index == null) {
+            index = buildIndex(dumpFile);
+            if (index != null) {
+                writeIndex(dumpFile, indexFile, index);
+            }
+        }
+        if (index == null) {
+            // members are too big to be inflated on demand
+            File inflatedFile = cacheDir.getInflatedDumpFile();
+
+            if (!inflatedFile.isFile()) {
+                LOG.log(Level.INFO, "{0} has gzip members bigger than {1} bytes, it cannot be read without inflating it to {2}", // NOI18N
+                        new Object[]{dumpFile, MAX_BLOCK_SIZE, inflatedFile});
+                inflate(dumpFile, inflatedFile);
+            }
+            return HprofByteBuffer.createHprofByteBuffer(inflatedFile);
+        }
+        return new HprofGZipBuffer(dumpFile, index);
+    }
+
+    boolean supportsConcurrentAccess() {
+        return false;
+    }
+
+    synchronized char getChar(long index) {
+        return (char) getShort(index);
+    }
+
+    synchronized double getDouble(long index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    synchronized float getFloat(long index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    synchronized int getInt(long index) {
+        int ch1 = get(index) & 0xFF;
+        int ch2 = get(index + 1) & 0xFF;
+        int ch3 = get(index + 2) & 0xFF;
+        int ch4 = get(index + 3) & 0xFF;
+
+        return ((ch1 << 24) + (ch2 << 16) + (ch3 << 8) + (ch4 << 0));
+    }
+
+    synchronized long getLong(long index) {
+        return ((long) (getInt(index)) << 32) + (getInt(index + 4) & 0xFFFFFFFFL);
+    }
+
+    synchronized short getShort(long index) {
+        int ch1 = get(index) & 0xFF;
+        int ch2 = get(index + 1) & 0xFF;
+
+        return (short) ((ch1 << 8) + (ch2 << 0));
+    }
+
+    synchronized byte get(long index) {
+        if (index < blockStart || index >= blockEnd) {
+            loadBlock(index);
+        }
+        return block[(int) (index - blockStart)];
+    }
+
+    synchronized void get(long position, byte[] chars) {
+        int copied = 0;
+
+        while (copied < chars.length) {
+            long index = position + copied;
+
+            if (index < blockStart || index >= blockEnd) {
+                loadBlock(index);
+            }
+            int offset = (int) (index - blockStart);
+            int size = Math.min(chars.length - copied, block.length - offset);
+            System.arraycopy(block, offset, chars, copied, size);
+            copied += size;
+        }
+    }
+
+    private void loadBlock(long index) {
+        int blockIndex = Arrays.binarySearch(blockOffsets, index);
+
+        if (blockIndex < 0) {
+            blockIndex = -blockIndex - 2;
+        } else {
+            // skip empty members
+            while (blockOffsets[blockIndex + 1] == index) {
+                blockIndex++;
+            }
+        }
+        if (blockIndex < 0 || blockIndex >= blockOffsets.length - 1) {
+            throw new IndexOutOfBoundsException("Index " + index + " length " + length); // NOI18N
+        }
+        byte[] data = blockCache.get(blockIndex);
+
+        if (data == null) {
+            try {
+                data = inflateMember(blockIndex);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            blockCache.put(blockIndex, data);
+        }
+        block = data;
+        blockStart = blockOffsets[blockIndex];
+        blockEnd = blockOffsets[blockIndex + 1];
+    }
+
+    private byte[] inflateMember(int blockIndex) throws IOException {
+        byte[] compressed = new byte[(int) (memberOffsets[blockIndex + 1] - memberOffsets[blockIndex])];
+        byte[] data = new byte[(int) (blockOffsets[blockIndex + 1] - blockOffsets[blockIndex])];
+
+        file.seek(memberOffsets[blockIndex]);
+        file.readFully(compressed);
+        int headerSize = getHeaderSize(compressed, 0, compressed.length);
+        // buffers are not closed, do not keep native inflater memory between blocks
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(compressed, headerSize, compressed.length - headerSize);
+        try {
+            int size = 0;
+
+            while (size < data.length) {
+                int n = inflater.inflate(data, size, data.length - size);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Truncated gzip member " + blockIndex); // NOI18N
+                }
+                size += n;
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException(ex);
+        } finally {
+            inflater.end();
+        }
+        return data;
+    }
+
+    /**
+     * @return size of gzip member header at offset or -1 if there is no gzip header
+     */
+    private static int getHeaderSize(byte[] buf, int offset, int size) throws IOException {
+        if (size < 10 || (buf[offset] & 0xFF) != 0x1f || (buf[offset + 1] & 0xFF) != 0x8b) {
+            return -1;
+        }
+        if (buf[offset + 2] != 8) {
+            throw new IOException("Unsupported compression method " + buf[offset + 2]); // NOI18N
+        }
+        int flags = buf[offset + 3] & 0xFF;
+        int pos = offset + 10;
+
+        if ((flags & FEXTRA) != 0) {
+            pos += 2 + ((buf[pos] & 0xFF) | ((buf[pos + 1] & 0xFF) << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            while (buf[pos++] != 0);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (buf[pos++] != 0);
+        }
+        if ((flags & FHCRC) != 0) {
+            pos += 2;
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Inflates all gzip members once to find their compressed and uncompressed offsets.
+     *
+     * @return index or <code>null</code> if some member is too big to be inflated on demand
+     */
+    private static long[][] buildIndex(File dumpFile) throws IOException {
+        long[] members = new long[1024];
+        long[] blocks = new long[1024];
+        int count = 0;
+        byte[] in = new byte[BUFFER_SIZE];
+        byte[] out = new byte[BUFFER_SIZE];
+        Inflater inf = new Inflater(true);
+
+        try (RandomAccessFile raf = new RandomAccessFile(dumpFile, "r")) { // NOI18N
+            long fileLength = raf.length();
+            long offset = 0;
+            long uncompressed = 0;
+
+            while (offset < fileLength) {
+                raf.seek(offset);
+                int read = raf.read(in);
+                int headerSize = getHeaderSize(in, 0, read);
+
+                if (headerSize == -1) {
+                    break;  // trailing garbage
+                }
+                if (count + 1 >= members.length) {
+                    members = Arrays.copyOf(members, members.length * 2);
+                    blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                }
+                members[count] = offset;
+                blocks[count] = uncompressed;
+                count++;
+                long memberSize = 0;
+                long position = offset + read;
+
+                inf.reset();
+                inf.setInput(in, headerSize, read - headerSize);
+                try {
+                    while (!inf.finished()) {
+                        if (inf.needsInput()) {
+                            read = raf.read(in);
+                            if (read <= 0) {
+                                throw new EOFException("Truncated gzip file " + dumpFile); // NOI18N
+                            }
+                            position += read;
+                            inf.setInput(in, 0, read);
+                        }
+                        int n = inf.inflate(out);
+                        if (n == 0 && inf.needsDictionary()) {
+                            throw new IOException("Invalid gzip file " + dumpFile); // NOI18N
+                        }
+                        memberSize += n;
+                        if (memberSize > MAX_BLOCK_SIZE) {
+                            return null;
+                        }
+                    }
+                } catch (DataFormatException ex) {
+                    throw new IOException(ex);
+                }
+                uncompressed += memberSize;
+                // skip CRC32 and ISIZE trailer
+                offset = position - inf.getRemaining() + 8;
+            }
+            members[count] = Math.min(offset, fileLength);
+            blocks[count] = uncompressed;
+        } finally {
+            inf.end();
+        }
+        return new long[][] { Arrays.copyOf(members, count + 1), Arrays.copyOf(blocks, count + 1) };
+    }
+
+    private static void inflate(File dumpFile, File inflatedFile) throws IOException {
+        File tmpFile = new File(inflatedFile.getAbsolutePath() + ".tmp"); // NOI18N
+
+        try (InputStream is = new GZIPInputStream(new FileInputStream(dumpFile), BUFFER_SIZE);
+             OutputStream os = new FileOutputStream(tmpFile)) {
+            byte[] buf = new byte[BUFFER_SIZE];
+
+            for (int n = is.read(buf); n != -1; n = is.read(buf)) {
+                os.write(buf, 0, n);
+            }
+        }
+        if (!tmpFile.renameTo(inflatedFile)) {
+            tmpFile.delete();
+            throw new IOException("Cannot create " + inflatedFile); // NOI18N
+        }
+    }
+
+    //---- Serialization support
+    private static void writeIndex(File dumpFile, File indexFile, long[][] index) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile), BUFFER_SIZE))) {
+            out.writeUTF(INDEX_ID);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(dumpFile.length());
+            out.writeLong(dumpFile.lastModified());
+            out.writeInt(index[0].length);
+            for (int i = 0; i < index[0].length; i++) {
+                out.writeLong(index[0][i]);
+                out.writeLong(index[1][i]);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+            indexFile.delete();
+        }
+    }
+
+    private static long[][] readIndex(File dumpFile, File indexFile) {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE))) {
+            if (!INDEX_ID.equals(dis.readUTF()) || dis.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            if (dis.readLong() != dumpFile.length() || dis.readLong() != dumpFile.lastModified()) {
+                return null;
+            }
+            int size = dis.readInt();
+            long[][] index = new long[2][size];
+
+            for (int i = 0; i < size; i++) {
+                index[0][i] = dis.readLong();
+                index[1][i] = dis.readLong();
+            }
+            return index;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    private static class BlockLRUCache extends LinkedHashMap<Integer,byte[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private long cachedBytes;
+
+        private BlockLRUCache() {
+            super(16, 0.75f, true);
+        }
+
+        public byte[] put(Integer blockIndex, byte[] data) {
+            byte[] old = super.put(blockIndex, data);
+
+            cachedBytes += data.length - (old == null ? 0 : old.length);
+            // the just inflated member is the last one and is never evicted
+            Iterator<byte[]> it = values().iterator();
+
+            while (cachedBytes > MAX_CACHED_BYTES && size() > 1) {
+                cachedBytes -= it.next().length;
+                it.remove();
+            }
+            return old;
+        }
+    }
+}
@@ -25,16 +25,17 @@
 
 package org.graalvm.visualvm.lib.jfluid.heap;
 
-import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -102,8 +103,15 @@ class HprofHeap implements Heap {
     static final int LONG = 11;
     private static final boolean DEBUG = false;
 
-    private static final String SNAPSHOT_ID = "NBPHD";
-    private static final int SNAPSHOT_VERSION  = 4;
+    static final String SNAPSHOT_ID = "NBPHD";
+    static final int SNAPSHOT_VERSION  = 7;
+    // sections of the cache index file
+    private static final int HEADER_SECTION = 1;
+    private static final int BOUNDS_SECTION = 2;
+    private static final int CLASSES_SECTION = 3;
+    private static final int STATE_SECTION = 4;
+    private static final int GC_ROOTS_SECTION = 5;
+    private static final int DOMINATORS_SECTION = 6;
     private static final String OS_PROP = "os.name";
     
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
@@ -116,6 +124,7 @@ class HprofHeap implements Heap {
     private final Object computedSummaryLock = new Object();
     private DominatorTree domTree;
     private TagBounds allInstanceDumpBounds;
+    private DumpChunks instanceDumpChunks;
     private TagBounds heapDumpSegment;
     private TagBounds[] heapTagBounds;
     private TagBounds[] tagBounds = new TagBounds[0xff];
@@ -329,11 +338,10 @@ class HprofHeap implements Heap {
     void writeToFile() {
         if (!cacheDirectory.isTemporary()) {
             try {
-                DataOutputStream out;
                 File outFile = cacheDirectory.getHeapDumpAuxFile();
-                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile), 32768));
-                writeToStream(out);
-                out.close();
+                try (CacheIndexFile.Writer writer = new CacheIndexFile.Writer(outFile, SNAPSHOT_ID, SNAPSHOT_VERSION)) {
+                    writeToIndex(writer);
+                }
                 cacheDirectory.setDirty(false);
             } catch (IOException ex) {
                 ex.printStackTrace(System.err);
@@ -341,71 +349,166 @@ class HprofHeap implements Heap {
         }
     }
     
-    void writeToStream(DataOutputStream out) throws IOException {
-        out.writeUTF(SNAPSHOT_ID);
-        out.writeInt(SNAPSHOT_VERSION);
+    void writeToIndex(CacheIndexFile.Writer writer) throws IOException {
+        DataOutputStream out = writer.beginSection(HEADER_SECTION);
         out.writeUTF(heapDumpFile.getAbsolutePath());
         out.writeLong(dumpBuffer.getTime());
         out.writeUTF(System.getProperty(OS_PROP));
-        nearestGCRoot.writeToStream(out);
+        out.writeInt(segment);
+        writer.endSection();
+
+        out = writer.beginSection(BOUNDS_SECTION);
         allInstanceDumpBounds.writeToStream(out);
         heapDumpSegment.writeToStream(out);
         TagBounds.writeToStream(heapTagBounds, out);
         TagBounds.writeToStream(tagBounds, out);
+        out.writeInt(idMapSize);
+        writer.endSection();
+
+        out = writer.beginSection(CLASSES_SECTION);
+        getClassDumpSegment().writeClassesToStream(out);
+        writer.endSection();
+
+        out = writer.beginSection(STATE_SECTION);
         out.writeBoolean(instancesCountComputed);
         out.writeBoolean(referencesComputed);
         out.writeBoolean(retainedSizeComputed);
         out.writeBoolean(retainedSizeByClassComputed);
-        out.writeInt(idMapSize);
-        out.writeInt(segment);        
         idToOffsetMap.writeToStream(out);
-        out.writeBoolean(domTree != null);
+        writer.endSection(idToOffsetMap.getDataFiles());
+
+        out = writer.beginSection(GC_ROOTS_SECTION);
+        nearestGCRoot.writeToStream(out);
+        writer.endSection(nearestGCRoot.getDataFiles());
+
         if (domTree != null) {
+            out = writer.beginSection(DOMINATORS_SECTION);
             domTree.writeToStream(out);
+            writer.endSection(domTree.getDataFiles());
         }
     }
 
-    HprofHeap(DataInputStream dis, CacheDirectory cacheDir) throws IOException {
+    HprofHeap(CacheIndexFile index, CacheDirectory cacheDir) throws IOException {
+        boolean rebuilt = false;
+
         if (cacheDir.isDirty()) {
             throw new IOException("Dirty cache "+cacheDir);
         }
-        String id = dis.readUTF();
-        if (!SNAPSHOT_ID.equals(id)) {
-            throw new IOException("Invalid HPROF dump id "+id);
+        cacheDirectory = cacheDir;
+        try (DataInputStream dis = getRequiredSection(index, HEADER_SECTION)) {
+            heapDumpFile = cacheDir.getHeapFile(dis.readUTF());
+            dumpBuffer = cacheDir.createHprofByteBuffer(heapDumpFile);
+            long time = dis.readLong();
+            if (time != dumpBuffer.getTime()) {
+                throw new IOException("HPROF time mismatch. Cached "+time+" from heap dump "+dumpBuffer.getTime());
+            }
+            String os = dis.readUTF();
+            if (!os.equals(System.getProperty(OS_PROP))) {
+                throw new IOException("HPROF OS mismatch. Cached "+os+" current OS "+System.getProperty(OS_PROP));
+            }
+            segment = dis.readInt();
         }
-        int version = dis.readInt();
-        if (version != SNAPSHOT_VERSION) {
-            throw new IOException("Invalid HPROF version "+SNAPSHOT_VERSION+" loaded "+version);            
+        try (DataInputStream dis = index.getSection(STATE_SECTION)) {
+            if (dis != null) {
+                instancesCountComputed = dis.readBoolean();
+                referencesComputed = dis.readBoolean();
+                retainedSizeComputed = dis.readBoolean();
+                retainedSizeByClassComputed = dis.readBoolean();
+                if (!isNeededSectionDamaged(index)) {
+                    idToOffsetMap = new LongMap(dis, cacheDirectory);
+                }
+            }
         }
-        heapDumpFile = cacheDir.getHeapFile(dis.readUTF());
-        cacheDirectory = cacheDir;
-        dumpBuffer = HprofByteBuffer.createHprofByteBuffer(heapDumpFile);
-        long time = dis.readLong();
-        if (time != dumpBuffer.getTime()) {
-            throw new IOException("HPROF time mismatch. Cached "+time+" from heap dump "+dumpBuffer.getTime());
-        }
-        String os = dis.readUTF();
-        if (!os.equals(System.getProperty(OS_PROP))) {
-            throw new IOException("HPROF OS mismatch. Cached "+os+" current OS "+System.getProperty(OS_PROP));
-        }
-        nearestGCRoot = new NearestGCRoot(this, dis);
-        allInstanceDumpBounds = new TagBounds(dis);
-        heapDumpSegment = new TagBounds(dis);
-        heapTagBounds = new TagBounds[0x100];
-        TagBounds.readFromStream(dis, this, heapTagBounds);
-        TagBounds.readFromStream(dis, this, tagBounds);        
-        instancesCountComputed = dis.readBoolean();
-        referencesComputed = dis.readBoolean();
-        retainedSizeComputed = dis.readBoolean();
-        retainedSizeByClassComputed = dis.readBoolean();
-        idMapSize = dis.readInt();
-        segment = dis.readInt();
-        idToOffsetMap = new LongMap(dis, cacheDirectory);
-        if (dis.readBoolean()) {
-            domTree = new DominatorTree(this, dis);
+        try (DataInputStream dis = index.getSection(BOUNDS_SECTION)) {
+            if (dis != null) {
+                allInstanceDumpBounds = new TagBounds(dis);
+                heapDumpSegment = new TagBounds(dis);
+                heapTagBounds = new TagBounds[0x100];
+                TagBounds.readFromStream(dis, this, heapTagBounds);
+                TagBounds.readFromStream(dis, this, tagBounds);
+                idMapSize = dis.readInt();
+            } else {
+                // bounds depend only on the heap dump, scan it again
+                fillTagBounds(dumpBuffer.getHeaderSize());
+                heapDumpSegment = computeHeapDumpStart();
+                if (heapDumpSegment == null) {
+                    throw new IOException("Heap dump segment "+segment+" not found");
+                }
+                fillHeapTagBounds();
+                rebuilt = true;
+            }
+        }
+        boolean idMapRebuilt = idToOffsetMap == null;
+        if (idMapRebuilt) {
+            // id map or a result computed from it is damaged, start again from the bounds
+            instancesCountComputed = false;
+            referencesComputed = false;
+            retainedSizeComputed = false;
+            retainedSizeByClassComputed = false;
+            index.deleteDataFiles(STATE_SECTION);
+            index.deleteDataFiles(GC_ROOTS_SECTION);
+            index.deleteDataFiles(DOMINATORS_SECTION);
+            idToOffsetMap = new LongMap(idMapSize,dumpBuffer.getIDSize(),dumpBuffer.getFoffsetSize(), cacheDirectory);
+            rebuilt = true;
+        }
+        try (DataInputStream dis = index.getSection(CLASSES_SECTION)) {
+            if (dis != null && !idMapRebuilt) {
+                getClassDumpSegment().readClassesFromStream(dis);
+            } else {
+                // classes will be created on demand
+                rebuilt = true;
+            }
+        }
+        try (DataInputStream dis = index.getSection(GC_ROOTS_SECTION)) {
+            if (dis != null && !idMapRebuilt) {
+                nearestGCRoot = new NearestGCRoot(this, dis);
+            } else {
+                // GC roots are stored in the id map, leaves and multiple parents
+                // are only needed to compute retained sizes
+                nearestGCRoot = new NearestGCRoot(this, retainedSizeComputed);
+                index.deleteDataFiles(GC_ROOTS_SECTION);
+                rebuilt = true;
+            }
+        }
+        try (DataInputStream dis = index.getSection(DOMINATORS_SECTION)) {
+            if (dis != null && !idMapRebuilt) {
+                domTree = new DominatorTree(this, dis);
+            } else if (index.isCorrupted(DOMINATORS_SECTION)) {
+                // dominator tree is not needed any more
+                index.deleteDataFiles(DOMINATORS_SECTION);
+                rebuilt = true;
+            }
         }
         gcRoots = new HprofGCRoots(this);
-        getClassDumpSegment().extractSpecialClasses();            
+        getClassDumpSegment().extractSpecialClasses();
+        if (rebuilt) {
+            cacheDirectory.setDirty(true);
+            writeToFile();
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a section or a data file with results
+     * computed from the id map is damaged and the results are still needed.
+     */
+    private boolean isNeededSectionDamaged(CacheIndexFile index) {
+        if (instancesCountComputed && !index.isValid(CLASSES_SECTION)) {
+            // classes hold instance counts
+            return true;
+        }
+        if (referencesComputed && !retainedSizeComputed && !index.isValid(GC_ROOTS_SECTION)) {
+            return true;
+        }
+        return retainedSizeComputed && !retainedSizeByClassComputed && index.isCorrupted(DOMINATORS_SECTION);
+    }
+
+    private static DataInputStream getRequiredSection(CacheIndexFile index, int section) throws IOException {
+        DataInputStream dis = index.getSection(section);
+
+        if (dis == null) {
+            throw new IOException("Missing or damaged section "+section);
+        }
+        return dis;
     }
     
     ClassDumpSegment getClassDumpSegment() {
@@ -525,6 +628,24 @@ class HprofHeap implements Heap {
 
         HeapProgress.progressStart();
         cacheDirectory.setDirty(true);
+        DumpChunks chunks = getInstanceDumpChunks();
+        if (chunks.isParallel()) {
+            computeInstancesParallel(chunks);
+        } else {
+            computeInstancesSerial();
+        }
+        try {
+            idToOffsetMap.assignOrdinals();
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+        }
+        instancesCountComputed = true;
+        writeToFile();
+        }
+        HeapProgress.progressFinish();
+    }
+
+    private void computeInstancesSerial() {
         ClassDumpSegment classDumpBounds = getClassDumpSegment();
         int idSize = dumpBuffer.getIDSize();
         long[] offset = new long[] { allInstanceDumpBounds.startOffset };
@@ -567,12 +688,111 @@ class HprofHeap implements Heap {
             }
             HeapProgress.progress(counter,allInstanceDumpBounds.startOffset,start,allInstanceDumpBounds.endOffset);
         }
-        instancesCountComputed = true;
-        writeToFile();
+    }
+
+    /**
+     * Parallel version of {@link #computeInstancesSerial()}. The first pass counts
+     * instances of each class in every chunk, so that instance numbers can be
+     * assigned in the same order as in serial pass. The second pass fills
+     * <code>idToOffsetMap</code> from all chunks at once.
+     */
+    private void computeInstancesParallel(DumpChunks chunks) {
+        final ClassDumpSegment classDumpBounds = getClassDumpSegment();
+        final Map<Long,JavaClass> classIdToClassMap = classDumpBounds.getClassIdToClassMap();
+
+        HeapProgress.progressStart();
+        List<Map<ClassDump,ChunkInstances>> counts = chunks.process((int chunk, long start, long end) -> {
+            Map<ClassDump,ChunkInstances> chunkCounts = new IdentityHashMap<>();
+            long[] offset = new long[] { start };
+
+            while (offset[0] < end) {
+                long instanceStart = offset[0];
+                int tag = readDumpTag(offset);
+                ClassDump classDump = getInstanceClassDump(tag, instanceStart, classIdToClassMap);
+
+                if (classDump != null) {
+                    ChunkInstances instances = chunkCounts.get(classDump);
+
+                    if (instances == null) {
+                        instances = new ChunkInstances(instanceStart, tag != INSTANCE_DUMP);
+                        chunkCounts.put(classDump, instances);
+                    }
+                    instances.count++;
+                    if (instances.arraySizes != null) {
+                        classDumpBounds.addArraySize(instances.arraySizes, instanceStart);
+                    }
+                }
+            }
+            return chunkCounts;
+        });
+        HeapProgress.progressFinish();
+
+        // merge in file order
+        for (Map<ClassDump,ChunkInstances> chunkCounts : counts) {
+            for (Map.Entry<ClassDump,ChunkInstances> entry : chunkCounts.entrySet()) {
+                ClassDump classDump = entry.getKey();
+                ChunkInstances instances = entry.getValue();
+
+                instances.index = classDump.registerInstances(instances.firstOffset, instances.count);
+                if (instances.arraySizes != null) {
+                    classDumpBounds.addArraySizes(classDump, instances.arraySizes);
+                }
+            }
         }
+
+        HeapProgress.progressStart();
+        chunks.process((int chunk, long start, long end) -> {
+            Map<ClassDump,ChunkInstances> chunkCounts = counts.get(chunk);
+            long[] offset = new long[] { start };
+
+            while (offset[0] < end) {
+                long instanceStart = offset[0];
+                int tag = readDumpTag(offset);
+
+                if (tag == INSTANCE_DUMP || tag == OBJECT_ARRAY_DUMP || tag == PRIMITIVE_ARRAY_DUMP) {
+                    long instanceId = dumpBuffer.getID(instanceStart + 1);
+                    LongMap.Entry instanceEntry = idToOffsetMap.putConcurrently(instanceId, instanceStart);
+                    ClassDump classDump = getInstanceClassDump(tag, instanceStart, classIdToClassMap);
+
+                    if (classDump != null) {
+                        instanceEntry.setIndex(++chunkCounts.get(classDump).index);
+                    }
+                }
+            }
+            return null;
+        });
         HeapProgress.progressFinish();
     }
 
+    private ClassDump getInstanceClassDump(int tag, long start, Map<Long,JavaClass> classIdToClassMap) {
+        int idSize = dumpBuffer.getIDSize();
+
+        if (tag == INSTANCE_DUMP) {
+            long classId = dumpBuffer.getID(start + 1 + idSize + 4);
+            return (ClassDump) classIdToClassMap.get(Long.valueOf(classId));
+        } else if (tag == OBJECT_ARRAY_DUMP) {
+            long classId = dumpBuffer.getID(start + 1 + idSize + 4 + 4);
+            return (ClassDump) classIdToClassMap.get(Long.valueOf(classId));
+        } else if (tag == PRIMITIVE_ARRAY_DUMP) {
+            byte type = dumpBuffer.get(start + 1 + idSize + 4 + 4);
+            return getClassDumpSegment().getPrimitiveArrayClass(type);
+        }
+        return null;
+    }
+
+    DumpChunks getInstanceDumpChunks() {
+        if (instanceDumpChunks == null) {
+            if (!dumpBuffer.supportsConcurrentAccess()) {
+                // random access from several threads would trash the buffer
+                instanceDumpChunks = DumpChunks.create(allInstanceDumpBounds, new DumpChunks.Collector(allInstanceDumpBounds.endOffset));
+            } else {
+                // heap was loaded from cache
+                instanceDumpChunks = DumpChunks.compute(this, allInstanceDumpBounds);
+            }
+        }
+        return instanceDumpChunks;
+    }
+
     List<Value> findReferencesFor(long instanceId) {
         assert instanceId != 0L : "InstanceID is null";
         computeReferences();
@@ -639,13 +859,42 @@ class HprofHeap implements Heap {
         }
 
         HeapProgress.progressStart();
+        computeInstances();
+        cacheDirectory.setDirty(true);
+        DumpChunks chunks = getInstanceDumpChunks();
+        if (!chunks.isParallel() || !computeReferencesParallel(chunks)) {
+            computeReferencesSerial();
+        }
+
+        for (JavaClass cls : getClassDumpSegment().createClassCollection()) {
+            for (FieldValue field : cls.getStaticFieldValues()) {
+                if (field instanceof HprofFieldObjectValue) {
+                    long outId = ((HprofFieldObjectValue)field).getInstanceID();
+
+                    if (outId != 0) {
+                        LongMap.Entry entry = idToOffsetMap.get(outId);
+                        if (entry == null) {
+                            //    System.err.println("instance entry:" + Long.toHexString(outId));
+                            continue;
+                        }
+                        entry.addReference(cls.getJavaClassId());
+                    }
+                }
+            }
+        }
+        idToOffsetMap.flush();
+        referencesComputed = true;
+        writeToFile();
+        }
+        HeapProgress.progressFinish();        
+    }
+    
+    private void computeReferencesSerial() {
         ClassDumpSegment classDumpBounds = getClassDumpSegment();
         int idSize = dumpBuffer.getIDSize();
         long[] offset = new long[] { allInstanceDumpBounds.startOffset };
         Map<Long,JavaClass> classIdToClassMap = classDumpBounds.getClassIdToClassMap();
 
-        computeInstances();
-        cacheDirectory.setDirty(true);
         for (long counter=0; offset[0] < allInstanceDumpBounds.endOffset; counter++) {
             long start = offset[0];
             int tag = readDumpTag(offset);
@@ -693,30 +942,127 @@ class HprofHeap implements Heap {
             }
             HeapProgress.progress(counter,allInstanceDumpBounds.startOffset,start,allInstanceDumpBounds.endOffset);
         }
-        
-        for (JavaClass cls : getClassDumpSegment().createClassCollection()) {
-            for (FieldValue field : cls.getStaticFieldValues()) {
-                if (field instanceof HprofFieldObjectValue) {
-                    long outId = ((HprofFieldObjectValue)field).getInstanceID();
+    }
 
-                    if (outId != 0) {
-                        LongMap.Entry entry = idToOffsetMap.get(outId);
-                        if (entry == null) {
-                            //    System.err.println("instance entry:" + Long.toHexString(outId));
-                            continue;
+    /**
+     * Parallel version of {@link #computeReferencesSerial()}. References are
+     * collected from all chunks at once into sorted runs, merging the runs then
+     * adds references target by target in the same order as the serial pass,
+     * so that the reference lists are written without random access.
+     *
+     * @return <code>false</code> if the references were not added and serial
+     * pass should be used instead
+     */
+    private boolean computeReferencesParallel(DumpChunks chunks) {
+        final ClassDumpSegment classDumpBounds = getClassDumpSegment();
+        final Map<Long,JavaClass> classIdToClassMap = classDumpBounds.getClassIdToClassMap();
+        final int idSize = dumpBuffer.getIDSize();
+        ReferenceRuns runs = new ReferenceRuns(cacheDirectory, chunks, idSize);
+
+        try {
+            HeapProgress.progressStart();
+            chunks.process((int chunk, long start, long end) -> {
+                ReferenceRuns.Writer writer = runs.createWriter(chunk);
+                // field lookup is synchronized, cache object field offsets per chunk
+                Map<ClassDump,int[]> objectFieldOffsets = new IdentityHashMap<>();
+                long[] offset = new long[] { start };
+
+                try {
+                    while (offset[0] < end) {
+                        long instanceStart = offset[0];
+                        int tag = readDumpTag(offset);
+
+                        if (tag == INSTANCE_DUMP) {
+                            long classId = dumpBuffer.getID(instanceStart+1+idSize+4);
+                            ClassDump classDump = (ClassDump) classIdToClassMap.get(Long.valueOf(classId));
+                            if (classDump != null) {
+                                long instanceId = dumpBuffer.getID(instanceStart+1);
+                                long inOff = instanceStart+1+idSize+4+idSize+4;
+                                int[] fieldOffsets = objectFieldOffsets.get(classDump);
+
+                                if (fieldOffsets == null) {
+                                    fieldOffsets = getObjectFieldOffsets(classDump);
+                                    objectFieldOffsets.put(classDump, fieldOffsets);
+                                }
+                                for (int fieldOffset : fieldOffsets) {
+                                    long outId = dumpBuffer.getID(inOff+fieldOffset);
+
+                                    if (outId != 0) {
+                                        writer.add(outId, instanceId);
+                                    }
+                                }
+                            }
+                        } else if (tag == OBJECT_ARRAY_DUMP) {
+                            long instanceId = dumpBuffer.getID(instanceStart+1);
+                            int elements = dumpBuffer.getInt(instanceStart+1+idSize+4);
+                            long position = instanceStart+1+idSize+4+4+idSize;
+
+                            for(int i=0;i<elements;i++,position+=idSize) {
+                                long outId = dumpBuffer.getID(position);
+
+                                if (outId != 0) {
+                                    writer.add(outId, instanceId);
+                                }
+                            }
                         }
-                        entry.addReference(cls.getJavaClassId());
                     }
+                    writer.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
                 }
-            }
+                return null;
+            });
+            HeapProgress.progressFinish();
+        } catch (UncheckedIOException ex) {
+            HeapProgress.progressFinish();
+            ex.printStackTrace(System.err);
+            runs.delete();
+            return false;
         }
-        idToOffsetMap.flush();
-        referencesComputed = true;
-        writeToFile();
+        HeapProgress.progressStart();
+        try {
+            runs.merge(new ReferenceRuns.Visitor() {
+                // pairs come ordered by target, look up each target once
+                private long lastTarget;
+                private LongMap.Entry entry;
+
+                public void visit(long target, long source) {
+                    if (target != lastTarget) {
+                        lastTarget = target;
+                        entry = idToOffsetMap.get(target);
+                    }
+                    if (entry != null) {
+                        entry.addReference(source);
+                    }
+                }
+            });
+        } catch (IOException ex) {
+            ex.printStackTrace(System.err);
+            // drop partially merged references, serial pass adds them again
+            idToOffsetMap.resetReferences();
+            return false;
+        } finally {
+            HeapProgress.progressFinish();
         }
-        HeapProgress.progressFinish();        
+        return true;
     }
-    
+
+    private static int[] getObjectFieldOffsets(ClassDump classDump) {
+        List<Field> fields = classDump.getAllInstanceFields();
+        int[] offsets = new int[fields.size()];
+        int objectFields = 0;
+        int fieldOffset = 0;
+
+        for (Field f : fields) {
+            HprofField field = (HprofField)f;
+            if (field.getValueType() == HprofHeap.OBJECT) {
+                offsets[objectFields++] = fieldOffset;
+            }
+            fieldOffset += field.getValueSize();
+        }
+        return Arrays.copyOf(offsets, objectFields);
+    }
+
     void computeRetainedSize() {
         synchronized (retainedSizeLock) {
         if (retainedSizeComputed) {
@@ -746,7 +1092,7 @@ class HprofHeap implements Heap {
             }
             long instanceId = dumpBuffer.getID(start + instanceIdOffset);
             LongMap.Entry instanceEntry = idToOffsetMap.get(instanceId);
-            long idom = domTree.getIdomId(instanceId,instanceEntry);
+            LongMap.Entry idomEntry = domTree.getIdomEntry(instanceEntry);
             boolean isTreeObj = instanceEntry.isTreeObj();
             long instSize = 0;
             
@@ -757,9 +1103,8 @@ class HprofHeap implements Heap {
                 instSize = instance != null ? instance.getSize() : getClassDumpSegment().sizeSettings.getMinimumInstanceSize();
                 instanceEntry.setRetainedSize(origSize + instSize);
             }
-            if (idom != 0) {
+            if (idomEntry != null) {
                 long size;
-                LongMap.Entry entry;
                 
                 if (isTreeObj) {
                     size = instanceEntry.getRetainedSize();
@@ -767,8 +1112,7 @@ class HprofHeap implements Heap {
                     assert instSize != 0;
                     size = instSize;
                 }
-                for (;idom!=0;idom=domTree.getIdomId(idom,entry)) {
-                    entry = idToOffsetMap.get(idom);
+                for (LongMap.Entry entry=idomEntry;entry!=null;entry=domTree.getIdomEntry(entry)) {
                     if (entry.isTreeObj()) {
                         break;
                     }
@@ -811,6 +1155,7 @@ class HprofHeap implements Heap {
             HeapProgress.progress(counter,allInstanceDumpBounds.startOffset,start,allInstanceDumpBounds.endOffset);
         }
         // all done, release domTree
+        domTree.delete();
         domTree = null;
         retainedSizeByClassComputed = true;
         writeToFile();
@@ -1303,7 +1648,8 @@ class HprofHeap implements Heap {
         heapTagBounds = new TagBounds[0x100];
 
         long[] offset = new long[] { heapDumpSegment.startOffset + 1 + 4 + 4 };
-        
+        DumpChunks.Collector instanceDumpOffsets = new DumpChunks.Collector(offset[0]);
+
         for (long counter=0; offset[0] < heapDumpSegment.endOffset; counter++) {
             long start = offset[0];
             int tag = readDumpTag(offset);
@@ -1327,6 +1673,7 @@ class HprofHeap implements Heap {
             if ((tag == CLASS_DUMP) || (tag == INSTANCE_DUMP) || (tag == OBJECT_ARRAY_DUMP) || (tag == PRIMITIVE_ARRAY_DUMP)) {
                 idMapSize++;
             }
+            instanceDumpOffsets.add(start);
             HeapProgress.progress(counter,heapDumpSegment.startOffset,start,heapDumpSegment.endOffset);
         }
 
@@ -1338,6 +1685,9 @@ class HprofHeap implements Heap {
         }
         allInstanceDumpBounds = instanceDumpBounds.union(objArrayDumpBounds);
         allInstanceDumpBounds = allInstanceDumpBounds.union(primArrayDumpBounds);
+        if (dumpBuffer.supportsConcurrentAccess()) {
+            instanceDumpChunks = DumpChunks.create(allInstanceDumpBounds, instanceDumpOffsets);
+        }
         HeapProgress.progressFinish();
     }
 
@@ -1436,4 +1786,16 @@ class HprofHeap implements Heap {
 
         return type;
     }
+
+    private static class ChunkInstances {
+        private final long firstOffset;
+        private final long[] arraySizes;
+        private int count;
+        private int index;
+
+        private ChunkInstances(long offset, boolean isArray) {
+            firstOffset = offset;
+            arraySizes = isArray ? new long[ObjectSizeSettings.OBJECT_ALIGNMENT+1] : null;
+        }
+    }
 }
@@ -190,6 +190,14 @@ class LongBuffer {
     }
     
     // serialization support
+    /**
+     * Returns the file with data of the buffer or <code>null</code>, if all
+     * data are kept in memory.
+     */
+    File getBackingFile() {
+        return useBackingFile ? backingFile : null;
+    }
+
     void writeToStream(DataOutputStream out) throws IOException {
         out.writeInt(bufferSize);
         out.writeInt(readOffset);
@@ -27,14 +27,16 @@ package org.graalvm.visualvm.lib.jfluid.heap;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 /**
  * key - ID (long/int) of heap object
- * value (8/4) + 4 + 1 + (8/4)
+ * value (8/4) + 4 + 1 + (8/4) + (8/4) + 4
  *  - offset (long/int) to dump file
  *  - instance index (int) - unique number of this {@link Instance} among all instances of the same Java Class
  *  - references flags (byte) - bit 0 set - has zero or one reference,
@@ -42,12 +44,15 @@ import java.util.TreeSet;
  *                            - bit 2 set - tree object
  *  - ID/offset (long/int) - ID if reference flag bit 0 is set, otherwise offset to reference list file
  *  - retained size (long/int)
+ *  - ordinal (int) - dense number of this entry among all entries, see {@link #assignOrdinals()}
  *
  * @author Tomas Hurka
  */
 class LongMap extends AbstractLongMap {
 
     private NumberList referenceList;
+    private AbstractLongMap.Data ordinalSlots;
+    private int ordinalsCount;
 
     //~ Inner Classes ------------------------------------------------------------------------------------------------------------
 
@@ -91,6 +96,11 @@ class LongMap extends AbstractLongMap {
             return (getFlags() & TREE_OBJ) != 0;
         }
 
+        void resetReferences() {
+            setFlags((byte)(getFlags() & ~NUMBER_LIST));
+            setReferencesPointer(0L);
+        }
+
         boolean hasOnlyOneReference() {
             return (getFlags() & NUMBER_LIST) == 0;
         }
@@ -184,6 +194,18 @@ class LongMap extends AbstractLongMap {
             return dumpBuffer.getLong(offset + KEY_SIZE + FOFFSET_SIZE + 4 + 1 + ID_SIZE);            
         }
 
+        long getInstanceId() {
+            return getID(offset);
+        }
+
+        int getOrdinal() {
+            return dumpBuffer.getInt(offset + KEY_SIZE + FOFFSET_SIZE + 4 + 1 + ID_SIZE + FOFFSET_SIZE);
+        }
+
+        private void setOrdinal(int ordinal) {
+            dumpBuffer.putInt(offset + KEY_SIZE + FOFFSET_SIZE + 4 + 1 + ID_SIZE + FOFFSET_SIZE, ordinal);
+        }
+
         private void setReferencesPointer(long instanceId) {
             putID(offset + KEY_SIZE + FOFFSET_SIZE + 4 + 1, instanceId);
         }
@@ -243,7 +265,7 @@ class LongMap extends AbstractLongMap {
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
     LongMap(int size,int idSize,int foffsetSize,CacheDirectory cacheDir) throws FileNotFoundException, IOException {
-        super(size,idSize,foffsetSize,foffsetSize + 4 + 1 + idSize + foffsetSize, cacheDir);
+        super(size,idSize,foffsetSize,foffsetSize + 4 + 1 + idSize + foffsetSize + 4, cacheDir);
         referenceList = cacheDir.createNumberList(ID_SIZE);
     }
 
@@ -265,10 +287,22 @@ class LongMap extends AbstractLongMap {
         return (Entry)super.put(key,value);
     }
 
+    Entry putConcurrently(long key, long value) {
+        return (Entry)super.putConcurrently(key,value);
+    }
+
     void flush() {
         referenceList.flush();
     }
 
+    void resetReferences() {
+        for (long index=0;index<fileSize;index+=ENTRY_SIZE) {
+            if (getID(index) != 0) {
+                createEntry(index).resetReferences();
+            }
+        }
+    }
+
     long[] getBiggestObjectsByRetainedSize(int number) {
         SortedSet<RetainedSizeEntry> bigObjects = new TreeSet<>();
         long[] bigIds = new long[number];
@@ -294,14 +328,76 @@ class LongMap extends AbstractLongMap {
         return bigIds;
     }
 
+    protected void finalize() throws Throwable {
+        if (ordinalSlots != null && cacheDirectory.isTemporary()) {
+            ordinalSlots.deleteFile();
+        }
+        super.finalize();
+    }
+
+    /**
+     * Numbers all entries 0..N-1 in slot order, so that per-instance data
+     * can be kept in plain int-indexed arrays. Must be called after
+     * the last entry was added.
+     */
+    void assignOrdinals() throws IOException {
+        int count = 0;
+        for (long index=0;index<fileSize;index+=ENTRY_SIZE) {
+            if (getID(index) != 0) {
+                count++;
+            }
+        }
+        AbstractLongMap.Data slots = cacheDirectory.createDumpBuffer(Math.max(count,1)*4L, 4);
+        int ordinal = 0;
+        for (long index=0;index<fileSize;index+=ENTRY_SIZE) {
+            if (getID(index) != 0) {
+                slots.putInt(ordinal*4L, (int)(index/ENTRY_SIZE));
+                createEntry(index).setOrdinal(ordinal++);
+            }
+        }
+        ordinalsCount = count;
+        ordinalSlots = slots;
+    }
+
+    boolean hasOrdinals() {
+        return ordinalSlots != null;
+    }
+
+    int getOrdinalsCount() {
+        return ordinalsCount;
+    }
+
+    Entry getByOrdinal(int ordinal) {
+        long slot = ordinalSlots.getInt(ordinal*4L) & 0xFFFFFFFFL;
+        return createEntry(slot*ENTRY_SIZE);
+    }
+
     //---- Serialization support    
     void writeToStream(DataOutputStream out) throws IOException {
         super.writeToStream(out);
         referenceList.writeToStream(out);
+        out.writeBoolean(ordinalSlots != null);
+        if (ordinalSlots != null) {
+            out.writeInt(ordinalsCount);
+            ordinalSlots.writeToStream(out);
+        }
     }
     
+    List<File> getDataFiles() {
+        List<File> files = super.getDataFiles();
+        files.add(referenceList.getFile());
+        if (ordinalSlots != null) {
+            files.add(ordinalSlots.getFile());
+        }
+        return files;
+    }
+
     LongMap(DataInputStream dis, CacheDirectory cacheDir) throws IOException {
         super(dis, cacheDir);
         referenceList = new NumberList(dis, cacheDir);
+        if (dis.readBoolean()) {
+            ordinalsCount = dis.readInt();
+            ordinalSlots = AbstractLongMap.Data.readFromStream(dis, cacheDir, 4);
+        }
     }
 }
@@ -27,7 +27,9 @@ package org.graalvm.visualvm.lib.jfluid.heap;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -383,17 +385,45 @@ class NearestGCRoot {
     void writeToStream(DataOutputStream out) throws IOException {
         out.writeBoolean(gcRootsComputed);
         if (gcRootsComputed) {
-            leaves.writeToStream(out);
-            multipleParents.writeToStream(out);
+            out.writeBoolean(leaves != null);
+            if (leaves != null) {
+                leaves.writeToStream(out);
+                multipleParents.writeToStream(out);
+            }
+        }
+    }
+
+    List<File> getDataFiles() {
+        List<File> files = new ArrayList<>();
+
+        if (leaves != null) {
+            addDataFile(files, leaves.getBackingFile());
+            addDataFile(files, multipleParents.getBackingFile());
+        }
+        return files;
+    }
+
+    private static void addDataFile(List<File> files, File file) {
+        if (file != null) {
+            files.add(file);
         }
     }
 
     NearestGCRoot(HprofHeap h, DataInputStream dis) throws IOException {
         this(h);
         gcRootsComputed = dis.readBoolean();
-        if (gcRootsComputed) {
+        if (gcRootsComputed && dis.readBoolean()) {
             leaves = new LongBuffer(dis, heap.cacheDirectory);
             multipleParents = new LongBuffer(dis, heap.cacheDirectory);
         }
     }
+
+    /**
+     * Creates GC roots, which were already computed, but their leaves and
+     * multiple parents were lost. Those are only needed to compute retained sizes.
+     */
+    NearestGCRoot(HprofHeap h, boolean computed) {
+        this(h);
+        gcRootsComputed = computed;
+    }
 }
@@ -335,6 +335,10 @@ class NumberList {
         dirtyBlocks.clear();
     }
 
+    File getFile() {
+        return dataFile;
+    }
+
     //---- Serialization support
     void writeToStream(DataOutputStream out) throws IOException {
         out.writeUTF(dataFile.getAbsolutePath());
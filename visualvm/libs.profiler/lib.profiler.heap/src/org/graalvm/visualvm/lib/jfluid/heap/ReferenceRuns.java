@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.heap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects (target, source) reference pairs from several threads. Each writer
+ * sorts its pairs by target and spills them into run files, the runs are then
+ * merged, so that references of one target are visited together and in the
+ * same order as they were added.
+ *
+ * @author agent
+ */
+class ReferenceRuns {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int MIN_RUN_SIZE = 256 * 1024;
+    private static final int MIN_MERGED_RUNS = 64;
+    private static final int MAX_MERGED_RUNS = 512;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // target and source ids plus two sort indexes
+    private static final int PAIR_MEMORY = 24;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private final CacheDirectory cacheDirectory;
+    private final Writer[] writers;
+    private final int runSize;
+    private final int mergeWidth;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    ReferenceRuns(CacheDirectory cacheDir, DumpChunks chunks, int idSize) {
+        long maxChunkSize = 0;
+
+        for (int i = 0; i < chunks.getChunksCount(); i++) {
+            maxChunkSize = Math.max(maxChunkSize, chunks.getEnd(i) - chunks.getStart(i));
+        }
+        cacheDirectory = cacheDir;
+        writers = new Writer[chunks.getChunksCount()];
+        runSize = getRunSize(maxChunkSize / idSize, Runtime.getRuntime().maxMemory(), DumpChunks.THREADS);
+        mergeWidth = getMergeWidth(Runtime.getRuntime().maxMemory());
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A chunk cannot contain more references than object ids, so a run holds
+     * the whole chunk if the memory allows it and the runs are merged in one pass
+     * for most of the dumps. Quarter of the memory is shared by scanner threads.
+     */
+    static int getRunSize(long maxChunkPairs, long maxMemory, int threads) {
+        long memoryPairs = maxMemory / 4 / PAIR_MEMORY / Math.max(1, threads);
+
+        return (int) Math.max(MIN_RUN_SIZE, Math.min(Math.min(maxChunkPairs, memoryPairs), Integer.MAX_VALUE / 2));
+    }
+
+    /**
+     * Number of runs merged at once, limited by the memory used by read buffers.
+     */
+    static int getMergeWidth(long maxMemory) {
+        long buffers = maxMemory / 16 / BUFFER_SIZE;
+
+        return (int) Math.max(MIN_MERGED_RUNS, Math.min(buffers, MAX_MERGED_RUNS));
+    }
+
+    Writer createWriter(int chunk) {
+        Writer writer = new Writer();
+        writers[chunk] = writer;
+        return writer;
+    }
+
+    private long getPairsCount() {
+        long pairs = 0;
+
+        for (Writer writer : writers) {
+            for (File run : writer.chunkRuns) {
+                pairs += run.length() / 16;
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Visits all pairs ordered by target. Pairs with the same target are visited
+     * in the order of chunks and in the order they were added within the chunk.
+     * Run files are deleted afterwards.
+     */
+    void merge(Visitor visitor) throws IOException {
+        List<File> allRuns = new ArrayList<>();
+        long total = getPairsCount();
+
+        for (Writer writer : writers) {
+            allRuns.addAll(writer.chunkRuns);
+        }
+        try {
+            // merge neighbouring runs first, so that the number of open files is bounded
+            while (allRuns.size() > mergeWidth) {
+                List<File> mergedRuns = new ArrayList<>();
+
+                for (int i = 0; i < allRuns.size(); i += mergeWidth) {
+                    List<File> group = allRuns.subList(i, Math.min(i + mergeWidth, allRuns.size()));
+                    File run = cacheDirectory.createTempFile("NBProfiler", ".run"); // NOI18N
+
+                    mergedRuns.add(run);
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE))) {
+                        merge(group, (long target, long source) -> {
+                            out.writeLong(target);
+                            out.writeLong(source);
+                        }, 0);
+                    }
+                    delete(group);
+                }
+                allRuns = mergedRuns;
+            }
+            merge(allRuns, visitor, total);
+        } finally {
+            delete(allRuns);
+            delete();
+        }
+    }
+
+    private static void merge(List<File> group, Visitor visitor, long total) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>();
+        int order = 0;
+
+        try {
+            for (File run : group) {
+                RunReader reader = new RunReader(run, order++);
+                if (reader.next()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            for (long counter = 0; !queue.isEmpty(); counter++) {
+                RunReader reader = queue.poll();
+
+                visitor.visit(reader.target, reader.source);
+                if (reader.next()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+                if (total > 0) {
+                    HeapProgress.progress(counter, 0, counter, total);
+                }
+            }
+        } finally {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+        }
+    }
+
+    private static void delete(List<File> files) {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    void delete() {
+        for (Writer writer : writers) {
+            if (writer != null) {
+                delete(writer.chunkRuns);
+            }
+        }
+    }
+
+    /**
+     * Stable sort of <code>order</code> indexes by <code>targets</code>.
+     */
+    private static void sort(int[] order, int[] aux, long[] targets, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+
+        sort(order, aux, targets, from, mid);
+        sort(order, aux, targets, mid, to);
+        if (targets[order[mid - 1]] <= targets[order[mid]]) {
+            return;
+        }
+        System.arraycopy(order, from, aux, from, to - from);
+        for (int i = from, l = from, r = mid; i < to; i++) {
+            if (r >= to || (l < mid && targets[aux[l]] <= targets[aux[r]])) {
+                order[i] = aux[l++];
+            } else {
+                order[i] = aux[r++];
+            }
+        }
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------------------------------------
+
+    interface Visitor {
+
+        void visit(long target, long source) throws IOException;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    class Writer {
+
+        private final List<File> chunkRuns = new ArrayList<>();
+        private long[] targets = new long[1024];
+        private long[] sources = new long[1024];
+        private int size;
+
+        private Writer() {
+        }
+
+        void add(long target, long source) throws IOException {
+            if (size == targets.length) {
+                if (size >= runSize) {
+                    writeRun();
+                } else {
+                    targets = Arrays.copyOf(targets, Math.min(size * 2, runSize));
+                    sources = Arrays.copyOf(sources, Math.min(size * 2, runSize));
+                }
+            }
+            targets[size] = target;
+            sources[size] = source;
+            size++;
+        }
+
+        void close() throws IOException {
+            if (size > 0) {
+                writeRun();
+            }
+        }
+
+        private void writeRun() throws IOException {
+            File run = cacheDirectory.createTempFile("NBProfiler", ".run"); // NOI18N
+            int[] order = new int[size];
+            int[] aux = new int[size];
+
+            chunkRuns.add(run);
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            sort(order, aux, targets, 0, size);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE))) {
+                for (int i = 0; i < size; i++) {
+                    out.writeLong(targets[order[i]]);
+                    out.writeLong(sources[order[i]]);
+                }
+            }
+            size = 0;
+        }
+    }
+
+    private static class RunReader implements Comparable<RunReader> {
+
+        private final DataInputStream in;
+        private final int order;
+        private long target;
+        private long source;
+
+        private RunReader(File run, int o) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), BUFFER_SIZE));
+            order = o;
+        }
+
+        private boolean next() throws IOException {
+            try {
+                target = in.readLong();
+                source = in.readLong();
+                return true;
+            } catch (EOFException ex) {
+                return false;
+            }
+        }
+
+        private void close() throws IOException {
+            in.close();
+        }
+
+        public int compareTo(RunReader other) {
+            int diff = Long.compare(target, other.target);
+
+            if (diff == 0) {
+                return Integer.compare(order, other.order);
+            }
+            return diff;
+        }
+    }
+}
@@ -107,7 +107,7 @@ class TagBounds {
             } else if (tag == STACK_FRAME) {
                 newBounds = new StackFrameSegment(heap, startOffset, endOffset);
             } else if (tag == CLASS_DUMP) {
-                newBounds = new ClassDumpSegment(heap, startOffset, endOffset, dis);
+                newBounds = new ClassDumpSegment(heap, startOffset, endOffset);
             } else {
                 newBounds = new TagBounds(tag, startOffset, endOffset);
             }
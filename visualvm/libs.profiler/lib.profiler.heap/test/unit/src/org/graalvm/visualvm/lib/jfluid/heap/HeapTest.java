@@ -32,21 +32,25 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.RandomAccessFile;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -254,6 +258,298 @@ public class HeapTest {
         }
     }
     
+    /**
+     * Test of parallel computeInstances, results must match the serial pass.
+     */
+    @Test
+    public void testParallelComputeInstances() throws IOException, URISyntaxException {
+        System.out.println("parallelComputeInstances");
+        Heap serialHeap = createHeap(1, DumpChunks.CHUNK_SIZE);
+        Heap parallelHeap = createHeap(4, 4096);
+
+        assertTrue(((HprofHeap)parallelHeap).getInstanceDumpChunks().isParallel());
+        for (JavaClass jc : serialHeap.getAllClasses()) {
+            JavaClass pjc = parallelHeap.getJavaClassByID(jc.getJavaClassId());
+
+            assertEquals(jc.getInstancesCount(), pjc.getInstancesCount());
+            assertEquals(jc.getAllInstancesSize(), pjc.getAllInstancesSize());
+            Iterator<Instance> pit = pjc.getInstancesIterator();
+            for (Instance i : jc.getInstances()) {
+                Instance pi = pit.next();
+                assertEquals(i.getInstanceId(), pi.getInstanceId());
+                assertEquals(i.getInstanceNumber(), pi.getInstanceNumber());
+                assertEquals(i.getInstanceNumber(), parallelHeap.getInstanceByID(i.getInstanceId()).getInstanceNumber());
+            }
+        }
+    }
+
+    /**
+     * Test of parallel computeReferences, references must be in the same order
+     * as from the serial pass.
+     */
+    @Test
+    public void testParallelComputeReferences() throws IOException, URISyntaxException {
+        System.out.println("parallelComputeReferences");
+        Heap serialHeap = createHeap(1, DumpChunks.CHUNK_SIZE);
+        Heap parallelHeap = createHeap(4, 256);
+        Iterator<Instance> pit = parallelHeap.getAllInstancesIterator();
+
+        for (Iterator<Instance> it = serialHeap.getAllInstancesIterator(); it.hasNext(); ) {
+            List<Value> refs = it.next().getReferences();
+            List<Value> prefs = pit.next().getReferences();
+
+            assertEquals(refs.size(), prefs.size());
+            for (int i = 0; i < refs.size(); i++) {
+                assertEquals(refs.get(i).getDefiningInstance().getInstanceId(), prefs.get(i).getDefiningInstance().getInstanceId());
+            }
+        }
+    }
+
+    /**
+     * Test of dominator tree computed by several threads.
+     */
+    @Test
+    public void testParallelRetainedSize() throws IOException, URISyntaxException {
+        System.out.println("parallelRetainedSize");
+        Heap serialHeap = createHeap(1, DumpChunks.CHUNK_SIZE);
+        Heap parallelHeap = createHeap(4, 256);
+        int defaultThreads = DumpChunks.THREADS;
+
+        try {
+            DumpChunks.THREADS = 4;
+            parallelHeap.getBiggestObjectsByRetainedSize(1);
+        } finally {
+            DumpChunks.THREADS = defaultThreads;
+        }
+        Iterator<Instance> pit = parallelHeap.getAllInstancesIterator();
+
+        for (Iterator<Instance> it = serialHeap.getAllInstancesIterator(); it.hasNext(); ) {
+            assertEquals(it.next().getRetainedSize(), pit.next().getRetainedSize());
+        }
+        for (JavaClass jc : serialHeap.getAllClasses()) {
+            assertEquals(jc.getRetainedSizeByClass(), parallelHeap.getJavaClassByID(jc.getJavaClassId()).getRetainedSizeByClass());
+        }
+    }
+
+    /**
+     * Test of gzip compressed heap dump written as a sequence of gzip members.
+     */
+    @Test
+    public void testGZipHeapDump() throws IOException, URISyntaxException {
+        System.out.println("gzipHeapDump");
+        File dumpFile = new File(getClass().getResource("small_heap.bin").toURI());
+        File gzipFile = File.createTempFile("small_heap", ".hprof.gz");
+        byte[] data = new byte[64*1024];
+
+        try (InputStream is = new FileInputStream(dumpFile); OutputStream os = new FileOutputStream(gzipFile)) {
+            for (int n = is.read(data); n != -1; n = is.read(data)) {
+                GZIPOutputStream gos = new GZIPOutputStream(os) {
+                    public void close() throws IOException {
+                        finish();
+                    }
+                };
+                gos.write(data, 0, n);
+                gos.close();
+            }
+        }
+        try {
+            Heap gzipHeap = new HprofHeap(gzipFile, 0, new CacheDirectory(null));
+            HeapSummary summary = heap.getSummary();
+            HeapSummary gzipSummary = gzipHeap.getSummary();
+
+            assertEquals(heap.getAllClasses().size(), gzipHeap.getAllClasses().size());
+            assertEquals(summary.getTotalLiveInstances(), gzipSummary.getTotalLiveInstances());
+            assertEquals(summary.getTotalLiveBytes(), gzipSummary.getTotalLiveBytes());
+            assertEquals(heap.getBiggestObjectsByRetainedSize(1).get(0).getRetainedSize(), gzipHeap.getBiggestObjectsByRetainedSize(1).get(0).getRetainedSize());
+        } finally {
+            gzipFile.delete();
+        }
+    }
+
+    /**
+     * Test of instance ordinals and retained sizes of heap loaded from the cache directory.
+     */
+    @Test
+    public void testOrdinalsFromCache() throws IOException, URISyntaxException {
+        System.out.println("ordinalsFromCache");
+        File copy = copyHeapDump();
+        File dir = copy.getParentFile();
+
+        try {
+            HprofHeap computedHeap = (HprofHeap) HeapFactory.createHeap(copy);
+            List<Instance> biggest = computedHeap.getBiggestObjectsByRetainedSize(10);
+            Map<Long,Long> retainedSizes = new HashMap();
+            Map<Long,Integer> ordinals = new HashMap();
+
+            for (Iterator<Instance> it = computedHeap.getAllInstancesIterator(); it.hasNext(); ) {
+                Instance i = it.next();
+                retainedSizes.put(i.getInstanceId(), i.getRetainedSize());
+                ordinals.put(i.getInstanceId(), computedHeap.idToOffsetMap.get(i.getInstanceId()).getOrdinal());
+            }
+            assertTrue(CacheDirectory.getHeapDumpCacheDirectory(copy, 0).getHeapDumpAuxFile().isFile());
+
+            HprofHeap loadedHeap = (HprofHeap) HeapFactory.createHeap(copy);
+            LongMap idToOffsetMap = loadedHeap.idToOffsetMap;
+
+            assertTrue(loadedHeap.isRetainedSizeComputed());
+            assertTrue(idToOffsetMap.hasOrdinals());
+            // classes are numbered too
+            assertTrue(idToOffsetMap.getOrdinalsCount() >= ordinals.size());
+            for (Iterator<Instance> it = loadedHeap.getAllInstancesIterator(); it.hasNext(); ) {
+                Instance i = it.next();
+                int ordinal = idToOffsetMap.get(i.getInstanceId()).getOrdinal();
+
+                assertEquals(ordinals.get(i.getInstanceId()).intValue(), ordinal);
+                assertEquals(i.getInstanceId(), idToOffsetMap.getByOrdinal(ordinal).getInstanceId());
+                assertEquals(retainedSizes.get(i.getInstanceId()).longValue(), i.getRetainedSize());
+            }
+            List<Instance> loadedBiggest = loadedHeap.getBiggestObjectsByRetainedSize(10);
+            for (int i = 0; i < biggest.size(); i++) {
+                assertEquals(biggest.get(i).getInstanceId(), loadedBiggest.get(i).getInstanceId());
+            }
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    /**
+     * Test of heap loaded from the cache directory with a damaged data file.
+     */
+    @Test
+    public void testDamagedDataFileFromCache() throws IOException, URISyntaxException {
+        System.out.println("damagedDataFileFromCache");
+        File copy = copyHeapDump();
+        File dir = copy.getParentFile();
+
+        try {
+            HprofHeap computedHeap = (HprofHeap) HeapFactory.createHeap(copy);
+            List<Instance> biggest = computedHeap.getBiggestObjectsByRetainedSize(10);
+            List<Long> retainedSizes = new ArrayList();
+            File refFile = computedHeap.idToOffsetMap.getDataFiles().get(1);
+
+            for (Instance i : biggest) {
+                retainedSizes.add(i.getRetainedSize());
+            }
+            assertTrue(refFile.getName().endsWith(".ref"));
+            try (RandomAccessFile raf = new RandomAccessFile(refFile, "rw")) {
+                long offset = raf.length() / 2;
+                raf.seek(offset);
+                int b = raf.read();
+                raf.seek(offset);
+                raf.write(b ^ 0xff);
+            }
+
+            HprofHeap loadedHeap = (HprofHeap) HeapFactory.createHeap(copy);
+
+            // references and everything computed from them are computed again
+            assertFalse(loadedHeap.isRetainedSizeComputed());
+            assertFalse(refFile.exists());
+            List<Instance> loadedBiggest = loadedHeap.getBiggestObjectsByRetainedSize(10);
+            assertEquals(biggest.size(), loadedBiggest.size());
+            for (int i = 0; i < biggest.size(); i++) {
+                assertEquals(biggest.get(i).getInstanceId(), loadedBiggest.get(i).getInstanceId());
+                assertEquals(retainedSizes.get(i).longValue(), loadedBiggest.get(i).getRetainedSize());
+            }
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    private File copyHeapDump() throws IOException, URISyntaxException {
+        File dumpFile = new File(getClass().getResource("small_heap.bin").toURI());
+        File dir = File.createTempFile("small_heap", "");
+        dir.delete();
+        dir.mkdir();
+        File copy = new File(dir, dumpFile.getName());
+        byte[] data = new byte[64*1024];
+
+        try (InputStream is = new FileInputStream(dumpFile); OutputStream os = new FileOutputStream(copy)) {
+            for (int n = is.read(data); n != -1; n = is.read(data)) {
+                os.write(data, 0, n);
+            }
+        }
+        return copy;
+    }
+
+    private static void deleteAll(File file) {
+        File[] files = file.listFiles();
+
+        if (files != null) {
+            for (File f : files) {
+                deleteAll(f);
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void testCacheIndexFile() throws IOException {
+        System.out.println("cacheIndexFile");
+        File indexFile = File.createTempFile("NBProfiler", ".nphd");
+        File dataFile = File.createTempFile("NBProfiler", ".map", indexFile.getParentFile());
+
+        try {
+            try (OutputStream os = new FileOutputStream(dataFile)) {
+                os.write(new byte[] {1, 2, 3, 4});
+            }
+            try (CacheIndexFile.Writer writer = new CacheIndexFile.Writer(indexFile, "TEST", 1)) {
+                writer.beginSection(1).writeUTF("first");
+                writer.endSection();
+                writer.beginSection(2).writeLong(42);
+                writer.endSection();
+                writer.beginSection(3).writeUTF(dataFile.getName());
+                writer.endSection(Collections.singletonList(dataFile));
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+                // damage the last byte of the second section, the third section
+                // and its data file entry contain the file name
+                int nameLength = 2 + dataFile.getName().length();
+                long offset = indexFile.length() - 8 - 3*32 - (nameLength + 2*8) - 4 - nameLength - 1;
+                raf.seek(offset);
+                int b = raf.read();
+                raf.seek(offset);
+                raf.write(b ^ 0xff);
+            }
+            CacheIndexFile index = CacheIndexFile.open(indexFile, "TEST", 1);
+
+            assertEquals("first", index.getSection(1).readUTF());
+            assertFalse(index.isCorrupted(1));
+            assertNull(index.getSection(2));
+            assertTrue(index.isCorrupted(2));
+            assertTrue(index.isValid(3));
+            assertNull(index.getSection(4));
+            assertFalse(index.isCorrupted(4));
+
+            try (RandomAccessFile raf = new RandomAccessFile(dataFile, "rw")) {
+                // same length, different content
+                raf.write(0);
+            }
+            index = CacheIndexFile.open(indexFile, "TEST", 1);
+
+            assertTrue(index.isCorrupted(3));
+            index.deleteDataFiles(3);
+            assertFalse(dataFile.exists());
+        } finally {
+            indexFile.delete();
+            dataFile.delete();
+        }
+    }
+
+    private Heap createHeap(int threads, long chunkSize) throws IOException, URISyntaxException {
+        File dumpFile = new File(getClass().getResource("small_heap.bin").toURI());
+        int defaultThreads = DumpChunks.THREADS;
+        long defaultChunkSize = DumpChunks.CHUNK_SIZE;
+
+        try {
+            DumpChunks.THREADS = threads;
+            DumpChunks.CHUNK_SIZE = chunkSize;
+            return new HprofHeap(dumpFile, 0, new CacheDirectory(null));
+        } finally {
+            DumpChunks.THREADS = defaultThreads;
+            DumpChunks.CHUNK_SIZE = defaultChunkSize;
+        }
+    }
+
     @Test
     public void testHeapDumpLog() throws IOException, URISyntaxException {
         System.out.println("testHeapDumpLog");
@@ -80,6 +80,10 @@ public class ProfilerClient implements CommonConstants {
      * above.
      */
     private class SeparateCmdExecutionThread extends Thread {
+        //~ Instance fields ------------------------------------------------------------------------------------------------------
+
+        boolean terminate; // Guarded by execInSeparateThreadLock
+
         //~ Methods --------------------------------------------------------------------------------------------------------------
 
         public void run() {
@@ -87,10 +91,12 @@ public class ProfilerClient implements CommonConstants {
 
             synchronized (execInSeparateThreadLock) {
                 while (true) {
-                    try {
-                        execInSeparateThreadLock.wait();
-                    } catch (InterruptedException ex) {
-                        MiscUtils.internalError("ProfilerClient.SpecialExecutionThread.run()"); // NOI18N
+                    while ((execInSeparateThreadCmd == null) && !terminate) {
+                        try {
+                            execInSeparateThreadLock.wait();
+                        } catch (InterruptedException ex) {
+                            MiscUtils.internalError("ProfilerClient.SpecialExecutionThread.run()"); // NOI18N
+                        }
                     }
 
                     if (execInSeparateThreadCmd == null) {
@@ -99,6 +105,8 @@ public class ProfilerClient implements CommonConstants {
 
                     Command cmd = execInSeparateThreadCmd;
                     execInSeparateThreadCmd = null;
+                    // Let the listener thread post the next command, it is taken once this one is processed
+                    execInSeparateThreadLock.notifyAll();
 
                     switch (cmd.getType()) {
                         case Command.ROOT_CLASS_LOADED:
@@ -116,7 +124,11 @@ public class ProfilerClient implements CommonConstants {
                             byte[] buf = EventBufferProcessor.readDataAndPrepareForProcessing(bufferDumpedCmd);
                             
                             EventBufferResultsProvider.getDefault().dataReady(buf, getCurrentInstrType());
-                            sendSimpleRespToServer(true, null);
+                            if (EventBufferProcessor.hasSpareBufferSlot()) {
+                                handlingEventBufferDump = false; // the server has been answered already
+                            } else {
+                                sendSimpleRespToServer(true, null);
+                            }
 
                             break;
                         case Command.CLASS_LOADER_UNLOADING:
@@ -1563,10 +1575,10 @@ public class ProfilerClient implements CommonConstants {
     }
 
     /**
-     * Check if we can't instrument more methods because the 64K limit is reached
+     * Check if we can't instrument more methods because the MAX_INSTRUMENTED_METHODS limit is reached
      */
     private void checkForInstrMethodsLimitReached() {
-        if ((status.getStartingMethodId() >= 65535) && !instrMethodsLimitReported && status.targetAppRunning) {
+        if ((status.getStartingMethodId() >= MAX_INSTRUMENTED_METHODS) && !instrMethodsLimitReported && status.targetAppRunning) {
             appStatusHandler.displayWarningAndWaitForConfirm(INSTRUMENTATION_LIMIT_REACHED_MSG);
             instrMethodsLimitReported = true;
         }
@@ -1757,6 +1769,7 @@ public class ProfilerClient implements CommonConstants {
 
             boolean terminateOnError = attachMode != 2; // in case of direct attach we don't want to have a JVM process hanging around waiting for the client to connect
                                                         // Get VM properties
+            int agentVersion;
 
             synchronized (this) {
                 sendSimpleCmdToServer(Command.GET_VM_PROPERTIES);
@@ -1771,6 +1784,16 @@ public class ProfilerClient implements CommonConstants {
                 if (!setVMProperties((VMPropertiesResponse) aResponse, terminateOnError)) {
                     return false;
                 }
+                agentVersion = ((VMPropertiesResponse) aResponse).getAgentVersion();
+            }
+
+            // Older agents do not know the command, they keep sending event buffers in the original format
+            if (agentVersion >= CommonConstants.AGENT_VERSION_VISUALVM_207) {
+                error = sendSimpleCommandAndGetResponse(Command.USE_FRAMED_EVENT_BUFFERS);
+
+                if (error == null) {
+                    wireIO.setFramedEventBuffers(true);
+                }
             }
 
             // Send a command to initiate the fake RootClassLoadedCommand cycle, that forces initialization of some internal
@@ -1826,12 +1849,24 @@ public class ProfilerClient implements CommonConstants {
      */
     private void executeInSeparateThread(Command cmd) {
         synchronized (execInSeparateThreadLock) {
+            // There is a single command slot, do not overwrite a command that was not taken over yet
+            waitForSeparateThreadCmdTaken();
             execInSeparateThreadCmd = cmd;
+            execInSeparateThreadLock.notifyAll();
+        }
+    }
 
+    /**
+     * Waits until separateCmdExecThread takes over the last posted command. Since it holds execInSeparateThreadLock
+     * while executing the command, the caller, once it owns the lock after this method returns, also knows that all the
+     * posted commands have been completely executed. Must be called with execInSeparateThreadLock held.
+     */
+    private void waitForSeparateThreadCmdTaken() {
+        while (execInSeparateThreadCmd != null) {
             try {
-                execInSeparateThreadLock.notify();
-            } catch (IllegalMonitorStateException ex) {
-                MiscUtils.internalError("ProfilerClient.executeInSeparateThread()"); // NOI18N
+                execInSeparateThreadLock.wait();
+            } catch (InterruptedException ex) {
+                MiscUtils.internalError("ProfilerClient.waitForSeparateThreadCmdTaken()"); // NOI18N
             }
         }
     }
@@ -1846,7 +1881,11 @@ public class ProfilerClient implements CommonConstants {
     
     private void stopSeparateCmdExecThread() {
         assert separateCmdExecThread != null;
-        executeInSeparateThread(null); // stop thread
+        synchronized (execInSeparateThreadLock) {
+            waitForSeparateThreadCmdTaken();
+            separateCmdExecThread.terminate = true; // stop thread
+            execInSeparateThreadLock.notifyAll();
+        }
         separateCmdExecThread = null;
     }
 
@@ -1976,12 +2015,29 @@ public class ProfilerClient implements CommonConstants {
             // That means that nothing in readResultsFromBuffer() that this command eventually calls, is allowed to
             // send a command to the server and await a response. If that happens, the communication thread will be
             // unavailable for reading server's response (because it's waiting here), effectively causing a deadlock.
-            executeInSeparateThread(cmd);
-            handlingEventBufferDump = false;
+            if (EventBufferProcessor.hasSpareBufferSlot()) {
+                // The server writes the next event buffer to the other slot of the buffer file, so it can continue
+                // as soon as the processing of this buffer is handed over. The next dump then waits here until this
+                // buffer is processed, and handlingEventBufferDump is cleared by separarateCmdExecThread.
+                synchronized (execInSeparateThreadLock) {
+                    handlingEventBufferDump = true;
+                    executeInSeparateThread(cmd);
+                }
+                sendSimpleRespToServer(true, null);
+            } else {
+                executeInSeparateThread(cmd);
+                handlingEventBufferDump = false;
+            }
         } else {
             // Process profiling results synchronously in case of:
             //  - remote profiling
             //  - explicite Get results (forceObtainedResultsDumpCalled)
+            if (EventBufferProcessor.hasSpareBufferSlot()) {
+                synchronized (execInSeparateThreadLock) {
+                    // wait until separarateCmdExecThread has processed the previous event buffer
+                    waitForSeparateThreadCmdTaken();
+                }
+            }
             byte[] buf = EventBufferProcessor.readDataAndPrepareForProcessing(cmd);
             EventBufferResultsProvider.getDefault().dataReady(buf, getCurrentInstrType());
             handlingEventBufferDump = false;
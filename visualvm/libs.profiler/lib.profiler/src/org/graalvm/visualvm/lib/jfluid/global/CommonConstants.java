@@ -119,6 +119,16 @@ public interface CommonConstants {
     /** Size of the event buffer, used to store/read rough profiling data */
     public static final int EVENT_BUFFER_SIZE_IN_BYTES = 1200000;
 
+    /** Number of event buffer slots in the event buffer file used for local profiling. While the tool processes
+     * one slot, the target VM can already fill the next one. */
+    public static final int EVENT_BUFFER_SLOTS = 2;
+
+    /** Size of the event buffer file header, which contains the number of slots and the size of each slot */
+    public static final int EVENT_BUFFER_FILE_HEADER_SIZE = 8;
+
+    /** Maximum number of instrumented methods. Method ids are written as variable length ints into the event buffer. */
+    public static final int MAX_INSTRUMENTED_METHODS = 1 << 20;
+
     // Codes of various profiling events, that are generated and stored in the buffer file by server and
     // then retrieved by tool
     public static final byte ROOT_ENTRY = 1;
@@ -315,5 +325,6 @@ public interface CommonConstants {
     public static final int AGENT_VERSION_90 = 18;
     public static final int AGENT_VERSION_VISUALVM_20 = 19;
     public static final int AGENT_VERSION_VISUALVM_206 = 20;
-    public static final int CURRENT_AGENT_VERSION = AGENT_VERSION_VISUALVM_206;
+    public static final int AGENT_VERSION_VISUALVM_207 = 21; // int method ids, framed event buffers
+    public static final int CURRENT_AGENT_VERSION = AGENT_VERSION_VISUALVM_207;
 }
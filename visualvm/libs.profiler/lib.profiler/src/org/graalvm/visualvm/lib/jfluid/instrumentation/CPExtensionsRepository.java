@@ -100,7 +100,7 @@ public class CPExtensionsRepository implements JavaClassConstants, CommonConstan
     private static final String SHORT_VOID_SIGNATURE = "(S)V"; // NOI18N
     private static final String LONG_VOID_SIGNATURE = "(J)V"; // NOI18N
     private static final String OBJECT_VOID_SIGNATURE = "(Ljava/lang/Object;)V"; // NOI18N
-    private static final String OBJECT_CHAR_VOID_SIGNATURE = "(Ljava/lang/Object;C)V"; // NOI18N
+    private static final String OBJECT_INT_VOID_SIGNATURE = "(Ljava/lang/Object;I)V"; // NOI18N
     private static final String REFLECT_METHOD_VOID_SIGNATURE = "(Ljava/lang/reflect/Method;)V"; // NOI18N
     private static final String JAVA_LANG_THROWABLE_NAME = "java/lang/Throwable"; // NOI18N
     private static final String STACK_MAP_TABLE_ATTRIBUTE = "StackMapTable"; // NOI18N
@@ -123,16 +123,16 @@ public class CPExtensionsRepository implements JavaClassConstants, CommonConstan
         standardCPFragments = new PackedCPFragment[INJ_MAXNUMBER];
 
         // Initialize the "normal" recursive instrumentation added constant pool contents
-        CPEntry[] entries = new CPEntry[12];
+        CPEntry[] entries = new CPEntry[13];
         int i = 0;
         int methodEntryMethodRefIdx = i;
-        i = addMethod(PROFRUNTIME_CPUFULL_CLASS_NAME, METHOD_ENTRY_METHOD_NAME, CHAR_VOID_SIGNATURE, entries, i);
+        i = addMethod(PROFRUNTIME_CPUFULL_CLASS_NAME, METHOD_ENTRY_METHOD_NAME, INT_VOID_SIGNATURE, entries, i);
         int methodExitMethodRefIdx = i;
-        i = addMethod(PROFRUNTIME_CPUFULL_CLASS_NAME, METHOD_EXIT_METHOD_NAME, CHAR_VOID_SIGNATURE, entries, i);
+        i = addMethod(PROFRUNTIME_CPUFULL_CLASS_NAME, METHOD_EXIT_METHOD_NAME, INT_VOID_SIGNATURE, entries, i);
         int profilePointHitMethodRefIdx = i;
         addMethod(PROFRUNTIME_CPUFULL_CLASS_NAME, PROFILE_POINT_HIT, CHAR_VOID_SIGNATURE, entries, i);
         int profilerRuntimeClassRefIdx = getClassCPEntryIndex(PROFRUNTIME_CPUFULL_CLASS_NAME, entries);
-        int charVoidSignatureIdx = getUtf8CPEntryIndex(CHAR_VOID_SIGNATURE, entries);
+        int intVoidSignatureIdx = getUtf8CPEntryIndex(INT_VOID_SIGNATURE, entries);
         standardCPFragments[INJ_RECURSIVE_NORMAL_METHOD] = new PackedCPFragment(entries);
         normalContents_ProfilePointHitMethodIdx = profilePointHitMethodRefIdx;
         normalContents_MethodEntryMethodIdx = methodEntryMethodRefIdx;
@@ -143,25 +143,25 @@ public class CPExtensionsRepository implements JavaClassConstants, CommonConstan
         entries[getUtf8CPEntryIndex(PROFRUNTIME_CPUFULL_CLASS_NAME, entries)] = new CPEntry(PROFRUNTIME_CPUSAMPLED_CLASS_NAME);
         standardCPFragments[INJ_RECURSIVE_SAMPLED_NORMAL_METHOD] = new PackedCPFragment(entries);
 
-        // Additional constant pool contents for rootEntry(char methodId) injection
+        // Additional constant pool contents for rootEntry(int methodId) injection
         entries = new CPEntry[3];
-        addMethod(profilerRuntimeClassRefIdx + 0x10000, ROOT_ENTRY_METHOD_NAME, charVoidSignatureIdx + 0x10000, entries, 0);
+        addMethod(profilerRuntimeClassRefIdx + 0x10000, ROOT_ENTRY_METHOD_NAME, intVoidSignatureIdx + 0x10000, entries, 0);
         standardCPFragments[INJ_RECURSIVE_ROOT_METHOD] = new PackedCPFragment(entries);
         rootContents_RootEntryMethodIdx = 0;
 
         // rootEntry() injection for sampled instrumentation is the same as for full instrumentation
         standardCPFragments[INJ_RECURSIVE_SAMPLED_ROOT_METHOD] = new PackedCPFragment(entries);
 
-        // Additional constant pool contents for markerMethodEntry(char methodId) and markerMethodExit(char methodId) injection
+        // Additional constant pool contents for markerMethodEntry(int methodId) and markerMethodExit(int methodId) injection
         entries = new CPEntry[39];
         i = 0;
         int markerEntryMethodRefIdx = i;
-        i = addMethod(profilerRuntimeClassRefIdx + 0x10000, MARKER_ENTRY_METHOD_NAME, charVoidSignatureIdx + 0x10000, entries, i);
+        i = addMethod(profilerRuntimeClassRefIdx + 0x10000, MARKER_ENTRY_METHOD_NAME, intVoidSignatureIdx + 0x10000, entries, i);
         int markerExitMethodRefIdx = i;
-        i = addMethod(profilerRuntimeClassRefIdx + 0x10000, MARKER_EXIT_METHOD_NAME, charVoidSignatureIdx + 0x10000, entries, i);
+        i = addMethod(profilerRuntimeClassRefIdx + 0x10000, MARKER_EXIT_METHOD_NAME, intVoidSignatureIdx + 0x10000, entries, i);
         
         rootContents_MarkerExitParMethodIdx = i;        
-        i = addMethod(profilerRuntimeClassRefIdx + 0x10000, MARKER_EXIT_METHOD_NAME, OBJECT_CHAR_VOID_SIGNATURE, entries, i);
+        i = addMethod(profilerRuntimeClassRefIdx + 0x10000, MARKER_EXIT_METHOD_NAME, OBJECT_INT_VOID_SIGNATURE, entries, i);
         miContents_AddParCharMethodIdx = i;
         i = addMethod(PROFRUNTIME_CPU_CLASS_NAME, ADD_PARAMETER, CHAR_VOID_SIGNATURE, entries, i);
         miContents_AddParByteMethodIdx = i;
@@ -215,7 +215,7 @@ public class CPExtensionsRepository implements JavaClassConstants, CommonConstan
         entries = new CPEntry[10];
         i = 0;
         int objAllocTraceMethodRefIdx = i;
-        i = addMethod(PROFRUNTIME_OBJALLOC_CLASS_NAME, TRACE_OBJ_ALLOC_METHOD_NAME, OBJECT_CHAR_VOID_SIGNATURE, entries, i);
+        i = addMethod(PROFRUNTIME_OBJALLOC_CLASS_NAME, TRACE_OBJ_ALLOC_METHOD_NAME, OBJECT_INT_VOID_SIGNATURE, entries, i);
         int memPprofilePointHitMethodRefIdx = i;
         addMethod(PROFRUNTIME_OBJALLOC_CLASS_NAME, PROFILE_POINT_HIT, CHAR_VOID_SIGNATURE, entries, i);
         standardCPFragments[INJ_OBJECT_ALLOCATIONS] = new PackedCPFragment(entries);
@@ -126,6 +126,9 @@ public abstract class Injector extends SingleMethodScaner {
     private static final int injProfilePointHitIDCodeIdx = 1;
     private static final int injProfilePointHitMethodIdx = 4;
 
+    // Empty prefix or suffix for createIdCallCode()
+    protected static final byte[] NO_CODE = new byte[0];
+
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     protected byte[] exceptionTable; // Current updateable copy of exception table (what is in MethodInfo Code attribute after exception_table_length)
@@ -331,6 +334,47 @@ public abstract class Injector extends SingleMethodScaner {
         }
     }
 
+    /**
+     * Creates the code packet <code>prefix; push id; invokestatic methodIdx; suffix</code> calling a profiler runtime
+     * method that takes an int method or class id as its last argument. Ids that fit into a short are pushed with a
+     * single sipush, larger ones are assembled from two 15-bit halves, so that no constant pool entry is needed.
+     * If aligned is true, the packet is padded with nops to a multiple of 4 bytes, to avoid worrying about switch
+     * statement 4-byte alignment.
+     */
+    protected static byte[] createIdCallCode(byte[] prefix, int id, int methodIdx, byte[] suffix, boolean aligned) {
+        int len = prefix.length + ((id <= MAX_SHORT) ? 3 : 10) + 3 + suffix.length;
+
+        if (aligned) {
+            len = (len + 3) & ~3;
+        }
+
+        byte[] code = new byte[len]; // Zero-filled, which is opc_nop
+        int pos = prefix.length;
+        System.arraycopy(prefix, 0, code, 0, pos);
+
+        if (id <= MAX_SHORT) {
+            code[pos] = (byte) opc_sipush;
+            putU2(code, pos + 1, id);
+            pos += 3;
+        } else {
+            code[pos] = (byte) opc_sipush;
+            putU2(code, pos + 1, id >>> 15);
+            code[pos + 3] = (byte) opc_bipush;
+            code[pos + 4] = 15;
+            code[pos + 5] = (byte) opc_ishl;
+            code[pos + 6] = (byte) opc_sipush;
+            putU2(code, pos + 7, id & MAX_SHORT);
+            code[pos + 9] = (byte) opc_ior;
+            pos += 10;
+        }
+
+        code[pos] = (byte) opc_invokestatic;
+        putU2(code, pos + 1, methodIdx);
+        System.arraycopy(suffix, 0, code, pos + 3, suffix.length);
+
+        return code;
+    }
+
     /** Called by the ChangeJumpWiden class */
     void handleJumpWiden(int bci, int delta) {
         int ilen = rcInstrLen(bci);
@@ -32,8 +32,8 @@ import static org.graalvm.visualvm.lib.jfluid.utils.VMUtils.*;
 
 /**
  * Specialized subclass of Injector, that provides injection of our standard
- * "recursive" instrumentation - methodEntry(char methodId) (rootEntry(char
- * methodId)) and methodExit(char methodId) calls - in appropriate places in TA
+ * "recursive" instrumentation - methodEntry(int methodId) (rootEntry(int
+ * methodId)) and methodExit(int methodId) calls - in appropriate places in TA
  * methods.
  *
  * @author Tomas Hurka
@@ -42,32 +42,18 @@ import static org.graalvm.visualvm.lib.jfluid.utils.VMUtils.*;
 class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
-    // Stuff used for rootEntry(char), methodEntry(char), and methodExit(char) injection interchangeably
-    protected static byte[] injCode1;
-    protected static int injCodeLen1;
-    protected static int injCodeMethodIdxPos1;
-    protected static int injCodeMethodIdPos1;
-
-    // Stuff used for the equivalent of try { .. } catch (Throwable ex) { methodExit(methodId); throw ex; } around the whole method
-    protected static byte[] injCode2;
-    protected static int injCodeLen2;
-    protected static int injCodeMethodIdxPos2;
-    protected static int injCodeMethodIdPos2;
-
-    // Stuff used for markerMethodExit(Object, char) injection
-    protected static byte[] injCode3;
-    protected static int injCodeLen3;
-    protected static int injCodeMethodIdxPos3;
-    protected static int injCodeMethodIdPos3;
-
-    static {
-        initializeInjectedCode();
-    }
+    // Code wrapped around the methodExit(methodId) call in the equivalent of
+    // try { .. } catch (Throwable ex) { methodExit(methodId); throw ex; } around the whole method
+    private static final byte[] CATCH_PREFIX = new byte[] { (byte) opc_astore_1 };
+    private static final byte[] CATCH_SUFFIX = new byte[] { (byte) opc_aload_1, (byte) opc_athrow };
+
+    // Code preceding markerMethodExit(Object, int) call, which passes the returned object
+    private static final byte[] MARKER_EXIT_PREFIX = new byte[] { (byte) opc_dup };
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
     protected int baseRootCPoolCount; // cpool base for root method type injection cpool fragment
     protected int injType; // INJ_RECURSIVE_NORMAL_METHOD, INJ_RECURSIVE_ROOT_METHOD, or same with _SAMPLED_ added
-    protected int methodId; // methodId (char parameter value) that methodEntry(methodId) etc. should be invoked with
+    protected int methodId; // methodId (int parameter value) that methodEntry(methodId) etc. should be invoked with
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
     MethodEntryExitCallsInjector(DynamicClassInfo clazz, int normalInstrBaseCPoolCount, int rootInstrBaseCPoolCount, int methodIdx,
@@ -105,45 +91,6 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
         return createPackedMethodInfo();
     }
 
-    private static void initializeInjectedCode() {
-        // Injection for methodEntry(char methodId) (rootMethodEntry(char methodId)) and methodExit(char methodId)
-        // the length of the injected code is extended to 8, to avoid worrying about switch statement 4-byte alignment
-        injCodeLen1 = 8;
-        injCode1 = new byte[injCodeLen1];
-        injCode1[0] = (byte) opc_sipush;
-        // Positions 1, 2 are occupied by methodId
-        injCodeMethodIdPos1 = 1;
-        injCode1[3] = (byte) opc_invokestatic;
-        // Positions 4, 5 are occupied by method index
-        injCodeMethodIdxPos1 = 4;
-        injCode1[6] = injCode1[7] = (byte) opc_nop;
-
-        // Injection for the whole-method all-exceptions try - catch
-        // We do not need to worry about 4-byte alignment since this always goes to the end of a method
-        injCodeLen2 = 9;
-        injCode2 = new byte[injCodeLen2];
-        injCode2[0] = (byte) opc_astore_1;
-        injCode2[1] = (byte) opc_sipush;
-        // Positions 2, 3 are occupied by methodId
-        injCodeMethodIdPos2 = 2;
-        injCode2[4] = (byte) opc_invokestatic;
-        // Positions 5, 6 are occpupied by method index for methodExit()
-        injCodeMethodIdxPos2 = 5;
-        injCode2[7] = (byte) opc_aload_1;
-        injCode2[8] = (byte) opc_athrow;
-
-        injCodeLen3 = 8;
-        injCode3 = new byte[injCodeLen3];
-        injCode3[0] = (byte) opc_dup;
-        injCode3[1] = (byte) opc_sipush;
-        // Positions 2, 3 are occupied by methodId
-        injCodeMethodIdPos3 = 2;
-        injCode3[4] = (byte) opc_invokestatic;
-        // Positions 5, 6 are occupied by method index
-        injCodeMethodIdxPos3 = 5;
-        injCode3[7] = (byte) opc_nop;
-    }
-
     /**
      * Injects code that is effectively try { } catch (Throwable ex) {
      * methodExit (); rethrow ex; } To have methodExit called even in case
@@ -158,8 +105,8 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
             targetMethodIdx = CPExtensionsRepository.normalContents_MethodExitMethodIdx + baseCPoolCount;
         }
 
-        putU2(injCode2, injCodeMethodIdPos2, methodId);
-        putU2(injCode2, injCodeMethodIdxPos2, targetMethodIdx);
+        // We do not need to worry about 4-byte alignment since this always goes to the end of a method
+        byte[] injCode = createIdCallCode(CATCH_PREFIX, methodId, targetMethodIdx, CATCH_SUFFIX, false);
 
         int origLen = bytecodesLength;
         int bci = 0;
@@ -178,7 +125,7 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
         // we have per-method verification working, we will be in a much better position to discuss this possible VM bug :-)
         int lastInstrBCI = bytecodesLength;
 
-        appendCode(injCode2, injCodeLen2);
+        appendCode(injCode, injCode.length);
         addExceptionTableEntry(0, lastInstrBCI, origLen, 0);
         addGlobalCatchStackMapTableEntry(lastInstrBCI);
 
@@ -190,7 +137,7 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
     private void injectMethodEntry() {
         int targetMethodIdx = 0;
 
-        // Prepare the methodEntry(char methodId) or rootEntry(char methodId) code packet that is to be injected
+        // Prepare the methodEntry(int methodId) or rootEntry(int methodId) code packet that is to be injected
         if ((injType == INJ_RECURSIVE_ROOT_METHOD) || (injType == INJ_RECURSIVE_SAMPLED_ROOT_METHOD)) {
             targetMethodIdx = CPExtensionsRepository.rootContents_RootEntryMethodIdx + baseRootCPoolCount;
         } else if ((injType == INJ_RECURSIVE_MARKER_METHOD) || (injType == INJ_RECURSIVE_SAMPLED_MARKER_METHOD)) {
@@ -199,10 +146,9 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
             targetMethodIdx = CPExtensionsRepository.normalContents_MethodEntryMethodIdx + baseCPoolCount;
         }
 
-        putU2(injCode1, injCodeMethodIdxPos1, targetMethodIdx);
-        putU2(injCode1, injCodeMethodIdPos1, methodId);
+        byte[] injCode = createIdCallCode(NO_CODE, methodId, targetMethodIdx, NO_CODE, true);
 
-        injectCodeAndRewrite(injCode1, injCodeLen1, 0, true);
+        injectCodeAndRewrite(injCode, injCode.length, 0, true);
         if (injType == INJ_RECURSIVE_MARKER_METHOD || injType == INJ_RECURSIVE_SAMPLED_MARKER_METHOD) {
             // for marker method inject code to get parameters
             ByteArrayOutputStream code = new ByteArrayOutputStream();
@@ -238,7 +184,7 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
     }
 
     private void injectMethodExits(int totalReturns) {
-        // Prepare the methodExit(char methodId) code packet
+        // Prepare the methodExit(int methodId) code packet
         int targetMethodIdx;
         int targetParMethodIdx = -1;
 
@@ -249,10 +195,10 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
             targetMethodIdx = CPExtensionsRepository.normalContents_MethodExitMethodIdx + baseCPoolCount;
         }
 
-        putU2(injCode1, injCodeMethodIdxPos1, targetMethodIdx);
+        byte[] injCode = createIdCallCode(NO_CODE, methodId, targetMethodIdx, NO_CODE, true);
+        byte[] injParCode = null;
         if (targetParMethodIdx != -1) {
-            putU2(injCode3, injCodeMethodIdPos3, methodId);
-            putU2(injCode3, injCodeMethodIdxPos3, targetParMethodIdx);            
+            injParCode = createIdCallCode(MARKER_EXIT_PREFIX, methodId, targetParMethodIdx, NO_CODE, true);
         }        
 
         for (int i = 0; i < totalReturns; i++) {
@@ -266,10 +212,10 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
                     retIdx++;
 
                     if (retIdx == i) {
-                        if (bc == opc_areturn && targetParMethodIdx != -1) {
-                            injectCodeAndRewrite(injCode3, injCodeLen3, bci, true);                            
+                        if (bc == opc_areturn && injParCode != null) {
+                            injectCodeAndRewrite(injParCode, injParCode.length, bci, true);                            
                         } else {
-                            injectCodeAndRewrite(injCode1, injCodeLen1, bci, true);
+                            injectCodeAndRewrite(injCode, injCode.length, bci, true);
                         }
                         break;
                     }
@@ -38,7 +38,7 @@ import org.graalvm.visualvm.lib.jfluid.utils.VMUtils;
 
 /**
  * Specialized subclass of Injector, that provides injection of our object allocation and liveness instrumentation -
- * ProfilerRuntimeObjAlloc/ProfilerRuntimeObjLiveness.traceObjAlloc(Object obj, char classId) call
+ * ProfilerRuntimeObjAlloc/ProfilerRuntimeObjLiveness.traceObjAlloc(Object obj, int classId) call
  * after each "new", "anewarray" or "newarray" bytecode.
  *
  * @author Tomas Hurka
@@ -47,15 +47,14 @@ import org.graalvm.visualvm.lib.jfluid.utils.VMUtils;
 class ObjLivenessInstrCallsInjector extends Injector implements CommonConstants {
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
-    // Stuff used for traceObjAlloc(Object, char)
-    protected static byte[] injectedCode;
-    protected static int injectedCodeLen;
-    protected static int injectedCodeMethodIdxPos;
-    protected static int injectedCodeClassIdPos;
+    // Code preceding traceObjAlloc(Object, int) call: push newly created object to top of stack to pass as the first
+    // argument to traceObjAlloc method, or load this in Object constructor, or none if the object is already there
+    private static final byte[] DUP_CODE = new byte[] { (byte) opc_dup };
+    private static final byte[] ALOAD_0_CODE = new byte[] { (byte) opc_aload_0 };
+    private static final byte[] NOP_CODE = new byte[] { (byte) opc_nop };
 
-    static {
-        initializeInjectedCode();
-    }
+    // Longest code packet created by injectTraceObjAlloc(), for a class id that does not fit into a short
+    private static final int MAX_INJECTED_CODE_LEN = 16;
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
@@ -100,7 +99,7 @@ class ObjLivenessInstrCallsInjector extends Injector implements CommonConstants
                 opcNewToInstr = opcNewCount + 1;
                 bci = 0;
 
-                while (bci < bytecodesLength && bytecodesLength + injectedCodeLen < 65535) {
+                while (bci < bytecodesLength && bytecodesLength + MAX_INJECTED_CODE_LEN < 65535) {
                     bc = (bytecodes[bci] & 0xFF);
 
                     if ((bc == opc_new && checkForOpcNew) || (checkForOpcNewArray && (bc == opc_anewarray || bc == opc_newarray || bc == opc_multianewarray))) {
@@ -242,57 +241,29 @@ class ObjLivenessInstrCallsInjector extends Injector implements CommonConstants
         }
     }
 
-    private static void initializeInjectedCode() {
-        // Code packet for traceObjAlloc(Object obj, char classId)
-        injectedCodeLen = 8;
-        injectedCode = new byte[injectedCodeLen];
-        injectedCode[0] = (byte) opc_dup; // push newly created object to top of stack to pass as the first argument to traceObjAlloc method
-        injectedCode[1] = (byte) opc_sipush; // push char - the actual value will be next two bytes, a second parameter passed to traceObjAlloc method
-                                             // Positions 2, 3 are occupied by classId
-
-        injectedCodeClassIdPos = 2;
-        injectedCode[4] = (byte) opc_invokestatic;
-        // Positions 5, 6 are occupied by method index
-        injectedCodeMethodIdxPos = 5;
-        injectedCode[7] = (byte) opc_nop;
-    }
-
     private void injectDup(int bci) {
         byte[] injCode = new byte[] { (byte) opc_dup, (byte) opc_nop, (byte) opc_nop, (byte) opc_nop };
         injectCodeAndRewrite(injCode, 4, bci, false);
     }
 
     private void injectTraceObjAlloc(int classId, int bci) {
-        // Prepare the traceObjAlloc(Object obj, char classId) code packet that is to be injected
-        int targetMethodIdx = CPExtensionsRepository.memoryProfContents_TraceObjAllocMethodIdx + baseCPoolCount;
-        putU2(injectedCode, injectedCodeMethodIdxPos, targetMethodIdx);
-        putU2(injectedCode, injectedCodeClassIdPos, classId);
-
-        injectCodeAndRewrite(injectedCode, injectedCodeLen, bci, false);
+        injectTraceObjAlloc(DUP_CODE, classId, bci, false);
     }
 
     private void injectTraceObjAllocNoDup(int classId, int bci) {
-        injectedCode[0] = (byte) opc_nop; // Remove the dup
-                                          // Prepare the traceObjAlloc(Object obj, char classId) code packet that is to be injected
-
-        int targetMethodIdx = CPExtensionsRepository.memoryProfContents_TraceObjAllocMethodIdx + baseCPoolCount;
-        putU2(injectedCode, injectedCodeMethodIdxPos, targetMethodIdx);
-        putU2(injectedCode, injectedCodeClassIdPos, classId);
-
-        injectCodeAndRewrite(injectedCode, injectedCodeLen, bci, false);
-        injectedCode[0] = (byte) opc_dup; // Restore dup
+        injectTraceObjAlloc(NOP_CODE, classId, bci, false);
     }
 
     private void injectTraceObjAllocObjCtor(int bci) {
-        injectedCode[0] = (byte) opc_aload_0; // Insert aload_0
-        // Prepare the traceObjAlloc(Object obj, 0) code packet that is to be injected
+        injectTraceObjAlloc(ALOAD_0_CODE, 0, bci, true);
+    }
 
+    private void injectTraceObjAlloc(byte[] objCode, int classId, int bci, boolean injectionBindsToFollowingInstruction) {
+        // Prepare the traceObjAlloc(Object obj, int classId) code packet that is to be injected
         int targetMethodIdx = CPExtensionsRepository.memoryProfContents_TraceObjAllocMethodIdx + baseCPoolCount;
-        putU2(injectedCode, injectedCodeMethodIdxPos, targetMethodIdx);
-        putU2(injectedCode, injectedCodeClassIdPos, 0);
+        byte[] injectedCode = createIdCallCode(objCode, classId, targetMethodIdx, NO_CODE, true);
 
-        injectCodeAndRewrite(injectedCode, injectedCodeLen, bci, true);
-        injectedCode[0] = (byte) opc_dup; // Restore dup
+        injectCodeAndRewrite(injectedCode, injectedCode.length, bci, injectionBindsToFollowingInstruction);
     }
 
     private int locateConstructorCallForNewOp(int startBCI, int bytecodesLength, String newOpClassName) {
@@ -354,11 +354,11 @@ public abstract class RecursiveMethodInstrumentor extends ClassManager {
     }
 
     protected void markClassAndMethodForInstrumentation(DynamicClassInfo clazz, int methodIdx) {
-        if ((status.getStartingMethodId() + nInstrMethods) < 65535) {
+        if ((status.getStartingMethodId() + nInstrMethods) < MAX_INSTRUMENTED_METHODS) {
             addInsrClass(clazz);
 
             nInstrMethods++;
-        } else { // Can't instrument more than 64K methods - mark this method as already instrumented
+        } else { // Can't instrument more than MAX_INSTRUMENTED_METHODS methods - mark this method as already instrumented
             clazz.setMethodInstrumented(methodIdx);
         }
     }
@@ -130,6 +130,20 @@ public abstract class AbstractDataFrameProcessor implements DataFrameProcessor {
         return timestamp;
     }
 
+    /**
+     * Reads thread id written as an unsigned variable-length integer, 7 bits per byte, lowest bits first.
+     */
+    protected static int getThreadId(ByteBuffer buffer) {
+        return getVarInt(buffer);
+    }
+
+    /**
+     * Reads method or class id written in the same variable-length format as thread id.
+     */
+    protected static int getMethodId(ByteBuffer buffer) {
+        return getVarInt(buffer);
+    }
+
     protected static String getString(final ByteBuffer buffer) {
         int strLen = buffer.getChar();
         byte[] str = new byte[strLen];
@@ -166,6 +180,20 @@ public abstract class AbstractDataFrameProcessor implements DataFrameProcessor {
         }
     }
 
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = buffer.get();
+            value |= ((b & 0x7F) << shift);
+            shift += 7;
+        } while (b < 0);
+
+        return value;
+    }
+
     private void fireBatchStart() {
         foreachListener(new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
@@ -57,6 +57,9 @@ public class EventBufferProcessor implements CommonConstants {
     protected static RandomAccessFile raFile;
     protected static FileChannel bufFileChannel;
     protected static boolean bufFileExists;
+    private static int bufSlots;
+    private static int bufSlotSize;
+    private static long nReadSlots;
     protected static long startDataProcessingTime;
     protected static long dataProcessingTime;
 
@@ -82,9 +85,10 @@ public class EventBufferProcessor implements CommonConstants {
             bufFile = new File(fileName);
             raFile = new RandomAccessFile(bufFile, "rw"); // NOI18N
             bufFileChannel = raFile.getChannel();
-            mapByteBuf = bufFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, EVENT_BUFFER_SIZE_IN_BYTES);
-            mapByteBuf.rewind();
-            mapByteBuf.mark();
+            mapByteBuf = bufFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, raFile.length());
+            bufSlots = mapByteBuf.getInt();
+            bufSlotSize = mapByteBuf.getInt();
+            nReadSlots = 0;
             bufFileExists = true;
         } catch (FileNotFoundException ex1) {
             return false;
@@ -103,6 +107,14 @@ public class EventBufferProcessor implements CommonConstants {
         return bufFileExists;
     }
 
+    /**
+     * Returns true if the event buffer file has a spare slot, i.e. the server can already write the next
+     * event buffer while the current one is being processed.
+     */
+    public static boolean hasSpareBufferSlot() {
+        return !status.remoteProfiling && bufSlots > 1;
+    }
+
     public static void initialize(ProfilerClient inProfilerClient) {
         profilerClient = inProfilerClient;
         status = profilerClient.getStatus();
@@ -113,7 +125,7 @@ public class EventBufferProcessor implements CommonConstants {
         if (!status.remoteProfiling) {
             int bufSizeInBytes = cmd.getBufSize();
             buf = new byte[bufSizeInBytes];
-            mapByteBuf.reset();
+            mapByteBuf.position(EVENT_BUFFER_FILE_HEADER_SIZE + (int) (nReadSlots++ % bufSlots) * bufSlotSize);
             mapByteBuf.get(buf, 0, bufSizeInBytes);
         } else {
             buf = cmd.getBuffer();
@@ -63,6 +63,9 @@ public class CPUCCTContainer {
      *  |          |         |       |       | used)       |       |                 |          |     |          |
      *  |---------------------------------------------------------------------------------------------------------
      *    2 bytes   4 bytes   5 bytes 5 bytes  5 bytes      5 bytes  2 bytes           3 or 4 bytes depending on the size of compactData array
+     *
+     * If there are more than 65536 methods, the node is one byte longer (see nodeSize) and this last byte before subnode
+     * offsets holds bits 16-23 of methodID. Older snapshots without wide method IDs are read unchanged.
      */
     protected static final int OFS_METHODID = 0;
     protected static final int OFS_NCALLS = OFS_METHODID + 2;
@@ -76,6 +79,7 @@ public class CPUCCTContainer {
     protected static final int OFS_SUBNODE02 = OFS_NSUBNODES2 + 2;
     protected static final int CHILD_OFS_SIZE_3 = 3;
     protected static final int CHILD_OFS_SIZE_4 = 4;
+    protected static final int METHODID_HIGH_BYTE_SIZE = 1;
 
     // These are just the same-named xxxAbsCounts values converted into microseconds. So far used ONLY for informational purposes
     // (in "get internal statistics"), thus static is more or less tolerable (so far...)
@@ -182,9 +186,9 @@ public class CPUCCTContainer {
 
     public int getChildOfsForNodeOfs(int nodeOfs, int childIdx) {
         if (childOfsSize == CHILD_OFS_SIZE_4) {
-            return get4Bytes(nodeOfs + (collectingTwoTimeStamps ? OFS_SUBNODE02 : OFS_SUBNODE01) + (childOfsSize * childIdx));
+            return get4Bytes(nodeOfs + nodeSize + (childOfsSize * childIdx));
         } else {
-            return get3Bytes(nodeOfs + (collectingTwoTimeStamps ? OFS_SUBNODE02 : OFS_SUBNODE01) + (childOfsSize * childIdx));
+            return get3Bytes(nodeOfs + nodeSize + (childOfsSize * childIdx));
         }
     }
 
@@ -206,7 +210,13 @@ public class CPUCCTContainer {
 
     // -- Methods for retrieving data for individual nodes
     public int getMethodIdForNodeOfs(int nodeOfs) {
-        return get2Bytes(nodeOfs + OFS_METHODID);
+        int methodId = get2Bytes(nodeOfs + OFS_METHODID);
+
+        if (hasWideMethodIds()) {
+            methodId |= (((int) compactData[(nodeOfs + nodeSize) - METHODID_HIGH_BYTE_SIZE] & 0xFF) << 16);
+        }
+
+        return methodId;
     }
 
     public int getNCallsForNodeOfs(int nodeOfs) {
@@ -349,15 +359,23 @@ public class CPUCCTContainer {
 
     protected void setChildOfsForNodeOfs(int nodeOfs, int childIdx, int val) {
         if (childOfsSize == CHILD_OFS_SIZE_4) {
-            store4Bytes(nodeOfs + (collectingTwoTimeStamps ? OFS_SUBNODE02 : OFS_SUBNODE01) + (childOfsSize * childIdx), val);
+            store4Bytes(nodeOfs + nodeSize + (childOfsSize * childIdx), val);
         } else {
-            store3Bytes(nodeOfs + (collectingTwoTimeStamps ? OFS_SUBNODE02 : OFS_SUBNODE01) + (childOfsSize * childIdx), val);
+            store3Bytes(nodeOfs + nodeSize + (childOfsSize * childIdx), val);
         }
     }
 
     // -- Methods for setting data for individual nodes
     protected void setMethodIdForNodeOfs(int nodeOfs, int val) {
         store2Bytes(nodeOfs + OFS_METHODID, val);
+
+        if (hasWideMethodIds()) {
+            compactData[(nodeOfs + nodeSize) - METHODID_HIGH_BYTE_SIZE] = (byte) ((val >> 16) & 0xFF);
+        }
+    }
+
+    protected boolean hasWideMethodIds() {
+        return nodeSize > (collectingTwoTimeStamps ? OFS_SUBNODE02 : OFS_SUBNODE01);
     }
 
     protected void setNCallsForNodeOfs(int nodeOfs, int val) {
@@ -845,6 +863,10 @@ public class CPUCCTContainer {
         nodeSize = collectingTwoTimeStamps ? OFS_SUBNODE02 : OFS_SUBNODE01;
         childOfsSize = CHILD_OFS_SIZE_3;
 
+        if (cpuResSnapshot.getNInstrMethods() > 0x10000) { // method IDs do not fit into 2 bytes
+            nodeSize += METHODID_HIGH_BYTE_SIZE;
+        }
+
         int arraySize = (nodeSize * nNodes) + (childOfsSize * (nNodes - 1)); // For each node, except the root one, there is a parent node that references it with childOfsSize bytes long offset
 
         if (arraySize > 0xFFFFFF) { // compactData is to big to use 3 bytes subnode offsets
@@ -89,7 +89,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                             && (eventType != CommonConstants.METHOD_EXIT_MONITOR)
                             && (eventType != CommonConstants.METHOD_ENTRY_SLEEP) 
                             && (eventType != CommonConstants.METHOD_EXIT_SLEEP)) {
-                        methodId = buffer.getChar();
+                        methodId = getMethodId(buffer);
                     }
 
                     if ((eventType != CommonConstants.METHOD_ENTRY_UNSTAMPED) && (eventType != CommonConstants.METHOD_EXIT_UNSTAMPED)
@@ -349,7 +349,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                         case CommonConstants.BUFFEREVENT_PROFILEPOINT_HIT: {
                             int id = buffer.getChar();
                             long timeStamp = getTimeStamp(buffer);
-                            int threadId = buffer.getChar();
+                            int threadId = getThreadId(buffer);
                             if (LOGGER.isLoggable(Level.FINEST)) {
                                 LOGGER.finest("Profile Point Hit " + id + ", threadId=" + id + ", timeStamp=" + timeStamp); // NOI18N
                             }
@@ -358,7 +358,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                             break;
                         }
                         case CommonConstants.SET_FOLLOWING_EVENTS_THREAD: {
-                            currentThreadId = buffer.getChar();
+                            currentThreadId = getThreadId(buffer);
                             if (LOGGER.isLoggable(Level.FINEST)) {
                                 LOGGER.log(Level.FINEST, "Change current thread , tId={0}", currentThreadId); // NOI18N
                             }
@@ -366,7 +366,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                             break;
                         }
                         case CommonConstants.NEW_THREAD: {
-                            int threadId = buffer.getChar();
+                            int threadId = getThreadId(buffer);
                             String threadName = getString(buffer);
                             String threadClassName = getString(buffer);
 
@@ -32,7 +32,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -52,6 +51,7 @@ public class StackTraceSnapshotBuilder {
 
     static final char NAME_SIG_SPLITTER = '|';
     private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+    private static final int[] NO_FRAMES = new int[0];
     private static final boolean COLLECT_TWO_TIMESTAMPS = true;
     private static final Set<MethodInfo> knownBLockingMethods = new HashSet(Arrays.asList(new MethodInfo[] {
         new MethodInfo("java.net.PlainSocketImpl", "socketAccept[native]"), // NOI18N
@@ -193,6 +193,10 @@ public class StackTraceSnapshotBuilder {
     
     static class SampledThreadInfo {
         private StackTraceElement[] stackTrace;
+        // interned frame ids of stackTrace, assigned when the sample is processed
+        private int[] frames;
+        // hash codes of the stackTrace elements, computed when first compared
+        private int[] frameHashes;
         private Thread.State state;
         private String threadName;
         private long threadId;
@@ -235,7 +239,8 @@ public class StackTraceSnapshotBuilder {
         }
         
         private static boolean containsKnownBlockingMethod(StackTraceElement[] stackTrace) {
-            if (stackTrace.length > 0) {
+            // all known blocking methods are native
+            if (stackTrace.length > 0 && stackTrace[0].isNativeMethod()) {
                 MethodInfo firstFrame = new MethodInfo(stackTrace[0]);
                 return knownBLockingMethods.contains(firstFrame);
             }
@@ -246,6 +251,16 @@ public class StackTraceSnapshotBuilder {
             return stackTrace;
         }
 
+        private int[] getFrameHashes() {
+            if (frameHashes == null) {
+                frameHashes = new int[stackTrace.length];
+                for (int i = 0; i < stackTrace.length; i++) {
+                    frameHashes[i] = stackTrace[i].hashCode();
+                }
+            }
+            return frameHashes;
+        }
+
         State getThreadState() {
             return state;
         }
@@ -260,11 +275,14 @@ public class StackTraceSnapshotBuilder {
         
     }
     
-    final List<Long> threadIds = new ArrayList<>();
+    final Set<Long> threadIds = new HashSet<>();
     final List<String> threadNames = new ArrayList<>();
     final List<byte[]> threadCompactData = new ArrayList<>();
     final List<MethodInfo> methodInfos = new ArrayList<>();
     final Map<MethodInfo,Integer> methodInfoMap = new HashMap<>();
+    // interned stack frames: frame id -> method id
+    final Map<StackTraceElement,Integer> frameIdMap = new HashMap<>();
+    int[] frameMethodIds = new int[256];
     final MethodInfoMapper mapper = new MethodInfoMapper() {
         
         @Override
@@ -417,9 +435,8 @@ public class StackTraceSnapshotBuilder {
             }
             
             long threadId = tinfo.getThreadId();
-            if (!threadIds.contains(threadId)) {
+            if (threadIds.add(threadId)) {
                 long threadCpuTime = tinfo.threadCpuTime;
-                threadIds.add(threadId);
                 threadNames.add(tname);
                 ccgb.newThread((int) threadId, tname, "<none>");
                 if (threadCpuTime != -1) {
@@ -428,23 +445,23 @@ public class StackTraceSnapshotBuilder {
                     threadtimes.put(threadId,dumpTimeStamp);
                 }
             }
-            StackTraceElement[] newElements = tinfo.getStackTrace();
             SampledThreadInfo oldTinfo = lastStackTrace.get().get(threadId);
-            StackTraceElement[] oldElements = NO_STACK_TRACE;
+            int[] oldFrames = NO_FRAMES;
             Thread.State oldState = Thread.State.NEW;
             
             if (oldTinfo != null) {
-                oldElements = oldTinfo.getStackTrace();
+                oldFrames = oldTinfo.frames;
                 oldState = oldTinfo.getThreadState();
             }
-            processDiffs((int) threadId, oldElements, newElements, dumpTimeStamp, tinfo.threadCpuTime, timediff, oldState, newState);
+            tinfo.frames = internFrames(tinfo, oldTinfo);
+            processDiffs((int) threadId, oldFrames, tinfo.frames, dumpTimeStamp, tinfo.threadCpuTime, timediff, oldState, newState);
         }
         
         for (SampledThreadInfo oldTinfo : lastStackTrace.get().values()) {            
             if (!tinfoMap.containsKey(oldTinfo.getThreadId())) {
                 Thread.State oldState = oldTinfo.getThreadState();
                 Thread.State newState = Thread.State.TERMINATED;
-                processDiffs((int) oldTinfo.getThreadId(), oldTinfo.getStackTrace(), NO_STACK_TRACE, dumpTimeStamp, oldTinfo.threadCpuTime, timediff, oldState, newState);
+                processDiffs((int) oldTinfo.getThreadId(), oldTinfo.frames, NO_FRAMES, dumpTimeStamp, oldTinfo.threadCpuTime, timediff, oldState, newState);
             }
         }
         
@@ -468,7 +485,7 @@ public class StackTraceSnapshotBuilder {
         return timediff;
     }
     
-    private void processDiffs(int threadId, StackTraceElement[] oldElements, StackTraceElement[] newElements, long timestamp, long threadCpuTime, long timediff, Thread.State oldState, Thread.State newState) throws IllegalStateException {
+    private void processDiffs(int threadId, int[] oldFrames, int[] newFrames, long timestamp, long threadCpuTime, long timediff, Thread.State oldState, Thread.State newState) throws IllegalStateException {
         assert newState != Thread.State.NEW : "Invalid thread state " + newState.name() + " for taking a stack trace"; // just to be sure
         if (oldState == Thread.State.TERMINATED && newState != Thread.State.TERMINATED) {
             throw new IllegalStateException("Thread has already been set to " + Thread.State.TERMINATED.name() + " - stack trace can not be taken");
@@ -513,7 +530,7 @@ public class StackTraceSnapshotBuilder {
         //                System.out.println("!!!!!!!!!!!!!!!!!!!!!!!");
         //            }
         //        }
-        processDiffs(threadId, oldElements, newElements, timestamp, threadtime);
+        processDiffs(threadId, oldFrames, newFrames, timestamp, threadtime);
         //        switch (newState) {
         //            case RUNNABLE: {
         //                break;
@@ -530,109 +547,141 @@ public class StackTraceSnapshotBuilder {
         //        }
     }
     
-    private void processDiffs(int threadId, StackTraceElement[] oldElements, StackTraceElement[] newElements, long timestamp, long threadtimestamp) throws IllegalStateException {
-        if (oldElements.length == 0 && newElements.length == 0) {
+    private void processDiffs(int threadId, int[] oldFrames, int[] newFrames, long timestamp, long threadtimestamp) throws IllegalStateException {
+        if (oldFrames == newFrames) {
+            // unchanged stack
             return;
         }
         
-        int newMax = newElements.length - 1;
-        int oldMax = oldElements.length - 1;
-        int globalMax = Math.max(oldMax, newMax);
+        int newMax = newFrames.length - 1;
+        int oldMax = oldFrames.length - 1;
+        int commonMax = Math.min(oldMax, newMax);
+        int common = 0;
         
-        List<StackTraceElement> newElementsList = Collections.EMPTY_LIST;
-        List<StackTraceElement> oldElementsList = Collections.EMPTY_LIST;
-        
-        for (int iteratorIndex = 0; iteratorIndex <= globalMax; iteratorIndex++) {
-            StackTraceElement oldElement = oldMax >= iteratorIndex ? oldElements[oldMax - iteratorIndex] : null;
-            StackTraceElement newElement = newMax >= iteratorIndex ? newElements[newMax - iteratorIndex] : null;
-            
-            if (oldElement != null && newElement != null) {
-                if (!oldElement.equals(newElement)) {
-                    if (hasSameMethodInfo(oldElement,newElement)) {
-                        iteratorIndex++;
-                    }
-                    newElementsList = Arrays.asList(newElements).subList(0, newMax - iteratorIndex + 1);
-                    oldElementsList = Arrays.asList(oldElements).subList(0, oldMax - iteratorIndex + 1);
-                    break;
-                }
-            } else if (oldElement == null && newElement != null) {
-                newElementsList = Arrays.asList(newElements).subList(0, newMax - iteratorIndex + 1);
-                break;
-                
-            } else if (oldElement != null && newElement == null) {
-                oldElementsList = Arrays.asList(oldElements).subList(0, oldMax - iteratorIndex + 1);
-                break;
-                
-            }
+        // frames are stored top first, skip the unchanged frames from the root
+        while (common <= commonMax && oldFrames[oldMax - common] == newFrames[newMax - common]) {
+            common++;
+        }
+        // same method at a different line - keep it entered
+        if (common <= commonMax && frameMethodIds[oldFrames[oldMax - common]] == frameMethodIds[newFrames[newMax - common]]) {
+            common++;
         }
         
         // !!! The order is important - first we need to exit from the
         // already entered methods and only then we can enter the new ones !!!
-        addMethodExits(threadId, oldElementsList, timestamp, threadtimestamp, newElements.length == 0);
-        addMethodEntries(threadId, newElementsList, timestamp, threadtimestamp, oldElements.length == 0);
+        addMethodExits(threadId, oldFrames, oldFrames.length - common, timestamp, threadtimestamp, newFrames.length == 0);
+        addMethodEntries(threadId, newFrames, newFrames.length - common, timestamp, threadtimestamp, oldFrames.length == 0);
     }
     
-    private void addMethodEntries(int threadId, List<StackTraceElement> elements, long timestamp, long threadtimestamp, boolean asRoot) throws IllegalStateException {
+    private void addMethodEntries(int threadId, int[] frames, int count, long timestamp, long threadtimestamp, boolean asRoot) throws IllegalStateException {
         boolean inRoot = false;
-        ListIterator<StackTraceElement> reverseIt = elements.listIterator(elements.size());
         
-        while(reverseIt.hasPrevious()) {
-            StackTraceElement element = reverseIt.previous();
-            MethodInfo mi = new MethodInfo(element);
-            Integer mId = methodInfoMap.get(mi);
-            if (mId == null) {
-                mId = registerNewMethodInfo(mi);
-                if (status != null) {
-                    String method = mi.methodName;
-                    int index = method.indexOf('(');
-                    if (index > 0) {
-                        method = method.substring(0,index);
-                    }
-                    status.updateInstrMethodsInfo(mi.className,0,method,mi.signature);
-                }
-            }
+        for (int i = count - 1; i >= 0; i--) {
+            int mId = frameMethodIds[frames[i]];
             
             if (asRoot && !inRoot) {
                 inRoot = true;
-                ccgb.methodEntry(mId.intValue(), threadId, CPUCallGraphBuilder.METHODTYPE_ROOT, timestamp, threadtimestamp, null, null);
+                ccgb.methodEntry(mId, threadId, CPUCallGraphBuilder.METHODTYPE_ROOT, timestamp, threadtimestamp, null, null);
             } else {
-                ccgb.methodEntry(mId.intValue(), threadId, CPUCallGraphBuilder.METHODTYPE_NORMAL, timestamp, threadtimestamp, null, null);
+                ccgb.methodEntry(mId, threadId, CPUCallGraphBuilder.METHODTYPE_NORMAL, timestamp, threadtimestamp, null, null);
             }
-            
         }
     }
-
-    private Integer registerNewMethodInfo(final MethodInfo mi) {
-        Integer index = Integer.valueOf(methodInfos.size());
-        
-        methodInfos.add(mi);
-        methodInfoMap.put(mi,index);
-        return index;
+    
+    private void addMethodExits(int threadId, int[] frames, int count, long timestamp, long threadtimestamp, boolean asRoot) throws IllegalStateException {
+        for (int i = 0; i < count; i++) {
+            int mId = frameMethodIds[frames[i]];
+            
+            if (asRoot && i == count - 1) {
+                ccgb.methodExit(mId, threadId, CPUCallGraphBuilder.METHODTYPE_ROOT, timestamp, threadtimestamp, null);
+            } else {
+                ccgb.methodExit(mId, threadId, CPUCallGraphBuilder.METHODTYPE_NORMAL, timestamp, threadtimestamp, null);
+            }
+        }
     }
     
-    private void addMethodExits(int threadId, List<StackTraceElement> elements, long timestamp, long threadtimestamp, boolean asRoot) throws IllegalStateException {
-        int rootIndex = elements.size();
-        for (StackTraceElement element : elements) {
-            MethodInfo mi = new MethodInfo(element);
-            Integer index = methodInfoMap.get(mi);
-            if (index == null) {
-                System.err.println("*** Not found: " + mi);
-                throw new IllegalStateException();
+    private int[] internFrames(SampledThreadInfo tinfo, SampledThreadInfo oldTinfo) {
+        StackTraceElement[] elements = tinfo.getStackTrace();
+        int max = elements.length - 1;
+        int common = 0;
+        
+        if (oldTinfo != null) {
+            StackTraceElement[] oldElements = oldTinfo.getStackTrace();
+            
+            if (elements == oldElements) {
+                return oldTinfo.frames;
             }
+            int oldMax = oldElements.length - 1;
+            int[] hashes = tinfo.getFrameHashes();
+            int[] oldHashes = oldTinfo.getFrameHashes();
             
-            if (asRoot && --rootIndex == 0) {
-                ccgb.methodExit(index.intValue(), threadId, CPUCallGraphBuilder.METHODTYPE_ROOT, timestamp, threadtimestamp, null);
-            } else {
-                ccgb.methodExit(index.intValue(), threadId, CPUCallGraphBuilder.METHODTYPE_NORMAL, timestamp, threadtimestamp, null);
+            // frames shared with the previous sample keep their ids, only the changed part is looked up,
+            // equals() is only called for distinct elements with the same hash code
+            while (common <= max && common <= oldMax) {
+                StackTraceElement element = elements[max - common];
+                StackTraceElement oldElement = oldElements[oldMax - common];
+                
+                if (element != oldElement && (hashes[max - common] != oldHashes[oldMax - common] || !element.equals(oldElement))) {
+                    break;
+                }
+                common++;
+            }
+            if (common == elements.length && common == oldElements.length) {
+                return oldTinfo.frames;
+            }
+        }
+        if (elements.length == 0) {
+            return NO_FRAMES;
+        }
+        int[] frames = new int[elements.length];
+        
+        if (common > 0) {
+            int[] oldFrames = oldTinfo.frames;
+            System.arraycopy(oldFrames, oldFrames.length - common, frames, frames.length - common, common);
+        }
+        // intern from the root so that new methods get registered in the call order
+        for (int i = max - common; i >= 0; i--) {
+            Integer frameId = frameIdMap.get(elements[i]);
+            
+            if (frameId == null) {
+                frameId = registerNewFrame(elements[i]);
+            }
+            frames[i] = frameId.intValue();
+        }
+        return frames;
+    }
+    
+    private Integer registerNewFrame(StackTraceElement element) {
+        MethodInfo mi = new MethodInfo(element);
+        Integer mId = methodInfoMap.get(mi);
+        
+        if (mId == null) {
+            mId = registerNewMethodInfo(mi);
+            if (status != null) {
+                String method = mi.methodName;
+                int index = method.indexOf('(');
+                if (index > 0) {
+                    method = method.substring(0,index);
+                }
+                status.updateInstrMethodsInfo(mi.className,0,method,mi.signature);
             }
         }
+        Integer frameId = Integer.valueOf(frameIdMap.size());
+        
+        if (frameId.intValue() == frameMethodIds.length) {
+            frameMethodIds = Arrays.copyOf(frameMethodIds, frameMethodIds.length * 2);
+        }
+        frameMethodIds[frameId.intValue()] = mId.intValue();
+        frameIdMap.put(element, frameId);
+        return frameId;
     }
     
-    private boolean hasSameMethodInfo(StackTraceElement oldElement, StackTraceElement newElement) {
-        MethodInfo oldMethodInfo = new MethodInfo(oldElement);
-        MethodInfo newMethodInfo = new MethodInfo(newElement);
+    private Integer registerNewMethodInfo(final MethodInfo mi) {
+        Integer index = Integer.valueOf(methodInfos.size());
         
-        return oldMethodInfo.equals(newMethodInfo);
+        methodInfos.add(mi);
+        methodInfoMap.put(mi,index);
+        return index;
     }
     
     private void setDefaultTiming() {
@@ -689,6 +738,7 @@ public class StackTraceSnapshotBuilder {
             }
             methodInfos.clear();
             methodInfoMap.clear();
+            frameIdMap.clear();
             threadIds.clear();
             threadNames.clear();
             stackTraceCount = 0;
@@ -56,7 +56,7 @@ public class LockDataFrameProcessor extends AbstractLockDataFrameProcessor {
                 case CommonConstants.BUFFEREVENT_PROFILEPOINT_HIT: {
                     int id = buffer.getChar();
                     long timeStamp = getTimeStamp(buffer);
-                    int threadId = buffer.getChar();
+                    int threadId = getThreadId(buffer);
                     if (LOGGER.isLoggable(Level.FINEST)) {
                         LOGGER.finest("Profile Point Hit " + id + ", threadId=" + id + ", timeStamp=" + timeStamp); // NOI18N
                     }
@@ -66,7 +66,7 @@ public class LockDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.SET_FOLLOWING_EVENTS_THREAD: {
-                    currentThreadId = buffer.getChar();
+                    currentThreadId = getThreadId(buffer);
                     if (LOGGER.isLoggable(Level.FINEST)) {
                         LOGGER.log(Level.FINEST, "Change current thread , tId={0}", currentThreadId); // NOI18N
                     }
@@ -74,7 +74,7 @@ public class LockDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.NEW_THREAD: {
-                    int threadId = buffer.getChar();
+                    int threadId = getThreadId(buffer);
                     String threadName = getString(buffer);
                     String threadClassName = getString(buffer);
 
@@ -350,15 +350,15 @@ public class LockGraphBuilder extends BaseCallGraphBuilder implements LockProfil
     public static final class MemoryLockGraphBuilder extends LockGraphBuilder implements MemoryProfilingResultsListener {
 
         @Override
-        public void onAllocStackTrace(char classId, long objSize, int[] methodIds) {
+        public void onAllocStackTrace(int classId, long objSize, int[] methodIds) {
         }
 
         @Override
-        public void onGcPerformed(char classId, long objectId, int objEpoch) {
+        public void onGcPerformed(int classId, long objectId, int objEpoch) {
         }
 
         @Override
-        public void onLivenessStackTrace(char classId, long objectId, int objEpoch, long objSize, int[] methodIds) {
+        public void onLivenessStackTrace(int classId, long objectId, int objEpoch, long objSize, int[] methodIds) {
         }
         
     }
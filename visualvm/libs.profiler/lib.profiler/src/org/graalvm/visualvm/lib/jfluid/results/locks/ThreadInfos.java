@@ -60,7 +60,10 @@ final class ThreadInfos {
             threadInfos = newInfos;
             threadInfosLastIdx = threadId;
         }
-        threadInfos[threadId] = new ThreadInfo(threadId, threadName, threadClassName);
+        // The agent can reuse the id of a finished virtual thread; keep the existing entry so that its lock data is not lost
+        if (threadInfos[threadId] == null) {
+            threadInfos[threadId] = new ThreadInfo(threadId, threadName, threadClassName);
+        }
     }
 
     void reset() {
@@ -372,7 +372,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         }
     }
 
-    public void onAllocStackTrace(char classId, long objSize, int[] methodIds) {
+    public void onAllocStackTrace(int classId, long objSize, int[] methodIds) {
         RuntimeObjAllocTermCCTNode termNode = (RuntimeObjAllocTermCCTNode) processStackTrace(classId, methodIds, false);
 
         if (termNode != null) {
@@ -383,7 +383,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         batchNotEmpty = true;
     }
 
-    public void onGcPerformed(char classId, long objectId, int objEpoch) {
+    public void onGcPerformed(int classId, long objectId, int objEpoch) {
         if (currentEpoch < objEpoch) {
             currentEpoch = objEpoch;
         }
@@ -403,7 +403,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         batchNotEmpty = true;
     }
 
-    public void onLivenessStackTrace(char classId, long objectId, int objEpoch, long objSize, int[] methodIds) {
+    public void onLivenessStackTrace(int classId, long objectId, int objEpoch, long objSize, int[] methodIds) {
         if (getClient().getCurrentInstrType() != CommonConstants.INSTR_OBJECT_LIVENESS) {
             return; // ignore liveness events when not in appropriate mode
         }
@@ -659,7 +659,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
      * class. Adds new nodes and/or increases allocated object counters/size in nodes. Returns the terminating
      * node in the resulting CCT branch.
      */
-    private RuntimeMemoryCCTNode processStackTrace(char classId, int[] methodIds, boolean live) {
+    private RuntimeMemoryCCTNode processStackTrace(int classId, int[] methodIds, boolean live) {
         if (classId >= stacksForClasses.length) {
             ProfilerLogger.severe("Received stack for non existent class Id: " + (int) classId + ", current length: " + stacksForClasses.length); // NOI18N
             updateNumberOfClasses();
@@ -47,12 +47,12 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
 
             switch (eventType) {
                 case CommonConstants.OBJ_ALLOC_STACK_TRACE: {
-                    char classId = buffer.getChar();
+                    int classId = getMethodId(buffer);
                     long objSize = getObjSize(buffer);
                     int depth = getDepth(buffer);
 
                     if (LOGGER.isLoggable(Level.FINEST)) {
-                        LOGGER.finest("Allocation stack trace: classId=" + (int) classId + ", objSize=" + objSize + ", depth=" + depth); // NOI18N
+                        LOGGER.finest("Allocation stack trace: classId=" + classId + ", objSize=" + objSize + ", depth=" + depth); // NOI18N
                     }
 
                     int[] methodIds = new int[depth];
@@ -66,21 +66,20 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.OBJ_LIVENESS_STACK_TRACE: {
-                    char classId = buffer.getChar();
+                    int classId = getMethodId(buffer);
                     int objEpoch = buffer.getChar();
 
                     if (objEpoch > currentEpoch) {
                         currentEpoch = objEpoch; // objEpoch may be < currentEpoch if e.g. the GC event is being processed
                     }
 
-                    long objectId = ((((long) classId) & 0xFFFF) << 48) | ((((long) objEpoch) & 0xFFFF) << 32)
-                                    | (((long) buffer.getInt()) & 0xFFFFFFFF);
+                    long objectId = getObjectId(classId, objEpoch, buffer.getInt());
                     long objSize = getObjSize(buffer);
 
                     int depth = getDepth(buffer);
 
                     if (LOGGER.isLoggable(Level.FINEST)) {
-                        LOGGER.finest("Liveness stack trace: classId=" + (int) classId + ", objectId=" + objectId + ", objEpoch=" //NOI18N
+                        LOGGER.finest("Liveness stack trace: classId=" + classId + ", objectId=" + objectId + ", objEpoch=" //NOI18N
                                       + objEpoch + ", objSize=" + objSize + ", depth=" + depth); // NOI18N
                     }
 
@@ -95,18 +94,17 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.OBJ_GC_HAPPENED: {
-                    char classId = buffer.getChar();
+                    int classId = getMethodId(buffer);
                     int objEpoch = buffer.getChar();
 
                     if (objEpoch > currentEpoch) {
                         currentEpoch = objEpoch; // objEpoch may be < currentEpoch if e.g. the GC event is being processed
                     }
 
-                    long objectId = ((((long) classId) & 0xFFFF) << 48) | ((((long) objEpoch) & 0xFFFF) << 32)
-                                    | (((long) buffer.getInt()) & 0xFFFFFFFF);
+                    long objectId = getObjectId(classId, objEpoch, buffer.getInt());
 
                     if (LOGGER.isLoggable(Level.FINEST)) {
-                        LOGGER.finest("GC Performed: classId=" + (int) classId + ", objectId=" + objectId + ", objEpoch=" + objEpoch); // NOI18N
+                        LOGGER.finest("GC Performed: classId=" + classId + ", objectId=" + objectId + ", objEpoch=" + objEpoch); // NOI18N
                     }
 
                     fireGCPerformed(classId, objectId, objEpoch);
@@ -125,7 +123,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                 case CommonConstants.BUFFEREVENT_PROFILEPOINT_HIT: {
                     int id = buffer.getChar();
                     long timeStamp = getTimeStamp(buffer);
-                    int threadId = buffer.getChar();
+                    int threadId = getThreadId(buffer);
                     if (LOGGER.isLoggable(Level.FINEST)) {
                         LOGGER.finest("Profile Point Hit " + id + ", threadId=" + id + ", timeStamp=" + timeStamp); // NOI18N
                     }
@@ -135,7 +133,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.SET_FOLLOWING_EVENTS_THREAD: {
-                    currentThreadId = buffer.getChar();
+                    currentThreadId = getThreadId(buffer);
                     if (LOGGER.isLoggable(Level.FINEST)) {
                         LOGGER.log(Level.FINEST, "Change current thread , tId={0}", currentThreadId); // NOI18N
                     }
@@ -143,7 +141,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.NEW_THREAD: {
-                    int threadId = buffer.getChar();
+                    int threadId = getThreadId(buffer);
                     String threadName = getString(buffer);
                     String threadClassName = getString(buffer);
 
@@ -213,7 +211,15 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
         }
     }
 
-    private void fireAllocStackTrace(final char classId, final long objSize, final int[] methodIds) {
+    /**
+     * Packs class id (24 bits), the low byte of the allocation epoch and the per-class allocation count into an object id.
+     * The epoch is kept to tell apart objects reported before and after a collectors reset, which restarts the counts.
+     */
+    private static long getObjectId(int classId, int objEpoch, int objCount) {
+        return ((((long) classId) & 0xFFFFFF) << 40) | ((((long) objEpoch) & 0xFF) << 32) | (((long) objCount) & 0xFFFFFFFFL);
+    }
+
+    private void fireAllocStackTrace(final int classId, final long objSize, final int[] methodIds) {
         foreachListener(new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     try {
@@ -225,7 +231,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
             });
     }
 
-    private void fireGCPerformed(final char classId, final long objectId, final int objEpoch) {
+    private void fireGCPerformed(final int classId, final long objectId, final int objEpoch) {
         foreachListener(new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((MemoryProfilingResultsListener) listener).onGcPerformed(classId, objectId, objEpoch);
@@ -233,7 +239,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
             });
     }
 
-    private void fireLivenessStackTrace(final char classId, final long objectId, final int objEpoch, final long objSize,
+    private void fireLivenessStackTrace(final int classId, final long objectId, final int objEpoch, final long objSize,
                                         final int[] methodIds) {
         foreachListener(new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
@@ -35,9 +35,9 @@ import org.graalvm.visualvm.lib.jfluid.results.locks.LockProfilingResultListener
 public interface MemoryProfilingResultsListener extends LockProfilingResultListener {
     //~ Methods ------------------------------------------------------------------------------------------------------------------
 
-    void onAllocStackTrace(char classId, long objSize, int[] methodIds);
+    void onAllocStackTrace(int classId, long objSize, int[] methodIds);
 
-    void onGcPerformed(char classId, long objectId, int objEpoch);
+    void onGcPerformed(int classId, long objectId, int objEpoch);
 
-    void onLivenessStackTrace(char classId, long objectId, int objEpoch, long objSize, int[] methodIds);
+    void onLivenessStackTrace(int classId, long objectId, int objEpoch, long objSize, int[] methodIds);
 }
@@ -30,14 +30,14 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import org.graalvm.visualvm.lib.jfluid.global.CommonConstants;
-import org.graalvm.visualvm.lib.jfluid.global.Platform;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
 
 /**
  * Target VM-side management of the shared-memory event buffer file, through which rough profiling data
- * is transmitted to the client.
+ * is transmitted to the client. The file is a ring of EVENT_BUFFER_SLOTS slots, filled in turn, so that the
+ * client can process one slot while the next one is being filled.
  *
  * @author Tomas Hurka
  * @author Misha Dmitriev
@@ -58,6 +58,8 @@ public class EventBufferManager implements CommonConstants {
     private boolean bufFileOk;
     private boolean bufFileSent;
     private boolean remoteProfiling;
+    private int slotSize;
+    private long nDumps;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
@@ -87,8 +89,10 @@ public class EventBufferManager implements CommonConstants {
                 System.err.println("EventBufferManager.DEBUG: Dumping to file: startPos:" + startPos + ", length:" + length); // NOI18N
             }
 
-            mapByteBuf.reset();
-            mapByteBuf.put(eventBuffer, startPos, length);
+            if (length > 0) { // the client does not read a slot for an empty dump
+                mapByteBuf.position(EVENT_BUFFER_FILE_HEADER_SIZE + (int) (nDumps++ % EVENT_BUFFER_SLOTS) * slotSize);
+                mapByteBuf.put(eventBuffer, startPos, length);
+            }
             bufFileOk = profilerServer.sendEventBufferDumpedCommand(length, bufFileSent ? "": getBufferFileName());
             bufFileSent = true;
         } else {
@@ -134,21 +138,18 @@ public class EventBufferManager implements CommonConstants {
 
             // Bugfix: http://profiler.netbeans.org/issues/show_bug.cgi?id=59166
             // Summary: Temporary communication file should be accessible for all users
-            // Bugfix details: As it does not seem to be possible to set the file permissions using Java code
-            //                 we explicitely invoke chmod on the newly created buffer file if we are on UNIX
-            if (Platform.isUnix()) {
-                try {
-                    Runtime.getRuntime().exec(new String[] { "chmod", "666", bufFileName }); // NOI18N
-                } catch (Exception e) {
-                    System.err.println("*** JFluid Warning: Failed to set access permissions on temporary buffer file, you may not be able to attach as a different user: " + e.getMessage()); // NOI18N
-                }
+            if (!bufFile.setReadable(true, false) || !bufFile.setWritable(true, false)) {
+                System.err.println("*** JFluid Warning: Failed to set access permissions on temporary buffer file, you may not be able to attach as a different user"); // NOI18N
             }
 
             raFile = new RandomAccessFile(bufFile, "rw"); // NOI18N
             bufFileChannel = raFile.getChannel();
-            mapByteBuf = bufFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, sizeInBytes);
-            mapByteBuf.rewind();
-            mapByteBuf.mark();
+            slotSize = sizeInBytes;
+            nDumps = 0;
+            mapByteBuf = bufFileChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                            EVENT_BUFFER_FILE_HEADER_SIZE + (long) EVENT_BUFFER_SLOTS * slotSize);
+            mapByteBuf.putInt(EVENT_BUFFER_SLOTS);
+            mapByteBuf.putInt(slotSize);
             bufFileOk = true;
         } catch (FileNotFoundException ex1) {
             System.err.println("Profiler Agent Error: FileNotFoundException in EventBufferManager.openBufferFile - should not happen!"); // NOI18N
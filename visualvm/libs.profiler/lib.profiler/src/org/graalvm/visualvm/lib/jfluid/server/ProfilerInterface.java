@@ -416,6 +416,8 @@ public class ProfilerInterface implements CommonConstants {
         status.beginTrans(false);
 
         try {
+            ProfilerRuntimeObjAlloc.sumAllocatedInstancesCount(status.getAllocatedInstancesCount());
+
             ObjectAllocationResultsResponse resp = new ObjectAllocationResultsResponse(status.getAllocatedInstancesCount(),
                                                                                        status.getNInstrClasses());
 
@@ -569,7 +571,7 @@ public class ProfilerInterface implements CommonConstants {
         }
 
         ProfilerRuntime.init(new ProfilerRuntime.ExternalActionsHandler() {
-                public void handleFirstTimeMethodInvoke(char methodId) {
+                public void handleFirstTimeMethodInvoke(int methodId) {
                     firstTimeMethodInvokeHook(methodId);
                 }
 
@@ -1111,7 +1113,7 @@ public class ProfilerInterface implements CommonConstants {
         }
     }
 
-    private static void firstTimeMethodInvokeHook(char methodId) {
+    private static void firstTimeMethodInvokeHook(int methodId) {
         serialClientOperationsLock.beginTrans(true);
 
         try {
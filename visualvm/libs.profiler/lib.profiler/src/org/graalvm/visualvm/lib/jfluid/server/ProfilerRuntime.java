@@ -49,13 +49,37 @@ public class ProfilerRuntime implements CommonConstants {
 
         public void handleEventBufferDump(byte[] eventBuffer, int startPos, int curPtrPos);
 
-        public void handleFirstTimeMethodInvoke(char methodId);
+        public void handleFirstTimeMethodInvoke(int methodId);
 
         public int handleFirstTimeVMObjectAlloc(String className, int definingClassLoaderId);
 
         public void handleReflectiveInvoke(Method method);
     }
 
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    // Part of a thread-local event buffer handed off to be copied into the global buffer
+    private static final class EventSegment {
+        //~ Instance fields ------------------------------------------------------------------------------------------------------
+
+        final byte[] buffer;
+        final int endPos;
+        final int epoch;
+        final int startPos;
+        final int threadId;
+        EventSegment next; // Guarded by eventSegmentsLock
+
+        //~ Constructors ---------------------------------------------------------------------------------------------------------
+
+        EventSegment(int threadId, byte[] buffer, int startPos, int endPos, int epoch) {
+            this.threadId = threadId;
+            this.buffer = buffer;
+            this.startPos = startPos;
+            this.endPos = endPos;
+            this.epoch = epoch;
+        }
+    }
+
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
     private static final boolean DEBUG = false;
@@ -67,6 +91,19 @@ public class ProfilerRuntime implements CommonConstants {
     protected static int globalEvBufPos;
     protected static int globalEvBufPosThreshold;
     protected static volatile boolean sendingBuffer;
+    static final int MAX_THREAD_ID_SIZE = 5; // Thread ids are written as variable-length integers, see writeThreadId()
+    static final int MAX_METHOD_ID_SIZE = 5; // Method and class ids are written the same way, see writeMethodId()
+
+    // Filled thread-local buffers handed off by copyLocalBuffer(), waiting to be copied into the global buffer.
+    // The list and the draining flag are guarded by eventSegmentsLock, which is held only briefly and never while
+    // acquiring another lock.
+    private static final int MAX_PENDING_EVENT_SEGMENTS = 64;
+    private static final Object eventSegmentsLock = new Object();
+    private static EventSegment firstPendingEventSegment;
+    private static EventSegment lastPendingEventSegment;
+    private static int pendingEventSegmentsCount;
+    private static boolean drainingEventSegments;
+    private static volatile int eventSegmentsEpoch;
     private static boolean printEvents; // For debugging
     private volatile static Set knownMonitors;
 
@@ -92,6 +129,9 @@ public class ProfilerRuntime implements CommonConstants {
         synchronized (eventBuffer) {
             sendingBuffer = true;
 
+            // Copy the segments already handed off by application threads first, so that the events of each thread stay in order
+            drainEventSegments();
+
             // Dump the info from all thread-local buffers (if they are not null) into the global buffer
             ThreadInfo[] tis = ThreadInfo.getThreadInfos();
 
@@ -102,21 +142,27 @@ public class ProfilerRuntime implements CommonConstants {
                     continue;
                 }
 
-                int curPos = ti.evBufPos; // Guaranteed to be at event boundary
+                synchronized (ti) { // Prevents the owner thread from handing off its buffer while we are reading it
+                    // The thread may have handed off another segment since the drain above; it has to go first
+                    drainEventSegments();
 
-                if (((globalEvBufPos + curPos) - ti.evBufDumpLastPos) > globalEvBufPosThreshold) {
-                    break; // We don't try to perform more than one global buffer dumps yet
-                }
+                    byte[] evBuf = ti.evBuf;
+                    int curPos = ti.evBufPos; // Guaranteed to be at event boundary
 
-                int evBufSize = curPos - ti.evBufDumpLastPos;
+                    if (((globalEvBufPos + curPos) - ti.evBufDumpLastPos) > globalEvBufPosThreshold) {
+                        externalActionsHandler.handleEventBufferDump(eventBuffer, 0, globalEvBufPos);
+                        globalEvBufPos = 0;
+                    }
 
-                if (evBufSize > 0) {
-                    eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
-                    eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 8) & 0xFF);
-                    eventBuffer[globalEvBufPos++] = (byte) (ti.threadId & 0xFF);
-                    System.arraycopy(ti.evBuf, ti.evBufDumpLastPos, eventBuffer, globalEvBufPos, evBufSize);
-                    globalEvBufPos += evBufSize;
-                    ti.evBufDumpLastPos = curPos;
+                    int evBufSize = curPos - ti.evBufDumpLastPos;
+
+                    if ((evBuf != null) && (evBufSize > 0)) {
+                        eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
+                        globalEvBufPos = writeThreadId(eventBuffer, globalEvBufPos, ti.threadId);
+                        System.arraycopy(evBuf, ti.evBufDumpLastPos, eventBuffer, globalEvBufPos, evBufSize);
+                        globalEvBufPos += evBufSize;
+                        ti.evBufDumpLastPos = curPos;
+                    }
                 }
             }
 
@@ -126,73 +172,193 @@ public class ProfilerRuntime implements CommonConstants {
         }
     }
 
+    /**
+     * Hands off the filled part of the thread-local buffer. The buffer is swapped for an empty one and queued as a segment,
+     * which is copied into the global buffer by whichever thread currently drains the queue. The calling thread only
+     * waits for the global buffer when too many segments are pending, so application threads are not serialized on the
+     * global buffer lock while it is being sent.
+     */
     protected static void copyLocalBuffer(ThreadInfo ti) {
-        long absTimeStamp = 0;
-        long threadTimeStamp = 0;
-
         // Copy the local buffer into the main buffer - however avoid doing that if we have already reset profiler collectors
         if (eventBuffer == null) {
             return;
         }
 
-        boolean needToAdjustTime = false;
-
-        if (sendingBuffer) { // Some other thread is already sending the buffer contents
-            absTimeStamp = Timers.getCurrentTimeInCounts();
-            if (ProfilerRuntimeCPU.threadCPUTimerOn) threadTimeStamp = Timers.getThreadCPUTimeInNanos();
+        int pending = handOffLocalBuffer(ti);
 
-            synchronized (eventBuffer) { // Wait on the lock. When it's free, buffer has been sent and reset
+        if (pending > MAX_PENDING_EVENT_SEGMENTS) {
+            // The queue is not drained fast enough, most likely the global buffer is being sent right now. Wait for it and
+            // write the ADJUST_TIME event into the local buffer, so that the time spent waiting is not attributed to the method.
+            long absTimeStamp = Timers.getCurrentTimeInCounts();
+            long threadTimeStamp = ProfilerRuntimeCPU.threadCPUTimerOn ? Timers.getThreadCPUTimeInNanos() : 0;
+            byte[] evBuf = eventBuffer;
 
-                if (sendingBuffer) {
-                    System.err.println("*** Sanity check failed - sendingBuffer where should have been already sent"); // NOI18N
+            if (evBuf != null) {
+                synchronized (evBuf) {
+                    drainEventSegments();
                 }
+            }
+
+            writeAdjustTimeEvent(ti, absTimeStamp, threadTimeStamp);
+        } else if (pending > 0) {
+            long absTimeStamp = Timers.getCurrentTimeInCounts();
+            long threadTimeStamp = ProfilerRuntimeCPU.threadCPUTimerOn ? Timers.getThreadCPUTimeInNanos() : 0;
 
-                needToAdjustTime = true;
+            // If we sent the global buffer ourselves, write the ADJUST_TIME event into the local buffer
+            if (tryDrainEventSegments()) {
+                writeAdjustTimeEvent(ti, absTimeStamp, threadTimeStamp);
             }
         }
+    }
+
+    /**
+     * Queues the filled part of the thread-local buffer and swaps in an empty buffer.
+     *
+     * @return number of pending segments, 0 if there was nothing to hand off
+     */
+    static int handOffLocalBuffer(ThreadInfo ti) {
+        return handOffLocalBuffer(ti, true);
+    }
+
+    /**
+     * Queues the filled part of the thread-local buffer. If replaceBuffer is false, the thread is finished and is left
+     * without a buffer when its buffer has been handed off.
+     *
+     * @return number of pending segments, 0 if there was nothing to hand off
+     */
+    static int handOffLocalBuffer(ThreadInfo ti, boolean replaceBuffer) {
+        synchronized (ti) { // Only contended by dumpEventBuffer(), never by other application threads
+            int epoch = eventSegmentsEpoch; // Read before isInitialized(), see doResetProfilerCollectors()
 
-        synchronized (eventBuffer) {
             if (!ti.isInitialized()) {
-                return; // Reset collectors performed when we were already executing instrumentation code
+                return 0; // Reset collectors performed when we were already executing instrumentation code
             }
 
+            byte[] evBuf = ti.evBuf;
             int curPos = ti.evBufPos;
-
-            // First check if the global buffer itself needs to be dumped
             int evBufDumpLastPos = ti.evBufDumpLastPos;
 
-            if (((globalEvBufPos + curPos) - evBufDumpLastPos) > globalEvBufPosThreshold) {
-                sendingBuffer = true;
+            ti.evBufPos = 0;
+            ti.evBufDumpLastPos = 0;
+
+            if ((evBuf == null) || (curPos <= evBufDumpLastPos)) {
+                return 0;
+            }
 
-                if (!needToAdjustTime) {
-                    absTimeStamp = Timers.getCurrentTimeInCounts();
-                    if (ProfilerRuntimeCPU.threadCPUTimerOn) threadTimeStamp = Timers.getThreadCPUTimeInNanos();
-                    needToAdjustTime = true;
+            if (!replaceBuffer) {
+                ti.evBuf = null;
+            } else if (evBuf.length == ThreadInfo.evBufSize) {
+                ti.evBuf = ThreadInfo.allocateEventBuffer();
+            } else {
+                ti.evBuf = new byte[evBuf.length];
+            }
+
+            return offerEventSegment(new EventSegment(ti.threadId, evBuf, evBufDumpLastPos, curPos, epoch));
+        }
+    }
+
+    /** @return number of pending segments including the new one */
+    private static int offerEventSegment(EventSegment segment) {
+        synchronized (eventSegmentsLock) {
+            if (lastPendingEventSegment == null) {
+                firstPendingEventSegment = segment;
+            } else {
+                lastPendingEventSegment.next = segment;
+            }
+
+            lastPendingEventSegment = segment;
+
+            return ++pendingEventSegmentsCount;
+        }
+    }
+
+    private static EventSegment pollEventSegment() {
+        synchronized (eventSegmentsLock) {
+            EventSegment segment = firstPendingEventSegment;
+
+            if (segment != null) {
+                firstPendingEventSegment = segment.next;
+                segment.next = null;
+                pendingEventSegmentsCount--;
+
+                if (firstPendingEventSegment == null) {
+                    lastPendingEventSegment = null;
                 }
+            }
 
-                externalActionsHandler.handleEventBufferDump(eventBuffer, 0, globalEvBufPos);
-                globalEvBufPos = 0;
-                sendingBuffer = false;
+            return segment;
+        }
+    }
+
+    /**
+     * Drains the pending segments unless some other thread is already doing that.
+     *
+     * @return true if the global buffer has been sent by the calling thread
+     */
+    private static boolean tryDrainEventSegments() {
+        boolean bufferSent = false;
+
+        // The loop makes sure that a segment queued just before the other thread released the flag is not left behind
+        while (true) {
+            synchronized (eventSegmentsLock) {
+                if ((firstPendingEventSegment == null) || drainingEventSegments) {
+                    return bufferSent;
+                }
+
+                drainingEventSegments = true;
             }
-            
-            // check that we still have valid eventBuffer
-            if (eventBuffer != null) {
-                // Finally copy the local buffer into the global one
-                eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
-                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 8) & 0xFF);
-                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId) & 0xFF);
-                System.arraycopy(ti.evBuf, evBufDumpLastPos, eventBuffer, globalEvBufPos, curPos - evBufDumpLastPos);
-                globalEvBufPos += (curPos - evBufDumpLastPos);
-                ti.evBufPos = 0;
-                ti.evBufDumpLastPos = 0;
-
-                // Now, if we previously spent time waiting for another thread to dump the global buffer, or doing that
-                // ourselves, write the ADJUST_TIME event into the local buffer
-                if (needToAdjustTime) {
-                    writeAdjustTimeEvent(ti, absTimeStamp, threadTimeStamp);
+
+            try {
+                byte[] evBuf = eventBuffer;
+
+                if (evBuf != null) {
+                    synchronized (evBuf) {
+                        bufferSent |= drainEventSegments();
+                    }
+                }
+            } finally {
+                synchronized (eventSegmentsLock) {
+                    drainingEventSegments = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the pending segments into the global buffer, sending the global buffer whenever it fills up.
+     * Must be called with the eventBuffer lock held.
+     *
+     * @return true if the global buffer has been sent
+     */
+    private static boolean drainEventSegments() {
+        boolean bufferSent = false;
+        EventSegment segment;
+
+        while ((segment = pollEventSegment()) != null) {
+
+            // Segments queued before the last reset of profiler collectors are stale
+            if ((eventBuffer != null) && (segment.epoch == eventSegmentsEpoch)) {
+                int size = segment.endPos - segment.startPos;
+
+                if ((globalEvBufPos + size) > globalEvBufPosThreshold) {
+                    boolean wasSendingBuffer = sendingBuffer;
+                    sendingBuffer = true;
+                    externalActionsHandler.handleEventBufferDump(eventBuffer, 0, globalEvBufPos);
+                    globalEvBufPos = 0;
+                    sendingBuffer = wasSendingBuffer;
+                    bufferSent = true;
                 }
+
+                eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
+                globalEvBufPos = writeThreadId(eventBuffer, globalEvBufPos, segment.threadId);
+                System.arraycopy(segment.buffer, segment.startPos, eventBuffer, globalEvBufPos, size);
+                globalEvBufPos += size;
             }
+
+            ThreadInfo.releaseEventBuffer(segment.buffer);
         }
+
+        return bufferSent;
     }
 
     public static void init(ExternalActionsHandler h) {
@@ -546,20 +712,29 @@ public class ProfilerRuntime implements CommonConstants {
     }
 
     static void writeThreadCreationEvent(ThreadInfo ti) {
-        writeThreadCreationEvent(ti.thread, ti.getThreadId());
+        if (ti.isVirtualThreadGroup()) { // Virtual threads reusing this id are reported as a single thread
+            writeThreadCreationEvent(ThreadInfo.VIRTUAL_THREAD_GROUP_NAME + ti.getThreadId(), ti.thread.getClass().getName(), ti.getThreadId());
+        } else {
+            writeThreadCreationEvent(ti.thread, ti.getThreadId());
+        }
     }
 
     protected static void writeThreadCreationEvent(Thread thread, int threadId) {
         String threadName;
         String threadClassName = thread.getClass().getName();
-        int fullInfoLen;
         
         try {
             threadName = thread.getName();
         } catch (NullPointerException e) {
             threadName = "*Unknown thread ("+threadId+")*";  // NOI18N
         }
-        fullInfoLen = ((threadName.length() + threadClassName.length()) * 2) + 7;
+        writeThreadCreationEvent(threadName, threadClassName, threadId);
+    }
+
+    private static void writeThreadCreationEvent(String threadName, String threadClassName, int threadId) {
+        int fullInfoLen;
+
+        fullInfoLen = ((threadName.length() + threadClassName.length()) * 2) + 5 + MAX_THREAD_ID_SIZE;
         synchronized (eventBuffer) {
             if ((globalEvBufPos + fullInfoLen) > globalEvBufPosThreshold) {
                 sendingBuffer = true;
@@ -570,8 +745,7 @@ public class ProfilerRuntime implements CommonConstants {
 
             eventBuffer[globalEvBufPos++] = NEW_THREAD;
 
-            eventBuffer[globalEvBufPos++] = (byte) ((threadId >> 8) & 0xFF);
-            eventBuffer[globalEvBufPos++] = (byte) ((threadId) & 0xFF);
+            globalEvBufPos = writeThreadId(eventBuffer, globalEvBufPos, threadId);
 
             byte[] name = threadName.getBytes();
             int len = name.length;
@@ -603,31 +777,9 @@ public class ProfilerRuntime implements CommonConstants {
                 return;
             }
 
-            synchronized (eventBuffer) {
-                curPos = ti.evBufPos;
-
-                boolean globalBufNeedsDump = false;
-
-                // First check if the global buffer itself needs to be dumped
-                int evBufDumpLastPos = ti.evBufDumpLastPos;
-
-                if (((globalEvBufPos + curPos) - evBufDumpLastPos) > globalEvBufPosThreshold) {
-                    globalBufNeedsDump = true;
-                    sendingBuffer = true;
-                    externalActionsHandler.handleEventBufferDump(eventBuffer, 0, globalEvBufPos);
-                    globalEvBufPos = 0;
-                    sendingBuffer = false;
-                }
-
-                // Finally copy the local buffer into the global one
-                eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
-                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 8) & 0xFF);
-                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId) & 0xFF);
-                System.arraycopy(evBuf, evBufDumpLastPos, eventBuffer, globalEvBufPos, curPos - evBufDumpLastPos);
-                globalEvBufPos += (curPos - evBufDumpLastPos);
-                ti.evBufPos = 0;
-                ti.evBufDumpLastPos = 0;
-            }
+            handOffLocalBuffer(ti);
+            tryDrainEventSegments();
+            evBuf = ti.evBuf;
         }
 
         curPos = ti.evBufPos;
@@ -785,6 +937,7 @@ public class ProfilerRuntime implements CommonConstants {
 
     private static void doResetProfilerCollectors(int instrType) {
         ThreadInfo.resetThreadInfoTable();
+        eventSegmentsEpoch++; // Pending segments are dropped by drainEventSegments()
         globalEvBufPos = 0;
         knownMonitors = new HashSet();
 
@@ -830,8 +983,33 @@ public class ProfilerRuntime implements CommonConstants {
         buf[curPos++] = (byte) ((absTimeStamp >> 16) & 0xFF);
         buf[curPos++] = (byte) ((absTimeStamp >> 8) & 0xFF);
         buf[curPos++] = (byte) ((absTimeStamp) & 0xFF);
-        buf[curPos++] = (byte) ((tid >> 8) & 0xFF);
-        buf[curPos++] = (byte) ((tid) & 0xFF);
+
+        return writeThreadId(buf, curPos, tid);
+    }
+
+    /**
+     * Writes thread id as an unsigned variable-length integer, 7 bits per byte, lowest bits first. Ids below 16384
+     * take at most the 2 bytes used before, larger ids take up to MAX_THREAD_ID_SIZE bytes.
+     */
+    static int writeThreadId(byte[] buf, int curPos, int threadId) {
+        return writeVarInt(buf, curPos, threadId);
+    }
+
+    /**
+     * Writes method or class id in the same variable-length format as thread ids. Ids below 16384 take the 2 bytes
+     * used before, larger ids take up to MAX_METHOD_ID_SIZE bytes.
+     */
+    static int writeMethodId(byte[] buf, int curPos, int methodId) {
+        return writeVarInt(buf, curPos, methodId);
+    }
+
+    private static int writeVarInt(byte[] buf, int curPos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[curPos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buf[curPos++] = (byte) value;
 
         return curPos;
     }
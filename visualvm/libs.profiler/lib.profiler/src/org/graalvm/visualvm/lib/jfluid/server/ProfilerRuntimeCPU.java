@@ -323,7 +323,7 @@ public class ProfilerRuntimeCPU extends ProfilerRuntime {
         return -1;
     }
 
-    protected static void firstTimeMethodInvoke(final ThreadInfo ti, final char methodId) {
+    protected static void firstTimeMethodInvoke(final ThreadInfo ti, final int methodId) {
         if (enableFirstTimeMethodInvoke) {
             long absTimeStamp = Timers.getCurrentTimeInCounts();
             long threadTimeStamp = threadCPUTimerOn ? Timers.getThreadCPUTimeInNanos() : 0;
@@ -376,7 +376,7 @@ public class ProfilerRuntimeCPU extends ProfilerRuntime {
     }
 
     // ---------------------------------- Writing profiler events --------------------------------------
-    static void writeTimeStampedEvent(byte eventType, ThreadInfo ti, char methodId) {
+    static void writeTimeStampedEvent(byte eventType, ThreadInfo ti, int methodId) {
         int[] stackFrameIds = null;
         int currentStackDepth = 0;
         if (eventType == MARKER_ENTRY) {
@@ -399,8 +399,7 @@ public class ProfilerRuntimeCPU extends ProfilerRuntime {
         byte[] evBuf = ti.evBuf;
         if (!ti.isInitialized()) return;    // Reset collectors performed when we were already executing instrumentation code 
         evBuf[curPos++] = eventType;
-        evBuf[curPos++] = (byte) ((methodId >> 8) & 0xFF);
-        evBuf[curPos++] = (byte) ((methodId) & 0xFF);
+        curPos = writeMethodId(evBuf, curPos, methodId);
 
         // Note that in the code below, we write only the 7 low bytes of the 64-bit timestamp. The justification is that this saves
         // us some performance and memory, and 2^55 == 36028797018963968 ns == 36028797 sec == 10008 hr == 416 days is a sufficent
@@ -417,7 +416,7 @@ public class ProfilerRuntimeCPU extends ProfilerRuntime {
 
             if (DEBUG) {
                 System.out.println("ProfilerRuntimeCPU.DEBUG: Writing event (Abs) type = " + eventType + ", metodId = "
-                                   + (int) methodId + ", timestamp: " + absTimeStamp); // NOI18N
+                                   + methodId + ", timestamp: " + absTimeStamp); // NOI18N
             }
         }
 
@@ -433,7 +432,7 @@ public class ProfilerRuntimeCPU extends ProfilerRuntime {
 
             if (DEBUG) {
                 System.out.println("ProfilerRuntimeCPU.DEBUG: Writing event (CPU) type = " + eventType + ", metodId = "
-                                   + (int) methodId + ", timestamp: " + threadTimeStamp); // NOI18N
+                                   + methodId + ", timestamp: " + threadTimeStamp); // NOI18N
             }
         }
         if (stackFrameIds != null) {
@@ -47,7 +47,7 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
 
     // ---------------------------------- Profile Data Acquisition --------------------------------------
     /** Called upon entry into a special root method used for */
-    public static void markerMethodEntry(char methodId) {
+    public static void markerMethodEntry(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -81,14 +81,8 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
         }
 
         if (ti.stackDepth <= stackDepthLimit) {
-            // when methodId > 64K/2 is passed here using our instrumentation's sipush command at the call site, 
-            // it's treated here as a signed integer. Thus without
-            // the below fix we can get e.g. an ArrayIndexOutOfBoundsException(-32768) when methodId == 32768 (***)
-            int methodIdInt = methodId&0xff;
-            methodIdInt |= methodId&0xff00;
-
-            if (!instrMethodInvoked[methodIdInt]) {
-                instrMethodInvoked[methodIdInt] = true; // Mark this method as invoked
+            if (!instrMethodInvoked[methodId]) {
+                instrMethodInvoked[methodId] = true; // Mark this method as invoked
                 if (ti.rootMethodStackDepth > 0) { // marker method under root method - perform instrumentation of nearest callees
                     firstTimeMethodInvoke(ti, methodId);
                 }
@@ -103,12 +97,12 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
     }
 
     /** Called upon exit from the marker method. */
-    public static void markerMethodExit(char methodId) {
+    public static void markerMethodExit(int methodId) {
         markerMethodExit(NO_RET_VALUE, methodId);
     }
     
     /** Called upon exit from the marker method. */
-    public static void markerMethodExit(Object ret, char methodId) {
+    public static void markerMethodExit(Object ret, int methodId) {
         if (recursiveInstrumentationDisabled) {
             return;
         }
@@ -138,7 +132,7 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
     }
 
     /** Called upon entry into a non-root target application method */
-    public static void methodEntry(char methodId) {
+    public static void methodEntry(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -154,13 +148,9 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
             //System.out.println("++++++methodEntry, depth = " + ti.stackDepth + ", id = " + (int) methodId);
 
             if (ti.stackDepth <= stackDepthLimit) {
-                // See comment marked with (***)
-                int methodIdInt = methodId&0xff;
-                methodIdInt |= methodId&0xff00;
-
                 // Now check if it's the first invocation of this method, and if so, perform instrumentation of nearest callees
-                if (!instrMethodInvoked[methodIdInt]) {
-                    instrMethodInvoked[methodIdInt] = true; // Mark this method as invoked
+                if (!instrMethodInvoked[methodId]) {
+                    instrMethodInvoked[methodId] = true; // Mark this method as invoked
                     firstTimeMethodInvoke(ti, methodId);
                 }
 
@@ -172,7 +162,7 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
     }
 
     /** Called upon exit from the method. */
-    public static void methodExit(char methodId) {
+    public static void methodExit(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -208,13 +198,13 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
     }
 
     public static void resumeActiveTimers() {
-        writeTimeStampedEvent(THREADS_RESUMED, null, (char) 0); // FIXME: see above
+        writeTimeStampedEvent(THREADS_RESUMED, null, 0); // FIXME: see above
         changeAllThreadsInProfRuntimeMethodStatus(-1); // See the comment in suspendActiveTimers()
         recursiveInstrumentationDisabled = false;
     }
 
     /** Called upon entry into a root target application method */
-    public static void rootMethodEntry(char methodId) {
+    public static void rootMethodEntry(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -267,13 +257,9 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
                 }
             }
 
-            // See comment marked with (***)
-            int methodIdInt = methodId&0xff;
-            methodIdInt |= methodId&0xff00;
-            
             // Check if it's the first invocation of this method, and if so, perform instrumentation of its immediate callees
-            if (!instrMethodInvoked[methodIdInt]) {
-                instrMethodInvoked[methodIdInt] = true;
+            if (!instrMethodInvoked[methodId]) {
+                instrMethodInvoked[methodId] = true;
                 if (enableFirstTimeMethodInvoke) externalActionsHandler.handleFirstTimeMethodInvoke(methodId);
             }
 
@@ -288,7 +274,7 @@ public class ProfilerRuntimeCPUFullInstr extends ProfilerRuntimeCPU {
     public static void suspendActiveTimers() {
         changeAllThreadsInProfRuntimeMethodStatus(+1); // In case any instrumented method is called while we perform profiler work on behalf of this thread.
         recursiveInstrumentationDisabled = true;
-        writeTimeStampedEvent(THREADS_SUSPENDED, null, (char) 0); // FIXME: need a special event writing method or something
+        writeTimeStampedEvent(THREADS_SUSPENDED, null, 0); // FIXME: need a special event writing method or something
     }
 
     protected static void clearDataStructures() {
@@ -76,7 +76,7 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
 
     // ---------------------------------- Profile Data Acquisition --------------------------------------
     /** Called upon entry into a special root method used for */
-    public static void markerMethodEntry(char methodId) {
+    public static void markerMethodEntry(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -109,14 +109,8 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
         }
 
         if (ti.stackDepth <= stackDepthLimit) {
-            // when methodId > 64K/2 is passed here using our instrumentation's sipush command at the call site, 
-            // it's treated here as a signed integer. Thus without
-            // the below fix we can get e.g. an ArrayIndexOutOfBoundsException(-32768) when methodId == 32768 (***)
-            int methodIdInt = methodId&0xff;
-            methodIdInt |= methodId&0xff00;
-
-            if (!instrMethodInvoked[methodIdInt]) {
-                instrMethodInvoked[methodIdInt] = true; // Mark this method as invoked
+            if (!instrMethodInvoked[methodId]) {
+                instrMethodInvoked[methodId] = true; // Mark this method as invoked
                 if (ti.rootMethodStackDepth > 0) { // marker method under root method - perform instrumentation of nearest callees
                     firstTimeMethodInvoke(ti, methodId);
                 }
@@ -140,12 +134,12 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
     }
 
     /** Called upon exit from the marker method. */
-    public static void markerMethodExit(char methodId) {
+    public static void markerMethodExit(int methodId) {
       markerMethodExit(NO_RET_VALUE, methodId);
     }
     
     /** Called upon exit from the marker method. */
-    public static void markerMethodExit(Object ret, char methodId) {
+    public static void markerMethodExit(Object ret, int methodId) {
         if (recursiveInstrumentationDisabled) {
             return;
         }
@@ -183,7 +177,7 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
     }
 
     /** Called upon entry into a non-root target application method */
-    public static void methodEntry(char methodId) {
+    public static void methodEntry(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -199,13 +193,9 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
             //System.out.println("++++++methodEntry, depth = " + ti.stackDepth + ", id = " + (int) methodId);
 
             if (ti.stackDepth <= stackDepthLimit) {
-                // See comment marked with (***)
-                int methodIdInt = methodId&0xff;
-                methodIdInt |= methodId&0xff00;
-
                 // Now check if it's the first invocation of this method, and if so, perform instrumentation of nearest callees
-                if (!instrMethodInvoked[methodIdInt]) {
-                    instrMethodInvoked[methodIdInt] = true;
+                if (!instrMethodInvoked[methodId]) {
+                    instrMethodInvoked[methodId] = true;
                     firstTimeMethodInvoke(ti, methodId);
                 }
 
@@ -226,7 +216,7 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
     }
 
     /** Called upon exit from the method. */
-    public static void methodExit(char methodId) {
+    public static void methodExit(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -256,10 +246,6 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
             } else if (ti.stackDepth <= stackDepthLimit) {
                 if (!ti.sampleDue) {
                     // short path: not taking time stamp
-
-                    // See comment marked with (***)
-                    methodId = (char) ((int) methodId);
-
                     if (methodId <= MAX_METHOD_ID_FOR_COMPACT_FORMAT) {
                         writeCompactEvent(ti, (char) (METHOD_EXIT_COMPACT_MASK | methodId));
                     } else {
@@ -276,7 +262,7 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
     }
 
     /** Called upon entry into a root target application method */
-    public static void rootMethodEntry(char methodId) {
+    public static void rootMethodEntry(int methodId) {
         if (recursiveInstrumentationDisabled) {
             return; // See the comment at the recursiveInstrumentationDisabled variable declaration
         }
@@ -329,13 +315,9 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
                 }
             }
 
-            // See comment marked with (***)
-            int methodIdInt = methodId&0xff;
-            methodIdInt |= methodId&0xff00;
-            
             // Check if it's the first invocation of this method, and if so, perform instrumentation of its immediate callees
-            if (!instrMethodInvoked[methodIdInt]) {
-                instrMethodInvoked[methodIdInt] = true;
+            if (!instrMethodInvoked[methodId]) {
+                instrMethodInvoked[methodId] = true;
                 if (enableFirstTimeMethodInvoke) externalActionsHandler.handleFirstTimeMethodInvoke(methodId);
             }
 
@@ -364,7 +346,7 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
 
     // In order to optimize usage of the event buffer, we exploit the facts that:
     // (1) We have just a handful of different events, and thus their normal codes are small numbers, that need a few bits.
-    // (2) We rarely instrument more than a few thousand methods, so out of 16 bits of char methodId the upper two are usually unused
+    // (2) We rarely instrument more than a few thousand methods, so method ids usually fit into 14 bits
     // (3) Just two events, method entry and method exit, happen ~3 orders of magnitude more often than others.
     // (4) When performing sampled instrumentation profiling, most of method entry/exit events don't have a timestamp.
     // Given all these observations, we can encode unstamped method entry/exit events with method id <= MAX_METHOD_ID_FOR_COMPACT_FORMAT
@@ -384,13 +366,12 @@ public class ProfilerRuntimeCPUSampledInstr extends ProfilerRuntimeCPU {
     }
 
     /** Write an unstamped event, such as method entry/exit for a method whose id is > MAX_METHOD_ID_FOR_COMPACT_FORMAT */
-    static void writeUnstampedEvent(byte eventType, ThreadInfo ti, char methodId) {
-        // if (printEvents) System.out.println("*** Writing unstamped event " + (int) eventType + ", metodId = " + (int)methodId);
+    static void writeUnstampedEvent(byte eventType, ThreadInfo ti, int methodId) {
+        // if (printEvents) System.out.println("*** Writing unstamped event " + (int) eventType + ", metodId = " + methodId);
         byte[] evBuf = ti.evBuf;
         int curPos = ti.evBufPos; // It's important to use a local copy for evBufPos, so that evBufPos is at event boundary at any moment
         evBuf[curPos++] = eventType;
-        evBuf[curPos++] = (byte) ((methodId >> 8) & 0xFF);
-        evBuf[curPos++] = (byte) ((methodId) & 0xFF);
+        curPos = writeMethodId(evBuf, curPos, methodId);
         ti.evBufPos = curPos;
 
         if (curPos > ThreadInfo.evBufPosThreshold) {
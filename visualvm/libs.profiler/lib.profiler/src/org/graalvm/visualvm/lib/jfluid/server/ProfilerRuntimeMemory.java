@@ -90,6 +90,8 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
 
             allocatedInstArrayLength = aic.length;
         }
+
+        ProfilerRuntimeObjAlloc.resizeAllocCounters(aic.length);
     }
 
     /** Negative parameter means the depth is not limited. val == 0 means we should not take stack samples */
@@ -125,6 +127,8 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
 
         if (instrType == INSTR_OBJECT_LIVENESS) {
             ProfilerRuntimeObjLiveness.resetProfilerCollectors();
+        } else {
+            ProfilerRuntimeObjAlloc.resetAllocCounters();
         }
 
         classIdMap = new HashMap();
@@ -163,9 +167,9 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
         ti.inProfilingRuntimeMethod--;
 
         if (isObjectLiveness) {
-            ProfilerRuntimeObjLiveness.traceObjAlloc(instance, (char)classId);
+            ProfilerRuntimeObjLiveness.traceObjAlloc(instance, classId);
         } else {
-            ProfilerRuntimeObjAlloc.traceObjAlloc(instance, (char)classId);
+            ProfilerRuntimeObjAlloc.traceObjAlloc(instance, classId);
         }
     }
 
@@ -348,8 +352,7 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
         }
 
         eventBuffer[curPos++] = OBJ_ALLOC_STACK_TRACE;
-        eventBuffer[curPos++] = (byte) ((classId >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((classId) & 0xFF);
+        curPos = writeMethodId(eventBuffer, curPos, classId);
 
         eventBuffer[curPos++] = (byte) ((objSize >> 32) & 0xFF);
         eventBuffer[curPos++] = (byte) ((objSize >> 24) & 0xFF);
@@ -361,7 +364,7 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
         globalEvBufPos = curPos;
     }
 
-    protected static void writeObjGCEvent(long objectId) {
+    protected static void writeObjGCEvent(int classId, char epoch, int objCount) {
         if (eventBuffer == null) {
             return; // Instrumentation removal happened when we were in instrumentation 
         }
@@ -375,14 +378,13 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
             }
 
             eventBuffer[curPos++] = OBJ_GC_HAPPENED;
-            eventBuffer[curPos++] = (byte) ((objectId >> 56) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 48) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 40) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 32) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 24) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 16) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 8) & 0xFF);
-            eventBuffer[curPos++] = (byte) (objectId & 0xFF);
+            curPos = writeMethodId(eventBuffer, curPos, classId);
+            eventBuffer[curPos++] = (byte) ((epoch >> 8) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((epoch) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount >> 24) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount >> 16) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount >> 8) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount) & 0xFF);
             globalEvBufPos = curPos;
         }
     }
@@ -410,8 +412,7 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
         }
 
         eventBuffer[curPos++] = OBJ_LIVENESS_STACK_TRACE;
-        eventBuffer[curPos++] = (byte) ((classId >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((classId) & 0xFF);
+        curPos = writeMethodId(eventBuffer, curPos, classId);
         eventBuffer[curPos++] = (byte) ((epoch >> 8) & 0xFF);
         eventBuffer[curPos++] = (byte) ((epoch) & 0xFF);
         eventBuffer[curPos++] = (byte) ((objCount >> 24) & 0xFF);
@@ -25,7 +25,6 @@
 
 package org.graalvm.visualvm.lib.jfluid.server;
 
-
 /**
  * This class contains instrumentation methods for object allocation profiling.
  *
@@ -36,6 +35,13 @@ public class ProfilerRuntimeObjAlloc extends ProfilerRuntimeMemory {
 
     protected static boolean objAllocProfilingDisabled = true;
 
+    // Allocation counters are striped by thread, so that traceObjAlloc() does not contend on a single lock.
+    // Each stripe is only read, incremented, resized or reset while holding its own lock from counterLocks.
+    // Stripes are summed into allocatedInstancesCount only when the results are requested.
+    private static final int COUNTER_STRIPES = getCounterStripes();
+    private static final Object[] counterLocks = createCounterLocks();
+    private static volatile int[][] allocCounters;
+
     //~ Methods ------------------------------------------------------------------------------------------------------------------
 
     public static void enableProfiling(boolean v) {
@@ -64,7 +70,7 @@ public class ProfilerRuntimeObjAlloc extends ProfilerRuntimeMemory {
         }
     }
 
-    public static void traceObjAlloc(Object object, char classId) {
+    public static void traceObjAlloc(Object object, int classId) {
         if (objAllocProfilingDisabled) {
             return;
         }
@@ -99,12 +105,20 @@ public class ProfilerRuntimeObjAlloc extends ProfilerRuntimeMemory {
                 return;
             }
         } else {
-            // See comment marked with (***) in ProfilerRuntimeCPUFullInstr
-            classInt = classId&0xff;
-            classInt |= classId&0xff00;
+            classInt = classId;
         }
-        synchronized (allocatedInstancesCount) {
-            allocatedInstancesCount[classInt]++;
+        int[][] counters = allocCounters;
+
+        if (counters != null) {
+            int stripe = ti.threadId & (COUNTER_STRIPES - 1);
+
+            synchronized (counterLocks[stripe]) {
+                int[] stripeCounters = counters[stripe];
+
+                if (classInt < stripeCounters.length) {
+                    stripeCounters[classInt]++;
+                }
+            }
         }
 
         if (allocatedInstThreshold[classInt] <= 0) {
@@ -117,11 +131,107 @@ public class ProfilerRuntimeObjAlloc extends ProfilerRuntimeMemory {
         ti.inProfilingRuntimeMethod--;
     }
 
+    /** Stores the total number of allocated instances of each class to the counts array. */
+    public static void sumAllocatedInstancesCount(int[] counts) {
+        int[][] counters = allocCounters;
+
+        if ((counters == null) || (counts == null)) {
+            return;
+        }
+
+        int length = counts.length;
+
+        for (int i = 0; i < length; i++) {
+            counts[i] = 0;
+        }
+
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            synchronized (counterLocks[i]) {
+                int[] stripeCounters = counters[i];
+                int stripeLength = Math.min(length, stripeCounters.length);
+
+                for (int j = 0; j < stripeLength; j++) {
+                    counts[j] += stripeCounters[j];
+                }
+            }
+        }
+    }
+
+    static void resizeAllocCounters(int length) {
+        int[][] counters = allocCounters;
+
+        if (counters == null) {
+            return;
+        }
+
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            // swap under the stripe lock, so that no increment is made to the old array during the copy
+            synchronized (counterLocks[i]) {
+                int[] stripeCounters = counters[i];
+
+                if (stripeCounters.length < length) {
+                    int[] newStripeCounters = new int[length];
+                    System.arraycopy(stripeCounters, 0, newStripeCounters, 0, stripeCounters.length);
+                    counters[i] = newStripeCounters;
+                }
+            }
+        }
+    }
+
+    static void resetAllocCounters() {
+        int[][] counters = allocCounters;
+
+        if (counters == null) {
+            return;
+        }
+
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            synchronized (counterLocks[i]) {
+                counters[i] = new int[counters[i].length];
+            }
+        }
+    }
+
     protected static void clearDataStructures() {
         ProfilerRuntimeMemory.clearDataStructures();
+        allocCounters = null;
     }
 
     protected static void createNewDataStructures() {
         ProfilerRuntimeMemory.createNewDataStructures();
+        allocCounters = createAllocCounters();
+    }
+
+    private static int[][] createAllocCounters() {
+        int length = (allocatedInstancesCount != null) ? allocatedInstancesCount.length : 0;
+        int[][] counters = new int[COUNTER_STRIPES][];
+
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            counters[i] = new int[length];
+        }
+
+        return counters;
+    }
+
+    private static Object[] createCounterLocks() {
+        Object[] locks = new Object[COUNTER_STRIPES];
+
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        return locks;
+    }
+
+    private static int getCounterStripes() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+
+        // power of two, so that the stripe can be selected by masking the thread id
+        while ((stripes < (cpus * 2)) && (stripes < 64)) {
+            stripes <<= 1;
+        }
+
+        return stripes;
     }
 }
@@ -43,13 +43,18 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
     static class ProfilerRuntimeObjLivenessWeakRef extends WeakReference {
         //~ Instance fields ------------------------------------------------------------------------------------------------------
 
-        long objId;
+        // The object is identified by its class, allocation epoch and per-class allocation number
+        int classId;
+        char epoch;
+        int objCount;
 
         //~ Constructors ---------------------------------------------------------------------------------------------------------
 
-        ProfilerRuntimeObjLivenessWeakRef(Object obj, ReferenceQueue rq, long objId) {
+        ProfilerRuntimeObjLivenessWeakRef(Object obj, ReferenceQueue rq, int classId, char epoch, int objCount) {
             super(obj, rq);
-            this.objId = objId;
+            this.classId = classId;
+            this.epoch = epoch;
+            this.objCount = objCount;
         }
     }
 
@@ -208,12 +213,11 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
     }
 
     static void signalObjGC(ProfilerRuntimeObjLivenessWeakRef wr) {
-        long objectId = wr.objId;
         objSet.remove(wr);
-        writeObjGCEvent(objectId);
+        writeObjGCEvent(wr.classId, wr.epoch, wr.objCount);
     }
 
-    public static void traceObjAlloc(Object object, char classId) {
+    public static void traceObjAlloc(Object object, int classId) {
         if (objLivenessProfilingDisabled) {
             return;
         }
@@ -248,9 +252,7 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
                 return;
             }
         } else {
-            // See comment marked with (***) in ProfilerRuntimeCPUFullInstr
-            classInt = classId&0xff;
-            classInt |= classId&0xff00;
+            classInt = classId;
         }
 
         int objCount = 0;
@@ -263,9 +265,7 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
             //System.out.print("+++ Alloc object "); //System.out.print((int) classId); System.out.print(" "); System.out.println(object);
             char epoch = (char) GC.getCurrentGCEpoch();
 
-            // Generate a 64-bit object id. Make sure the function is the same at the tool side!
-            long objectId = (((long) classInt) << 48) | (((long) epoch) << 32) | ((long) objCount);
-            ProfilerRuntimeObjLivenessWeakRef wr = new ProfilerRuntimeObjLivenessWeakRef(object, rq, objectId);
+            ProfilerRuntimeObjLivenessWeakRef wr = new ProfilerRuntimeObjLivenessWeakRef(object, rq, classInt, epoch, objCount);
             objSet.put(wr);
 
             long objSize = getCachedObjectSize(classInt, object);
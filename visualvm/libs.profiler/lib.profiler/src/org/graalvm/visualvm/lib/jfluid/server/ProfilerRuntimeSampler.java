@@ -177,7 +177,7 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
 
             int curPos = globalEvBufPos;
 
-            if (curPos + 3 > globalEvBufPosThreshold) { // Dump the buffer
+            if (curPos + 1 + MAX_THREAD_ID_SIZE > globalEvBufPosThreshold) { // Dump the buffer
                 externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
                 curPos = 0;
             }
@@ -185,8 +185,7 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
             int threadId = tid.intValue();
             
             eventBuffer[curPos++] = THREAD_INFO_IDENTICAL;
-            eventBuffer[curPos++] = (byte) ((threadId >> 8) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((threadId) & 0xFF);
+            curPos = writeThreadId(eventBuffer, curPos, threadId);
             globalEvBufPos = curPos;
         }
 
@@ -197,7 +196,7 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
 
             int curPos = globalEvBufPos;
 
-            if (curPos + 6 + mids.length*4 > globalEvBufPosThreshold) { // Dump the buffer
+            if (curPos + 4 + MAX_THREAD_ID_SIZE + mids.length*4 > globalEvBufPosThreshold) { // Dump the buffer
                 externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
                 curPos = 0;
             }
@@ -206,8 +205,7 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
             int stackLen = mids.length;
             
             eventBuffer[curPos++] = THREAD_INFO;
-            eventBuffer[curPos++] = (byte) ((threadId >> 8) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((threadId) & 0xFF);
+            curPos = writeThreadId(eventBuffer, curPos, threadId);
             eventBuffer[curPos++] = (byte) ((status) & 0xFF);
             eventBuffer[curPos++] = (byte) ((stackLen >> 8) & 0xFF);
             eventBuffer[curPos++] = (byte) ((stackLen) & 0xFF);
@@ -1448,6 +1448,13 @@ public class ProfilerServer extends Thread implements CommonConstants {
             case Command.CHECK_CONNECTION:
                 sendSimpleResponseToClient(true, null);
 
+                break;
+            case Command.USE_FRAMED_EVENT_BUFFERS:
+                // Switch before answering, the client switches once it gets the response. No event buffer is sent
+                // in the meantime, since the client asks for it before it initiates profiling.
+                wireIO.setFramedEventBuffers(true);
+                sendSimpleResponseToClient(true, null);
+
                 break;
             case Command.SET_CHANGEABLE_INSTR_PARAMS:
                 boolean threadSampling;
@@ -41,7 +41,7 @@ public class ThreadInfo {
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
     static final int MAX_EVENT_ENTRIES_IN_LOCAL_BUFFER = 500; // Thread-local buffer, in events
-    static final int MAX_EVENT_SIZE = 1 + 2 + 7 + 7; // In bytes; comprises event type, method id, and two long timestamps
+    static final int MAX_EVENT_SIZE = 1 + ProfilerRuntime.MAX_METHOD_ID_SIZE + 7 + 7; // In bytes; comprises event type, method id, and two long timestamps
     static int evBufSize; // Size and threshold, same for each thread-local buffer
     static int evBufPosThreshold; // Size and threshold, same for each thread-local buffer
 
@@ -49,10 +49,25 @@ public class ThreadInfo {
         setDefaultEvBufParams();
     }
 
+    // Event buffers of finished threads, reused by new threads. Bounded, so that a burst of short-lived threads
+    // does not keep the memory allocated.
+    private static final int MAX_FREE_EVENT_BUFFERS = 256;
+    private static final byte[][] freeEventBuffers = new byte[MAX_FREE_EVENT_BUFFERS][]; // Guarded by itself
+    private static int nFreeEventBuffers;
+
+    // Virtual threads support. With -Dorg.graalvm.visualvm.lib.jfluid.server.virtualThreadIds=reuse the id of a finished
+    // virtual thread is given to the next new virtual thread, so the results contain at most as many virtual threads as
+    // were alive at the same time, each of them aggregating the calls of the virtual threads that used its id.
+    static final String VIRTUAL_THREAD_GROUP_NAME = "Virtual Threads #"; // NOI18N
+    private static final boolean REUSE_VIRTUAL_THREAD_IDS = "reuse".equals(System.getProperty("org.graalvm.visualvm.lib.jfluid.server.virtualThreadIds")); // NOI18N
+    private static final Class[] VIRTUAL_THREAD_CLASSES = getVirtualThreadClasses();
+    private static int[] freeVirtualThreadIds = new int[16];
+    private static int nFreeVirtualThreadIds;
+
     static Thread[] profilerServerThreads;
     static int nProfilerServerThreads;
     static int nProfiledAppThreads;
-    static ThreadInfo dummyThreadInfo = new ThreadInfo(null); // Used just to avoid null checks in some situations
+    static ThreadInfo dummyThreadInfo = new ThreadInfo(null, 0); // Used just to avoid null checks in some situations
     private static boolean profilingSuspended = false;
 
     // ThreadInfo hash table
@@ -79,14 +94,16 @@ public class ThreadInfo {
     long lastWaitStartTime; // Used in Code Region profiling for tracking wait times
     long threadEntryTime; // Used to support thread suspension and code fragment profiling
     private boolean initialized; // To signal that this thread is not initialized or was reset, so this threadInfo is unusable
+    private final boolean virtualThread;
     List parameters;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
-    private ThreadInfo(Thread thread) {
+    private ThreadInfo(Thread thread, int threadId) {
         this.thread = thread;
         inProfilingRuntimeMethod = 1; // To make possible trace method calls while ThreadInfo is initialized return immediately
-        threadId = nThreads & 0xFFFF;
+        this.threadId = threadId;
+        virtualThread = isVirtualThread(thread);
     }
 
     //~ Methods ------------------------------------------------------------------------------------------------------------------
@@ -234,7 +251,41 @@ public class ThreadInfo {
     }
 
     final void useEventBuffer() {
-        evBuf = new byte[evBufSize];
+        evBuf = allocateEventBuffer();
+    }
+
+    /** True if this is a virtual thread whose id is shared with other, already finished, virtual threads */
+    final boolean isVirtualThreadGroup() {
+        return virtualThread && REUSE_VIRTUAL_THREAD_IDS;
+    }
+
+    static byte[] allocateEventBuffer() {
+        byte[] buf = null;
+
+        synchronized (freeEventBuffers) {
+            if (nFreeEventBuffers > 0) {
+                buf = freeEventBuffers[--nFreeEventBuffers];
+                freeEventBuffers[nFreeEventBuffers] = null;
+            }
+        }
+
+        if ((buf != null) && (buf.length == evBufSize)) {
+            return buf;
+        }
+
+        return new byte[evBufSize];
+    }
+
+    static void releaseEventBuffer(byte[] buf) {
+        if (buf.length != evBufSize) {
+            return;
+        }
+
+        synchronized (freeEventBuffers) {
+            if (nFreeEventBuffers < MAX_FREE_EVENT_BUFFERS) {
+                freeEventBuffers[nFreeEventBuffers++] = buf;
+            }
+        }
     }
 
     void addParameter(Object par) {
@@ -346,21 +397,101 @@ public class ThreadInfo {
             ThreadInfo ti = tis[i];
 
             if (ti != null) {
-                Thread t = ti.thread;
-
-                if ((t != null) && !t.isAlive()) {
-                    if (ti.evBuf != null) {
-                        if (ti.evBufPos > 0) { // dump local event buffer
-                            ProfilerRuntimeCPU.copyLocalBuffer(ti);
-                        }
-                        ti.evBuf = null; // release results buffer
-                    }
-                    ti.thread = null; // release dead thread
-                    ti.parameters = null;
-                    hasDeadThreads = true;
+                releaseIfDead(ti, true);
+            }
+        }
+    }
+
+    /**
+     * Releases the thread, event buffer and (for reused virtual thread ids) the id of a finished thread.
+     * If copyBuffer is false, the remaining events are only handed off and copied into the global buffer later;
+     * that is used when threadInfosLock is held, since copying may need to wait for the eventBuffer lock.
+     */
+    private static boolean releaseIfDead(ThreadInfo ti, boolean copyBuffer) {
+        Thread t = ti.thread;
+
+        if ((t == null) || t.isAlive()) {
+            return false;
+        }
+
+        if (copyBuffer && (ti.evBuf != null) && (ti.evBufPos > 0)) { // dump local event buffer
+            ProfilerRuntimeCPU.copyLocalBuffer(ti);
+        }
+
+        synchronized (ti) {
+            if (ti.thread == null) {
+                return false; // Released concurrently
+            }
+
+            if (ti.evBuf != null) {
+                // The buffer goes with the handed off segment, or back to the pool if there was nothing to hand off
+                ProfilerRuntime.handOffLocalBuffer(ti, false);
+
+                if (ti.evBuf != null) {
+                    releaseEventBuffer(ti.evBuf);
+                    ti.evBuf = null; // release results buffer
                 }
             }
+
+            ti.thread = null; // release dead thread
+            ti.parameters = null;
+        }
+
+        if (ti.isVirtualThreadGroup()) {
+            synchronized (threadInfosLock) {
+                if (nFreeVirtualThreadIds == freeVirtualThreadIds.length) {
+                    int[] newIds = new int[nFreeVirtualThreadIds * 2];
+                    System.arraycopy(freeVirtualThreadIds, 0, newIds, 0, nFreeVirtualThreadIds);
+                    freeVirtualThreadIds = newIds;
+                }
+
+                freeVirtualThreadIds[nFreeVirtualThreadIds++] = ti.threadId;
+            }
+        }
+
+        hasDeadThreads = true;
+
+        return true;
+    }
+
+    private static Class[] getVirtualThreadClasses() {
+        String[] classNames = new String[] { "java.lang.VirtualThread", "java.lang.ThreadBuilders$BoundVirtualThread" }; // NOI18N
+        Class[] classes = new Class[classNames.length];
+        int nClasses = 0;
+
+        for (int i = 0; i < classNames.length; i++) {
+            try {
+                Class threadClass = Class.forName(classNames[i]);
+                classes[nClasses++] = threadClass;
+            } catch (ClassNotFoundException ex) {
+                // JDK without virtual threads
+            }
+        }
+
+        if (nClasses < classes.length) {
+            Class[] foundClasses = new Class[nClasses];
+            System.arraycopy(classes, 0, foundClasses, 0, nClasses);
+            classes = foundClasses;
+        }
+
+        return classes;
+    }
+
+    private static boolean isVirtualThread(Thread thread) {
+        if (thread == null) {
+            return false;
+        }
+
+        // Class comparison only, calling Thread.isVirtual() could re-enter the profiler runtime
+        Class threadClass = thread.getClass();
+
+        for (int i = 0; i < VIRTUAL_THREAD_CLASSES.length; i++) {
+            if (threadClass == VIRTUAL_THREAD_CLASSES[i]) {
+                return true;
+            }
         }
+
+        return false;
     }
 
     private static int getThreadHashCode(Thread t) {
@@ -386,6 +517,16 @@ public class ThreadInfo {
 
     private static void addThreadInfo(final ThreadInfo res, final Thread thread) {
         if (threadInfosSize >= ((threadInfos.length * 3) / 4)) {
+            // Before growing the table, drop finished threads. With many short-lived (typically virtual) threads
+            // this keeps the table proportional to the number of live threads.
+            for (int i = 0; i < threadInfos.length; i++) {
+                ThreadInfo ti = threadInfos[i];
+
+                if (ti != null) {
+                    releaseIfDead(ti, false);
+                }
+            }
+
             rehash();
         }
 
@@ -408,9 +549,14 @@ public class ThreadInfo {
                 return ti;
             }
 
-            ThreadInfo res = new ThreadInfo(thread);
+            ThreadInfo res;
+
+            if (REUSE_VIRTUAL_THREAD_IDS && (nFreeVirtualThreadIds > 0) && isVirtualThread(thread)) {
+                res = new ThreadInfo(thread, freeVirtualThreadIds[--nFreeVirtualThreadIds]);
+            } else {
+                res = new ThreadInfo(thread, nThreads++);
+            }
 
-            nThreads++;
             addThreadInfo(res, thread);
             res.inProfilingRuntimeMethod = 0;
 
@@ -419,7 +565,24 @@ public class ThreadInfo {
     }
 
     private static void rehash() {
-        int capacity = hasDeadThreads ? threadInfos.length : (threadInfos.length * 2) + 1;
+        int liveThreads = 0;
+
+        for (int i = 0; i < threadInfos.length; i++) {
+            ThreadInfo ti = threadInfos[i];
+
+            if ((ti != null) && (ti.thread != null)) {
+                liveThreads++;
+            }
+        }
+
+        int capacity = (threadInfos.length * 2) + 1;
+
+        if (hasDeadThreads && (liveThreads < (threadInfos.length / 2))) {
+            capacity = Math.max((liveThreads * 2) + 1, 3); // Shrink the table after many threads finished
+        } else if (hasDeadThreads && (liveThreads < ((threadInfos.length * 3) / 4))) {
+            capacity = threadInfos.length;
+        }
+
         ThreadInfo[] newTIs = new ThreadInfo[capacity];
         int size = 0;
 
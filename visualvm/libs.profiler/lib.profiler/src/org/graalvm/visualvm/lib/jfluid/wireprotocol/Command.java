@@ -88,6 +88,7 @@ public class Command {
     public static final int GET_HEAP_HISTOGRAM = 45;
     public static final int TAKE_THREAD_DUMP = 46;
     public static final int GET_CLASS_FILE_BYTES = 47;
+    public static final int USE_FRAMED_EVENT_BUFFERS = 48;
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
@@ -205,6 +206,8 @@ public class Command {
                 return "TAKE_THREAD_DUMP"; // NOI18N
             case GET_CLASS_FILE_BYTES:
                 return "GET_CLASS_FILE_BYTES";  // NOI18N
+            case USE_FRAMED_EVENT_BUFFERS:
+                return "USE_FRAMED_EVENT_BUFFERS";  // NOI18N
         }
 
         return "Unknown command"; // NOI18N
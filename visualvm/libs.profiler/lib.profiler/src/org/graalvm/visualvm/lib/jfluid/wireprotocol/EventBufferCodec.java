@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.wireprotocol;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * Encodes the event buffers carried by EventBufferDumpedCommand. Each connection (WireIO) owns one instance, so that
+ * the compressor, the decompressor and the buffers are reused for all dumps without being shared between connections.
+ * Encoding is only done by the thread sending through the WireIO, whose send methods are synchronized, and decoding only
+ * by the single thread receiving from it.
+ * <p>
+ * In the original format the whole buffer is written as one zlib stream preceded by its length. In the framed format,
+ * which is selected during the handshake by Command.USE_FRAMED_EVENT_BUFFERS, the buffer is split into frames of at most
+ * FRAME_SIZE bytes. Each frame is written as its compressed length followed by the compressed bytes, or, if they are not
+ * smaller, as the negated length followed by the raw bytes. The buffers used for compression thus stay small and
+ * incompressible data is not expanded.
+ *
+ * @author agent
+ */
+final class EventBufferCodec {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    static final int FRAME_SIZE = 64 * 1024;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private Deflater compressor;
+    private Inflater decompressor;
+    private byte[] compressedBytes = new byte[0];
+    private byte[] compressedInputBytes = new byte[0];
+    private volatile boolean framed;
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    boolean isFramed() {
+        return framed;
+    }
+
+    void setFramed(boolean framed) {
+        this.framed = framed;
+    }
+
+    void read(DataInput in, byte[] buffer) throws IOException {
+        if (decompressor == null) {
+            decompressor = new Inflater();
+        }
+        try {
+            if (framed) {
+                readFrames(in, buffer);
+            } else {
+                int compressedSize = in.readInt();
+
+                readCompressed(in, compressedSize);
+                if (inflate(buffer, 0) != buffer.length) {
+                    throw new IOException("Corrupted event buffer"); // NOI18N
+                }
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException(ex.getMessage());
+        }
+    }
+
+    void write(DataOutput out, byte[] buffer, int startPos, int bufSize) throws IOException {
+        if (compressor == null) {
+            compressor = new Deflater(Deflater.BEST_SPEED);
+        }
+        if (framed) {
+            writeFrames(out, buffer, startPos, bufSize);
+        } else {
+            // for small buffers, the compressed size can be somewhat larger than the original
+            if (compressedBytes.length < bufSize + 32) {
+                compressedBytes = new byte[bufSize + 32];
+            }
+            int compressedSize = 0;
+
+            compressor.reset();
+            compressor.setInput(buffer, startPos, bufSize);
+            compressor.finish();
+            while (!compressor.finished()) {
+                if (compressedSize == compressedBytes.length) { // incompressible data, deflate overhead did not fit
+                    byte[] newBytes = new byte[compressedBytes.length * 2];
+                    System.arraycopy(compressedBytes, 0, newBytes, 0, compressedSize);
+                    compressedBytes = newBytes;
+                }
+                compressedSize += compressor.deflate(compressedBytes, compressedSize, compressedBytes.length - compressedSize);
+            }
+            out.writeInt(compressedSize);
+            out.write(compressedBytes, 0, compressedSize);
+        }
+    }
+
+    private void readFrames(DataInput in, byte[] buffer) throws IOException, DataFormatException {
+        int pos = 0;
+
+        while (pos < buffer.length) {
+            int frameSize = in.readInt();
+
+            if (frameSize < 0) { // stored frame
+                frameSize = -frameSize;
+                if (frameSize > Math.min(FRAME_SIZE, buffer.length - pos)) {
+                    throw new IOException("Corrupted event buffer frame"); // NOI18N
+                }
+                in.readFully(buffer, pos, frameSize);
+                pos += frameSize;
+            } else {
+                if (frameSize == 0 || frameSize > FRAME_SIZE) {
+                    throw new IOException("Corrupted event buffer frame"); // NOI18N
+                }
+                readCompressed(in, frameSize);
+                pos += inflate(buffer, pos);
+            }
+        }
+    }
+
+    private void writeFrames(DataOutput out, byte[] buffer, int startPos, int bufSize) throws IOException {
+        if (compressedBytes.length < FRAME_SIZE) {
+            compressedBytes = new byte[FRAME_SIZE];
+        }
+        int pos = startPos;
+        int endPos = startPos + bufSize;
+
+        while (pos < endPos) {
+            int frameSize = Math.min(FRAME_SIZE, endPos - pos);
+            int compressedSize = 0;
+
+            compressor.reset();
+            compressor.setInput(buffer, pos, frameSize);
+            compressor.finish();
+            // Give up as soon as the compressed frame is not smaller than the raw one
+            while (!compressor.finished() && (compressedSize < frameSize)) {
+                compressedSize += compressor.deflate(compressedBytes, compressedSize, frameSize - compressedSize);
+            }
+            if (compressor.finished() && (compressedSize < frameSize)) {
+                out.writeInt(compressedSize);
+                out.write(compressedBytes, 0, compressedSize);
+            } else {
+                out.writeInt(-frameSize);
+                out.write(buffer, pos, frameSize);
+            }
+            pos += frameSize;
+        }
+    }
+
+    private void readCompressed(DataInput in, int compressedSize) throws IOException {
+        if (compressedInputBytes.length < compressedSize) {
+            compressedInputBytes = new byte[compressedSize];
+        }
+        in.readFully(compressedInputBytes, 0, compressedSize);
+        decompressor.reset();
+        decompressor.setInput(compressedInputBytes, 0, compressedSize);
+    }
+
+    /** Inflates the whole input set by readCompressed() into buffer from pos, returns the number of inflated bytes */
+    private int inflate(byte[] buffer, int pos) throws IOException, DataFormatException {
+        int startPos = pos;
+
+        while (!decompressor.finished()) {
+            int n = decompressor.inflate(buffer, pos, buffer.length - pos);
+
+            if ((n == 0) && (decompressor.needsInput() || decompressor.needsDictionary() || (pos == buffer.length))) {
+                throw new IOException("Corrupted event buffer"); // NOI18N
+            }
+            pos += n;
+        }
+
+        return pos - startPos;
+    }
+}
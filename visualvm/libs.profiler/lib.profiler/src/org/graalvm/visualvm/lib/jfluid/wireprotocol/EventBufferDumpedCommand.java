@@ -28,9 +28,6 @@ package org.graalvm.visualvm.lib.jfluid.wireprotocol;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.zip.DataFormatException;
-import java.util.zip.Deflater;
-import java.util.zip.Inflater;
 
 
 /**
@@ -91,47 +88,27 @@ public class EventBufferDumpedCommand extends Command {
         return eventBufferFileName;
     }
     
-    void readObject(ObjectInputStream in) throws IOException {
+    /** Called by WireIO, which passes the codec owned by its connection */
+    void readObject(ObjectInputStream in, EventBufferCodec codec) throws IOException {
         boolean hasBuffer;
         
         bufSize = in.readInt();
         hasBuffer = in.readBoolean();
         if (hasBuffer) {
-            int compressedSize = in.readInt();
-            byte[] compressedBuf = new byte[compressedSize];
-            Inflater decompressor = new Inflater();
-            
             buffer = new byte[bufSize];
-            in.readFully(compressedBuf);
-            decompressor.setInput(compressedBuf);
-            try {
-                int originalSize = decompressor.inflate(buffer);
-                assert originalSize==bufSize;
-            } catch (DataFormatException ex) {
-                throw new IOException(ex.getMessage());
-            } finally {
-                decompressor.end();
-            }
+            codec.read(in, buffer);
             eventBufferFileName = "";
         } else {
             eventBufferFileName = in.readUTF();
         }
     }
     
-    void writeObject(ObjectOutputStream out) throws IOException {
+    /** Called by WireIO, which passes the codec owned by its connection */
+    void writeObject(ObjectOutputStream out, EventBufferCodec codec) throws IOException {
         out.writeInt(bufSize);
         out.writeBoolean(buffer != null);
         if (buffer != null) {
-            Deflater compressor = new Deflater();
-            // for small buffers, the compressed size can be somewhat larger than the original  
-            byte[] compressedBytes = new byte[bufSize + 32]; 
-            int compressedSize;
-            
-            compressor.setInput(buffer,startPos,bufSize);
-            compressor.finish();
-            compressedSize = compressor.deflate(compressedBytes);
-            out.writeInt(compressedSize);
-            out.write(compressedBytes,0,compressedSize);
+            codec.write(out, buffer, startPos, bufSize);
         } else {
             out.writeUTF(eventBufferFileName);
         }
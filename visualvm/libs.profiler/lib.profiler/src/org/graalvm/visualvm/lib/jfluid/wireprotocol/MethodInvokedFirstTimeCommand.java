@@ -40,11 +40,11 @@ import java.io.ObjectOutputStream;
 public class MethodInvokedFirstTimeCommand extends Command {
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
-    private char methodId;
+    private int methodId;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
-    public MethodInvokedFirstTimeCommand(char methodId) {
+    public MethodInvokedFirstTimeCommand(int methodId) {
         super(METHOD_INVOKED_FIRST_TIME);
         this.methodId = methodId;
     }
@@ -62,14 +62,14 @@ public class MethodInvokedFirstTimeCommand extends Command {
 
     // for debugging
     public String toString() {
-        return super.toString() + ", methodId: " + ((int) methodId); // NOI18N
+        return super.toString() + ", methodId: " + methodId; // NOI18N
     }
 
     void readObject(ObjectInputStream in) throws IOException {
-        methodId = in.readChar();
+        methodId = in.readInt();
     }
 
     void writeObject(ObjectOutputStream out) throws IOException {
-        out.writeChar(methodId);
+        out.writeInt(methodId);
     }
 }
@@ -55,6 +55,7 @@ public class WireIO {
 
     private ObjectInputStream in;
     private ObjectOutputStream out;
+    private final EventBufferCodec eventBufferCodec = new EventBufferCodec();
     private long wasAlive;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
@@ -160,7 +161,11 @@ public class WireIO {
                                               + cmdType);
                 }
 
-                cmd.readObject(in);
+                if (cmd instanceof EventBufferDumpedCommand) {
+                    ((EventBufferDumpedCommand) cmd).readObject(in, eventBufferCodec);
+                } else {
+                    cmd.readObject(in);
+                }
 
                 if (DEBUG) {
                     System.out.println("WireIO.DEBUG:         command is: " + cmd); // NOI18N
@@ -292,7 +297,11 @@ public class WireIO {
 
         out.write(IS_COMPLEX_COMMAND);
         out.write(cmd.getType());
-        cmd.writeObject(out);
+        if (cmd instanceof EventBufferDumpedCommand) {
+            ((EventBufferDumpedCommand) cmd).writeObject(out, eventBufferCodec);
+        } else {
+            cmd.writeObject(out);
+        }
         out.flush();
     }
 
@@ -351,6 +360,18 @@ public class WireIO {
         out.flush();
     }
 
+    /**
+     * Switches event buffers carried by EventBufferDumpedCommand to the framed format, after both sides agreed on it
+     * by Command.USE_FRAMED_EVENT_BUFFERS. Must be called while no event buffer is being sent or received.
+     */
+    public synchronized void setFramedEventBuffers(boolean framed) {
+        eventBufferCodec.setFramed(framed);
+    }
+
+    public boolean isFramedEventBuffers() {
+        return eventBufferCodec.isFramed();
+    }
+
     public long wasAlive() {
         return wasAlive;
     }
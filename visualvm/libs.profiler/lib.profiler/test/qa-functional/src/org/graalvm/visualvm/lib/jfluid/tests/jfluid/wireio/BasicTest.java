@@ -101,7 +101,7 @@ public class BasicTest extends CommonWireIOTestCase {
             log("sending command " + cmd);
             wireIO.sendComplexCommand(cmd);
 
-            cmd = new MethodInvokedFirstTimeCommand('\0');
+            cmd = new MethodInvokedFirstTimeCommand(0);
             log("sending command " + cmd);
             wireIO.sendComplexCommand(cmd);
 
@@ -31,7 +31,10 @@ import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.management.openmbean.CompositeData;
@@ -767,6 +770,89 @@ public class StackTraceSnapshotBuilderTest {
         assertFalse(instance.threadNames.contains(ignoredThread));
     }
 
+    @Test
+    public void testReplayThreadDumps() throws Exception {
+        System.out.println("replay thread dumps");
+
+        final CountDownLatch started = new CountDownLatch(50);
+        final CountDownLatch finish = new CountDownLatch(1);
+        Thread[] threads = new Thread[50];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int depth = 20 + i;
+            threads[i] = new Thread("Replay thread " + i) {
+                public void run() { recurse(depth, started, finish); }
+            };
+            threads[i].start();
+        }
+        started.await();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        ThreadInfo[][] dumps = new ThreadInfo[20][];
+
+        for (int i = 0; i < dumps.length; i++) {
+            dumps[i] = threadBean.dumpAllThreads(false, false);
+        }
+        finish.countDown();
+
+        int samples = 0;
+        for (int i = 0; i < 200; i++) {
+            for (ThreadInfo[] dump : dumps) {
+                instance.addStacktrace(dump, ++samples);
+            }
+        }
+        long time = System.nanoTime();
+        for (int i = 0; i < 500; i++) {
+            for (ThreadInfo[] dump : dumps) {
+                instance.addStacktrace(dump, ++samples);
+            }
+        }
+        time = System.nanoTime() - time;
+        System.out.println("  " + dumps[0].length + " threads: " + (time / 500 / dumps.length) + " ns/sample"); // NOI18N
+
+        CPUResultsSnapshot snapshot = instance.createSnapshot(System.currentTimeMillis());
+        assertEquals(instance.methodInfos.size(), snapshot.nInstrMethods);
+        assertEquals(instance.methodInfos.size(), instance.methodInfoMap.size());
+        // the snapshot uses its own thread ids
+        List<String> threadNames = Arrays.asList(snapshot.getThreadNames());
+        for (int i = 0; i < threads.length; i++) {
+            int threadIndex = threadNames.indexOf(threads[i].getName());
+            assertTrue(threadIndex >= 0);
+            CPUCCTContainer container = snapshot.getContainerForThread(snapshot.getThreadIds()[threadIndex], CPUResultsSnapshot.METHOD_LEVEL_VIEW);
+            assertEquals(threads[i].getName(), container.getThreadName());
+            // the stacks did not change between the dumps, each frame was entered once
+            PrestimeCPUCCTNode node = container.getRootNode();
+            int recursions = 0;
+            while (node != null) {
+                if (node.getNodeName().endsWith("StackTraceSnapshotBuilderTest.recurse()")) { // NOI18N
+                    assertEquals(1, node.getNCalls());
+                    recursions++;
+                }
+                PrestimeCPUCCTNode child = null;
+                CCTNode[] children = node.getChildren();
+                for (int j = 0; children != null && j < children.length; j++) {
+                    PrestimeCPUCCTNode ch = (PrestimeCPUCCTNode) children[j];
+                    if (!ch.isSelfTimeNode()) {
+                        assertNull(child);
+                        child = ch;
+                    }
+                }
+                node = child;
+            }
+            assertEquals(20 + i + 1, recursions);
+        }
+    }
+
+    private static void recurse(int depth, CountDownLatch started, CountDownLatch finish) {
+        if (depth > 0) {
+            recurse(depth - 1, started, finish);
+        } else {
+            started.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException ex) {}
+        }
+    }
+
     private java.lang.management.ThreadInfo createThreadInfo(Thread t, StackTraceElement[] stack) {
         try {
             Constructor tinfoConstructor = java.lang.management.ThreadInfo.class.getDeclaredConstructor(
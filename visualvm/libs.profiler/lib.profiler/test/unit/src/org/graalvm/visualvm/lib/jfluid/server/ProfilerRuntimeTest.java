@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.server;
+
+import java.lang.reflect.Method;
+import junit.framework.TestCase;
+import org.graalvm.visualvm.lib.jfluid.global.CommonConstants;
+
+
+/**
+ * Test and microbenchmark for handing off thread-local event buffers to the global event buffer.
+ *
+ * @author agent
+ */
+public final class ProfilerRuntimeTest extends TestCase {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int EVENT_SIZE = 5;
+    private static final int N_THREADS = 8;
+    private static final int N_EVENTS = 200000;
+    private static final int N_ROUNDS = 5;
+    private static final int N_SHORT_LIVED_THREADS = 2000;
+    private static final int N_SHORT_LIVED_EVENTS = 1000;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private int[] lastEvents;
+    private long eventsCount;
+    private String error;
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        ThreadInfo.setDefaultEvBufParams();
+        ProfilerRuntime.init(new ProfilerRuntime.ExternalActionsHandler() {
+            public void handleEventBufferDump(byte[] eventBuffer, int startPos, int curPtrPos) {
+                processEvents(eventBuffer, startPos, curPtrPos);
+            }
+
+            public void handleFirstTimeMethodInvoke(int methodId) {}
+
+            public int handleFirstTimeVMObjectAlloc(String className, int definingClassLoaderId) {
+                return 0;
+            }
+
+            public void handleReflectiveInvoke(Method method) {}
+        });
+        ProfilerRuntime.createEventBuffer(64 * 1024);
+        lastEvents = new int[16];
+        eventsCount = 0;
+        error = null;
+    }
+
+    protected void tearDown() throws Exception {
+        ProfilerRuntime.eventBuffer = null;
+        super.tearDown();
+    }
+
+    /**
+     * Checks that events from concurrently writing threads are neither lost nor reordered within a thread,
+     * and reports the average time spent in the profiler per written event for 1 to N_THREADS threads, best of
+     * N_ROUNDS rounds.
+     */
+    public void testConcurrentCopyLocalBuffer() throws Exception {
+        // warm up
+        writeEventsConcurrently(N_THREADS);
+
+        for (int nThreads = 1; nThreads <= N_THREADS; nThreads *= 2) {
+            long bestTime = Long.MAX_VALUE;
+
+            for (int i = 0; i < N_ROUNDS; i++) {
+                lastEvents = new int[16];
+                eventsCount = 0;
+
+                bestTime = Math.min(bestTime, writeEventsConcurrently(nThreads));
+
+                assertNull(error, error);
+                assertEquals((long) nThreads * N_EVENTS, eventsCount);
+            }
+            System.out.println("ProfilerRuntimeTest: " + nThreads + " threads, " // NOI18N
+                               + ((double) bestTime / N_EVENTS / nThreads) + " ns per event"); // NOI18N
+        }
+    }
+
+    /**
+     * Checks that finished threads do not accumulate in the thread table and that their events are not lost.
+     */
+    public void testShortLivedThreads() throws Exception {
+        for (int i = 0; i < N_SHORT_LIVED_THREADS; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    writeEvents(N_SHORT_LIVED_EVENTS);
+                }
+            };
+
+            thread.start();
+            thread.join();
+        }
+
+        ProfilerRuntime.dumpEventBuffer();
+
+        assertNull(error, error);
+        assertEquals((long) N_SHORT_LIVED_THREADS * N_SHORT_LIVED_EVENTS, eventsCount);
+        assertTrue("Thread table not shrunk", ThreadInfo.getThreadInfos().length < 64); // NOI18N
+    }
+
+    /** Writes N_EVENTS events in each of nThreads threads and dumps the event buffer, returns the elapsed time */
+    private long writeEventsConcurrently(int nThreads) throws InterruptedException {
+        Thread[] threads = new Thread[nThreads];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    writeEvents(N_EVENTS);
+                }
+            };
+        }
+
+        long time = System.nanoTime();
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+
+        ProfilerRuntime.dumpEventBuffer();
+
+        return System.nanoTime() - time;
+    }
+
+    private void writeEvents(int nEvents) {
+        ThreadInfo ti = ThreadInfo.getThreadInfo();
+
+        synchronized (this) {
+            ti.initialize();
+            ti.useEventBuffer();
+        }
+
+        for (int i = 1; i <= nEvents; i++) {
+            int curPos = ti.evBufPos;
+
+            if (curPos > ThreadInfo.evBufPosThreshold) {
+                ProfilerRuntime.copyLocalBuffer(ti);
+                curPos = ti.evBufPos;
+            }
+
+            byte[] evBuf = ti.evBuf;
+
+            evBuf[curPos++] = CommonConstants.METHOD_ENTRY;
+            evBuf[curPos++] = (byte) ((i >> 24) & 0xFF);
+            evBuf[curPos++] = (byte) ((i >> 16) & 0xFF);
+            evBuf[curPos++] = (byte) ((i >> 8) & 0xFF);
+            evBuf[curPos++] = (byte) ((i) & 0xFF);
+            ti.evBufPos = curPos;
+        }
+    }
+
+    private void processEvents(byte[] buffer, int startPos, int endPos) {
+        int threadId = -1;
+        int pos = startPos;
+
+        while (pos < endPos) {
+            byte eventType = buffer[pos++];
+
+            switch (eventType) {
+                case CommonConstants.SET_FOLLOWING_EVENTS_THREAD:
+                    threadId = 0;
+
+                    for (int shift = 0; ; shift += 7) {
+                        byte b = buffer[pos++];
+                        threadId |= ((b & 0x7F) << shift);
+
+                        if (b >= 0) {
+                            break;
+                        }
+                    }
+
+                    break;
+                case CommonConstants.ADJUST_TIME:
+                    pos += 7;
+
+                    break;
+                case CommonConstants.METHOD_ENTRY:
+
+                    int event = ((buffer[pos] & 0xFF) << 24) | ((buffer[pos + 1] & 0xFF) << 16) | ((buffer[pos + 2] & 0xFF) << 8)
+                                | (buffer[pos + 3] & 0xFF);
+                    pos += (EVENT_SIZE - 1);
+
+                    if (threadId >= lastEvents.length) {
+                        int[] newLastEvents = new int[threadId * 2];
+                        System.arraycopy(lastEvents, 0, newLastEvents, 0, lastEvents.length);
+                        lastEvents = newLastEvents;
+                    }
+
+                    if ((error == null) && (event != (lastEvents[threadId] + 1))) {
+                        error = "Thread " + threadId + ": event " + event + " follows " + lastEvents[threadId]; // NOI18N
+                    }
+
+                    lastEvents[threadId] = event;
+                    eventsCount++;
+
+                    break;
+                default:
+                    error = "Unexpected event type " + eventType; // NOI18N
+
+                    return;
+            }
+        }
+    }
+}
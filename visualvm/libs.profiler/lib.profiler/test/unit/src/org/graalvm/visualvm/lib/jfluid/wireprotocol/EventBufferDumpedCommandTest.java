@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.wireprotocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import junit.framework.TestCase;
+import org.graalvm.visualvm.lib.jfluid.global.CommonConstants;
+
+
+/**
+ * Round-trip test and throughput microbenchmark for sending event buffers over WireIO, in both the original and the
+ * framed format.
+ *
+ * @author agent
+ */
+public final class EventBufferDumpedCommandTest extends TestCase {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int N_DUMPS = 200;
+    private static final int N_THREADS = 4;
+    private static final int N_HOT_METHODS = 40;
+    private static final int N_METHODS = 3000;
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    public void testCompressibleBuffers() throws IOException {
+        byte[] buffer = createEventBuffer();
+
+        int original = roundTrip(buffer, 100, BUFFER_SIZE - 100, N_DUMPS, false, "compressible");
+        int framed = roundTrip(buffer, 100, BUFFER_SIZE - 100, N_DUMPS, true, "compressible, framed");
+
+        assertTrue("Event data should compress: " + framed, framed < N_DUMPS * (BUFFER_SIZE / 10 * 6));
+        assertTrue("Framing overhead too big: " + original + " vs. " + framed, framed < original + original / 10);
+    }
+
+    public void testIncompressibleBuffers() throws IOException {
+        // event data which are already compressed cannot be compressed again
+        byte[] buffer = compress(createEventBuffer());
+
+        roundTrip(buffer, 0, BUFFER_SIZE, N_DUMPS / 10, false, "incompressible");
+        int framed = roundTrip(buffer, 0, BUFFER_SIZE, N_DUMPS / 10, true, "incompressible, framed");
+
+        // Incompressible frames are stored, so only the frame headers, the command itself and the 5 byte
+        // ObjectOutputStream block data header per 1K are added
+        int nFrames = (BUFFER_SIZE + EventBufferCodec.FRAME_SIZE - 1) / EventBufferCodec.FRAME_SIZE;
+        int maxDumpSize = BUFFER_SIZE + nFrames * 4 + (BUFFER_SIZE / 1024 + 1) * 5 + 64;
+        assertTrue("Stored frames should not be expanded: " + framed, framed <= (N_DUMPS / 10) * maxDumpSize);
+    }
+
+    public void testVaryingBufferSizes() throws IOException {
+        byte[] buffer = compress(createEventBuffer());
+        byte[] eventBuffer = createEventBuffer();
+
+        for (int size = 1; size <= BUFFER_SIZE; size *= 4) {
+            roundTrip(eventBuffer, 0, size, 1, false, null);
+            roundTrip(eventBuffer, 0, size, 1, true, null);
+            roundTrip(eventBuffer, BUFFER_SIZE - size, size, 1, true, null);
+            roundTrip(buffer, 0, size, 1, true, null);
+        }
+        // Frame boundaries
+        roundTrip(eventBuffer, 0, EventBufferCodec.FRAME_SIZE, 1, true, null);
+        roundTrip(eventBuffer, 0, EventBufferCodec.FRAME_SIZE + 1, 1, true, null);
+        roundTrip(eventBuffer, 0, EventBufferCodec.FRAME_SIZE * 2, 1, true, null);
+    }
+
+    public void testBufferFileNameInBothFormats() throws IOException {
+        for (int i = 0; i < 2; i++) {
+            boolean framed = i == 1;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            WireIO writer = new WireIO(out, null);
+
+            writer.setFramedEventBuffers(framed);
+            writer.sendComplexCommand(new EventBufferDumpedCommand(1234, "/tmp/buffer")); // NOI18N
+            out.close();
+
+            WireIO reader = new WireIO(null, new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            reader.setFramedEventBuffers(framed);
+            EventBufferDumpedCommand cmd = (EventBufferDumpedCommand) reader.receiveCommandOrResponse();
+
+            assertEquals(1234, cmd.getBufSize());
+            assertNull(cmd.getBuffer());
+            assertEquals("/tmp/buffer", cmd.getEventBufferFileName()); // NOI18N
+        }
+    }
+
+    /**
+     * Creates a buffer of method entry and exit events encoded as ProfilerRuntimeCPU writes them with both absolute and
+     * thread CPU timers on: event code, method id and two 7 byte timestamps. Events of each thread are preceded by
+     * SET_FOLLOWING_EVENTS_THREAD and the thread id. Threads mostly call a small set of hot methods.
+     */
+    private static byte[] createEventBuffer() {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        Random random = new Random(15);
+        int[][] stacks = new int[N_THREADS][64];
+        int[] depths = new int[N_THREADS];
+        long[] cpuTimes = new long[N_THREADS];
+        long absTime = 1000000000000L;
+        int maxEventSize = 1 + 5 + 7 + 7;
+        int pos = 0;
+
+        while (pos + 1 + 5 + maxEventSize <= buffer.length) {
+            int thread = random.nextInt(N_THREADS);
+            int[] stack = stacks[thread];
+            int events = 20 + random.nextInt(200);
+
+            buffer[pos++] = CommonConstants.SET_FOLLOWING_EVENTS_THREAD;
+            pos = writeVarInt(buffer, pos, thread + 1);
+            for (int i = 0; i < events && pos + maxEventSize <= buffer.length; i++) {
+                int methodId;
+
+                if (depths[thread] == 0 || (depths[thread] < stack.length && random.nextBoolean())) {
+                    methodId = random.nextInt(10) < 8 ? 1 + random.nextInt(N_HOT_METHODS) : 1 + random.nextInt(N_METHODS);
+                    stack[depths[thread]++] = methodId;
+                    buffer[pos++] = CommonConstants.METHOD_ENTRY;
+                } else {
+                    methodId = stack[--depths[thread]];
+                    buffer[pos++] = CommonConstants.METHOD_EXIT;
+                }
+                long delta = 20 + random.nextInt(random.nextInt(10) == 0 ? 5000 : 200);
+
+                absTime += delta;
+                cpuTimes[thread] += delta - random.nextInt(20);
+                pos = writeVarInt(buffer, pos, methodId);
+                pos = writeTimeStamp(buffer, pos, absTime);
+                pos = writeTimeStamp(buffer, pos, cpuTimes[thread]);
+            }
+        }
+        return buffer;
+    }
+
+    private static int writeVarInt(byte[] buffer, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int writeTimeStamp(byte[] buffer, int pos, long timeStamp) {
+        for (int shift = 48; shift >= 0; shift -= 8) {
+            buffer[pos++] = (byte) ((timeStamp >> shift) & 0xFF);
+        }
+        return pos;
+    }
+
+    private static byte[] compress(byte[] buffer) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        byte[] compressed = new byte[BUFFER_SIZE];
+        int size = 0;
+
+        deflater.setInput(buffer);
+        deflater.finish();
+        // repeat compressed data to fill the whole buffer
+        while (size < compressed.length) {
+            size += deflater.deflate(compressed, size, compressed.length - size);
+            if (deflater.finished()) {
+                deflater.reset();
+                deflater.setInput(buffer);
+                deflater.finish();
+            }
+        }
+        deflater.end();
+        return compressed;
+    }
+
+    /** Sends the buffer nDumps times through one connection and checks what is received, returns the number of bytes sent */
+    private int roundTrip(byte[] buffer, int startPos, int bufSize, int nDumps, boolean framed, String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        WireIO writer = new WireIO(out, null);
+        long time = System.nanoTime();
+
+        writer.setFramedEventBuffers(framed);
+        for (int i = 0; i < nDumps; i++) {
+            writer.sendComplexCommand(new EventBufferDumpedCommand(bufSize, buffer, startPos));
+        }
+        out.close();
+        long writeTime = System.nanoTime() - time;
+
+        WireIO reader = new WireIO(null, new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        byte[] expected = Arrays.copyOfRange(buffer, startPos, startPos + bufSize);
+
+        reader.setFramedEventBuffers(framed);
+        time = System.nanoTime();
+        for (int i = 0; i < nDumps; i++) {
+            EventBufferDumpedCommand cmd = (EventBufferDumpedCommand) reader.receiveCommandOrResponse();
+
+            assertEquals(bufSize, cmd.getBufSize());
+            assertTrue("Buffer " + i + " of size " + bufSize + " differs", Arrays.equals(expected, cmd.getBuffer()));
+        }
+        long readTime = System.nanoTime() - time;
+
+        if (name != null) {
+            long totalBytes = (long) bufSize * nDumps;
+
+            System.out.println(name + ": write " + (totalBytes * 1000 / writeTime) + " MB/s, read "
+                               + (totalBytes * 1000 / readTime) + " MB/s, compressed to " + (bytes.size() * 100L / totalBytes) + "%");
+        }
+        return bytes.size();
+    }
+}
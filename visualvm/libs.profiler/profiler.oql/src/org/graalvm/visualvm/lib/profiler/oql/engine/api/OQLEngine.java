@@ -24,6 +24,10 @@
  */
 package org.graalvm.visualvm.lib.profiler.oql.engine.api;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.graalvm.visualvm.lib.jfluid.heap.Heap;
@@ -37,8 +41,14 @@ import org.graalvm.visualvm.lib.profiler.oql.engine.api.impl.Snapshot;
  */
 final public class OQLEngine {
     final private static Logger LOGGER = Logger.getLogger(OQLEngine.class.getName());
+    final private Snapshot snapshot;
     final private OQLEngineImpl delegate;
     final private Heap heap;
+    // script engines are not thread safe, each running query uses its own delegate
+    final private Deque<OQLEngineImpl> idleDelegates = new ArrayDeque<>();
+    // running delegates and the visitors of their queries
+    final private Map<OQLEngineImpl, ObjectVisitor> runningDelegates = new ConcurrentHashMap<>();
+    final private ThreadLocal<OQLEngineImpl> currentDelegate = new ThreadLocal<>();
 
     /**
      * This represents a parsed OQL query
@@ -76,7 +86,9 @@ final public class OQLEngine {
     }
 
     public OQLEngine(Heap heap) {
-        delegate = new OQLEngineImpl(new Snapshot(heap, this));
+        snapshot = new Snapshot(heap, this);
+        delegate = new OQLEngineImpl(snapshot);
+        idleDelegates.add(delegate);
         this.heap = heap;
     }
 
@@ -94,26 +106,96 @@ final public class OQLEngine {
      */
     public void executeQuery(String query, ObjectVisitor visitor)
             throws OQLException {
-        delegate.executeQuery(query, visitor);
+        OQLEngineImpl running = acquireDelegate(visitor != null ? visitor : ObjectVisitor.DEFAULT);
+        OQLEngineImpl previous = currentDelegate.get();
+
+        currentDelegate.set(running);
+        try {
+            running.executeQuery(query, visitor);
+        } finally {
+            currentDelegate.set(previous);
+            releaseDelegate(running);
+        }
     }
 
     public OQLQuery parseQuery(String query) throws OQLException {
+        // parsing does not touch the script engine
         return delegate.parseQuery(query);
     }
 
+    /**
+     * Cancels all queries currently running on this engine.
+     * Use cancelQuery(ObjectVisitor) to cancel a single query.
+     */
     public void cancelQuery() throws OQLException {
-        delegate.cancelQuery();
+        for (OQLEngineImpl running : runningDelegates.keySet()) {
+            running.cancelQuery();
+        }
+    }
+
+    /**
+     * Cancels the queries currently running on this engine with the given visitor.
+     * Other queries running concurrently are not affected.
+     *
+     * @param visitor visitor passed to executeQuery
+     * @since 2.1
+     */
+    public void cancelQuery(ObjectVisitor visitor) throws OQLException {
+        if (visitor == null) visitor = ObjectVisitor.DEFAULT;
+        for (Map.Entry<OQLEngineImpl, ObjectVisitor> running : runningDelegates.entrySet()) {
+            if (running.getValue() == visitor) {
+                running.getKey().cancelQuery();
+            }
+        }
     }
 
     public Object unwrapJavaObject(Object object) {
-        return delegate.unwrapJavaObject(object);
+        return unwrapJavaObject(object, false);
     }
 
     public Object unwrapJavaObject(Object object, boolean tryAssociativeArray) {
-        return delegate.unwrapJavaObject(object, tryAssociativeArray);
+        OQLEngineImpl current = currentDelegate.get();
+
+        if (current != null) {
+            // called from visitor, object comes from the script engine of this query
+            return current.unwrapJavaObject(object, tryAssociativeArray);
+        }
+        current = acquireDelegate(null);
+        try {
+            return current.unwrapJavaObject(object, tryAssociativeArray);
+        } finally {
+            releaseDelegate(current);
+        }
     }
 
+    /**
+     * Returns true if the query running in the calling thread was cancelled.
+     * Returns false if no query is running in the calling thread.
+     */
     public boolean isCancelled() {
-        return delegate.isCancelled();
+        OQLEngineImpl current = currentDelegate.get();
+
+        return current != null && current.isCancelled();
+    }
+
+    private OQLEngineImpl acquireDelegate(ObjectVisitor visitor) {
+        OQLEngineImpl idle;
+
+        synchronized (idleDelegates) {
+            idle = idleDelegates.poll();
+        }
+        if (idle == null) {
+            // another query is running, the snapshot is shared read-only
+            idle = new OQLEngineImpl(snapshot);
+        }
+        if (visitor != null) runningDelegates.put(idle, visitor);
+        return idle;
+    }
+
+    private void releaseDelegate(OQLEngineImpl running) {
+        runningDelegates.remove(running);
+        synchronized (idleDelegates) {
+            idleDelegates.push(running);
+        }
     }
 }
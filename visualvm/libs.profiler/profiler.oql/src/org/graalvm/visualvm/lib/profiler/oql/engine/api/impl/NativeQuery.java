@@ -0,0 +1,637 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.profiler.oql.engine.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.graalvm.visualvm.lib.jfluid.heap.Instance;
+import org.graalvm.visualvm.lib.jfluid.heap.JavaClass;
+import org.graalvm.visualvm.lib.jfluid.heap.ObjectArrayInstance;
+import org.graalvm.visualvm.lib.jfluid.heap.PrimitiveArrayInstance;
+
+/**
+ * Evaluates the common subset of OQL select and where expressions directly
+ * against {@link Instance}s, without calling the script engine for every
+ * instance. Supported are the query identifier, field access, <code>length</code>,
+ * <code>id</code>, <code>clazz</code>, <code>sizeof()</code>, <code>rsizeof()</code>,
+ * <code>classof()</code>, number, string and boolean literals, arithmetic,
+ * comparison and boolean operators.
+ * <br>
+ * Values are converted the same way as in hat.js. If the result for an
+ * instance would depend on JavaScript semantics not implemented here,
+ * the instance is marked as {@link #UNSUPPORTED} and has to be evaluated
+ * by the script engine.
+ *
+ * @author agent
+ */
+final class NativeQuery {
+
+    /** Result for instances which do not satisfy the where clause */
+    static final Object NO_MATCH = new Object();
+    /** Result for instances which have to be evaluated by the script engine */
+    static final Object UNSUPPORTED = new Object();
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    // dedicated pool, so that long queries do not occupy the common ForkJoinPool
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final Node select;
+    private final Node where;
+
+    private NativeQuery(Node s, Node w) {
+        select = s;
+        where = w;
+    }
+
+    /**
+     * Compiles select and where expressions of the query.
+     * @return compiled query or <code>null</code> if the query uses unsupported
+     * constructs
+     */
+    static NativeQuery compile(OQLQueryImpl query) {
+        if (query.className == null || query.identifier == null) {
+            return null;
+        }
+        Node select = new Parser(query.selectExpr, query.identifier).parse();
+        Node where = null;
+
+        if (select == null || !select.isSelectable()) {
+            return null;
+        }
+        if (query.whereExpr != null) {
+            where = new Parser(query.whereExpr, query.identifier).parse();
+            if (where == null) {
+                return null;
+            }
+        }
+        return new NativeQuery(select, where);
+    }
+
+    /**
+     * Evaluates the query for the first <code>size</code> instances. Instances
+     * are evaluated in parallel, result for <code>instances[i]</code> is
+     * stored to <code>results[i]</code>. Once <code>cancelled</code> is set,
+     * remaining instances are skipped as {@link #NO_MATCH}.
+     */
+    void evaluate(final Instance[] instances, int size, final Object[] results, final AtomicBoolean cancelled)
+            throws InterruptedException, ExecutionException {
+        int parts = Math.min(THREADS, size);
+        List<Callable<Void>> tasks = new ArrayList<>(parts);
+
+        for (int part = 0; part < parts; part++) {
+            final int start = (int) ((long) size * part / parts);
+            final int end = (int) ((long) size * (part + 1) / parts);
+
+            tasks.add(() -> {
+                for (int i = start; i < end; i++) {
+                    results[i] = cancelled.get() ? NO_MATCH : evaluate(instances[i]);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : EXECUTOR.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    Object evaluate(Instance instance) {
+        try {
+            if (where != null && !isTrue(where.eval(instance))) {
+                return NO_MATCH;
+            }
+            return select.eval(instance);
+        } catch (UnsupportedValueException ex) {
+            return UNSUPPORTED;
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new EvaluatorThreadFactory());
+
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // same conversion as in OQLEngineImpl for the result of where clause
+    private static boolean isTrue(Object res) {
+        if (res instanceof Boolean) {
+            return ((Boolean) res).booleanValue();
+        } else if (res instanceof Number) {
+            return ((Number) res).intValue() != 0;
+        }
+        return res != null;
+    }
+
+    private static final class EvaluatorThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "OQL native evaluator " + THREAD_ID.incrementAndGet()); // NOI18N
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    //~ Values -------------------------------------------------------------------------------------------------------------------
+
+    private static final class UnsupportedValueException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private static final UnsupportedValueException INSTANCE = new UnsupportedValueException();
+
+        private UnsupportedValueException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static UnsupportedValueException unsupported() {
+        return UnsupportedValueException.INSTANCE;
+    }
+
+    private static double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        throw unsupported();
+    }
+
+    // JavaScript truthiness
+    private static boolean toBoolean(Object value) {
+        if (value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue();
+        } else if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            return d != 0 && !Double.isNaN(d);
+        } else if (value instanceof String) {
+            return !((String) value).isEmpty();
+        } else if (value instanceof Instance || value instanceof JavaClass) {
+            return true;
+        }
+        throw unsupported();
+    }
+
+    private static boolean isEqual(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return ((Number) left).doubleValue() == ((Number) right).doubleValue();
+        }
+        if ((left instanceof Boolean && right instanceof Boolean)
+            || (left instanceof String && right instanceof String)) {
+            return left.equals(right);
+        }
+        if (left instanceof JavaClass && right instanceof JavaClass) {
+            // class wrappers are cached in hat.js
+            return ((JavaClass) left).getJavaClassId() == ((JavaClass) right).getJavaClassId();
+        }
+        // instance wrappers are compared by identity in hat.js
+        throw unsupported();
+    }
+
+    private static int compare(Object left, Object right) {
+        if (left instanceof String && right instanceof String) {
+            return ((String) left).compareTo((String) right);
+        }
+        double l = toNumber(left);
+        double r = toNumber(right);
+
+        if (Double.isNaN(l) || Double.isNaN(r)) {
+            throw unsupported();
+        }
+        return Double.compare(l, r);
+    }
+
+    //~ Expression tree ----------------------------------------------------------------------------------------------------------
+
+    private abstract static class Node {
+
+        abstract Object eval(Instance instance);
+
+        /** Returns true if the value can be passed to visitor without conversion */
+        boolean isSelectable() {
+            return false;
+        }
+    }
+
+    private static final class Identifier extends Node {
+
+        Object eval(Instance instance) {
+            return instance;
+        }
+
+        boolean isSelectable() {
+            return true;
+        }
+    }
+
+    private static final class Literal extends Node {
+        private final Object value;
+
+        Literal(Object v) {
+            value = v;
+        }
+
+        Object eval(Instance instance) {
+            return value;
+        }
+    }
+
+    private static final class Property extends Node {
+        private final Node object;
+        private final String name;
+
+        Property(Node o, String n) {
+            object = o;
+            name = n;
+        }
+
+        Object eval(Instance instance) {
+            Object value = object.eval(instance);
+
+            if (value instanceof ObjectArrayInstance || value instanceof PrimitiveArrayInstance) {
+                Instance array = (Instance) value;
+
+                switch (name) {
+                    case "length": // NOI18N
+                        return Integer.valueOf(value instanceof ObjectArrayInstance ?
+                                ((ObjectArrayInstance) value).getLength() : ((PrimitiveArrayInstance) value).getLength());
+                    case "id": // NOI18N
+                        return Long.valueOf(array.getInstanceId());
+                    case "clazz": // NOI18N
+                        return array.getJavaClass();
+                    default:
+                        throw unsupported();
+                }
+            } else if (value instanceof Instance) {
+                Instance i = (Instance) value;
+
+                switch (name) {
+                    case "id": // NOI18N
+                        return Long.valueOf(i.getInstanceId());
+                    case "clazz": // NOI18N
+                        return i.getJavaClass();
+                    case "statics": // NOI18N
+                    case "toString": // NOI18N
+                    case "wrapped-object": // NOI18N
+                        throw unsupported();
+                    default:
+                        return i.getValueOfField(name);
+                }
+            } else if (value instanceof JavaClass) {
+                JavaClass cls = (JavaClass) value;
+
+                switch (name) {
+                    case "name": // NOI18N
+                        return cls.getName();
+                    case "id": // NOI18N
+                        return Long.valueOf(cls.getJavaClassId());
+                    case "instanceSize": // NOI18N
+                        return Integer.valueOf(cls.getInstanceSize());
+                    default:
+                        throw unsupported();
+                }
+            }
+            throw unsupported();
+        }
+
+        boolean isSelectable() {
+            // id would be converted by the script engine
+            return !"id".equals(name) && object.isSelectable(); // NOI18N
+        }
+    }
+
+    private static final class Function extends Node {
+        private final String name;
+        private final Node argument;
+
+        Function(String n, Node arg) {
+            name = n;
+            argument = arg;
+        }
+
+        Object eval(Instance instance) {
+            Object value = argument.eval(instance);
+
+            if (!(value instanceof Instance)) {
+                throw unsupported();
+            }
+            Instance i = (Instance) value;
+            switch (name) {
+                case "sizeof": // NOI18N
+                    return Long.valueOf(i.getSize());
+                case "rsizeof": // NOI18N
+                    return Long.valueOf(i.getRetainedSize());
+                case "classof": // NOI18N
+                    return i.getJavaClass();
+                default:
+                    throw unsupported();
+            }
+        }
+
+        boolean isSelectable() {
+            return "classof".equals(name) && argument.isSelectable(); // NOI18N
+        }
+    }
+
+    private static final class Unary extends Node {
+        private final String operator;
+        private final Node operand;
+
+        Unary(String op, Node o) {
+            operator = op;
+            operand = o;
+        }
+
+        Object eval(Instance instance) {
+            Object value = operand.eval(instance);
+
+            if ("!".equals(operator)) { // NOI18N
+                return Boolean.valueOf(!toBoolean(value));
+            }
+            return Double.valueOf(-toNumber(value));
+        }
+    }
+
+    private static final class Binary extends Node {
+        private final String operator;
+        private final Node left;
+        private final Node right;
+
+        Binary(String op, Node l, Node r) {
+            operator = op;
+            left = l;
+            right = r;
+        }
+
+        Object eval(Instance instance) {
+            Object l = left.eval(instance);
+
+            switch (operator) {
+                case "&&": // NOI18N
+                    return toBoolean(l) ? right.eval(instance) : l;
+                case "||": // NOI18N
+                    return toBoolean(l) ? l : right.eval(instance);
+            }
+            Object r = right.eval(instance);
+
+            switch (operator) {
+                case "==": // NOI18N
+                    return Boolean.valueOf(isEqual(l, r));
+                case "!=": // NOI18N
+                    return Boolean.valueOf(!isEqual(l, r));
+                case "===": // NOI18N
+                case "!==": // NOI18N
+                    if (l == null || r == null) {
+                        // null and undefined differ
+                        throw unsupported();
+                    }
+                    return Boolean.valueOf(isEqual(l, r) == "===".equals(operator)); // NOI18N
+                case "<": // NOI18N
+                    return Boolean.valueOf(compare(l, r) < 0);
+                case "<=": // NOI18N
+                    return Boolean.valueOf(compare(l, r) <= 0);
+                case ">": // NOI18N
+                    return Boolean.valueOf(compare(l, r) > 0);
+                case ">=": // NOI18N
+                    return Boolean.valueOf(compare(l, r) >= 0);
+                case "+": // NOI18N
+                    return Double.valueOf(toNumber(l) + toNumber(r));
+                case "-": // NOI18N
+                    return Double.valueOf(toNumber(l) - toNumber(r));
+                case "*": // NOI18N
+                    return Double.valueOf(toNumber(l) * toNumber(r));
+                case "/": // NOI18N
+                    return Double.valueOf(toNumber(l) / toNumber(r));
+                case "%": // NOI18N
+                    return Double.valueOf(toNumber(l) % toNumber(r));
+                default:
+                    throw unsupported();
+            }
+        }
+    }
+
+    //~ Parser -------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Recursive descent parser, which returns <code>null</code> for anything
+     * outside of the supported subset.
+     */
+    private static final class Parser {
+        private static final String[][] BINARY_OPERATORS = {
+            {"||"}, {"&&"}, {"===", "!==", "==", "!="}, {"<=", ">=", "<", ">"}, {"+", "-"}, {"*", "/", "%"} // NOI18N
+        };
+
+        private final List<String> tokens;
+        private final String identifier;
+        private int position;
+
+        Parser(String expression, String id) {
+            tokens = tokenize(expression);
+            identifier = id;
+        }
+
+        Node parse() {
+            if (tokens == null || tokens.isEmpty()) {
+                return null;
+            }
+            Node node = parseBinary(0);
+            return position == tokens.size() ? node : null;
+        }
+
+        private Node parseBinary(int level) {
+            if (level == BINARY_OPERATORS.length) {
+                return parseUnary();
+            }
+            Node left = parseBinary(level + 1);
+
+            while (left != null && position < tokens.size()) {
+                String token = tokens.get(position);
+                String operator = null;
+
+                for (String op : BINARY_OPERATORS[level]) {
+                    if (op.equals(token)) {
+                        operator = op;
+                        break;
+                    }
+                }
+                if (operator == null) {
+                    break;
+                }
+                position++;
+                Node right = parseBinary(level + 1);
+                left = right == null ? null : new Binary(operator, left, right);
+            }
+            return left;
+        }
+
+        private Node parseUnary() {
+            String token = next();
+
+            if ("!".equals(token) || "-".equals(token)) { // NOI18N
+                Node operand = parseUnary();
+                return operand == null ? null : new Unary(token, operand);
+            }
+            position--;
+            return parsePostfix();
+        }
+
+        private Node parsePostfix() {
+            Node node = parsePrimary();
+
+            while (node != null && ".".equals(peek())) { // NOI18N
+                position++;
+                String name = next();
+                node = isName(name) ? new Property(node, name) : null;
+            }
+            return node;
+        }
+
+        private Node parsePrimary() {
+            String token = next();
+
+            if (token == null) {
+                return null;
+            }
+            char first = token.charAt(0);
+            if (first == '(') {
+                Node node = parseBinary(0);
+                return ")".equals(next()) ? node : null; // NOI18N
+            }
+            if (first == '\'' || first == '"') {
+                return new Literal(token.substring(1, token.length() - 1));
+            }
+            if (Character.isDigit(first)) {
+                try {
+                    return new Literal(Double.valueOf(token));
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+            switch (token) {
+                case "true": // NOI18N
+                    return new Literal(Boolean.TRUE);
+                case "false": // NOI18N
+                    return new Literal(Boolean.FALSE);
+                case "null": // NOI18N
+                    return new Literal(null);
+                case "sizeof": // NOI18N
+                case "rsizeof": // NOI18N
+                case "classof": // NOI18N
+                    if ("(".equals(next())) { // NOI18N
+                        Node argument = parseBinary(0);
+                        if (argument != null && ")".equals(next())) { // NOI18N
+                            return new Function(token, argument);
+                        }
+                    }
+                    return null;
+            }
+            return token.equals(identifier) ? new Identifier() : null;
+        }
+
+        private String next() {
+            return position < tokens.size() ? tokens.get(position++) : null;
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private static boolean isName(String token) {
+            if (token == null || !Character.isJavaIdentifierStart(token.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < token.length(); i++) {
+                if (!Character.isJavaIdentifierPart(token.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static List<String> tokenize(String expression) {
+            List<String> tokens = new ArrayList<>();
+            int length = expression.length();
+            int i = 0;
+
+            while (i < length) {
+                char ch = expression.charAt(i);
+
+                if (Character.isWhitespace(ch)) {
+                    i++;
+                } else if (Character.isJavaIdentifierStart(ch)) {
+                    int start = i;
+                    while (i < length && Character.isJavaIdentifierPart(expression.charAt(i))) {
+                        i++;
+                    }
+                    tokens.add(expression.substring(start, i));
+                } else if (Character.isDigit(ch)) {
+                    int start = i;
+                    while (i < length && (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+                        i++;
+                    }
+                    tokens.add(expression.substring(start, i));
+                } else if (ch == '\'' || ch == '"') {
+                    int end = expression.indexOf(ch, i + 1);
+                    if (end == -1 || expression.substring(i, end).indexOf('\\') != -1) {
+                        return null;
+                    }
+                    tokens.add(expression.substring(i, end + 1));
+                    i = end + 1;
+                } else {
+                    String operator = null;
+                    for (String op : new String[] {"===", "!==", "==", "!=", "<=", ">=", "&&", "||"}) { // NOI18N
+                        if (expression.startsWith(op, i)) {
+                            operator = op;
+                            break;
+                        }
+                    }
+                    if (operator == null) {
+                        if ("<>+-*/%!().".indexOf(ch) == -1) {
+                            return null;
+                        }
+                        operator = String.valueOf(ch);
+                    }
+                    tokens.add(operator);
+                    i += operator.length();
+                }
+            }
+            return tokens;
+        }
+    }
+}
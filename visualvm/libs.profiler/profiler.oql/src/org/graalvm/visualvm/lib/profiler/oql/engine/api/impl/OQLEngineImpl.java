@@ -52,6 +52,8 @@ import org.openide.util.NbBundle;
 public class OQLEngineImpl {
     final private static Logger LOGGER = Logger.getLogger(OQLEngineImpl.class.getName());
 
+    private static final int NATIVE_BATCH_SIZE = 1024;
+
     private static boolean oqlSupported;
 
     static {
@@ -247,6 +249,7 @@ public class OQLEngineImpl {
             }
 
             if (q.className != null) {
+                NativeQuery nativeQuery = NativeQuery.compile(q);
                 Stack<JavaClass> toInspect = new Stack<>();
                 Set<JavaClass> inspected = new HashSet<>();
 
@@ -265,27 +268,15 @@ public class OQLEngineImpl {
                     }
                     Iterator<Instance> objectsIt = inspecting.getInstancesIterator();
 
-                    while (objectsIt.hasNext()) {
-                        Object wrapped = wrapJavaObject(objectsIt.next());
-                        boolean b = (whereCs == null);
-                        if (!b) {
-                            bindings.put(q.identifier, wrapped);
-                            Object res = whereCs.eval(bindings);
-                            if (res instanceof Boolean) {
-                                b = ((Boolean) res).booleanValue();
-                            } else if (res instanceof Number) {
-                                b = ((Number) res).intValue() != 0;
-                            } else {
-                                b = (res != null);
-                            }
+                    if (nativeQuery != null) {
+                        if (executeNative(nativeQuery, objectsIt, q, bindings, whereCs, selectCs, visitor)) {
+                            return;
                         }
-
-                        if (b) {
-                            bindings.put(q.identifier, wrapped);
-                            Object select = selectCs.eval(bindings);
-                            if (dispatchValue(select, visitor)) {
-                                return;
-                            }
+                        continue;
+                    }
+                    while (objectsIt.hasNext()) {
+                        if (executeScript(objectsIt.next(), q, bindings, whereCs, selectCs, visitor)) {
+                            return;
                         }
                     }
                 }
@@ -301,6 +292,64 @@ public class OQLEngineImpl {
         }
     }
 
+    // evaluates where and select expressions for the batches of instances natively,
+    // instances unsupported by NativeQuery are evaluated by the script engine
+    private boolean executeNative(NativeQuery nativeQuery, Iterator<Instance> objectsIt, OQLQueryImpl q,
+            Bindings bindings, CompiledScript whereCs, CompiledScript selectCs, ObjectVisitor visitor) throws Exception {
+        Instance[] instances = new Instance[NATIVE_BATCH_SIZE];
+        Object[] results = new Object[NATIVE_BATCH_SIZE];
+
+        while (objectsIt.hasNext()) {
+            int size = 0;
+
+            if (cancelled.get()) {
+                return true;
+            }
+            while (size < instances.length && objectsIt.hasNext()) {
+                instances[size++] = objectsIt.next();
+            }
+            nativeQuery.evaluate(instances, size, results, cancelled);
+            for (int i = 0; i < size && !cancelled.get(); i++) {
+                Object res = results[i];
+
+                if (res == NativeQuery.UNSUPPORTED) {
+                    if (executeScript(instances[i], q, bindings, whereCs, selectCs, visitor)) {
+                        return true;
+                    }
+                } else if (res != NativeQuery.NO_MATCH) {
+                    if (dispatchValue(res, visitor)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean executeScript(Instance instance, OQLQueryImpl q, Bindings bindings,
+            CompiledScript whereCs, CompiledScript selectCs, ObjectVisitor visitor) throws Exception {
+        Object wrapped = wrapJavaObject(instance);
+        boolean b = (whereCs == null);
+        if (!b) {
+            bindings.put(q.identifier, wrapped);
+            Object res = whereCs.eval(bindings);
+            if (res instanceof Boolean) {
+                b = ((Boolean) res).booleanValue();
+            } else if (res instanceof Number) {
+                b = ((Number) res).intValue() != 0;
+            } else {
+                b = (res != null);
+            }
+        }
+
+        if (b) {
+            bindings.put(q.identifier, wrapped);
+            Object select = selectCs.eval(bindings);
+            return dispatchValue(select, visitor);
+        }
+        return false;
+    }
+
     private boolean dispatchValue(Object jsObject, ObjectVisitor visitor) {
         if (jsObject == null) {
             return false;
@@ -32,6 +32,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -474,6 +476,32 @@ public class OQLEngineTest {
         assertTrue(counter[0] > 0);
     }
 
+    @Test
+    public void testNativeQuery() throws Exception {
+        System.out.println("native query");
+        final List<Object> nativeResult = new ArrayList<>();
+        final List<Object> scriptResult = new ArrayList<>();
+
+        // the first query is evaluated by NativeQuery, the function call in the second one forces script engine
+        instance.executeQuery("select s.value from java.lang.String s where s.value.length > 10 && sizeof(s) >= 24", new ObjectVisitor() {
+
+            public boolean visit(Object o) {
+                nativeResult.add(o);
+                return false;
+            }
+        });
+        instance.executeQuery("select s.value from java.lang.String s where (function(x) { return x.value.length > 10 && sizeof(x) >= 24; })(s)", new ObjectVisitor() {
+
+            public boolean visit(Object o) {
+                scriptResult.add(o);
+                return false;
+            }
+        });
+
+        assertFalse(nativeResult.isEmpty());
+        assertEquals(scriptResult, nativeResult);
+    }
+
     @Test
     public void testRoot() throws Exception {
         System.out.println("root");
@@ -745,4 +773,65 @@ public class OQLEngineTest {
             }
         });
     }
+
+    @Test
+    public void testCancelConcurrentQuery() throws Exception {
+        System.out.println("cancel concurrent query");
+
+        final String query = "select a from java.lang.String a";
+        final AtomicInteger total = new AtomicInteger();
+        instance.executeQuery(query, new ObjectVisitor() {
+            public boolean visit(Object o) {
+                total.incrementAndGet();
+                return false;
+            }
+        });
+        assertTrue(total.get() > 1);
+
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final ObjectVisitor[] visitors = new ObjectVisitor[2];
+        final AtomicInteger[] counts = new AtomicInteger[] { new AtomicInteger(), new AtomicInteger() };
+        final Exception[] errors = new Exception[2];
+        Thread[] threads = new Thread[2];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            visitors[i] = new ObjectVisitor() {
+                public boolean visit(Object o) {
+                    if (counts[index].incrementAndGet() == 1) {
+                        started.countDown();
+                        try {
+                            proceed.await();
+                        } catch (InterruptedException e) {
+                            return true;
+                        }
+                    }
+                    return instance.isCancelled();
+                }
+            };
+            threads[i] = new Thread("OQL query " + i) { // NOI18N
+                public void run() {
+                    try {
+                        instance.executeQuery(query, visitors[index]);
+                    } catch (Exception e) {
+                        errors[index] = e;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        started.await();
+
+        // only the query of the first visitor is cancelled
+        instance.cancelQuery(visitors[0]);
+        assertFalse(instance.isCancelled());
+        proceed.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertNull(errors[0]);
+        assertNull(errors[1]);
+        assertEquals(1, counts[0].get());
+        assertEquals(total.get(), counts[1].get());
+    }
 }
@@ -25,8 +25,16 @@
 
 package org.graalvm.visualvm.lib.profiler.snaptracer.impl.timeline;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.graalvm.visualvm.lib.charts.Timeline;
 import org.graalvm.visualvm.lib.charts.xy.synchronous.SynchronousXYItem;
 import org.graalvm.visualvm.lib.profiler.snaptracer.ProbeItemDescriptor;
@@ -35,17 +43,38 @@ import org.graalvm.visualvm.lib.profiler.snaptracer.impl.timeline.items.ValueIte
 /**
  * All methods must be invoked from the EDT.
  *
+ * Timestamps and values are stored in chunks of CHUNK_SIZE rows. Only the most
+ * recent HEAP_CHUNKS chunks are kept on heap, older chunks are moved to a
+ * temporary memory-mapped file.
+ *
  * @author Jiri Sedlacek
  */
 final class TimelineModel implements Timeline {
 
+    private static final Logger LOGGER = Logger.getLogger(TimelineModel.class.getName());
+
     private static final int STORAGE_BUFFER_STEP = 50;
 
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int HEAP_CHUNKS = 2;
+
     private int bufferStep;
 
     private int valuesCount;
-    private long[] timestamps;
-    private long[][] values;
+    private int itemsCount;
+
+    // [chunk][column], column 0 contains timestamps, column i + 1 values of item i
+    private LongBuffer[][] chunks;
+    private int chunksCount;
+    private int heapChunk; // first chunk kept on heap
+    private long[][] tail; // columns of the last chunk
+
+    private File spillFile;
+    private RandomAccessFile spillRaFile;
+    private long spillSize;
+    private boolean spillFailed; // do not try to spill again until reset
 
     private final List<TimelineXYItem> items = new ArrayList();
 
@@ -66,7 +95,6 @@ final class TimelineModel implements Timeline {
 
 
     TimelineXYItem[] createItems(ProbeItemDescriptor[] itemDescriptors) {
-        int itemsCount = values == null ? 0 : values.length;
         int addedItemsCount = itemDescriptors.length;
         TimelineXYItem[] itemsArr = new TimelineXYItem[addedItemsCount];
 
@@ -76,7 +104,7 @@ final class TimelineModel implements Timeline {
                 itemsArr[i] = new TimelineXYItem(d.getName(), d.getMinValue(),
                                                  d.getMaxValue(), itemsCount + i) {
                     public long getYValue(int valueIndex) {
-                        return values[getIndex()][valueIndex];
+                        return getValue(getIndex(), valueIndex);
                     }
                 };
             } else {
@@ -105,13 +133,14 @@ final class TimelineModel implements Timeline {
         updateStorage();
         
         // Check last timestamp whether greater than the new one
-        long lastTimestamp = valuesCount == 0 ? -1 : timestamps[valuesCount - 1];
+        long lastTimestamp = valuesCount == 0 ? -1 : getTimestamp(valuesCount - 1);
         // Silently increase timestamp, JVM was busy - timer out of sync
         if (lastTimestamp >= timestamp) timestamp = lastTimestamp + 1;
 
-        timestamps[valuesCount] = timestamp;
-        for (int i = 0; i < values.length; i++)
-            values[i][valuesCount] = newValues[i];
+        int offset = valuesCount & CHUNK_MASK;
+        tail[0][offset] = timestamp;
+        for (int i = 0; i < itemsCount; i++)
+            tail[i + 1][offset] = newValues[i];
 
         valuesCount++;
     }
@@ -120,26 +149,23 @@ final class TimelineModel implements Timeline {
     void reset() {
         valuesCount = 0;
 
-        timestamps = null;
-        if (values != null) {
-            if (values.length == 0) {
-                values = null;
-            } else {
-                for (int i = 0; i < values.length; i++)
-                    values[i] = new long[0];
-            }
-        }
+        chunks = new LongBuffer[4][];
+        chunksCount = 0;
+        heapChunk = 0;
+        tail = null;
+        spillFailed = false;
+
+        closeSpillFile();
     }
 
 
     private void addItemsImpl(int addedItemsCount) {
-        int newItemsCount = (values == null ? 0 : values.length) + addedItemsCount;
-        values = new long[newItemsCount][];
+        itemsCount += addedItemsCount;
         reset();
     }
 
     private void removeItemsImpl(int removedItemsCount) {
-        values = new long[values.length - removedItemsCount][];
+        itemsCount -= removedItemsCount;
         reset();
     }
 
@@ -149,22 +175,82 @@ final class TimelineModel implements Timeline {
     }
 
     public long getTimestamp(int index) {
-        return timestamps[index];
+        return chunks[index >>> CHUNK_BITS][0].get(index & CHUNK_MASK);
+    }
+
+    private long getValue(int itemIndex, int index) {
+        return chunks[index >>> CHUNK_BITS][itemIndex + 1].get(index & CHUNK_MASK);
     }
 
 
     private void updateStorage() {
-        if (timestamps == null) {
-            timestamps = new long[bufferStep];
-            for (int i = 0; i < values.length; i++)
-                values[i] = new long[bufferStep];
-        } else if (valuesCount == timestamps.length) {
-            timestamps = extendArray(timestamps, bufferStep);
-            for (int i = 0; i < values.length; i++)
-                values[i] = extendArray(values[i], bufferStep);
+        int offset = valuesCount & CHUNK_MASK;
+        if (offset == 0) {
+            if (chunksCount == chunks.length)
+                chunks = Arrays.copyOf(chunks, chunksCount * 2);
+            tail = new long[itemsCount + 1][bufferStep];
+            chunks[chunksCount++] = wrapColumns(tail);
+            if (!spillFailed && chunksCount - heapChunk > HEAP_CHUNKS) spillChunk();
+        } else if (offset == tail[0].length) {
+            int extent = Math.min(Math.max(bufferStep, offset), CHUNK_SIZE - offset);
+            for (int i = 0; i < tail.length; i++)
+                tail[i] = extendArray(tail[i], extent);
+            chunks[chunksCount - 1] = wrapColumns(tail);
         }
     }
 
+    private void spillChunk() {
+        LongBuffer[] columns = chunks[heapChunk];
+        try {
+            if (spillRaFile == null) {
+                spillFile = File.createTempFile("visualvm-tracer", ".tmp"); // NOI18N
+                spillFile.deleteOnExit();
+                spillRaFile = new RandomAccessFile(spillFile, "rw"); // NOI18N
+            }
+            long size = (long)columns.length * CHUNK_SIZE * Long.BYTES;
+            LongBuffer mapped = spillRaFile.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                                                             spillSize, size).asLongBuffer();
+            LongBuffer[] mappedColumns = new LongBuffer[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].rewind();
+                mapped.put(columns[i]);
+                mapped.position(i * CHUNK_SIZE);
+                mapped.limit((i + 1) * CHUNK_SIZE);
+                mappedColumns[i] = mapped.slice();
+                mapped.limit(mapped.capacity());
+                mapped.position((i + 1) * CHUNK_SIZE);
+            }
+            chunks[heapChunk++] = mappedColumns;
+            spillSize += size;
+        } catch (IOException e) {
+            LOGGER.log(Level.INFO, "Failed to store tracer data to a temporary file", e); // NOI18N
+            closeSpillFile();
+            spillFailed = true;
+        }
+    }
+
+    private void closeSpillFile() {
+        if (spillRaFile != null) {
+            try {
+                spillRaFile.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close tracer data file", e); // NOI18N
+            }
+            spillRaFile = null;
+            // Mapped chunks may still be referenced, the file is deleted on exit then
+            spillFile.delete();
+            spillFile = null;
+        }
+        spillSize = 0;
+    }
+
+    private static LongBuffer[] wrapColumns(long[][] columns) {
+        LongBuffer[] buffers = new LongBuffer[columns.length];
+        for (int i = 0; i < columns.length; i++)
+            buffers[i] = LongBuffer.wrap(columns[i]);
+        return buffers;
+    }
+
     private static long[] extendArray(long[] array, int extraLength) {
         int originalLength = array.length;
         long[] newArray = new long[originalLength + extraLength];
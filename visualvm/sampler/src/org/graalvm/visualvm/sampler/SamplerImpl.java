@@ -97,7 +97,9 @@ import org.graalvm.visualvm.lib.profiler.api.ProfilerDialogs;
 import org.graalvm.visualvm.profiling.presets.ProfilerPreset;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
+import org.graalvm.visualvm.sampler.spi.StackTraceSamplesProvider;
 import org.openide.util.ImageUtilities;
+import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
 
 /**
@@ -108,6 +110,9 @@ import org.openide.util.NbBundle;
 final class SamplerImpl {
 
     private static final Logger LOGGER = Logger.getLogger(SamplerImpl.class.getName());
+    
+    // use registered StackTraceSamplesProvider (JFR streaming) instead of thread dumps for CPU sampling
+    private static final boolean USE_SAMPLES_PROVIDER = Boolean.getBoolean("org.graalvm.visualvm.sampler.cpu.samplesProvider"); // NOI18N
 
     private static enum State { TERMINATED, INACTIVE, CPU, MEMORY, TRANSITION };
 
@@ -594,7 +599,15 @@ final class SamplerImpl {
                         }
                     };
                     
-                cpuSampler = new CPUSamplerSupport(application, ti, tcpu, snapshotDumper, threadDumper) {
+                StackTraceSamplesProvider.StackTraceSamples samples = null;
+                if (USE_SAMPLES_PROVIDER) {
+                    for (StackTraceSamplesProvider provider : Lookup.getDefault().lookupAll(StackTraceSamplesProvider.class)) {
+                        samples = provider.getStackTraceSamples(application);
+                        if (samples != null) break;
+                    }
+                }
+                    
+                cpuSampler = new CPUSamplerSupport(application, ti, samples, tcpu, snapshotDumper, threadDumper) {
                     protected Timer getTimer() { return SamplerImpl.this.getTimer(); }
                 };
                 SwingUtilities.invokeLater(new Runnable() {
@@ -38,9 +38,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.management.ThreadInfo;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import org.graalvm.visualvm.lib.common.ProfilingSettings;
 import org.graalvm.visualvm.lib.common.ProfilingSettingsPresets;
@@ -51,6 +57,7 @@ import org.graalvm.visualvm.lib.jfluid.results.cpu.CPUResultsSnapshot.NoDataAvai
 import org.graalvm.visualvm.lib.jfluid.results.cpu.StackTraceSnapshotBuilder;
 import org.graalvm.visualvm.lib.profiler.LoadedSnapshot;
 import org.graalvm.visualvm.lib.profiler.ResultsManager;
+import org.graalvm.visualvm.sampler.spi.StackTraceSamplesProvider;
 import org.openide.util.NbBundle;
 
 /**
@@ -60,9 +67,15 @@ import org.openide.util.NbBundle;
  */
 public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     
+    private static final Logger LOGGER = Logger.getLogger(CPUSamplerSupport.class.getName());
+    
+    // Maximum number of collected samples waiting for aggregation
+    private static final int SAMPLES_QUEUE_SIZE = 64;
+    
     private final Application application;
 
     private final ThreadInfoProvider threadInfoProvider;
+    private final StackTraceSamplesProvider.StackTraceSamples samplesSource;
     private final SnapshotDumper snapshotDumper;
     private final ThreadDumper threadDumper;
 
@@ -72,6 +85,7 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     private int refreshRate;
 
     private StackTraceSnapshotBuilder builder;
+    private int samplingRate;
 
     private volatile boolean sampleRunning;
     private final Object updateLock = new Object();
@@ -87,9 +101,14 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     private ThreadsCPU threadsCPU;
 
     public CPUSamplerSupport(Application application, ThreadInfoProvider tip, ThreadsCPU tcpu, SnapshotDumper snapshotDumper, ThreadDumper threadDumper) {
+        this(application, tip, null, tcpu, snapshotDumper, threadDumper);
+    }
+
+    public CPUSamplerSupport(Application application, ThreadInfoProvider tip, StackTraceSamplesProvider.StackTraceSamples samples, ThreadsCPU tcpu, SnapshotDumper snapshotDumper, ThreadDumper threadDumper) {
         this.application = application;
         
         threadInfoProvider = tip;
+        samplesSource = samples;
         threadsCPU = tcpu;
         this.snapshotDumper = snapshotDumper;
         this.threadDumper = threadDumper;
@@ -160,6 +179,7 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
         GenericFilter sf = settings.getInstrumentationFilter();
         InstrumentationFilter filter = new InstrumentationFilter(sf);
         builder = snapshotDumper.getNewBuilder(filter, samplingRate);
+        this.samplingRate = samplingRate;
         
         refresher.setRefreshRate(refreshRate);
 
@@ -175,9 +195,12 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
         });
 
         if (timer == null) timer = getTimer();
-        samplerTask = new SamplerTask(builder);
+        SamplerTask task = new SamplerTask(builder, samplingRate);
+        samplerTask = task;
 
-        timer.scheduleAtFixedRate(samplerTask, 0, samplingRate);
+        if (!task.start()) {
+            timer.scheduleAtFixedRate(task, 0, samplingRate);
+        }
         
         if (threadsCPU != null) {
             threadCPUTimer = new javax.swing.Timer(refreshRate, new ActionListener() {
@@ -224,6 +247,9 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
             timer.cancel();
             timer = null;
         }
+        if (samplesSource != null) {
+            samplesSource.stop();
+        }
         
         builder = null;  // release data
     }
@@ -232,12 +258,14 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     private void doRefreshImpl() {
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
-                if (samplerTask == null) return;
+                TimerTask task = samplerTask;
+                if (task == null) return;
                 if (!sampleRunning) {
                     synchronized (updateLock) {
                         lastLiveUpdate = currentLiveUpdate;
                         cpuView.refresh();
                     }
+                    cpuView.updateSamplingRate(1000f / samplingRate, ((SamplerTask)task).getAchievedRate());
                 } else {
                     SwingUtilities.invokeLater(this);
                 }
@@ -271,41 +299,157 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
             });
     }
 
+    private static final class Sample {
+        
+        final ThreadInfo[] infos;
+        final Map<String, Object>[] threads;
+        final long timestamp;
+        
+        Sample(ThreadInfo[] infos, long timestamp) {
+            this.infos = infos;
+            this.threads = null;
+            this.timestamp = timestamp;
+        }
+        
+        Sample(Map<String, Object>[] threads, long timestamp) {
+            this.infos = null;
+            this.threads = threads;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Collects thread dumps in the Timer thread and hands them over to a
+     * separate aggregator thread, so a slow StackTraceSnapshotBuilder does not
+     * delay the next dump and a slow dump does not block the live results.
+     * If an alternate samples source starts, the samples it delivers are
+     * queued instead and the task is not scheduled.
+     */
     private class SamplerTask extends TimerTask {
 
         private final StackTraceSnapshotBuilder builder;
+        private final int samplingRate;
         private final Set<String> samplingThreads = new HashSet<>();
+        private final BlockingQueue<Sample> samples = new ArrayBlockingQueue<>(SAMPLES_QUEUE_SIZE);
+        private final Thread aggregator;
+        private final AtomicInteger collectedSamples = new AtomicInteger();
+        private volatile int droppedSamples;
+        
+        // accessed in EDT only
+        private int lastCollectedSamples;
+        private long lastRateTime;
 
-        SamplerTask(StackTraceSnapshotBuilder builder) {
+        SamplerTask(StackTraceSnapshotBuilder builder, int samplingRate) {
             this.builder = builder;
+            this.samplingRate = samplingRate;
+            aggregator = new Thread(new Runnable() {
+                public void run() { aggregate(); }
+            }, "VisualVM CPU sampler aggregator"); // NOI18N
+            aggregator.setDaemon(true);
+            lastRateTime = System.nanoTime();
+        }
+
+        /**
+         * Starts the aggregator and the alternate samples source if available.
+         * @return true if the samples source delivers the samples, false if
+         * the task should be scheduled to dump the threads
+         */
+        boolean start() {
+            aggregator.start();
+            return samplesSource != null && samplesSource.start(samplingRate, new StackTraceSamplesProvider.SamplesListener() {
+                public void samplesAdded(Map<String, Object>[] threads, long timestamp) {
+                    addToQueue(new Sample(threads, timestamp));
+                }
+            });
+        }
+
+        public boolean cancel() {
+            if (samplesSource != null) {
+                samplesSource.stop();
+            }
+            aggregator.interrupt();
+            return super.cancel();
         }
 
         public void run() {
-            if (sampleRunning) return;
+            // do not catch up missed ticks with a burst of dumps after a slow one
+            if (System.currentTimeMillis() - scheduledExecutionTime() >= samplingRate) return;
+            try {
+                long start = System.nanoTime();
+                ThreadInfo[] infos = threadInfoProvider.dumpAllThreads();
+                long end = System.nanoTime();
+                // the threads were captured somewhere between start and end
+                addToQueue(new Sample(infos, start + (end - start) / 2));
+            } catch (Throwable ex) {
+                terminate();
+            }
+        }
+
+        private void addToQueue(Sample sample) {
+            collectedSamples.incrementAndGet();
+            while (!samples.offer(sample)) {
+                // aggregation is behind, drop the oldest sample
+                if (samples.poll() != null) droppedSamples++;
+            }
+        }
+
+        /**
+         * Returns the number of samples per second collected since the last call.
+         */
+        float getAchievedRate() {
+            long time = System.nanoTime();
+            int collected = collectedSamples.get();
+            float rate = (collected - lastCollectedSamples) * 1000000000f / Math.max(1, time - lastRateTime);
+            lastCollectedSamples = collected;
+            lastRateTime = time;
+            return rate;
+        }
+
+        private void aggregate() {
+            try {
+                while (!Thread.interrupted()) {
+                    addSample(samples.take());
+                }
+            } catch (InterruptedException ex) {
+                // sampling stopped
+            } catch (Throwable ex) {
+                terminate();
+                return;
+            }
+            // process samples collected before the sampling stopped
+            Sample sample;
+            while ((sample = samples.poll()) != null) {
+                addSample(sample);
+            }
+            if (droppedSamples > 0) {
+                LOGGER.log(Level.INFO, "Dropped {0} CPU samples not aggregated in time", droppedSamples); // NOI18N
+            }
+        }
+
+        private void addSample(Sample sample) {
             sampleRunning = true;
-            synchronized (updateLock) {
-                try {
-                    ThreadInfo[] infos = threadInfoProvider.dumpAllThreads();
-                    long timestamp = System.nanoTime();
-                    String samplingThreadName = findSamplingThread(infos);
-                    if (samplingThreadName != null) {
-                        if (samplingThreads.add(samplingThreadName)) {
-//                                System.out.println("New ignored thread: "+samplingThreadName);
-                            builder.setIgnoredThreads(samplingThreads);
+            try {
+                synchronized (updateLock) {
+                    if (sample.infos != null) {
+                        String samplingThreadName = findSamplingThread(sample.infos);
+                        if (samplingThreadName != null) {
+                            if (samplingThreads.add(samplingThreadName)) {
+//                                    System.out.println("New ignored thread: "+samplingThreadName);
+                                builder.setIgnoredThreads(samplingThreads);
+                            }
                         }
+                        builder.addStacktrace(sample.infos, sample.timestamp);
+                    } else {
+                        builder.addStacktrace(sample.threads, sample.timestamp);
                     }
-                    builder.addStacktrace(infos, timestamp);
-
-                    currentLiveUpdate = timestamp / 1000000;
-                    if (currentLiveUpdate - lastLiveUpdate >= refreshRate)
-                        refresher.refresh();
 
-                } catch (Throwable ex) {
-                    terminate();
-                } finally {
-                    sampleRunning = false;
+                    currentLiveUpdate = sample.timestamp / 1000000;
                 }
+            } finally {
+                sampleRunning = false;
             }
+            if (currentLiveUpdate - lastLiveUpdate >= refreshRate)
+                refresher.refresh();
         }
 
         private String findSamplingThread(ThreadInfo[] infos) {
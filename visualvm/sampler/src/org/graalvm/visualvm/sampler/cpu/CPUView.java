@@ -35,6 +35,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
 import java.awt.event.ItemEvent;
+import java.text.NumberFormat;
 import javax.swing.AbstractAction;
 import javax.swing.AbstractButton;
 import javax.swing.Action;
@@ -84,7 +85,11 @@ import org.openide.util.NbBundle;
     "MethodsFeatureUI_profilingData=Collected data:",
     "MethodsFeatureUI_snapshot=Snapshot",
     "MethodsFeatureUI_showAbsolute=Show absolute values",
-    "MethodsFeatureUI_showDeltas=Show delta values"
+    "MethodsFeatureUI_showDeltas=Show delta values",
+    "MethodsFeatureUI_samplingRate=Sampling:",
+    "# {0} - achieved samples per second, {1} - requested samples per second",
+    "MethodsFeatureUI_samplingRateValue={0} of {1} samples/s",
+    "MethodsFeatureUI_samplingRateTooltip=Achieved and requested sampling rate"
 })
 final class CPUView extends JPanel {
     
@@ -144,6 +149,13 @@ final class CPUView extends JPanel {
 //        pdResetResultsButton.setEnabled(pdSnapshotButton.isEnabled());
     }
     
+    void updateSamplingRate(float requestedRate, float achievedRate) {
+        NumberFormat format = NumberFormat.getNumberInstance();
+        format.setMaximumFractionDigits(1);
+        srValueLabel.setText(Bundle.MethodsFeatureUI_samplingRateValue(
+                format.format(achievedRate), format.format(requestedRate)));
+    }
+    
     void starting() {
         lrPauseButton.setEnabled(true);
         lrRefreshButton.setEnabled(false);
@@ -177,6 +189,9 @@ final class CPUView extends JPanel {
     
     private JLabel pdLabel;
     private JButton pdSnapshotButton;
+    
+    private JLabel srLabel;
+    private JLabel srValueLabel;
 //    private JButton pdResetResultsButton;
     
     private boolean popupPause;
@@ -388,6 +403,19 @@ final class CPUView extends JPanel {
 //        toolbar.addSpace(3);
 //        toolbar.add(pdResetResultsButton);
         
+        srLabel = new GrayLabel(Bundle.MethodsFeatureUI_samplingRate());
+        srLabel.setToolTipText(Bundle.MethodsFeatureUI_samplingRateTooltip());
+        srValueLabel = new JLabel();
+        srValueLabel.setToolTipText(Bundle.MethodsFeatureUI_samplingRateTooltip());
+        
+        toolbar.addSpace(2);
+        toolbar.addSeparator();
+        toolbar.addSpace(5);
+        
+        toolbar.add(srLabel);
+        toolbar.addSpace(2);
+        toolbar.add(srValueLabel);
+        
         toolbar.addFiller();
         
         threaddumpButton = new JButton(NbBundle.getMessage(CPUView.class, "LBL_Thread_dump")) { // NOI18N
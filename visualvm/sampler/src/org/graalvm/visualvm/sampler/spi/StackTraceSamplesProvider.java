@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2026, 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.sampler.spi;
+
+import java.util.Map;
+import org.graalvm.visualvm.application.Application;
+
+/**
+ * Provides stack trace samples of an application from an alternate source
+ * than periodic ThreadMXBean thread dumps. Registered providers are looked up
+ * in the default Lookup.
+ *
+ * @author agent
+ */
+public interface StackTraceSamplesProvider {
+
+    /**
+     * Returns the samples source for the application.
+     *
+     * @param app application to be sampled
+     * @return samples source or null if the application is not supported
+     */
+    StackTraceSamples getStackTraceSamples(Application app);
+
+    public interface StackTraceSamples {
+
+        /**
+         * Starts sampling. The samples are delivered asynchronously to the
+         * listener in the order of their timestamps.
+         *
+         * @param samplingRate sampling period in milliseconds
+         * @param listener listener to receive the samples
+         * @return true if sampling started, false if the source is not
+         * available and the thread dumps should be sampled instead
+         */
+        boolean start(int samplingRate, SamplesListener listener);
+
+        void stop();
+    }
+
+    public interface SamplesListener {
+
+        /**
+         * Called for each sample. Each thread is described the same way as for
+         * StackTraceSnapshotBuilder.addStacktrace(Map[], long) - "name", "tid",
+         * "stack", "state" and optionally "threadCpuTime".
+         *
+         * @param threads sampled threads
+         * @param timestamp sample time in nanoseconds
+         */
+        void samplesAdded(Map<String, Object>[] threads, long timestamp);
+    }
+}
@@ -25,8 +25,6 @@
 
 package org.graalvm.visualvm.tools.jmx;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
@@ -43,6 +41,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.WeakHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import javax.management.Attribute;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
@@ -51,8 +50,10 @@ import javax.management.MBeanException;
 import javax.management.MBeanServerConnection;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
-import javax.swing.Timer;
-import org.graalvm.visualvm.core.VisualVM;
+import org.graalvm.visualvm.core.scheduler.Quantum;
+import org.graalvm.visualvm.core.scheduler.ScheduledTask;
+import org.graalvm.visualvm.core.scheduler.Scheduler;
+import org.graalvm.visualvm.core.scheduler.SchedulerTask;
 
 /**
  * <p>The {@code CachedMBeanServerConnectionFactory} class is a factory class that
@@ -186,7 +187,7 @@ public final class CachedMBeanServerConnectionFactory {
 
         private final MBeanServerConnection conn;
         private final int interval;
-        private Timer timer = null;
+        private ScheduledTask timer = null;
         private Map<ObjectName, NameValueMap> cachedValues = new HashMap<>();
         private Map<ObjectName, Set<String>> cachedNames = new HashMap<>();
         private List<MBeanCacheListener> listenerList = new CopyOnWriteArrayList<>();
@@ -201,27 +202,24 @@ public final class CachedMBeanServerConnectionFactory {
             this.conn = conn;
             this.interval = interval;
             if (interval > 0) {
-                timer = new Timer(interval, new ActionListener() {
-                    public void actionPerformed(ActionEvent e) {
+                timer = Scheduler.sharedInstance().schedule(new SchedulerTask() {
+                    public void onSchedule(long timeStamp) {
                         intervalElapsed();
                     }
-                });
-                timer.setCoalesce(true);
-                timer.start();
+                }, new Quantum(TimeUnit.MILLISECONDS, interval), false);
             }
         }
 
         void intervalElapsed() {
             if (flushRunning) return;
             flushRunning = true;
-            VisualVM.getInstance().runTask(new Runnable() {
-                public void run() {
-                    flush();
-                    connectionPinger();
-                    notifyListeners();
-                    flushRunning = false;
-                }
-            });
+            try {
+                flush();
+                connectionPinger();
+                notifyListeners();
+            } finally {
+                flushRunning = false;
+            }
         }
 
         void notifyListeners() {
@@ -234,7 +232,7 @@ public final class CachedMBeanServerConnectionFactory {
             try {
                 conn.getDefaultDomain();
             } catch (Exception e) {
-                timer.stop();
+                Scheduler.sharedInstance().unschedule(timer);
                 listenerList.clear();
                 cachedValues.clear();
                 cachedNames.clear();